@@ -4,6 +4,9 @@ import java.util.ResourceBundle;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import com.foxinmy.weixin4j.http.factory.HttpClientFactory;
+import com.foxinmy.weixin4j.http.weixin.AsyncWeixinHttpClient;
+import com.foxinmy.weixin4j.http.weixin.SSLHttpClientCache;
 import com.foxinmy.weixin4j.http.weixin.WeixinHttpClient;
 
 /**
@@ -17,7 +20,87 @@ import com.foxinmy.weixin4j.http.weixin.WeixinHttpClient;
  * @see <a href="http://qydev.weixin.qq.com/wiki/index.php">微信企业号API文档</a>
  */
 public abstract class BaseApi {
-	protected final WeixinHttpClient weixinClient = new WeixinHttpClient();
+	private volatile HttpClientFactory httpClientFactory;
+	private volatile SSLHttpClientCache sslClientCache;
+	// sslClientCache是否由本对象创建,由this保护
+	private boolean sslClientCacheOwner;
+	protected volatile WeixinHttpClient weixinClient = new WeixinHttpClient();
+
+	/**
+	 * 使用指定的HTTP传输,由WeixinProxy在构造时设置;没有设置时使用
+	 * {@link HttpClientFactory#getDefaultFactory()};原来的ssl请求缓存随之关闭
+	 * 
+	 * @param httpClientFactory
+	 *            HTTP传输的工厂
+	 */
+	public void setHttpClientFactory(HttpClientFactory httpClientFactory) {
+		setHttpClientFactory(httpClientFactory, null);
+	}
+
+	/**
+	 * 使用指定的HTTP传输与ssl请求缓存:同一个WeixinPayProxy的API共用一个缓存,每个商户证书只加载一次;
+	 * 原来由本对象创建的ssl请求缓存随之关闭,共用的缓存由传入者关闭
+	 * 
+	 * @param httpClientFactory
+	 *            HTTP传输的工厂
+	 * @param sslClientCache
+	 *            共用的ssl请求缓存,为null时在第一次使用时创建
+	 */
+	public void setHttpClientFactory(HttpClientFactory httpClientFactory,
+			SSLHttpClientCache sslClientCache) {
+		SSLHttpClientCache oldClientCache = null;
+		synchronized (this) {
+			this.httpClientFactory = httpClientFactory;
+			this.weixinClient = new WeixinHttpClient(httpClientFactory);
+			if (sslClientCacheOwner) {
+				oldClientCache = this.sslClientCache;
+			}
+			this.sslClientCache = sslClientCache;
+			this.sslClientCacheOwner = false;
+		}
+		if (oldClientCache != null) {
+			oldClientCache.clear();
+		}
+	}
+
+	/**
+	 * 获取HTTP传输的工厂,如创建加载商户证书的请求
+	 * 
+	 * @return HTTP传输的工厂
+	 */
+	protected HttpClientFactory getHttpClientFactory() {
+		return httpClientFactory != null ? httpClientFactory
+				: HttpClientFactory.getDefaultFactory();
+	}
+
+	/**
+	 * 异步的API请求,使用{@link #getHttpClientFactory()}的异步传输
+	 * 
+	 * @return 异步的API请求
+	 */
+	protected AsyncWeixinHttpClient getAsyncWeixinClient() {
+		return new AsyncWeixinHttpClient(getHttpClientFactory());
+	}
+
+	/**
+	 * 加载了商户证书的ssl请求缓存,使用{@link #getHttpClientFactory()}的HTTP传输
+	 * 
+	 * @return ssl请求缓存
+	 */
+	protected SSLHttpClientCache getSSLClientCache() {
+		SSLHttpClientCache sslClientCache = this.sslClientCache;
+		if (sslClientCache == null) {
+			synchronized (this) {
+				sslClientCache = this.sslClientCache;
+				if (sslClientCache == null) {
+					this.sslClientCache = sslClientCache = new SSLHttpClientCache(
+							getHttpClientFactory());
+					this.sslClientCacheOwner = true;
+				}
+			}
+		}
+		return sslClientCache;
+	}
 
 	protected abstract ResourceBundle getWeixinBundle();
 
@@ -1,5 +1,8 @@
 package com.foxinmy.weixin4j.http;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
 /**
  * HTTP 响应
  * 
@@ -14,6 +17,7 @@ public class HttpResponse extends AbstractHttpMessage implements HttpMessage {
 	private HttpVersion httpVersion;
 	private StatusLine statusLine;
 	private byte[] content;
+	private InputStream body;
 
 	@Override
 	public HttpVersion getProtocolVersion() {
@@ -28,6 +32,23 @@ public class HttpResponse extends AbstractHttpMessage implements HttpMessage {
 		return content;
 	}
 
+	/**
+	 * 响应体的输入流:在{@link ResponseHandler}中处理时可能是连接上未读取的流(只能读一次,处理结束后被关闭),
+	 * 否则是已读入内存的内容
+	 * 
+	 * @return 响应体,没有内容时为null
+	 */
+	public InputStream getBody() {
+		if (body != null) {
+			return body;
+		}
+		return content != null ? new ByteArrayInputStream(content) : null;
+	}
+
+	public void setBody(InputStream body) {
+		this.body = body;
+	}
+
 	public void setStatusLine(StatusLine statusLine) {
 		this.statusLine = statusLine;
 	}
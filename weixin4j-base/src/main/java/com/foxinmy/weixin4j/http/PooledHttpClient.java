@@ -0,0 +1,568 @@
+package com.foxinmy.weixin4j.http;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+
+import com.foxinmy.weixin4j.http.apache.MultipartEntity;
+import com.foxinmy.weixin4j.http.entity.HttpEntity;
+import com.foxinmy.weixin4j.model.Consts;
+
+/**
+ * HTTP 连接池实现:按host与端口维护keep-alive连接,每个host的连接数有上限,
+ * 所有HTTPS连接共用一个SSLContext从而可以复用TLS会话,空闲超时的连接在获取与归还时关闭;
+ * 复用的连接在空闲期间被服务端关闭时,没有收到响应的请求会在新连接上重试一次
+ * <p>
+ * 实例应当在整个应用中共享,不再使用时调用{@link #shutdown()}关闭所有空闲连接
+ * </p>
+ *
+ * @className PooledHttpClient
+ * @author jy
+ * @date 2015年7月10日
+ * @since JDK 1.7
+ * @see SimpleHttpClient
+ */
+public class PooledHttpClient extends SimpleHttpClient implements Closeable {
+
+	/**
+	 * 默认每个host的最大连接数
+	 */
+	public final static int DEFAULT_MAX_PER_ROUTE = 20;
+	/**
+	 * 默认连接的最大空闲时间(毫秒)
+	 */
+	public final static long DEFAULT_IDLE_TIMEOUT = 30000l;
+
+	private final int maxPerRoute;
+	private final long idleTimeout;
+	private final ConcurrentMap<String, Route> routes;
+	private volatile boolean shutdown;
+
+	public PooledHttpClient() {
+		this(DEFAULT_MAX_PER_ROUTE, DEFAULT_IDLE_TIMEOUT);
+	}
+
+	/**
+	 *
+	 * @param maxPerRoute
+	 *            每个host的最大连接数,连接都在使用时请求等待连接超时时间
+	 * @param idleTimeout
+	 *            连接的最大空闲时间(毫秒)
+	 */
+	public PooledHttpClient(int maxPerRoute, long idleTimeout) {
+		this(null, maxPerRoute, idleTimeout);
+	}
+
+	/**
+	 *
+	 * @param sslContext
+	 *            HTTPS连接使用的SSLContext,如加载了商户证书的SSLContext;为null时信任所有证书
+	 * @param maxPerRoute
+	 *            每个host的最大连接数,连接都在使用时请求等待连接超时时间
+	 * @param idleTimeout
+	 *            连接的最大空闲时间(毫秒)
+	 */
+	public PooledHttpClient(SSLContext sslContext, int maxPerRoute,
+			long idleTimeout) {
+		super(sslContext);
+		if (maxPerRoute <= 0) {
+			throw new IllegalArgumentException("maxPerRoute must be positive");
+		}
+		this.maxPerRoute = maxPerRoute;
+		this.idleTimeout = idleTimeout;
+		this.routes = new ConcurrentHashMap<String, Route>();
+	}
+
+	@Override
+	public HttpResponse execute(HttpRequest request) throws IOException {
+		if (shutdown) {
+			throw new IOException("httpclient has been shutdown");
+		}
+		URI uri = request.getURI();
+		Route route = getRoute(uri);
+		HttpParams params = request.getParams();
+		try {
+			if (!route.permits.tryAcquire(params.getConnectTimeout(),
+					TimeUnit.MILLISECONDS)) {
+				throw new IOException(String.format(
+						"no connection available for %s in %d ms", route,
+						params.getConnectTimeout()));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		}
+		try {
+			Connection connection = route.poll(idleTimeout);
+			if (connection != null) {
+				try {
+					return exchange(route, connection, request);
+				} catch (IOException e) {
+					// 空闲期间服务端关闭了连接:请求没有写出,或者幂等的请求没有收到响应时用新连接重试一次;
+					// 已经写出的POST等请求可能已被服务端处理,不再重试
+					if (connection.responseStarted
+							|| e instanceof SocketTimeoutException
+							|| !isRepeatable(request)
+							|| (connection.requestWritten
+									&& !isIdempotent(request))) {
+						throw e;
+					}
+				}
+			}
+			return exchange(route, connect(route, params), request);
+		} finally {
+			route.permits.release();
+		}
+	}
+
+	/**
+	 * 响应体在归还连接之前已经读完,handler读取的是内存中的内容
+	 */
+	@Override
+	public <T> T execute(HttpRequest request,
+			ResponseHandler<? extends T> handler) throws IOException {
+		return handler.handleResponse(execute(request));
+	}
+
+	private HttpResponse exchange(Route route, Connection connection,
+			HttpRequest request) throws IOException {
+		boolean reusable = false;
+		try {
+			connection.socket.setSoTimeout(request.getParams()
+					.getReadTimeout());
+			connection.responseStarted = false;
+			connection.requestWritten = false;
+			writeRequest(connection, request);
+			connection.requestWritten = true;
+			HttpResponse response = new HttpResponse();
+			reusable = readResponse(connection, request, response);
+			return response;
+		} finally {
+			if (reusable && !shutdown) {
+				route.release(connection, idleTimeout);
+			} else {
+				connection.close();
+			}
+		}
+	}
+
+	/**
+	 * 请求体是否可以再次写出:multipart中可能有只能读取一次的输入流
+	 */
+	private static boolean isRepeatable(HttpRequest request) {
+		return !(request instanceof HttpEntityRequest)
+				|| !(((HttpEntityRequest) request).getEntity() instanceof MultipartEntity);
+	}
+
+	/**
+	 * 重复执行是否与执行一次的效果相同
+	 */
+	private static boolean isIdempotent(HttpRequest request) {
+		switch (request.getMethod()) {
+		case GET:
+		case HEAD:
+		case OPTIONS:
+		case TRACE:
+		case PUT:
+		case DELETE:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * 关闭所有空闲的连接
+	 */
+	public void closeIdleConnections() {
+		for (Route route : routes.values()) {
+			route.closeIdle();
+		}
+	}
+
+	/**
+	 * 关闭连接池:关闭所有空闲的连接,使用中的连接在请求完成后关闭
+	 */
+	public void shutdown() {
+		shutdown = true;
+		closeIdleConnections();
+	}
+
+	/**
+	 * 同{@link #shutdown()}
+	 */
+	@Override
+	public void close() {
+		shutdown();
+	}
+
+	private Route getRoute(URI uri) {
+		boolean ssl = "https".equalsIgnoreCase(uri.getScheme());
+		int port = uri.getPort() > 0 ? uri.getPort() : ssl ? 443 : 80;
+		String key = String.format("%s://%s:%d", uri.getScheme(),
+				uri.getHost(), port).toLowerCase();
+		Route route = routes.get(key);
+		if (route == null) {
+			Route newRoute = new Route(uri.getHost(), port, ssl, maxPerRoute);
+			route = routes.putIfAbsent(key, newRoute);
+			if (route == null) {
+				route = newRoute;
+			}
+		}
+		return route;
+	}
+
+	private Connection connect(Route route, HttpParams params)
+			throws IOException {
+		Socket socket = new Socket();
+		try {
+			socket.setTcpNoDelay(true);
+			socket.setKeepAlive(true);
+			socket.connect(new InetSocketAddress(route.host, route.port),
+					params.getConnectTimeout());
+			if (route.ssl) {
+				socket.setSoTimeout(params.getReadTimeout());
+				SSLSocket sslSocket = (SSLSocket) getSSLSocketFactory()
+						.createSocket(socket, route.host, route.port, true);
+				socket = sslSocket;
+				sslSocket.startHandshake();
+				if (!createHostnameVerifier().verify(route.host,
+						sslSocket.getSession())) {
+					throw new IOException("hostname verify fail:" + route.host);
+				}
+			}
+			return new Connection(socket);
+		} catch (IOException e) {
+			try {
+				socket.close();
+			} catch (IOException ignore) {
+				;
+			}
+			throw e;
+		}
+	}
+
+	private void writeRequest(Connection connection, HttpRequest request)
+			throws IOException {
+		URI uri = request.getURI();
+		OutputStream out = connection.out;
+		StringBuilder head = new StringBuilder(256);
+		head.append(request.getMethod().name()).append(' ');
+		String path = uri.getRawPath();
+		head.append(path == null || path.isEmpty() ? "/" : path);
+		if (uri.getRawQuery() != null) {
+			head.append('?').append(uri.getRawQuery());
+		}
+		head.append(' ').append(HttpVersion.HTTP_1_1_STRING).append("\r\n");
+		head.append("Host: ").append(uri.getHost());
+		if (uri.getPort() > 0) {
+			head.append(':').append(uri.getPort());
+		}
+		head.append("\r\n");
+		for (Iterator<Entry<String, String>> headerIterator = createDefualtHeader()
+				.entrySet().iterator(); headerIterator.hasNext();) {
+			Entry<String, String> header = headerIterator.next();
+			if (!request.containsHeader(header.getKey())) {
+				appendHeader(head, header.getKey(), header.getValue());
+			}
+		}
+		for (Header header : request.getAllHeaders()) {
+			appendHeader(head, header.getName(), header.getValue());
+		}
+		HttpEntity httpEntity = null;
+		byte[] buffered = null;
+		if (request instanceof HttpEntityRequest) {
+			httpEntity = ((HttpEntityRequest) request).getEntity();
+		}
+		if (httpEntity != null) {
+			long contentLength = httpEntity.getContentLength();
+			if (contentLength < 0) {
+				ByteArrayOutputStream os = new ByteArrayOutputStream();
+				httpEntity.writeTo(os);
+				buffered = os.toByteArray();
+				contentLength = buffered.length;
+			}
+			appendHeader(head, "Content-Type", httpEntity.getContentType()
+					.getMimeType());
+			appendHeader(head, "Content-Length", Long.toString(contentLength));
+		} else if (request.getMethod() == HttpMethod.POST
+				|| request.getMethod() == HttpMethod.PUT) {
+			appendHeader(head, "Content-Length", "0");
+		}
+		appendHeader(head, "Connection", "keep-alive");
+		head.append("\r\n");
+		out.write(head.toString().getBytes(Consts.UTF_8));
+		if (buffered != null) {
+			out.write(buffered);
+		} else if (httpEntity != null) {
+			httpEntity.writeTo(out);
+		}
+		out.flush();
+	}
+
+	private static void appendHeader(StringBuilder head, String name,
+			String value) {
+		head.append(name).append(": ").append(value).append("\r\n");
+	}
+
+	/**
+	 * 读取响应
+	 *
+	 * @return 连接是否可以继续使用
+	 */
+	private boolean readResponse(Connection connection, HttpRequest request,
+			HttpResponse response) throws IOException {
+		InputStream in = connection.in;
+		String statusText;
+		List<Header> headers;
+		int statusCode;
+		// 跳过100-continue等1xx响应
+		do {
+			statusText = readLine(in);
+			connection.responseStarted = true;
+			String[] status = statusText.split(" ", 3);
+			if (status.length < 2) {
+				throw new IOException("invalid status line:" + statusText);
+			}
+			response.setHttpVersion(HttpVersion.HTTP_1_1_STRING
+					.equals(status[0]) ? HttpVersion.HTTP_1_1
+					: HttpVersion.HTTP_1_0_STRING.equals(status[0]) ? HttpVersion.HTTP_1_0
+							: new HttpVersion(status[0], true));
+			statusCode = Integer.parseInt(status[1]);
+			response.setStatusLine(new StatusLine(statusCode,
+					status.length > 2 ? status[2] : ""));
+			headers = new ArrayList<Header>();
+			String line;
+			while (!(line = readLine(in)).isEmpty()) {
+				int index = line.indexOf(':');
+				if (index > 0) {
+					headers.add(new Header(line.substring(0, index).trim(),
+							line.substring(index + 1).trim()));
+				}
+			}
+			response.setHeaders(headers.toArray(new Header[headers.size()]));
+		} while (statusCode >= 100 && statusCode < 200);
+
+		Header connectionHeader = response.getFirstHeader("Connection");
+		boolean keepAlive = response.getHttpVersion().equals(
+				HttpVersion.HTTP_1_1) ? connectionHeader == null
+				|| !"close".equalsIgnoreCase(connectionHeader.getValue())
+				: connectionHeader != null
+						&& "keep-alive".equalsIgnoreCase(connectionHeader
+								.getValue());
+		byte[] content;
+		Header transferEncoding = response
+				.getFirstHeader("Transfer-Encoding");
+		Header contentLength = response.getFirstHeader("Content-Length");
+		if (request.getMethod() == HttpMethod.HEAD || statusCode == 204
+				|| statusCode == 304) {
+			content = new byte[0];
+		} else if (transferEncoding != null
+				&& transferEncoding.getValue().toLowerCase()
+						.contains("chunked")) {
+			content = readChunked(in);
+		} else if (contentLength != null) {
+			content = readFully(in,
+					Integer.parseInt(contentLength.getValue().trim()));
+		} else {
+			// 没有长度的响应体以关闭连接结束
+			ByteArrayOutputStream os = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int n;
+			while ((n = in.read(buffer)) != -1) {
+				os.write(buffer, 0, n);
+			}
+			content = os.toByteArray();
+			keepAlive = false;
+		}
+		// 与SimpleHttpClient一致:只保留成功响应的内容
+		response.setContent(statusCode < 300 ? content : null);
+		return keepAlive;
+	}
+
+	private static byte[] readChunked(InputStream in) throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		for (;;) {
+			String line = readLine(in);
+			int extension = line.indexOf(';');
+			int size = Integer.parseInt(
+					(extension > 0 ? line.substring(0, extension) : line)
+							.trim(), 16);
+			if (size == 0) {
+				// trailer
+				while (!readLine(in).isEmpty()) {
+					;
+				}
+				return os.toByteArray();
+			}
+			os.write(readFully(in, size));
+			if (!readLine(in).isEmpty()) {
+				throw new IOException("invalid chunk");
+			}
+		}
+	}
+
+	private static byte[] readFully(InputStream in, int length)
+			throws IOException {
+		byte[] bytes = new byte[length];
+		int offset = 0;
+		while (offset < length) {
+			int n = in.read(bytes, offset, length - offset);
+			if (n == -1) {
+				throw new EOFException("unexpected end of stream");
+			}
+			offset += n;
+		}
+		return bytes;
+	}
+
+	private static String readLine(InputStream in) throws IOException {
+		StringBuilder line = new StringBuilder(64);
+		int b;
+		while ((b = in.read()) != '\n') {
+			if (b == -1) {
+				throw new EOFException("unexpected end of stream");
+			}
+			line.append((char) b);
+		}
+		int length = line.length();
+		if (length > 0 && line.charAt(length - 1) == '\r') {
+			line.setLength(length - 1);
+		}
+		return line.toString();
+	}
+
+	/**
+	 * 一个host与端口上的连接
+	 */
+	private static final class Route {
+		private final String host;
+		private final int port;
+		private final boolean ssl;
+		private final Semaphore permits;
+		/**
+		 * 头部为最近归还的连接
+		 */
+		private final Deque<Connection> idle;
+
+		Route(String host, int port, boolean ssl, int maxPerRoute) {
+			this.host = host;
+			this.port = port;
+			this.ssl = ssl;
+			this.permits = new Semaphore(maxPerRoute);
+			this.idle = new ArrayDeque<Connection>(maxPerRoute);
+		}
+
+		/**
+		 * 取出最近使用的连接,关闭空闲超时或者已被服务端关闭的连接
+		 */
+		Connection poll(long idleTimeout) {
+			for (;;) {
+				Connection connection;
+				synchronized (idle) {
+					evict(idleTimeout);
+					connection = idle.pollFirst();
+				}
+				if (connection == null || !connection.isStale()) {
+					return connection;
+				}
+				connection.close();
+			}
+		}
+
+		void release(Connection connection, long idleTimeout) {
+			connection.lastUsed = System.currentTimeMillis();
+			synchronized (idle) {
+				idle.offerFirst(connection);
+				evict(idleTimeout);
+			}
+		}
+
+		void closeIdle() {
+			synchronized (idle) {
+				for (Connection connection : idle) {
+					connection.close();
+				}
+				idle.clear();
+			}
+		}
+
+		private void evict(long idleTimeout) {
+			long deadline = System.currentTimeMillis() - idleTimeout;
+			Connection connection;
+			while ((connection = idle.peekLast()) != null
+					&& connection.lastUsed < deadline) {
+				idle.pollLast().close();
+			}
+		}
+
+		@Override
+		public String toString() {
+			return (ssl ? "https://" : "http://") + host + ":" + port;
+		}
+	}
+
+	/**
+	 * 连接
+	 */
+	private static final class Connection {
+		private final Socket socket;
+		private final InputStream in;
+		private final OutputStream out;
+		private long lastUsed;
+		private boolean requestWritten;
+		private boolean responseStarted;
+
+		Connection(Socket socket) throws IOException {
+			this.socket = socket;
+			this.in = new BufferedInputStream(socket.getInputStream(), 8192);
+			this.out = new BufferedOutputStream(socket.getOutputStream(), 8192);
+		}
+
+		/**
+		 * 不阻塞地检查连接是否已经不可用:空闲连接上不应有未读的数据,
+		 * 服务端关闭连接时执行请求失败并重试
+		 */
+		boolean isStale() {
+			if (socket.isClosed() || socket.isInputShutdown()
+					|| socket.isOutputShutdown()) {
+				return true;
+			}
+			try {
+				return in.available() > 0;
+			} catch (IOException e) {
+				return true;
+			}
+		}
+
+		void close() {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				;
+			}
+		}
+	}
+}
@@ -1,6 +1,5 @@
 package com.foxinmy.weixin4j.http;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -21,10 +20,12 @@ import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.X509TrustManager;
 
 import com.foxinmy.weixin4j.http.entity.HttpEntity;
 import com.foxinmy.weixin4j.model.Consts;
+import com.foxinmy.weixin4j.util.IOUtil;
 
 /**
  * HTTP 简单实现
@@ -37,6 +38,21 @@ import com.foxinmy.weixin4j.model.Consts;
  */
 public class SimpleHttpClient implements HttpClient {
 
+	private volatile SSLContext sslContext;
+	private volatile SSLSocketFactory sslSocketFactory;
+
+	public SimpleHttpClient() {
+	}
+
+	/**
+	 * 
+	 * @param sslContext
+	 *            HTTPS请求使用的SSLContext,如加载了商户证书的SSLContext;为null时信任所有证书
+	 */
+	public SimpleHttpClient(SSLContext sslContext) {
+		this.sslContext = sslContext;
+	}
+
 	protected HostnameVerifier createHostnameVerifier() {
 		return new HostnameVerifier() {
 			@Override
@@ -67,13 +83,15 @@ public class SimpleHttpClient implements HttpClient {
 		};
 	}
 
-	protected HttpURLConnection createHttpConnection(URI uri)
-			throws IOException {
-		URL url = uri.toURL();
-		if (uri.getScheme().equals("https")) {
-			HttpsURLConnection connection = (HttpsURLConnection) url
-					.openConnection();
-			SSLContext sslContext = null;
+	/**
+	 * 获取HTTPS请求使用的SSLContext:没有指定时只在首次调用时创建一个信任所有证书的SSLContext
+	 * 
+	 * @return SSLContext
+	 * @throws IOException
+	 */
+	public SSLContext getSSLContext() throws IOException {
+		SSLContext sslContext = this.sslContext;
+		if (sslContext == null) {
 			try {
 				sslContext = SSLContext.getInstance("TLS");
 				sslContext.init(null,
@@ -82,7 +100,33 @@ public class SimpleHttpClient implements HttpClient {
 			} catch (GeneralSecurityException e) {
 				throw new IOException(e);
 			}
-			connection.setSSLSocketFactory(sslContext.getSocketFactory());
+			this.sslContext = sslContext;
+		}
+		return sslContext;
+	}
+
+	/**
+	 * 获取HTTPS连接使用的SSLSocketFactory:复用同一个factory的连接可以被JDK的keep-alive缓存复用并恢复TLS会话
+	 * 
+	 * @return SSLSocketFactory
+	 * @throws IOException
+	 */
+	protected SSLSocketFactory getSSLSocketFactory() throws IOException {
+		SSLSocketFactory sslSocketFactory = this.sslSocketFactory;
+		if (sslSocketFactory == null) {
+			this.sslSocketFactory = sslSocketFactory = getSSLContext()
+					.getSocketFactory();
+		}
+		return sslSocketFactory;
+	}
+
+	protected HttpURLConnection createHttpConnection(URI uri)
+			throws IOException {
+		URL url = uri.toURL();
+		if (uri.getScheme().equals("https")) {
+			HttpsURLConnection connection = (HttpsURLConnection) url
+					.openConnection();
+			connection.setSSLSocketFactory(getSSLSocketFactory());
 			connection.setHostnameVerifier(createHostnameVerifier());
 			return connection;
 		} else {
@@ -101,6 +145,49 @@ public class SimpleHttpClient implements HttpClient {
 
 	@Override
 	public HttpResponse execute(HttpRequest request) throws IOException {
+		HttpURLConnection connection = connect(request);
+		HttpResponse response = createResponse(connection);
+		if (response.getStatusLine().getStatusCode() < 300) {
+			InputStream is = null;
+			try {
+				is = connection.getInputStream();
+				int contentLength = connection.getContentLength();
+				response.setContent(contentLength >= 0 ? IOUtil.toByteArray(is,
+						contentLength) : IOUtil.toByteArray(is));
+			} catch (IOException e) {
+				;
+			} finally {
+				if (is != null) {
+					is.close();
+				}
+			}
+		}
+		return response;
+	}
+
+	/**
+	 * 以流的方式处理响应:响应体不读入内存,handler直接从连接读取,处理结束后关闭
+	 */
+	@Override
+	public <T> T execute(HttpRequest request,
+			ResponseHandler<? extends T> handler) throws IOException {
+		HttpURLConnection connection = connect(request);
+		HttpResponse response = createResponse(connection);
+		InputStream is = null;
+		try {
+			if (response.getStatusLine().getStatusCode() < 300) {
+				is = connection.getInputStream();
+				response.setBody(is);
+			}
+			return handler.handleResponse(response);
+		} finally {
+			if (is != null) {
+				is.close();
+			}
+		}
+	}
+
+	private HttpURLConnection connect(HttpRequest request) throws IOException {
 		// create connection object
 		HttpURLConnection connection = createHttpConnection(request.getURI());
 		// set parameters
@@ -114,15 +201,15 @@ public class SimpleHttpClient implements HttpClient {
 		connection.setDoInput(true);
 		connection.setDoOutput(true);
 		// set headers
-		Header[] headers = request.getAllHeaders();
-		for (Header header : headers) {
-			connection.setRequestProperty(header.getName(), header.getValue());
-		}
 		for (Iterator<Entry<String, String>> headerIterator = createDefualtHeader()
 				.entrySet().iterator(); headerIterator.hasNext();) {
 			Entry<String, String> header = headerIterator.next();
 			connection.setRequestProperty(header.getKey(), header.getValue());
 		}
+		Header[] headers = request.getAllHeaders();
+		for (Header header : headers) {
+			connection.setRequestProperty(header.getName(), header.getValue());
+		}
 		HttpEntity httpEntity = null;
 		if (request instanceof HttpEntityRequest) {
 			httpEntity = ((HttpEntityRequest) request).getEntity();
@@ -142,33 +229,13 @@ public class SimpleHttpClient implements HttpClient {
 			output.flush();
 			output.close();
 		}
-		// building response object
+		return connection;
+	}
+
+	private HttpResponse createResponse(HttpURLConnection connection)
+			throws IOException {
 		StatusLine statusLine = new StatusLine(connection.getResponseCode(),
 				connection.getResponseMessage());
-		byte[] content = null;
-		if (statusLine.getStatusCode() < 300) {
-			ByteArrayOutputStream os = null;
-			InputStream is = null;
-			try {
-				is = connection.getInputStream();
-				os = new ByteArrayOutputStream();
-				byte[] buffer = new byte[4096];
-				int n = 0;
-				while (-1 != (n = is.read(buffer))) {
-					os.write(buffer, 0, n);
-				}
-				content = os.toByteArray();
-			} catch (IOException e) {
-				;
-			} finally {
-				if (os != null) {
-					os.close();
-				}
-				if (is != null) {
-					is.close();
-				}
-			}
-		}
 		HttpResponse response = new HttpResponse();
 		String httpVersion = connection.getHeaderField(null);
 		if (httpVersion != null) {
@@ -192,13 +259,6 @@ public class SimpleHttpClient implements HttpClient {
 		response.setHeaders(responseHeaders.toArray(new Header[responseHeaders
 				.size()]));
 		response.setStatusLine(statusLine);
-		response.setContent(content);
 		return response;
 	}
-
-	@Override
-	public <T> T execute(HttpRequest request,
-			ResponseHandler<? extends T> handler) throws IOException {
-		return handler.handleResponse(execute(request));
-	}
 }
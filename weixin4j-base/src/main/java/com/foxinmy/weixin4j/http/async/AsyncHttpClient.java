@@ -0,0 +1,25 @@
+package com.foxinmy.weixin4j.http.async;
+
+import com.foxinmy.weixin4j.http.HttpRequest;
+import com.foxinmy.weixin4j.http.HttpResponse;
+
+/**
+ * 异步HTTP接口:调用线程不等待响应
+ *
+ * @className AsyncHttpClient
+ * @author jy
+ * @date 2015年7月12日
+ * @since JDK 1.7
+ * @see com.foxinmy.weixin4j.http.factory.HttpClientFactory#newAsyncInstance()
+ */
+public interface AsyncHttpClient {
+
+	/**
+	 * 异步处理请求
+	 *
+	 * @param request
+	 *            请求
+	 * @return 响应,连接与读取失败时为IOException
+	 */
+	WeixinFuture<HttpResponse> executeAsync(HttpRequest request);
+}
@@ -0,0 +1,51 @@
+package com.foxinmy.weixin4j.http.async;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.foxinmy.weixin4j.http.HttpClient;
+import com.foxinmy.weixin4j.http.HttpRequest;
+import com.foxinmy.weixin4j.http.HttpResponse;
+
+/**
+ * 在线程池中执行同步HttpClient的请求:用于没有非阻塞实现的传输,并发数受线程数限制
+ *
+ * @className ExecutorAsyncHttpClient
+ * @author jy
+ * @date 2015年7月12日
+ * @since JDK 1.7
+ * @see com.foxinmy.weixin4j.http.factory.Netty4HttpClient
+ */
+public class ExecutorAsyncHttpClient implements AsyncHttpClient {
+
+	private final HttpClient httpClient;
+	private final Executor executor;
+
+	public ExecutorAsyncHttpClient(HttpClient httpClient, Executor executor) {
+		this.httpClient = httpClient;
+		this.executor = executor;
+	}
+
+	@Override
+	public WeixinFuture<HttpResponse> executeAsync(final HttpRequest request) {
+		final WeixinFuture<HttpResponse> future = new WeixinFuture<HttpResponse>();
+		try {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					if (future.isDone()) {
+						return;
+					}
+					try {
+						future.setResult(httpClient.execute(request));
+					} catch (Throwable e) {
+						future.setFailure(e);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			future.setFailure(e);
+		}
+		return future;
+	}
+}
@@ -0,0 +1,29 @@
+package com.foxinmy.weixin4j.http.async;
+
+/**
+ * 异步结果的回调:在完成结果的线程(如netty的I/O线程)中执行,不应当有阻塞的操作
+ *
+ * @className FutureCallback
+ * @author jy
+ * @date 2015年7月12日
+ * @since JDK 1.7
+ * @see WeixinFuture#addCallback(FutureCallback)
+ */
+public interface FutureCallback<V> {
+
+	/**
+	 * 成功
+	 *
+	 * @param result
+	 *            结果
+	 */
+	void completed(V result);
+
+	/**
+	 * 失败
+	 *
+	 * @param cause
+	 *            失败原因,接口返回的错误码为{@link com.foxinmy.weixin4j.exception.WeixinException}
+	 */
+	void failed(Throwable cause);
+}
@@ -0,0 +1,25 @@
+package com.foxinmy.weixin4j.http.async;
+
+import com.foxinmy.weixin4j.exception.WeixinException;
+
+/**
+ * 转换异步结果,如把响应解析为对象
+ *
+ * @className Transformer
+ * @author jy
+ * @date 2015年7月12日
+ * @since JDK 1.7
+ * @see WeixinFuture#transform(Transformer)
+ */
+public interface Transformer<S, T> {
+
+	/**
+	 * 转换
+	 *
+	 * @param source
+	 *            原结果
+	 * @return 新结果
+	 * @throws WeixinException
+	 */
+	T transform(S source) throws WeixinException;
+}
@@ -0,0 +1,259 @@
+package com.foxinmy.weixin4j.http.async;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.foxinmy.weixin4j.exception.WeixinException;
+
+/**
+ * 异步调用的结果:可以注册回调、转换结果,也可以阻塞等待
+ * <p>
+ * 结果只能设置一次,回调在设置结果的线程中执行;注册回调时已经完成的则在当前线程立即执行
+ * </p>
+ *
+ * @className WeixinFuture
+ * @author jy
+ * @date 2015年7月12日
+ * @since JDK 1.7
+ * @see FutureCallback
+ * @see Transformer
+ */
+public class WeixinFuture<V> implements Future<V> {
+
+	private List<FutureCallback<? super V>> callbacks;
+	private boolean done;
+	private V result;
+	private Throwable cause;
+
+	/**
+	 * 已经成功的结果
+	 *
+	 * @param result
+	 *            结果
+	 * @return 已完成的WeixinFuture
+	 */
+	public static <V> WeixinFuture<V> succeeded(V result) {
+		WeixinFuture<V> future = new WeixinFuture<V>();
+		future.setResult(result);
+		return future;
+	}
+
+	/**
+	 * 已经失败的结果
+	 *
+	 * @param cause
+	 *            失败原因
+	 * @return 已完成的WeixinFuture
+	 */
+	public static <V> WeixinFuture<V> failed(Throwable cause) {
+		WeixinFuture<V> future = new WeixinFuture<V>();
+		future.setFailure(cause);
+		return future;
+	}
+
+	/**
+	 * 设置成功的结果
+	 *
+	 * @param result
+	 *            结果
+	 * @return 已经完成过时返回false
+	 */
+	public boolean setResult(V result) {
+		List<FutureCallback<? super V>> callbacks;
+		synchronized (this) {
+			if (done) {
+				return false;
+			}
+			this.result = result;
+			this.done = true;
+			callbacks = this.callbacks;
+			this.callbacks = null;
+			notifyAll();
+		}
+		if (callbacks != null) {
+			for (FutureCallback<? super V> callback : callbacks) {
+				notifyCallback(callback);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 设置失败的原因
+	 *
+	 * @param cause
+	 *            失败原因
+	 * @return 已经完成过时返回false
+	 */
+	public boolean setFailure(Throwable cause) {
+		if (cause == null) {
+			throw new IllegalArgumentException("cause not be null");
+		}
+		List<FutureCallback<? super V>> callbacks;
+		synchronized (this) {
+			if (done) {
+				return false;
+			}
+			this.cause = cause;
+			this.done = true;
+			callbacks = this.callbacks;
+			this.callbacks = null;
+			notifyAll();
+		}
+		if (callbacks != null) {
+			for (FutureCallback<? super V> callback : callbacks) {
+				notifyCallback(callback);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 注册回调
+	 *
+	 * @param callback
+	 *            回调
+	 * @return 当前对象
+	 */
+	public WeixinFuture<V> addCallback(FutureCallback<? super V> callback) {
+		synchronized (this) {
+			if (!done) {
+				if (callbacks == null) {
+					callbacks = new ArrayList<FutureCallback<? super V>>(2);
+				}
+				callbacks.add(callback);
+				return this;
+			}
+		}
+		notifyCallback(callback);
+		return this;
+	}
+
+	/**
+	 * 转换结果:成功时在完成结果的线程中执行转换,失败或者转换出错时新结果失败
+	 *
+	 * @param transformer
+	 *            转换器
+	 * @return 新的WeixinFuture
+	 */
+	public <T> WeixinFuture<T> transform(
+			final Transformer<? super V, ? extends T> transformer) {
+		final WeixinFuture<T> future = new WeixinFuture<T>();
+		addCallback(new FutureCallback<V>() {
+			@Override
+			public void completed(V result) {
+				T value;
+				try {
+					value = transformer.transform(result);
+				} catch (Throwable e) {
+					future.setFailure(e);
+					return;
+				}
+				future.setResult(value);
+			}
+
+			@Override
+			public void failed(Throwable cause) {
+				future.setFailure(cause);
+			}
+		});
+		return future;
+	}
+
+	private void notifyCallback(FutureCallback<? super V> callback) {
+		try {
+			if (cause == null) {
+				callback.completed(result);
+			} else {
+				callback.failed(cause);
+			}
+		} catch (RuntimeException e) {
+			// 回调的异常不影响其它回调和完成结果的线程
+		}
+	}
+
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		return setFailure(new CancellationException());
+	}
+
+	@Override
+	public synchronized boolean isCancelled() {
+		return cause instanceof CancellationException;
+	}
+
+	@Override
+	public synchronized boolean isDone() {
+		return done;
+	}
+
+	/**
+	 * 是否成功完成
+	 *
+	 * @return 完成并且没有失败时返回true
+	 */
+	public synchronized boolean isSuccess() {
+		return done && cause == null;
+	}
+
+	@Override
+	public synchronized V get() throws InterruptedException,
+			ExecutionException {
+		while (!done) {
+			wait();
+		}
+		return report();
+	}
+
+	@Override
+	public synchronized V get(long timeout, TimeUnit unit)
+			throws InterruptedException, ExecutionException, TimeoutException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (!done) {
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				throw new TimeoutException();
+			}
+			TimeUnit.NANOSECONDS.timedWait(this, remaining);
+		}
+		return report();
+	}
+
+	/**
+	 * 阻塞等待结果,和同步调用一样抛出WeixinException
+	 *
+	 * @return 结果
+	 * @throws WeixinException
+	 */
+	public V getResult() throws WeixinException {
+		try {
+			return get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new WeixinException(e.getMessage());
+		} catch (CancellationException e) {
+			throw new WeixinException("cancelled");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof WeixinException) {
+				throw (WeixinException) cause;
+			}
+			throw new WeixinException(cause.getMessage());
+		}
+	}
+
+	private V report() throws ExecutionException {
+		if (cause instanceof CancellationException) {
+			throw (CancellationException) cause;
+		}
+		if (cause != null) {
+			throw new ExecutionException(cause);
+		}
+		return result;
+	}
+}
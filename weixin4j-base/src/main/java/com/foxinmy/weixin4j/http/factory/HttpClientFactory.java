@@ -0,0 +1,154 @@
+package com.foxinmy.weixin4j.http.factory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLContext;
+
+import com.foxinmy.weixin4j.http.HttpClient;
+import com.foxinmy.weixin4j.http.PooledHttpClient;
+import com.foxinmy.weixin4j.http.async.AsyncHttpClient;
+import com.foxinmy.weixin4j.http.async.ExecutorAsyncHttpClient;
+
+/**
+ * HTTP传输的工厂:API、token创建者以及支付工具类都从工厂获取HttpClient,
+ * 一个进程可以共用同一个调优过的传输与连接池
+ * <p>
+ * 默认工厂由系统属性weixin4j.httpclient选择:simple(默认,JDK的HttpURLConnection)、
+ * pooled({@link PooledHttpClient}连接池)、netty(依赖netty4)、apache(依赖httpclient4)
+ * 或者工厂的完整类名;也可以在启动时调用{@link #setDefaultFactory(HttpClientFactory)}设置,
+ * 或者在构造WeixinProxy与WeixinPayProxy时传入
+ * </p>
+ *
+ * @className HttpClientFactory
+ * @author jy
+ * @date 2015年7月11日
+ * @since JDK 1.7
+ * @see SimpleHttpClientFactory
+ * @see PooledHttpClientFactory
+ * @see Netty4HttpClientFactory
+ * @see HttpComponent4Factory
+ */
+public abstract class HttpClientFactory {
+
+	/**
+	 * 选择默认工厂的系统属性
+	 */
+	public final static String HTTPCLIENT = "weixin4j.httpclient";
+
+	private static volatile HttpClientFactory defaultFactory;
+
+	private volatile AsyncHttpClient asyncHttpClient;
+
+	/**
+	 * 获取默认的工厂,首次调用时按系统属性weixin4j.httpclient创建
+	 *
+	 * @return 默认工厂
+	 */
+	public static HttpClientFactory getDefaultFactory() {
+		HttpClientFactory factory = defaultFactory;
+		if (factory == null) {
+			synchronized (HttpClientFactory.class) {
+				factory = defaultFactory;
+				if (factory == null) {
+					defaultFactory = factory = newDefaultFactory();
+				}
+			}
+		}
+		return factory;
+	}
+
+	/**
+	 * 设置默认的工厂,应当在调用API之前设置
+	 *
+	 * @param factory
+	 *            默认工厂
+	 */
+	public static void setDefaultFactory(HttpClientFactory factory) {
+		if (factory == null) {
+			throw new IllegalArgumentException("factory not be null");
+		}
+		defaultFactory = factory;
+	}
+
+	private static HttpClientFactory newDefaultFactory() {
+		String name = System.getProperty(HTTPCLIENT);
+		if (name == null || name.isEmpty() || "simple".equalsIgnoreCase(name)) {
+			return new SimpleHttpClientFactory();
+		}
+		if ("pooled".equalsIgnoreCase(name)) {
+			return new PooledHttpClientFactory(Integer.getInteger(HTTPCLIENT
+					+ ".maxPerRoute", PooledHttpClient.DEFAULT_MAX_PER_ROUTE),
+					Long.getLong(HTTPCLIENT + ".idleTimeout",
+							PooledHttpClient.DEFAULT_IDLE_TIMEOUT));
+		}
+		// 按类名加载,classpath中没有netty或者httpclient时不会加载对应的适配类
+		String className = name;
+		if ("netty".equalsIgnoreCase(name)) {
+			className = "com.foxinmy.weixin4j.http.factory.Netty4HttpClientFactory";
+		} else if ("apache".equalsIgnoreCase(name)) {
+			className = "com.foxinmy.weixin4j.http.factory.HttpComponent4Factory";
+		}
+		try {
+			return (HttpClientFactory) Class.forName(className, true,
+					Thread.currentThread().getContextClassLoader())
+					.newInstance();
+		} catch (Exception e) {
+			throw new IllegalArgumentException(
+					"unable to create httpclient factory:" + name, e);
+		}
+	}
+
+	/**
+	 * 获取HttpClient:返回的实例应当是线程安全并且共享的(同一个连接池),每次API调用都可能调用本方法
+	 *
+	 * @return HttpClient
+	 */
+	public abstract HttpClient newInstance();
+
+	/**
+	 * 获取使用指定SSLContext的HttpClient,如加载了商户证书的支付请求
+	 *
+	 * @param sslContext
+	 *            SSLContext
+	 * @return HttpClient
+	 */
+	public abstract HttpClient newInstance(SSLContext sslContext);
+
+	/**
+	 * 获取异步HttpClient:默认在守护线程池(线程数由系统属性weixin4j.httpclient.asyncThreads设置)中执行
+	 * {@link #newInstance()}的同步请求,非阻塞的传输如netty应当覆盖本方法
+	 *
+	 * @return 共享的AsyncHttpClient
+	 */
+	public AsyncHttpClient newAsyncInstance() {
+		AsyncHttpClient asyncHttpClient = this.asyncHttpClient;
+		if (asyncHttpClient == null) {
+			synchronized (this) {
+				asyncHttpClient = this.asyncHttpClient;
+				if (asyncHttpClient == null) {
+					int threads = Integer.getInteger(HTTPCLIENT + ".asyncThreads",
+							Runtime.getRuntime().availableProcessors() * 4);
+					this.asyncHttpClient = asyncHttpClient = new ExecutorAsyncHttpClient(
+							newInstance(), Executors.newFixedThreadPool(threads,
+									new AsyncThreadFactory()));
+				}
+			}
+		}
+		return asyncHttpClient;
+	}
+
+	private static final class AsyncThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "weixin4j-async-"
+					+ count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package com.foxinmy.weixin4j.http.factory;
+
+import java.io.IOException;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import com.foxinmy.weixin4j.http.HttpClient;
+import com.foxinmy.weixin4j.http.PooledHttpClient;
+import com.foxinmy.weixin4j.http.SimpleHttpClient;
+
+/**
+ * apache httpclient4传输:需要classpath中有httpclient4.4及以上版本,使用PoolingHttpClientConnectionManager连接池
+ *
+ * @className HttpComponent4Factory
+ * @author jy
+ * @date 2015年7月11日
+ * @since JDK 1.7
+ * @see HttpComponent4HttpClient
+ */
+public class HttpComponent4Factory extends HttpClientFactory {
+
+	private final int maxTotal;
+	private final int maxPerRoute;
+	private final CloseableHttpClient closeableHttpClient;
+	private final HttpComponent4HttpClient httpClient;
+
+	public HttpComponent4Factory() {
+		this(PooledHttpClient.DEFAULT_MAX_PER_ROUTE * 5,
+				PooledHttpClient.DEFAULT_MAX_PER_ROUTE);
+	}
+
+	/**
+	 *
+	 * @param maxTotal
+	 *            最大连接数
+	 * @param maxPerRoute
+	 *            每个host的最大连接数
+	 */
+	public HttpComponent4Factory(int maxTotal, int maxPerRoute) {
+		this.maxTotal = maxTotal;
+		this.maxPerRoute = maxPerRoute;
+		SSLContext sslContext;
+		try {
+			sslContext = new SimpleHttpClient().getSSLContext();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		this.closeableHttpClient = createHttpClient(sslContext);
+		this.httpClient = new HttpComponent4HttpClient(closeableHttpClient);
+	}
+
+	private CloseableHttpClient createHttpClient(SSLContext sslContext) {
+		Registry<ConnectionSocketFactory> registry = RegistryBuilder
+				.<ConnectionSocketFactory> create()
+				.register("http", PlainConnectionSocketFactory.INSTANCE)
+				.register(
+						"https",
+						new SSLConnectionSocketFactory(sslContext,
+								NoopHostnameVerifier.INSTANCE)).build();
+		PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+				registry);
+		connectionManager.setMaxTotal(maxTotal);
+		connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+		return HttpClients.custom().setConnectionManager(connectionManager)
+				.build();
+	}
+
+	@Override
+	public HttpClient newInstance() {
+		return httpClient;
+	}
+
+	@Override
+	public HttpClient newInstance(SSLContext sslContext) {
+		return new HttpComponent4HttpClient(createHttpClient(sslContext));
+	}
+
+	/**
+	 * 关闭连接池
+	 */
+	public void shutdown() {
+		try {
+			closeableHttpClient.close();
+		} catch (IOException e) {
+			;
+		}
+	}
+}
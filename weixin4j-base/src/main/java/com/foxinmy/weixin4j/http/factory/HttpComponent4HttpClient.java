@@ -0,0 +1,198 @@
+package com.foxinmy.weixin4j.http.factory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+
+import com.foxinmy.weixin4j.http.Header;
+import com.foxinmy.weixin4j.http.HttpEntityRequest;
+import com.foxinmy.weixin4j.http.HttpParams;
+import com.foxinmy.weixin4j.http.HttpRequest;
+import com.foxinmy.weixin4j.http.HttpResponse;
+import com.foxinmy.weixin4j.http.HttpVersion;
+import com.foxinmy.weixin4j.http.ResponseHandler;
+import com.foxinmy.weixin4j.http.SimpleHttpClient;
+import com.foxinmy.weixin4j.http.StatusLine;
+import com.foxinmy.weixin4j.http.entity.HttpEntity;
+
+/**
+ * apache httpclient4传输:请求在{@link HttpComponent4Factory}的连接池上执行
+ *
+ * @className HttpComponent4HttpClient
+ * @author jy
+ * @date 2015年7月11日
+ * @since JDK 1.7
+ * @see HttpComponent4Factory
+ */
+public class HttpComponent4HttpClient extends SimpleHttpClient implements
+		Closeable {
+
+	private final CloseableHttpClient httpClient;
+
+	public HttpComponent4HttpClient(CloseableHttpClient httpClient) {
+		this.httpClient = httpClient;
+	}
+
+	/**
+	 * 关闭apache httpclient与它的连接池
+	 */
+	@Override
+	public void close() throws IOException {
+		httpClient.close();
+	}
+
+	@Override
+	public HttpResponse execute(HttpRequest request) throws IOException {
+		CloseableHttpResponse httpResponse = httpClient
+				.execute(createRequest(request));
+		try {
+			HttpResponse response = createResponse(httpResponse);
+			org.apache.http.HttpEntity entity = httpResponse.getEntity();
+			if (response.getStatusLine().getStatusCode() < 300
+					&& entity != null) {
+				response.setContent(EntityUtils.toByteArray(entity));
+			} else {
+				// 读完响应体,连接才能归还连接池
+				EntityUtils.consume(entity);
+			}
+			return response;
+		} finally {
+			httpResponse.close();
+		}
+	}
+
+	/**
+	 * 以流的方式处理响应:handler直接从连接读取响应体,处理结束后读完剩余部分并归还连接
+	 */
+	@Override
+	public <T> T execute(HttpRequest request,
+			ResponseHandler<? extends T> handler) throws IOException {
+		CloseableHttpResponse httpResponse = httpClient
+				.execute(createRequest(request));
+		try {
+			HttpResponse response = createResponse(httpResponse);
+			org.apache.http.HttpEntity entity = httpResponse.getEntity();
+			try {
+				if (response.getStatusLine().getStatusCode() < 300
+						&& entity != null) {
+					response.setBody(entity.getContent());
+				}
+				return handler.handleResponse(response);
+			} finally {
+				EntityUtils.consume(entity);
+			}
+		} finally {
+			httpResponse.close();
+		}
+	}
+
+	private static HttpResponse createResponse(
+			CloseableHttpResponse httpResponse) {
+		{
+			HttpResponse response = new HttpResponse();
+			org.apache.http.ProtocolVersion version = httpResponse
+					.getProtocolVersion();
+			if (version.getMajor() == 1 && version.getMinor() == 1) {
+				response.setHttpVersion(HttpVersion.HTTP_1_1);
+			} else if (version.getMajor() == 1 && version.getMinor() == 0) {
+				response.setHttpVersion(HttpVersion.HTTP_1_0);
+			} else {
+				response.setHttpVersion(new HttpVersion(version.toString(),
+						true));
+			}
+			int statusCode = httpResponse.getStatusLine().getStatusCode();
+			response.setStatusLine(new StatusLine(statusCode, httpResponse
+					.getStatusLine().getReasonPhrase()));
+			org.apache.http.Header[] allHeaders = httpResponse.getAllHeaders();
+			List<Header> headers = new ArrayList<Header>(allHeaders.length);
+			for (org.apache.http.Header header : allHeaders) {
+				headers.add(new Header(header.getName(), header.getValue()));
+			}
+			response.setHeaders(headers.toArray(new Header[headers.size()]));
+			return response;
+		}
+	}
+
+	private HttpUriRequest createRequest(HttpRequest request) {
+		HttpParams params = request.getParams();
+		RequestBuilder builder = RequestBuilder
+				.create(request.getMethod().name())
+				.setUri(request.getURI())
+				.setConfig(
+						RequestConfig.custom()
+								.setConnectTimeout(params.getConnectTimeout())
+								.setConnectionRequestTimeout(
+										params.getConnectTimeout())
+								.setSocketTimeout(params.getReadTimeout())
+								.setRedirectsEnabled(
+										params.getFollowRedirects()).build());
+		for (Iterator<Entry<String, String>> headerIterator = createDefualtHeader()
+				.entrySet().iterator(); headerIterator.hasNext();) {
+			Entry<String, String> header = headerIterator.next();
+			if (!request.containsHeader(header.getKey())) {
+				builder.setHeader(header.getKey(), header.getValue());
+			}
+		}
+		for (Header header : request.getAllHeaders()) {
+			builder.addHeader(header.getName(), header.getValue());
+		}
+		if (request instanceof HttpEntityRequest) {
+			HttpEntity httpEntity = ((HttpEntityRequest) request).getEntity();
+			if (httpEntity != null) {
+				builder.setEntity(new EntityAdapter(httpEntity));
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * 把请求体适配为httpclient的HttpEntity
+	 */
+	private static final class EntityAdapter extends AbstractHttpEntity {
+
+		private final HttpEntity httpEntity;
+
+		EntityAdapter(HttpEntity httpEntity) {
+			this.httpEntity = httpEntity;
+			setContentType(httpEntity.getContentType().getMimeType());
+		}
+
+		@Override
+		public boolean isRepeatable() {
+			return false;
+		}
+
+		@Override
+		public long getContentLength() {
+			return httpEntity.getContentLength();
+		}
+
+		@Override
+		public InputStream getContent() throws IOException {
+			return httpEntity.getContent();
+		}
+
+		@Override
+		public void writeTo(OutputStream outstream) throws IOException {
+			httpEntity.writeTo(outstream);
+		}
+
+		@Override
+		public boolean isStreaming() {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,598 @@
+package com.foxinmy.weixin4j.http.factory;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+
+import com.foxinmy.weixin4j.http.Header;
+import com.foxinmy.weixin4j.http.HttpEntityRequest;
+import com.foxinmy.weixin4j.http.HttpParams;
+import com.foxinmy.weixin4j.http.HttpRequest;
+import com.foxinmy.weixin4j.http.HttpResponse;
+import com.foxinmy.weixin4j.http.HttpVersion;
+import com.foxinmy.weixin4j.http.PooledHttpClient;
+import com.foxinmy.weixin4j.http.ResponseHandler;
+import com.foxinmy.weixin4j.http.SimpleHttpClient;
+import com.foxinmy.weixin4j.http.StatusLine;
+import com.foxinmy.weixin4j.http.async.AsyncHttpClient;
+import com.foxinmy.weixin4j.http.async.WeixinFuture;
+import com.foxinmy.weixin4j.http.entity.HttpEntity;
+
+/**
+ * netty4传输:所有请求共用{@link Netty4HttpClientFactory}的I/O线程,调用线程不等待响应
+ * <p>
+ * 每个host最多maxPerRoute个keep-alive连接,连接都在使用时请求排队等待空闲的连接;
+ * 复用的连接在响应开始之前被关闭时,用新的连接重试一次
+ * </p>
+ *
+ * @className Netty4HttpClient
+ * @author jy
+ * @date 2015年7月11日
+ * @since JDK 1.7
+ * @see Netty4HttpClientFactory
+ */
+public class Netty4HttpClient extends SimpleHttpClient implements
+		AsyncHttpClient, Closeable {
+
+	/**
+	 * 响应体的最大长度
+	 */
+	private static final int MAX_CONTENT_LENGTH = 32 * 1024 * 1024;
+
+	private final Bootstrap bootstrap;
+	private final int maxPerRoute;
+	private final long idleTimeout;
+	private final ConcurrentMap<String, Route> routes;
+	private volatile boolean shutdown;
+
+	public Netty4HttpClient(Bootstrap bootstrap, SSLContext sslContext) {
+		this(bootstrap, sslContext, PooledHttpClient.DEFAULT_MAX_PER_ROUTE,
+				PooledHttpClient.DEFAULT_IDLE_TIMEOUT);
+	}
+
+	/**
+	 *
+	 * @param bootstrap
+	 *            共用I/O线程的Bootstrap
+	 * @param sslContext
+	 *            为空时信任所有证书
+	 * @param maxPerRoute
+	 *            每个host的最大连接数
+	 * @param idleTimeout
+	 *            连接的最大空闲时间(毫秒)
+	 */
+	public Netty4HttpClient(Bootstrap bootstrap, SSLContext sslContext,
+			int maxPerRoute, long idleTimeout) {
+		super(sslContext);
+		this.bootstrap = bootstrap;
+		this.maxPerRoute = maxPerRoute;
+		this.idleTimeout = idleTimeout;
+		this.routes = new ConcurrentHashMap<String, Route>();
+	}
+
+	@Override
+	public HttpResponse execute(HttpRequest request) throws IOException {
+		WeixinFuture<HttpResponse> future = executeAsync(request);
+		try {
+			// 连接与读取超时都会使结果失败
+			return future.get();
+		} catch (InterruptedException e) {
+			future.cancel(false);
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	/**
+	 * 响应体由HttpObjectAggregator读入内存,handler读取的是内存中的内容
+	 */
+	@Override
+	public <T> T execute(HttpRequest request,
+			ResponseHandler<? extends T> handler) throws IOException {
+		return handler.handleResponse(execute(request));
+	}
+
+	@Override
+	public WeixinFuture<HttpResponse> executeAsync(HttpRequest request) {
+		WeixinFuture<HttpResponse> future = new WeixinFuture<HttpResponse>();
+		if (shutdown) {
+			future.setFailure(new IOException("httpclient has been shutdown"));
+			return future;
+		}
+		URI uri = request.getURI();
+		try {
+			boolean ssl = "https".equalsIgnoreCase(uri.getScheme());
+			int port = uri.getPort() > 0 ? uri.getPort() : ssl ? 443 : 80;
+			String key = String.format("%s://%s:%d", uri.getScheme(),
+					uri.getHost(), port).toLowerCase();
+			Route route = routes.get(key);
+			if (route == null) {
+				Route newRoute = new Route(uri.getHost(), port,
+						ssl ? getSSLContext() : null);
+				route = routes.putIfAbsent(key, newRoute);
+				if (route == null) {
+					route = newRoute;
+				}
+			}
+			route.acquire(new Exchange(uri, createRequest(request, uri),
+					request.getParams(), future));
+		} catch (IOException e) {
+			future.setFailure(e);
+		}
+		return future;
+	}
+
+	/**
+	 * 关闭所有空闲的连接
+	 */
+	public void closeIdleConnections() {
+		for (Route route : routes.values()) {
+			route.closeIdle();
+		}
+	}
+
+	/**
+	 * 关闭连接池:关闭所有空闲的连接并移除所有host,使用中的连接在请求完成后关闭;I/O线程由
+	 * {@link Netty4HttpClientFactory#shutdown()}关闭
+	 */
+	public void shutdown() {
+		shutdown = true;
+		closeIdleConnections();
+		routes.clear();
+	}
+
+	/**
+	 * 同{@link #shutdown()}
+	 */
+	@Override
+	public void close() {
+		shutdown();
+	}
+
+	private FullHttpRequest createRequest(HttpRequest request, URI uri)
+			throws IOException {
+		StringBuilder path = new StringBuilder(uri.getRawPath() == null
+				|| uri.getRawPath().isEmpty() ? "/" : uri.getRawPath());
+		if (uri.getRawQuery() != null) {
+			path.append('?').append(uri.getRawQuery());
+		}
+		ByteBuf content = Unpooled.EMPTY_BUFFER;
+		HttpEntity httpEntity = null;
+		if (request instanceof HttpEntityRequest) {
+			httpEntity = ((HttpEntityRequest) request).getEntity();
+		}
+		if (httpEntity != null) {
+			content = Unpooled.buffer(Math.max(
+					(int) httpEntity.getContentLength(), 0));
+			httpEntity.writeTo(new ByteBufOutputStream(content));
+		}
+		DefaultFullHttpRequest nettyRequest = new DefaultFullHttpRequest(
+				io.netty.handler.codec.http.HttpVersion.HTTP_1_1,
+				io.netty.handler.codec.http.HttpMethod.valueOf(request
+						.getMethod().name()), path.toString(), content);
+		HttpHeaders headers = nettyRequest.headers();
+		headers.set(HttpHeaders.Names.HOST, uri.getPort() > 0 ? uri.getHost()
+				+ ":" + uri.getPort() : uri.getHost());
+		for (Iterator<Entry<String, String>> headerIterator = createDefualtHeader()
+				.entrySet().iterator(); headerIterator.hasNext();) {
+			Entry<String, String> header = headerIterator.next();
+			if (!request.containsHeader(header.getKey())) {
+				headers.set(header.getKey(), header.getValue());
+			}
+		}
+		for (Header header : request.getAllHeaders()) {
+			headers.add(header.getName(), header.getValue());
+		}
+		if (httpEntity != null) {
+			headers.set(HttpHeaders.Names.CONTENT_TYPE, httpEntity
+					.getContentType().getMimeType());
+		}
+		headers.set(HttpHeaders.Names.CONTENT_LENGTH, content.readableBytes());
+		return nettyRequest;
+	}
+
+	private static HttpResponse toResponse(FullHttpResponse nettyResponse) {
+		HttpResponse response = new HttpResponse();
+		String version = nettyResponse.getProtocolVersion().text();
+		if (HttpVersion.HTTP_1_1_STRING.equals(version)) {
+			response.setHttpVersion(HttpVersion.HTTP_1_1);
+		} else if (HttpVersion.HTTP_1_0_STRING.equals(version)) {
+			response.setHttpVersion(HttpVersion.HTTP_1_0);
+		} else {
+			response.setHttpVersion(new HttpVersion(version, true));
+		}
+		int statusCode = nettyResponse.getStatus().code();
+		response.setStatusLine(new StatusLine(statusCode, nettyResponse
+				.getStatus().reasonPhrase()));
+		List<Map.Entry<String, String>> entries = nettyResponse.headers()
+				.entries();
+		List<Header> headers = new ArrayList<Header>(entries.size());
+		for (Map.Entry<String, String> entry : entries) {
+			headers.add(new Header(entry.getKey(), entry.getValue()));
+		}
+		response.setHeaders(headers.toArray(new Header[headers.size()]));
+		if (statusCode < 300) {
+			ByteBuf content = nettyResponse.content();
+			byte[] bytes = new byte[content.readableBytes()];
+			content.getBytes(content.readerIndex(), bytes);
+			response.setContent(bytes);
+		}
+		return response;
+	}
+
+	/**
+	 * 一次请求:复用的连接失败时可以重试
+	 */
+	private static final class Exchange {
+
+		final URI uri;
+		final FullHttpRequest request;
+		final HttpParams params;
+		final WeixinFuture<HttpResponse> future;
+		boolean retried;
+
+		Exchange(URI uri, FullHttpRequest request, HttpParams params,
+				WeixinFuture<HttpResponse> future) {
+			this.uri = uri;
+			this.request = request;
+			this.params = params;
+			this.future = future;
+		}
+
+		void complete(HttpResponse response) {
+			request.release();
+			future.setResult(response);
+		}
+
+		void fail(Throwable cause) {
+			request.release();
+			future.setFailure(cause);
+		}
+	}
+
+	/**
+	 * 同一个host的连接:空闲连接后进先出,超过最大连接数的请求排队
+	 */
+	private final class Route {
+
+		final String host;
+		final int port;
+		final SSLContext sslContext;
+		// 以下字段由this保护
+		final Deque<Channel> idleChannels = new ArrayDeque<Channel>();
+		final Queue<Exchange> pendingExchanges = new ArrayDeque<Exchange>();
+		int connections;
+
+		Route(String host, int port, SSLContext sslContext) {
+			this.host = host;
+			this.port = port;
+			this.sslContext = sslContext;
+		}
+
+		void acquire(Exchange exchange) {
+			Channel channel = null;
+			synchronized (this) {
+				while ((channel = idleChannels.pollFirst()) != null) {
+					if (channel.isActive()) {
+						break;
+					}
+				}
+				if (channel == null) {
+					if (connections >= maxPerRoute) {
+						pendingExchanges.add(exchange);
+						return;
+					}
+					connections++;
+				}
+			}
+			if (channel != null) {
+				write(channel, exchange, true);
+			} else {
+				connect(exchange);
+			}
+		}
+
+		/**
+		 * 响应读完后归还连接:有排队的请求时直接使用
+		 */
+		void release(Channel channel) {
+			Exchange exchange;
+			synchronized (this) {
+				exchange = pendingExchanges.poll();
+				if (exchange == null) {
+					if (shutdown) {
+						channel.close();
+					} else {
+						idleChannels.offerFirst(channel);
+					}
+					return;
+				}
+			}
+			write(channel, exchange, true);
+		}
+
+		/**
+		 * 连接关闭后腾出位置:有排队的请求时新建连接
+		 */
+		void closed(Channel channel) {
+			Exchange exchange;
+			synchronized (this) {
+				idleChannels.remove(channel);
+				exchange = pendingExchanges.poll();
+				if (exchange == null) {
+					connections--;
+					return;
+				}
+			}
+			connect(exchange);
+		}
+
+		synchronized void closeIdle() {
+			for (Channel channel : idleChannels) {
+				channel.close();
+			}
+		}
+
+		void connect(final Exchange exchange) {
+			Bootstrap b = bootstrap.clone();
+			b.option(ChannelOption.CONNECT_TIMEOUT_MILLIS,
+					exchange.params.getConnectTimeout()).handler(
+					new ChannelInitializer<SocketChannel>() {
+						@Override
+						protected void initChannel(SocketChannel channel) {
+							ChannelPipeline pipeline = channel.pipeline();
+							if (sslContext != null) {
+								SSLEngine sslEngine = sslContext.createSSLEngine(
+										host, port);
+								sslEngine.setUseClientMode(true);
+								pipeline.addLast(new SslHandler(sslEngine));
+							}
+							final ExchangeHandler exchangeHandler = new ExchangeHandler(
+									Route.this);
+							pipeline.addLast(new IdleStateHandler(0, 0,
+									idleTimeout, TimeUnit.MILLISECONDS));
+							pipeline.addLast(new HttpClientCodec());
+							pipeline.addLast(new ChannelInboundHandlerAdapter() {
+								@Override
+								public void channelRead(ChannelHandlerContext ctx,
+										Object msg) {
+									exchangeHandler.responseStarted = true;
+									ctx.fireChannelRead(msg);
+								}
+							});
+							pipeline.addLast(new HttpObjectAggregator(
+									MAX_CONTENT_LENGTH));
+							pipeline.addLast(exchangeHandler);
+						}
+					});
+			b.connect(host, port).addListener(new ChannelFutureListener() {
+				@Override
+				public void operationComplete(ChannelFuture future) {
+					if (future.isSuccess()) {
+						final Channel channel = future.channel();
+						channel.closeFuture().addListener(
+								new ChannelFutureListener() {
+									@Override
+									public void operationComplete(
+											ChannelFuture future) {
+										closed(channel);
+									}
+								});
+						write(channel, exchange, false);
+					} else {
+						exchange.fail(new IOException("connect fail:"
+								+ exchange.uri, future.cause()));
+						closed(null);
+					}
+				}
+			});
+		}
+
+		void write(final Channel channel, final Exchange exchange,
+				final boolean reused) {
+			if (!channel.eventLoop().inEventLoop()) {
+				channel.eventLoop().execute(new Runnable() {
+					@Override
+					public void run() {
+						write(channel, exchange, reused);
+					}
+				});
+				return;
+			}
+			if (exchange.future.isDone()) {
+				// 已经取消
+				exchange.request.release();
+				release(channel);
+				return;
+			}
+			final ExchangeHandler exchangeHandler = channel.pipeline().get(
+					ExchangeHandler.class);
+			if (exchangeHandler == null || !channel.isActive()) {
+				// 空闲时被服务端关闭的连接
+				retry(exchange, new IOException("connection closed"));
+				return;
+			}
+			exchangeHandler.bind(channel, exchange, reused);
+			// duplicate:重试时请求体从头发送
+			channel.writeAndFlush(exchange.request.duplicate().retain())
+					.addListener(new ChannelFutureListener() {
+						@Override
+						public void operationComplete(ChannelFuture future) {
+							if (future.isSuccess()) {
+								exchangeHandler.requestWritten = true;
+							} else {
+								exchangeHandler.failed(future.cause());
+								channel.close();
+							}
+						}
+					});
+		}
+
+		void retry(Exchange exchange, Throwable cause) {
+			if (exchange.retried) {
+				exchange.fail(cause);
+			} else {
+				exchange.retried = true;
+				acquire(exchange);
+			}
+		}
+	}
+
+	/**
+	 * 每个连接一个,只在连接的I/O线程中访问
+	 */
+	private static final class ExchangeHandler extends
+			SimpleChannelInboundHandler<FullHttpResponse> {
+
+		private final Route route;
+		private Exchange exchange;
+		private boolean reused;
+		private ScheduledFuture<?> readTimeout;
+		boolean requestWritten;
+		boolean responseStarted;
+
+		ExchangeHandler(Route route) {
+			this.route = route;
+		}
+
+		void bind(final Channel channel, Exchange exchange, boolean reused) {
+			this.exchange = exchange;
+			this.reused = reused;
+			this.requestWritten = false;
+			this.responseStarted = false;
+			int timeout = exchange.params.getReadTimeout();
+			if (timeout > 0) {
+				readTimeout = channel.eventLoop().schedule(new Runnable() {
+					@Override
+					public void run() {
+						Exchange exchange = unbind();
+						if (exchange != null) {
+							channel.close();
+							exchange.fail(new SocketTimeoutException(
+									"read timeout:" + exchange.uri));
+						}
+					}
+				}, timeout, TimeUnit.MILLISECONDS);
+			}
+		}
+
+		private Exchange unbind() {
+			Exchange exchange = this.exchange;
+			this.exchange = null;
+			if (readTimeout != null) {
+				readTimeout.cancel(false);
+				readTimeout = null;
+			}
+			return exchange;
+		}
+
+		@Override
+		protected void channelRead0(ChannelHandlerContext ctx,
+				FullHttpResponse response) {
+			Exchange exchange = unbind();
+			if (exchange == null) {
+				ctx.close();
+				return;
+			}
+			HttpResponse httpResponse = toResponse(response);
+			if (HttpHeaders.isKeepAlive(response) && ctx.channel().isActive()) {
+				route.release(ctx.channel());
+			} else {
+				ctx.close();
+			}
+			exchange.complete(httpResponse);
+		}
+
+		@Override
+		public void channelInactive(ChannelHandlerContext ctx) {
+			failed(new IOException("connection closed"));
+		}
+
+		@Override
+		public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+			ctx.close();
+			failed(cause);
+		}
+
+		@Override
+		public void userEventTriggered(ChannelHandlerContext ctx, Object evt) {
+			if (evt instanceof IdleStateEvent && exchange == null) {
+				ctx.close();
+			}
+		}
+
+		void failed(Throwable cause) {
+			Exchange exchange = unbind();
+			if (exchange == null) {
+				return;
+			}
+			// 已经写出的非幂等请求可能已被服务端处理,不再重试
+			if (reused
+					&& !responseStarted
+					&& (!requestWritten || isIdempotent(exchange.request
+							.getMethod()))) {
+				// keep-alive连接在发送请求时被服务端关闭
+				route.retry(exchange, cause);
+			} else {
+				exchange.fail(cause);
+			}
+		}
+
+		private static boolean isIdempotent(
+				io.netty.handler.codec.http.HttpMethod method) {
+			return method.equals(io.netty.handler.codec.http.HttpMethod.GET)
+					|| method.equals(io.netty.handler.codec.http.HttpMethod.HEAD)
+					|| method.equals(io.netty.handler.codec.http.HttpMethod.OPTIONS)
+					|| method.equals(io.netty.handler.codec.http.HttpMethod.TRACE)
+					|| method.equals(io.netty.handler.codec.http.HttpMethod.PUT)
+					|| method.equals(io.netty.handler.codec.http.HttpMethod.DELETE);
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package com.foxinmy.weixin4j.http.factory;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import javax.net.ssl.SSLContext;
+
+import com.foxinmy.weixin4j.http.HttpClient;
+import com.foxinmy.weixin4j.http.PooledHttpClient;
+import com.foxinmy.weixin4j.http.async.AsyncHttpClient;
+
+/**
+ * netty4传输:需要classpath中有netty4,所有HttpClient共用一组守护的I/O线程,
+ * {@link #newAsyncInstance()}是非阻塞的
+ *
+ * @className Netty4HttpClientFactory
+ * @author jy
+ * @date 2015年7月11日
+ * @since JDK 1.7
+ * @see Netty4HttpClient
+ */
+public class Netty4HttpClientFactory extends HttpClientFactory {
+
+	private final EventLoopGroup eventLoopGroup;
+	private final Bootstrap bootstrap;
+	private final int maxPerRoute;
+	private final long idleTimeout;
+	private final Netty4HttpClient httpClient;
+
+	/**
+	 * 连接池参数由系统属性weixin4j.httpclient.maxPerRoute、weixin4j.httpclient.idleTimeout设置
+	 */
+	public Netty4HttpClientFactory() {
+		this(Runtime.getRuntime().availableProcessors(), Integer.getInteger(
+				HTTPCLIENT + ".maxPerRoute",
+				PooledHttpClient.DEFAULT_MAX_PER_ROUTE), Long.getLong(
+				HTTPCLIENT + ".idleTimeout",
+				PooledHttpClient.DEFAULT_IDLE_TIMEOUT));
+	}
+
+	/**
+	 *
+	 * @param ioThreads
+	 *            I/O线程数
+	 * @param maxPerRoute
+	 *            每个host的最大连接数
+	 * @param idleTimeout
+	 *            连接的最大空闲时间(毫秒)
+	 */
+	public Netty4HttpClientFactory(int ioThreads, int maxPerRoute,
+			long idleTimeout) {
+		this.eventLoopGroup = new NioEventLoopGroup(ioThreads,
+				new DefaultThreadFactory("weixin4j-httpclient", true));
+		this.bootstrap = new Bootstrap().group(eventLoopGroup)
+				.channel(NioSocketChannel.class)
+				.option(ChannelOption.TCP_NODELAY, true);
+		this.maxPerRoute = maxPerRoute;
+		this.idleTimeout = idleTimeout;
+		this.httpClient = new Netty4HttpClient(bootstrap, null, maxPerRoute,
+				idleTimeout);
+	}
+
+	@Override
+	public HttpClient newInstance() {
+		return httpClient;
+	}
+
+	@Override
+	public HttpClient newInstance(SSLContext sslContext) {
+		return new Netty4HttpClient(bootstrap, sslContext, maxPerRoute,
+				idleTimeout);
+	}
+
+	@Override
+	public AsyncHttpClient newAsyncInstance() {
+		return httpClient;
+	}
+
+	/**
+	 * 关闭I/O线程
+	 */
+	public void shutdown() {
+		eventLoopGroup.shutdownGracefully();
+	}
+}
@@ -0,0 +1,57 @@
+package com.foxinmy.weixin4j.http.factory;
+
+import javax.net.ssl.SSLContext;
+
+import com.foxinmy.weixin4j.http.HttpClient;
+import com.foxinmy.weixin4j.http.PooledHttpClient;
+
+/**
+ * {@link PooledHttpClient}连接池传输:不依赖第三方包的keep-alive连接池
+ *
+ * @className PooledHttpClientFactory
+ * @author jy
+ * @date 2015年7月11日
+ * @since JDK 1.7
+ * @see PooledHttpClient
+ */
+public class PooledHttpClientFactory extends HttpClientFactory {
+
+	private final int maxPerRoute;
+	private final long idleTimeout;
+	private final PooledHttpClient httpClient;
+
+	public PooledHttpClientFactory() {
+		this(PooledHttpClient.DEFAULT_MAX_PER_ROUTE,
+				PooledHttpClient.DEFAULT_IDLE_TIMEOUT);
+	}
+
+	/**
+	 *
+	 * @param maxPerRoute
+	 *            每个host的最大连接数
+	 * @param idleTimeout
+	 *            连接的最大空闲时间(毫秒)
+	 */
+	public PooledHttpClientFactory(int maxPerRoute, long idleTimeout) {
+		this.maxPerRoute = maxPerRoute;
+		this.idleTimeout = idleTimeout;
+		this.httpClient = new PooledHttpClient(maxPerRoute, idleTimeout);
+	}
+
+	@Override
+	public HttpClient newInstance() {
+		return httpClient;
+	}
+
+	@Override
+	public HttpClient newInstance(SSLContext sslContext) {
+		return new PooledHttpClient(sslContext, maxPerRoute, idleTimeout);
+	}
+
+	/**
+	 * 关闭连接池中空闲的连接
+	 */
+	public void shutdown() {
+		httpClient.shutdown();
+	}
+}
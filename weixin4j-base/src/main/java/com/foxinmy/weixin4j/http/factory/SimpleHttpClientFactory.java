@@ -0,0 +1,30 @@
+package com.foxinmy.weixin4j.http.factory;
+
+import javax.net.ssl.SSLContext;
+
+import com.foxinmy.weixin4j.http.HttpClient;
+import com.foxinmy.weixin4j.http.SimpleHttpClient;
+
+/**
+ * JDK的HttpURLConnection传输
+ *
+ * @className SimpleHttpClientFactory
+ * @author jy
+ * @date 2015年7月11日
+ * @since JDK 1.7
+ * @see SimpleHttpClient
+ */
+public class SimpleHttpClientFactory extends HttpClientFactory {
+
+	private final SimpleHttpClient httpClient = new SimpleHttpClient();
+
+	@Override
+	public HttpClient newInstance() {
+		return httpClient;
+	}
+
+	@Override
+	public HttpClient newInstance(SSLContext sslContext) {
+		return new SimpleHttpClient(sslContext);
+	}
+}
@@ -0,0 +1,80 @@
+package com.foxinmy.weixin4j.http.weixin;
+
+import java.util.Arrays;
+
+import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.http.Header;
+import com.foxinmy.weixin4j.http.HttpGet;
+import com.foxinmy.weixin4j.http.HttpPost;
+import com.foxinmy.weixin4j.http.HttpRequest;
+import com.foxinmy.weixin4j.http.HttpResponse;
+import com.foxinmy.weixin4j.http.UrlEncodeParameter;
+import com.foxinmy.weixin4j.http.apache.HttpHeaders;
+import com.foxinmy.weixin4j.http.async.AsyncHttpClient;
+import com.foxinmy.weixin4j.http.async.Transformer;
+import com.foxinmy.weixin4j.http.async.WeixinFuture;
+import com.foxinmy.weixin4j.http.entity.FormUrlEntity;
+import com.foxinmy.weixin4j.http.entity.StringEntity;
+import com.foxinmy.weixin4j.http.factory.HttpClientFactory;
+
+/**
+ * 异步的微信API请求:和{@link WeixinHttpClient}一样校验错误码,错误码以WeixinException的形式使结果失败
+ *
+ * @className AsyncWeixinHttpClient
+ * @author jy
+ * @date 2015年7月12日
+ * @since JDK 1.7
+ * @see HttpClientFactory#newAsyncInstance()
+ */
+public class AsyncWeixinHttpClient {
+
+	private static final Transformer<HttpResponse, WeixinResponse> CHECK_RESPONSE = new Transformer<HttpResponse, WeixinResponse>() {
+		@Override
+		public WeixinResponse transform(HttpResponse httpResponse)
+				throws WeixinException {
+			return WeixinHttpClient.checkResponse(httpResponse);
+		}
+	};
+
+	private final AsyncHttpClient httpClient;
+
+	/**
+	 *
+	 * @param httpClientFactory
+	 *            HTTP传输的工厂
+	 */
+	public AsyncWeixinHttpClient(HttpClientFactory httpClientFactory) {
+		this(httpClientFactory.newAsyncInstance());
+	}
+
+	public AsyncWeixinHttpClient(AsyncHttpClient httpClient) {
+		this.httpClient = httpClient;
+	}
+
+	public WeixinFuture<WeixinResponse> get(String url) {
+		return doRequest(new HttpGet(url));
+	}
+
+	public WeixinFuture<WeixinResponse> post(String url,
+			UrlEncodeParameter... parameters) {
+		HttpPost method = new HttpPost(url);
+		if (parameters != null && parameters.length > 0) {
+			method.setEntity(new FormUrlEntity(Arrays.asList(parameters)));
+		}
+		return doRequest(method);
+	}
+
+	public WeixinFuture<WeixinResponse> post(String url, String body) {
+		HttpPost method = new HttpPost(url);
+		method.setEntity(new StringEntity(body));
+		return doRequest(method);
+	}
+
+	protected WeixinFuture<WeixinResponse> doRequest(HttpRequest request) {
+		if (!request.containsHeader(HttpHeaders.USER_AGENT)) {
+			request.addHeader(new Header(HttpHeaders.USER_AGENT,
+					WeixinHttpClient.USER_AGENT));
+		}
+		return httpClient.executeAsync(request).transform(CHECK_RESPONSE);
+	}
+}
@@ -0,0 +1,237 @@
+package com.foxinmy.weixin4j.http.weixin;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.net.ssl.TrustManager;
+
+import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.http.HttpClient;
+import com.foxinmy.weixin4j.http.factory.HttpClientFactory;
+import com.foxinmy.weixin4j.util.DigestUtil;
+
+/**
+ * 商户证书的ssl请求缓存:每个证书只加载一次(KeyStore、KeyManagerFactory、SSLContext),
+ * 同一证书的请求共用一个HttpClient,从而复用连接池中的连接与TLS会话
+ * <p>
+ * 证书可以来自文件、classpath或者字节数组;文件证书在修改时间或者大小变化后重新加载,旧的连接池随之关闭
+ * </p>
+ *
+ * @className SSLHttpClientCache
+ * @author jy
+ * @date 2015年7月14日
+ * @since JDK 1.7
+ * @see SSLHttpClinet
+ */
+public class SSLHttpClientCache {
+
+	private final HttpClientFactory httpClientFactory;
+	private final ConcurrentMap<String, CachedClient> clients;
+
+	public SSLHttpClientCache() {
+		this(HttpClientFactory.getDefaultFactory());
+	}
+
+	/**
+	 *
+	 * @param httpClientFactory
+	 *            创建ssl请求的HTTP传输工厂
+	 */
+	public SSLHttpClientCache(HttpClientFactory httpClientFactory) {
+		this.httpClientFactory = httpClientFactory;
+		this.clients = new ConcurrentHashMap<String, CachedClient>();
+	}
+
+	/**
+	 * 获取加载了证书文件的ssl请求
+	 *
+	 * @param caFile
+	 *            PKCS12证书文件
+	 * @param password
+	 *            证书密码
+	 * @return ssl请求
+	 * @throws WeixinException
+	 */
+	public SSLHttpClinet getClient(File caFile, String password)
+			throws WeixinException {
+		return getClient(caFile, password, null);
+	}
+
+	/**
+	 * 获取加载了证书文件的ssl请求
+	 *
+	 * @param caFile
+	 *            PKCS12证书文件
+	 * @param password
+	 *            证书密码
+	 * @param trustManagers
+	 *            校验服务端证书的TrustManager,为null时使用系统默认
+	 * @return ssl请求
+	 * @throws WeixinException
+	 */
+	public SSLHttpClinet getClient(File caFile, String password,
+			TrustManager[] trustManagers) throws WeixinException {
+		String key = String.format("file:%s", caFile.getAbsolutePath());
+		long version = caFile.lastModified() * 31 + caFile.length();
+		CachedClient cached = clients.get(key);
+		if (cached != null && cached.matches(password, version)) {
+			return cached.client;
+		}
+		synchronized (this) {
+			cached = clients.get(key);
+			if (cached != null && cached.matches(password, version)) {
+				return cached.client;
+			}
+			InputStream ca = null;
+			try {
+				ca = new FileInputStream(caFile);
+				return put(key, createClient(password, ca, trustManagers),
+						password, version);
+			} catch (IOException e) {
+				throw new WeixinException(e.getMessage());
+			} finally {
+				close(ca);
+			}
+		}
+	}
+
+	/**
+	 * 获取加载了classpath中证书的ssl请求,证书只加载一次
+	 *
+	 * @param resource
+	 *            PKCS12证书在classpath中的路径
+	 * @param password
+	 *            证书密码
+	 * @return ssl请求
+	 * @throws WeixinException
+	 */
+	public SSLHttpClinet getClient(String resource, String password)
+			throws WeixinException {
+		String key = String.format("classpath:%s", resource);
+		CachedClient cached = clients.get(key);
+		if (cached != null && cached.matches(password, 0l)) {
+			return cached.client;
+		}
+		synchronized (this) {
+			cached = clients.get(key);
+			if (cached != null && cached.matches(password, 0l)) {
+				return cached.client;
+			}
+			InputStream ca = Thread.currentThread().getContextClassLoader()
+					.getResourceAsStream(resource);
+			if (ca == null) {
+				throw new WeixinException(String.format(
+						"certificate not found in classpath:%s", resource));
+			}
+			try {
+				return put(key, createClient(password, ca, null), password, 0l);
+			} finally {
+				close(ca);
+			}
+		}
+	}
+
+	/**
+	 * 获取加载了证书内容的ssl请求,内容相同的证书只加载一次
+	 *
+	 * @param pkcs12
+	 *            PKCS12证书内容
+	 * @param password
+	 *            证书密码
+	 * @return ssl请求
+	 * @throws WeixinException
+	 */
+	public SSLHttpClinet getClient(byte[] pkcs12, String password)
+			throws WeixinException {
+		String key = String.format("bytes:%s", DigestUtil.SHA1(pkcs12));
+		CachedClient cached = clients.get(key);
+		if (cached != null && cached.matches(password, 0l)) {
+			return cached.client;
+		}
+		synchronized (this) {
+			cached = clients.get(key);
+			if (cached != null && cached.matches(password, 0l)) {
+				return cached.client;
+			}
+			return put(
+					key,
+					createClient(password, new ByteArrayInputStream(pkcs12),
+							null), password, 0l);
+		}
+	}
+
+	/**
+	 * 移除所有缓存的ssl请求并关闭它们的空闲连接
+	 */
+	public synchronized void clear() {
+		for (CachedClient cached : clients.values()) {
+			cached.shutdown();
+		}
+		clients.clear();
+	}
+
+	private SSLHttpClinet createClient(String password,
+			InputStream inputStream, TrustManager[] trustManagers)
+			throws WeixinException {
+		return new SSLHttpClinet(httpClientFactory,
+				SSLHttpClinet.createSSLContext(password, inputStream,
+						trustManagers));
+	}
+
+	private SSLHttpClinet put(String key, SSLHttpClinet client,
+			String password, long version) {
+		CachedClient old = clients.put(key, new CachedClient(client, password,
+				version));
+		if (old != null) {
+			old.shutdown();
+		}
+		return client;
+	}
+
+	private static void close(InputStream inputStream) {
+		if (inputStream != null) {
+			try {
+				inputStream.close();
+			} catch (IOException e) {
+				;
+			}
+		}
+	}
+
+	private static class CachedClient {
+		final SSLHttpClinet client;
+		final String password;
+		final long version;
+
+		CachedClient(SSLHttpClinet client, String password, long version) {
+			this.client = client;
+			this.password = password;
+			this.version = version;
+		}
+
+		boolean matches(String password, long version) {
+			return this.version == version && this.password.equals(password);
+		}
+
+		/**
+		 * 关闭为证书创建的HTTP传输(连接池、apache httpclient或者netty的连接),
+		 * 正在执行的请求不受影响,它们的连接在请求结束后关闭
+		 */
+		void shutdown() {
+			HttpClient httpClient = client.getHttpClient();
+			if (httpClient instanceof Closeable) {
+				try {
+					((Closeable) httpClient).close();
+				} catch (IOException e) {
+					;
+				}
+			}
+		}
+	}
+}
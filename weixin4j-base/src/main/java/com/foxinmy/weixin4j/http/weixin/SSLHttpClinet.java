@@ -1,21 +1,18 @@
 package com.foxinmy.weixin4j.http.weixin;
 
-import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URI;
-import java.net.URL;
 import java.security.KeyStore;
 
-import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
 
 import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.http.factory.HttpClientFactory;
 
 /**
  * ssl请求
- * 
+ *
  * @className SSLHttpClinet
  * @author jy
  * @date 2014年11月6日
@@ -24,10 +21,51 @@ import com.foxinmy.weixin4j.exception.WeixinException;
  */
 public class SSLHttpClinet extends WeixinHttpClient {
 
-	private final SSLContext sslContext;
-
 	public SSLHttpClinet(String password, InputStream inputStream)
 			throws WeixinException {
+		this(HttpClientFactory.getDefaultFactory(), password, inputStream);
+	}
+
+	/**
+	 *
+	 * @param httpClientFactory
+	 *            HTTP传输的工厂
+	 * @param password
+	 *            证书密码
+	 * @param inputStream
+	 *            PKCS12证书
+	 * @throws WeixinException
+	 */
+	public SSLHttpClinet(HttpClientFactory httpClientFactory,
+			String password, InputStream inputStream) throws WeixinException {
+		this(httpClientFactory, createSSLContext(password, inputStream, null));
+	}
+
+	public SSLHttpClinet(SSLContext sslContext) {
+		this(HttpClientFactory.getDefaultFactory(), sslContext);
+	}
+
+	public SSLHttpClinet(HttpClientFactory httpClientFactory,
+			SSLContext sslContext) {
+		super(httpClientFactory.newInstance(sslContext));
+	}
+
+	/**
+	 * 加载PKCS12证书并创建SSLContext
+	 *
+	 * @param password
+	 *            证书密码
+	 * @param inputStream
+	 *            PKCS12证书
+	 * @param trustManagers
+	 *            校验服务端证书的TrustManager,为null时使用系统默认
+	 * @return SSLContext
+	 * @throws WeixinException
+	 * @see SSLHttpClientCache
+	 */
+	public static SSLContext createSSLContext(String password,
+			InputStream inputStream, TrustManager[] trustManagers)
+			throws WeixinException {
 		try {
 			KeyStore keyStore = KeyStore
 					.getInstance(com.foxinmy.weixin4j.model.Consts.PKCS12);
@@ -35,26 +73,12 @@ public class SSLHttpClinet extends WeixinHttpClient {
 			KeyManagerFactory kmf = KeyManagerFactory
 					.getInstance(com.foxinmy.weixin4j.model.Consts.SunX509);
 			kmf.init(keyStore, password.toCharArray());
-			sslContext = SSLContext.getInstance("TLS");
-			sslContext.init(kmf.getKeyManagers(), null,
+			SSLContext sslContext = SSLContext.getInstance("TLS");
+			sslContext.init(kmf.getKeyManagers(), trustManagers,
 					new java.security.SecureRandom());
+			return sslContext;
 		} catch (Exception e) {
 			throw new WeixinException(e.getMessage());
 		}
 	}
-
-	public SSLHttpClinet(SSLContext sslContext) {
-		this.sslContext = sslContext;
-	}
-
-	@Override
-	protected HttpURLConnection createHttpConnection(URI uri)
-			throws IOException {
-		URL url = uri.toURL();
-		HttpsURLConnection connection = (HttpsURLConnection) url
-				.openConnection();
-		connection.setSSLSocketFactory(sslContext.getSocketFactory());
-		connection.setHostnameVerifier(super.createHostnameVerifier());
-		return connection;
-	}
 }
@@ -2,6 +2,7 @@ package com.foxinmy.weixin4j.http.weixin;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Map;
 
@@ -9,11 +10,13 @@ import com.alibaba.fastjson.JSONException;
 import com.foxinmy.weixin4j.exception.WeixinException;
 import com.foxinmy.weixin4j.http.ContentType;
 import com.foxinmy.weixin4j.http.Header;
+import com.foxinmy.weixin4j.http.HttpClient;
 import com.foxinmy.weixin4j.http.HttpGet;
 import com.foxinmy.weixin4j.http.HttpPost;
 import com.foxinmy.weixin4j.http.HttpRequest;
 import com.foxinmy.weixin4j.http.HttpResponse;
-import com.foxinmy.weixin4j.http.SimpleHttpClient;
+import com.foxinmy.weixin4j.http.PooledHttpClient;
+import com.foxinmy.weixin4j.http.ResponseHandler;
 import com.foxinmy.weixin4j.http.StatusLine;
 import com.foxinmy.weixin4j.http.UrlEncodeParameter;
 import com.foxinmy.weixin4j.http.apache.FormBodyPart;
@@ -23,19 +26,81 @@ import com.foxinmy.weixin4j.http.entity.ByteArrayEntity;
 import com.foxinmy.weixin4j.http.entity.FileEntity;
 import com.foxinmy.weixin4j.http.entity.FormUrlEntity;
 import com.foxinmy.weixin4j.http.entity.StringEntity;
+import com.foxinmy.weixin4j.http.factory.HttpClientFactory;
 import com.foxinmy.weixin4j.model.Consts;
 import com.foxinmy.weixin4j.util.ErrorUtil;
+import com.foxinmy.weixin4j.util.IOUtil;
 import com.foxinmy.weixin4j.util.MapUtil;
 import com.foxinmy.weixin4j.util.StringUtil;
 import com.foxinmy.weixin4j.xml.XmlStream;
 
-public class WeixinHttpClient extends SimpleHttpClient {
+/**
+ * 微信API请求:在{@link HttpClientFactory}提供的HTTP传输上执行请求,并校验返回的json或者xml中的错误码
+ * 
+ * @className WeixinHttpClient
+ * @author jy
+ * @date 2015年5月30日
+ * @since JDK 1.7
+ * @see HttpClientFactory
+ */
+public class WeixinHttpClient implements HttpClient {
+
+	static final String USER_AGENT = "weixin4j client/1.5";
+
+	private final HttpClient httpClient;
+
+	/**
+	 * 使用默认的HTTP传输:每次请求时从{@link HttpClientFactory#getDefaultFactory()}获取
+	 */
+	public WeixinHttpClient() {
+		this.httpClient = null;
+	}
+
+	/**
+	 * 
+	 * @param httpClientFactory
+	 *            HTTP传输的工厂
+	 */
+	public WeixinHttpClient(HttpClientFactory httpClientFactory) {
+		this(httpClientFactory.newInstance());
+	}
+
+	/**
+	 * 
+	 * @param httpClient
+	 *            执行请求的HttpClient,如共享的{@link PooledHttpClient}
+	 */
+	public WeixinHttpClient(HttpClient httpClient) {
+		this.httpClient = httpClient;
+	}
+
+	/**
+	 * 执行请求的HTTP传输
+	 * 
+	 * @return HttpClient
+	 */
+	public HttpClient getHttpClient() {
+		return httpClient != null ? httpClient : HttpClientFactory
+				.getDefaultFactory().newInstance();
+	}
 
 	@Override
-	protected Map<String, String> createDefualtHeader() {
-		Map<String, String> params = super.createDefualtHeader();
-		params.put(HttpHeaders.USER_AGENT, "weixin4j client/1.5");
-		return params;
+	public HttpResponse execute(HttpRequest request) throws IOException {
+		addUserAgent(request);
+		return getHttpClient().execute(request);
+	}
+
+	@Override
+	public <T> T execute(HttpRequest request,
+			ResponseHandler<? extends T> handler) throws IOException {
+		addUserAgent(request);
+		return getHttpClient().execute(request, handler);
+	}
+
+	private static void addUserAgent(HttpRequest request) {
+		if (!request.containsHeader(HttpHeaders.USER_AGENT)) {
+			request.addHeader(new Header(HttpHeaders.USER_AGENT, USER_AGENT));
+		}
 	}
 
 	public WeixinResponse get(String url) throws WeixinException {
@@ -69,6 +134,29 @@ public class WeixinHttpClient extends SimpleHttpClient {
 		return doRequest(new HttpGet(sb.toString()));
 	}
 
+	/**
+	 * 以流的方式处理GET请求的响应
+	 * 
+	 * @see #doRequest(HttpRequest, ResponseHandler)
+	 */
+	public <T> T get(String url, ResponseHandler<T> handler)
+			throws WeixinException {
+		return doRequest(new HttpGet(url), handler);
+	}
+
+	/**
+	 * 以流的方式处理GET请求的响应
+	 * 
+	 * @see #doRequest(HttpRequest, ResponseHandler)
+	 */
+	public <T> T get(String url, Map<String, String> para,
+			ResponseHandler<T> handler) throws WeixinException {
+		return get(
+				String.format("%s?%s", url,
+						MapUtil.toJoinString(para, false, false, null)),
+				handler);
+	}
+
 	public WeixinResponse post(String url) throws WeixinException {
 		return post(url, (UrlEncodeParameter[]) null);
 	}
@@ -88,6 +176,18 @@ public class WeixinHttpClient extends SimpleHttpClient {
 		return doRequest(method);
 	}
 
+	/**
+	 * 以流的方式处理POST请求的响应
+	 * 
+	 * @see #doRequest(HttpRequest, ResponseHandler)
+	 */
+	public <T> T post(String url, String body, ResponseHandler<T> handler)
+			throws WeixinException {
+		HttpPost method = new HttpPost(url);
+		method.setEntity(new StringEntity(body));
+		return doRequest(method, handler);
+	}
+
 	public WeixinResponse post(String url, byte[] bytes) throws WeixinException {
 		HttpPost method = new HttpPost(url);
 		method.setEntity(new ByteArrayEntity(bytes,
@@ -115,59 +215,139 @@ public class WeixinHttpClient extends SimpleHttpClient {
 
 	protected WeixinResponse doRequest(HttpRequest request)
 			throws WeixinException {
-		WeixinResponse response = null;
 		try {
-			HttpResponse httpResponse = execute(request);
-			StatusLine statusLine = httpResponse.getStatusLine();
-			if (statusLine.getStatusCode() >= 300) {
-				throw new WeixinException(String.format("request fail : %d-%s",
-						statusLine.getStatusCode(), statusLine.getStatusText()));
-			}
-			response = new WeixinResponse();
-			response.setContent(httpResponse.getContent());
-			response.setHeaders(httpResponse.getAllHeaders());
-			response.setHttpVersion(httpResponse.getHttpVersion());
-			response.setStatusLine(httpResponse.getStatusLine());
-			Header contentType = httpResponse
-					.getFirstHeader(HttpHeaders.CONTENT_TYPE);
-			Header disposition = httpResponse
-					.getFirstHeader("Content-disposition");
-			// json
-			if (contentType.getValue().contains(
-					ContentType.APPLICATION_JSON.getMimeType())
-					|| (disposition != null && disposition.getValue().indexOf(
-							".json") > 0)) {
-				checkJson(response);
-			} else if (contentType.getValue().contains(
-					ContentType.TEXT_XML.getMimeType())) {
-				checkXml(response);
-			} else if (contentType.getValue().contains(
-					ContentType.TEXT_PLAIN.getMimeType())
-					|| contentType.getValue().contains(
-							ContentType.TEXT_HTML.getMimeType())) {
-				try {
-					checkJson(response);
-					return response;
-				} catch (JSONException e) {
-					;
-				}
-				try {
-					checkXml(response);
-					return response;
-				} catch (IllegalArgumentException ex) {
-					;
+			return checkResponse(execute(request));
+		} catch (IOException e) {
+			throw new WeixinException(e.getMessage());
+		}
+	}
+
+	/**
+	 * 以流的方式处理响应:json、xml以及文本响应(通常是错误码)读入内存后照常校验,
+	 * 其它响应(如媒体文件、对账单)由handler直接从连接上读取{@link HttpResponse#getBody()},不在内存中缓冲
+	 * 
+	 * @param request
+	 *            请求
+	 * @param handler
+	 *            响应处理
+	 * @return handler的处理结果
+	 * @throws WeixinException
+	 */
+	protected <T> T doRequest(HttpRequest request,
+			final ResponseHandler<T> handler) throws WeixinException {
+		try {
+			return execute(request, new ResponseHandler<T>() {
+				@Override
+				public T handleResponse(HttpResponse response)
+						throws IOException {
+					if (response.getStatusLine().getStatusCode() >= 300
+							|| hasResult(response)) {
+						InputStream body = response.getBody();
+						if (body != null) {
+							response.setContent(IOUtil.toByteArray(body));
+							response.setBody(null);
+						}
+						try {
+							return handler.handleResponse(checkResponse(response));
+						} catch (WeixinException e) {
+							throw new WeixinIOException(e);
+						}
+					}
+					return handler.handleResponse(response);
 				}
-				throw new WeixinException(response.getAsString());
-			}
+			});
+		} catch (WeixinIOException e) {
+			throw (WeixinException) e.getCause();
 		} catch (IOException e) {
 			throw new WeixinException(e.getMessage());
-		} finally {
-			// request.releaseConnection();
+		}
+	}
+
+	/**
+	 * 在ResponseHandler中传递校验失败的WeixinException
+	 */
+	private static class WeixinIOException extends IOException {
+		private static final long serialVersionUID = 1L;
+
+		WeixinIOException(WeixinException cause) {
+			super(cause);
+		}
+	}
+
+	/**
+	 * 响应内容是否是json、xml或者文本等需要校验错误码的格式
+	 */
+	private static boolean hasResult(HttpResponse httpResponse) {
+		Header contentType = httpResponse
+				.getFirstHeader(HttpHeaders.CONTENT_TYPE);
+		Header disposition = httpResponse.getFirstHeader("Content-disposition");
+		if (disposition != null && disposition.getValue().indexOf(".json") > 0) {
+			return true;
+		}
+		if (contentType == null) {
+			return false;
+		}
+		String mimeType = contentType.getValue();
+		return mimeType.contains(ContentType.APPLICATION_JSON.getMimeType())
+				|| mimeType.contains(ContentType.TEXT_XML.getMimeType())
+				|| mimeType.contains(ContentType.TEXT_PLAIN.getMimeType())
+				|| mimeType.contains(ContentType.TEXT_HTML.getMimeType());
+	}
+
+	/**
+	 * 校验响应的状态码以及json或者xml中的错误码
+	 * 
+	 * @param httpResponse
+	 *            响应
+	 * @return 微信响应
+	 * @throws WeixinException
+	 */
+	static WeixinResponse checkResponse(HttpResponse httpResponse)
+			throws WeixinException {
+		StatusLine statusLine = httpResponse.getStatusLine();
+		if (statusLine.getStatusCode() >= 300) {
+			throw new WeixinException(String.format("request fail : %d-%s",
+					statusLine.getStatusCode(), statusLine.getStatusText()));
+		}
+		WeixinResponse response = new WeixinResponse();
+		response.setContent(httpResponse.getContent());
+		response.setHeaders(httpResponse.getAllHeaders());
+		response.setHttpVersion(httpResponse.getHttpVersion());
+		response.setStatusLine(httpResponse.getStatusLine());
+		Header contentType = httpResponse.getFirstHeader(HttpHeaders.CONTENT_TYPE);
+		Header disposition = httpResponse.getFirstHeader("Content-disposition");
+		// json
+		if (contentType.getValue().contains(
+				ContentType.APPLICATION_JSON.getMimeType())
+				|| (disposition != null && disposition.getValue().indexOf(
+						".json") > 0)) {
+			checkJson(response);
+		} else if (contentType.getValue().contains(
+				ContentType.TEXT_XML.getMimeType())) {
+			checkXml(response);
+		} else if (contentType.getValue().contains(
+				ContentType.TEXT_PLAIN.getMimeType())
+				|| contentType.getValue().contains(
+						ContentType.TEXT_HTML.getMimeType())) {
+			try {
+				checkJson(response);
+				return response;
+			} catch (JSONException e) {
+				;
+			}
+			try {
+				checkXml(response);
+				return response;
+			} catch (IllegalArgumentException ex) {
+				;
+			}
+			throw new WeixinException(response.getAsString());
 		}
 		return response;
 	}
 
-	private void checkJson(WeixinResponse response) throws WeixinException {
+	private static void checkJson(WeixinResponse response)
+			throws WeixinException {
 		JsonResult jsonResult = response.getAsJsonResult();
 		response.setJsonResult(true);
 		if (jsonResult.getCode() != 0) {
@@ -180,7 +360,8 @@ public class WeixinHttpClient extends SimpleHttpClient {
 		}
 	}
 
-	private void checkXml(WeixinResponse response) throws WeixinException {
+	private static void checkXml(WeixinResponse response)
+			throws WeixinException {
 		XmlResult xmlResult = null;
 		try {
 			xmlResult = response.getAsXmlResult();
@@ -36,6 +36,17 @@ public final class DigestUtil {
 		return HexUtil.encodeHexString(getDigest(Consts.SHA1).digest(data));
 	}
 
+	/**
+	 * SHA1摘要
+	 * 
+	 * @param data
+	 *            待摘要的数据
+	 * @return 摘要后的字符串
+	 */
+	public static String SHA1(byte[] data) {
+		return HexUtil.encodeHexString(getDigest(Consts.SHA1).digest(data));
+	}
+
 	/**
 	 * SHA签名
 	 * 
@@ -1,6 +1,7 @@
 package com.foxinmy.weixin4j.util;
 
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -47,6 +48,36 @@ public class IOUtil {
 		return output.toByteArray();
 	}
 
+	/**
+	 * 读取已知长度的流,不经过ByteArrayOutputStream的扩容与复制
+	 * 
+	 * @param input
+	 *            输入流
+	 * @param size
+	 *            长度
+	 * @return 字节数组
+	 * @throws IOException
+	 */
+	public static byte[] toByteArray(InputStream input, int size)
+			throws IOException {
+		byte[] data = new byte[size];
+		int offset = 0;
+		int n = 0;
+		while (offset < size
+				&& EOF != (n = input.read(data, offset, size - offset))) {
+			offset += n;
+		}
+		if (offset != size) {
+			throw new EOFException("unexpected end of stream");
+		}
+		return data;
+	}
+
+	public static long copy(InputStream input, OutputStream output)
+			throws IOException {
+		return copyLarge(input, output, new byte[DEFAULT_BUFFER_SIZE]);
+	}
+
 	private static long copyLarge(InputStream input, OutputStream output,
 			byte[] buffer) throws IOException {
 		long count = 0;
@@ -0,0 +1,148 @@
+package com.foxinmy.weixin4j.base.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.security.KeyStore;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.foxinmy.weixin4j.http.HttpGet;
+import com.foxinmy.weixin4j.http.PooledHttpClient;
+import com.foxinmy.weixin4j.http.SimpleHttpClient;
+import com.foxinmy.weixin4j.model.Consts;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+
+/**
+ * HTTPS请求的基准测试:每次请求新建SSLContext(原来的SimpleHttpClient) vs
+ * 共用SSLSocketFactory的SimpleHttpClient vs 连接池PooledHttpClient,请求本地的HTTPS桩服务
+ * <p>
+ * 桩服务使用src/test/resources/benchmark/stub.jks中的自签名证书,客户端信任所有证书
+ * </p>
+ *
+ * @className HttpClientBenchmark
+ * @author jy
+ * @date 2015年7月10日
+ * @since JDK 1.7
+ * @see com.foxinmy.weixin4j.http.PooledHttpClient
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class HttpClientBenchmark {
+
+	private static final String KEYSTORE = "benchmark/stub.jks";
+	private static final char[] KEYSTORE_PASSWORD = "weixin4j".toCharArray();
+	private static final byte[] RESPONSE = "{\"errcode\":0,\"errmsg\":\"ok\"}"
+			.getBytes(Consts.UTF_8);
+
+	private HttpsServer server;
+	private ExecutorService serverExecutor;
+	private String url;
+	private SimpleHttpClient simpleHttpClient;
+	private PooledHttpClient pooledHttpClient;
+
+	@Setup
+	public void setup() throws Exception {
+		// 桩服务关闭Nagle算法,否则小响应的延迟掩盖了客户端的差异
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+		server = HttpsServer.create(new InetSocketAddress(
+				InetAddress.getLoopbackAddress(), 0), 128);
+		server.setHttpsConfigurator(new HttpsConfigurator(
+				createServerSSLContext()));
+		server.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				exchange.getResponseHeaders().set("Content-Type",
+						"application/json; charset=utf-8");
+				exchange.sendResponseHeaders(200, RESPONSE.length);
+				OutputStream body = exchange.getResponseBody();
+				body.write(RESPONSE);
+				body.close();
+			}
+		});
+		serverExecutor = Executors.newCachedThreadPool();
+		server.setExecutor(serverExecutor);
+		server.start();
+		url = String.format("https://localhost:%d/cgi-bin/token", server
+				.getAddress().getPort());
+		simpleHttpClient = new SimpleHttpClient();
+		pooledHttpClient = new PooledHttpClient();
+	}
+
+	@TearDown
+	public void tearDown() {
+		pooledHttpClient.shutdown();
+		server.stop(0);
+		serverExecutor.shutdownNow();
+	}
+
+	private SSLContext createServerSSLContext() throws Exception {
+		KeyStore keyStore = KeyStore.getInstance("JKS");
+		InputStream in = HttpClientBenchmark.class.getClassLoader()
+				.getResourceAsStream(KEYSTORE);
+		try {
+			keyStore.load(in, KEYSTORE_PASSWORD);
+		} finally {
+			in.close();
+		}
+		KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory
+				.getDefaultAlgorithm());
+		kmf.init(keyStore, KEYSTORE_PASSWORD);
+		SSLContext sslContext = SSLContext.getInstance("TLS");
+		sslContext.init(kmf.getKeyManagers(), null, null);
+		return sslContext;
+	}
+
+	/**
+	 * 原来的行为:每次请求都新建SSLContext,连接与TLS会话都不能复用
+	 */
+	@Benchmark
+	public byte[] newSSLContext() throws IOException {
+		return new SimpleHttpClient().execute(new HttpGet(url)).getContent();
+	}
+
+	@Benchmark
+	public byte[] sharedSimpleHttpClient() throws IOException {
+		return simpleHttpClient.execute(new HttpGet(url)).getContent();
+	}
+
+	@Benchmark
+	public byte[] pooledHttpClient() throws IOException {
+		return pooledHttpClient.execute(new HttpGet(url)).getContent();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(
+				HttpClientBenchmark.class.getSimpleName()).build()).run();
+	}
+}
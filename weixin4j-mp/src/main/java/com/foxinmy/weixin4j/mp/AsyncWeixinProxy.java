@@ -0,0 +1,179 @@
+package com.foxinmy.weixin4j.mp;
+
+import com.foxinmy.weixin4j.api.BaseApi;
+import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.http.async.WeixinFuture;
+import com.foxinmy.weixin4j.http.factory.HttpClientFactory;
+import com.foxinmy.weixin4j.http.weixin.JsonResult;
+import com.foxinmy.weixin4j.model.WeixinAccount;
+import com.foxinmy.weixin4j.mp.api.NotifyApi;
+import com.foxinmy.weixin4j.mp.api.TmplApi;
+import com.foxinmy.weixin4j.mp.api.UserApi;
+import com.foxinmy.weixin4j.mp.message.NotifyMessage;
+import com.foxinmy.weixin4j.mp.message.TemplateMessage;
+import com.foxinmy.weixin4j.mp.model.User;
+import com.foxinmy.weixin4j.mp.token.WeixinTokenCreator;
+import com.foxinmy.weixin4j.mp.type.Lang;
+import com.foxinmy.weixin4j.token.FileTokenStorager;
+import com.foxinmy.weixin4j.token.TokenHolder;
+import com.foxinmy.weixin4j.token.TokenStorager;
+import com.foxinmy.weixin4j.util.ConfigUtil;
+
+/**
+ * 微信公众平台异步接口实现:调用线程不等待响应,适合批量获取用户信息、群发客服与模板消息
+ * <p>
+ * 使用{@link HttpClientFactory#newAsyncInstance()}的异步传输,netty传输(系统属性weixin4j.httpclient=netty)
+ * 时少量I/O线程即可支撑大量并发请求,其它传输在线程池中执行;获取token仍然在调用线程中进行,token缓存后不会阻塞
+ * </p>
+ *
+ * @className AsyncWeixinProxy
+ * @author jy
+ * @date 2015年7月12日
+ * @since JDK 1.7
+ * @see com.foxinmy.weixin4j.mp.WeixinProxy
+ * @see com.foxinmy.weixin4j.http.async.WeixinFuture
+ */
+public class AsyncWeixinProxy {
+
+	private final UserApi userApi;
+	private final NotifyApi notifyApi;
+	private final TmplApi tmplApi;
+
+	/**
+	 * 默认使用文件方式保存token、使用weixin4j.properties配置的账号信息
+	 */
+	public AsyncWeixinProxy() {
+		this(new FileTokenStorager());
+	}
+
+	/**
+	 * 默认使用weixin4j.properties配置的账号信息
+	 *
+	 * @param tokenStorager
+	 */
+	public AsyncWeixinProxy(TokenStorager tokenStorager) {
+		this(tokenStorager, ConfigUtil.getWeixinAccount());
+	}
+
+	/**
+	 *
+	 * @param appid
+	 * @param appsecret
+	 */
+	public AsyncWeixinProxy(String appid, String appsecret) {
+		this(new FileTokenStorager(), new WeixinAccount(appid, appsecret));
+	}
+
+	/**
+	 *
+	 * @param tokenStorager
+	 *            token存储策略
+	 * @param weixinAccount
+	 *            公众号账号信息
+	 */
+	public AsyncWeixinProxy(TokenStorager tokenStorager,
+			WeixinAccount weixinAccount) {
+		this(tokenStorager, weixinAccount, HttpClientFactory
+				.getDefaultFactory());
+	}
+
+	/**
+	 *
+	 * @param tokenStorager
+	 *            token存储策略
+	 * @param weixinAccount
+	 *            公众号账号信息
+	 * @param httpClientFactory
+	 *            HTTP传输的工厂,获取token和调用接口都使用它
+	 */
+	public AsyncWeixinProxy(TokenStorager tokenStorager,
+			WeixinAccount weixinAccount, HttpClientFactory httpClientFactory) {
+		TokenHolder tokenHolder = new TokenHolder(new WeixinTokenCreator(
+				weixinAccount, httpClientFactory), tokenStorager);
+		this.userApi = new UserApi(tokenHolder);
+		this.notifyApi = new NotifyApi(tokenHolder);
+		this.tmplApi = new TmplApi(tokenHolder);
+		for (BaseApi api : new BaseApi[] { userApi, notifyApi, tmplApi }) {
+			api.setHttpClientFactory(httpClientFactory);
+		}
+	}
+
+	/**
+	 * 获取用户信息
+	 *
+	 * @param openId
+	 *            用户对应的ID
+	 * @return 用户对象
+	 * @throws WeixinException
+	 *             获取token失败
+	 * @see com.foxinmy.weixin4j.mp.WeixinProxy#getUser(String)
+	 */
+	public WeixinFuture<User> getUser(String openId) throws WeixinException {
+		return userApi.getUserAsync(openId, Lang.zh_CN);
+	}
+
+	/**
+	 * 获取用户信息
+	 *
+	 * @param openId
+	 *            用户对应的ID
+	 * @param lang
+	 *            国家地区语言版本
+	 * @return 用户对象
+	 * @throws WeixinException
+	 *             获取token失败
+	 * @see com.foxinmy.weixin4j.mp.api.UserApi#getUserAsync(String, Lang)
+	 */
+	public WeixinFuture<User> getUser(String openId, Lang lang)
+			throws WeixinException {
+		return userApi.getUserAsync(openId, lang);
+	}
+
+	/**
+	 * 发送客服消息(在48小时内不限制发送次数)
+	 *
+	 * @param notify
+	 *            客服消息对象
+	 * @return 处理结果
+	 * @throws WeixinException
+	 *             获取token失败
+	 * @see com.foxinmy.weixin4j.mp.WeixinProxy#sendNotify(NotifyMessage)
+	 */
+	public WeixinFuture<JsonResult> sendNotify(NotifyMessage notify)
+			throws WeixinException {
+		return notifyApi.sendNotifyAsync(notify, null);
+	}
+
+	/**
+	 * 发送客服消息(在48小时内不限制发送次数)
+	 *
+	 * @param notify
+	 *            客服消息对象
+	 * @param kfAccount
+	 *            客服账号 可为空
+	 * @return 处理结果
+	 * @throws WeixinException
+	 *             获取token失败
+	 * @see com.foxinmy.weixin4j.mp.api.NotifyApi#sendNotifyAsync(NotifyMessage,
+	 *      String)
+	 */
+	public WeixinFuture<JsonResult> sendNotify(NotifyMessage notify,
+			String kfAccount) throws WeixinException {
+		return notifyApi.sendNotifyAsync(notify, kfAccount);
+	}
+
+	/**
+	 * 发送模板消息
+	 *
+	 * @param tplMessage
+	 *            消息对象
+	 * @return 发送结果
+	 * @throws WeixinException
+	 *             获取token失败
+	 * @see com.foxinmy.weixin4j.mp.api.TmplApi#sendTmplMessageAsync(TemplateMessage)
+	 */
+	public WeixinFuture<JsonResult> sendTmplMessage(TemplateMessage tplMessage)
+			throws WeixinException {
+		return tmplApi.sendTmplMessageAsync(tplMessage);
+	}
+}
@@ -4,8 +4,12 @@ import java.io.File;
 import java.util.Date;
 
 import com.alibaba.fastjson.JSON;
+import com.foxinmy.weixin4j.api.BaseApi;
+import com.foxinmy.weixin4j.exception.PayException;
 import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.http.factory.HttpClientFactory;
 import com.foxinmy.weixin4j.http.weixin.JsonResult;
+import com.foxinmy.weixin4j.http.weixin.SSLHttpClientCache;
 import com.foxinmy.weixin4j.http.weixin.XmlResult;
 import com.foxinmy.weixin4j.mp.api.CashApi;
 import com.foxinmy.weixin4j.mp.api.CouponApi;
@@ -13,12 +17,16 @@ import com.foxinmy.weixin4j.mp.api.Pay2Api;
 import com.foxinmy.weixin4j.mp.api.Pay3Api;
 import com.foxinmy.weixin4j.mp.api.PayApi;
 import com.foxinmy.weixin4j.mp.model.WeixinMpAccount;
+import com.foxinmy.weixin4j.mp.payment.MicroPayPackage;
+import com.foxinmy.weixin4j.mp.payment.PayUtil;
 import com.foxinmy.weixin4j.mp.payment.coupon.CouponDetail;
 import com.foxinmy.weixin4j.mp.payment.coupon.CouponResult;
 import com.foxinmy.weixin4j.mp.payment.coupon.CouponStock;
 import com.foxinmy.weixin4j.mp.payment.v3.ApiResult;
 import com.foxinmy.weixin4j.mp.payment.v3.MPPayment;
 import com.foxinmy.weixin4j.mp.payment.v3.MPPaymentResult;
+import com.foxinmy.weixin4j.mp.payment.v3.PayPackageV3;
+import com.foxinmy.weixin4j.mp.payment.v3.PrePay;
 import com.foxinmy.weixin4j.mp.payment.v3.Redpacket;
 import com.foxinmy.weixin4j.mp.payment.v3.RedpacketRecord;
 import com.foxinmy.weixin4j.mp.payment.v3.RedpacketSendResult;
@@ -51,6 +59,8 @@ public class WeixinPayProxy {
 	private final Pay3Api pay3Api;
 	private final CouponApi couponApi;
 	private final CashApi cashApi;
+	private final WeixinMpAccount weixinAccount;
+	private final HttpClientFactory httpClientFactory;
 
 	/**
 	 * 默认使用文件保存token、使用weixin4j.properties配置的账号信息
@@ -76,8 +86,23 @@ public class WeixinPayProxy {
 	 */
 	public WeixinPayProxy(TokenStorager tokenStorager,
 			WeixinMpAccount weixinAccount) {
+		this(tokenStorager, weixinAccount, HttpClientFactory
+				.getDefaultFactory());
+	}
+
+	/**
+	 * 
+	 * @param tokenStorager
+	 *            token的存储策略
+	 * @param weixinAccount
+	 *            公众号账号信息
+	 * @param httpClientFactory
+	 *            HTTP传输的工厂,支付接口和加载商户证书的请求都使用它;各支付接口共用一个ssl请求缓存
+	 */
+	public WeixinPayProxy(TokenStorager tokenStorager,
+			WeixinMpAccount weixinAccount, HttpClientFactory httpClientFactory) {
 		TokenHolder tokenHolder = new TokenHolder(new WeixinTokenCreator(
-				weixinAccount), tokenStorager);
+				weixinAccount, httpClientFactory), tokenStorager);
 		this.pay2Api = new Pay2Api(weixinAccount, tokenHolder);
 		this.pay3Api = new Pay3Api(weixinAccount, tokenHolder);
 		int version = weixinAccount.getVersion();
@@ -90,6 +115,15 @@ public class WeixinPayProxy {
 		}
 		this.couponApi = new CouponApi(weixinAccount);
 		this.cashApi = new CashApi(weixinAccount);
+		this.weixinAccount = weixinAccount;
+		this.httpClientFactory = httpClientFactory;
+		// 同一个商户证书只加载一次
+		SSLHttpClientCache sslClientCache = new SSLHttpClientCache(
+				httpClientFactory);
+		for (BaseApi api : new BaseApi[] { pay2Api, pay3Api, couponApi,
+				cashApi }) {
+			api.setHttpClientFactory(httpClientFactory, sslClientCache);
+		}
 	}
 
 	/**
@@ -666,4 +700,33 @@ public class WeixinPayProxy {
 		File caFile = new File(ConfigUtil.getClassPathValue("ca_file"));
 		return cashApi.mpPayment(caFile, mpPayment);
 	}
+
+	/**
+	 * 统一下单,与支付接口使用同一个HTTP传输
+	 * 
+	 * @param payPackage
+	 *            包含订单信息的对象
+	 * @return 预支付对象
+	 * @see {@link com.foxinmy.weixin4j.mp.payment.PayUtil#createPrePay(PayPackageV3, String, HttpClientFactory)}
+	 * @throws PayException
+	 */
+	public PrePay createPrePay(PayPackageV3 payPackage) throws PayException {
+		return PayUtil.createPrePay(payPackage, weixinAccount.getPaySignKey(),
+				httpClientFactory);
+	}
+
+	/**
+	 * 提交被扫支付,与支付接口使用同一个HTTP传输
+	 * 
+	 * @param payPackage
+	 *            订单信息
+	 * @return 支付的订单信息
+	 * @see {@link com.foxinmy.weixin4j.mp.payment.PayUtil#createMicroPay(MicroPayPackage, WeixinMpAccount, HttpClientFactory)}
+	 * @throws WeixinException
+	 */
+	public com.foxinmy.weixin4j.mp.payment.v3.Order createMicroPay(
+			MicroPayPackage payPackage) throws WeixinException {
+		return PayUtil.createMicroPay(payPackage, weixinAccount,
+				httpClientFactory);
+	}
 }
@@ -5,7 +5,9 @@ import java.io.IOException;
 import java.util.Date;
 import java.util.List;
 
+import com.foxinmy.weixin4j.api.BaseApi;
 import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.http.factory.HttpClientFactory;
 import com.foxinmy.weixin4j.http.weixin.JsonResult;
 import com.foxinmy.weixin4j.model.Button;
 import com.foxinmy.weixin4j.model.WeixinAccount;
@@ -36,6 +38,7 @@ import com.foxinmy.weixin4j.mp.model.QRParameter;
 import com.foxinmy.weixin4j.mp.model.SemQuery;
 import com.foxinmy.weixin4j.mp.model.SemResult;
 import com.foxinmy.weixin4j.mp.model.User;
+import com.foxinmy.weixin4j.mp.token.WeixinJSTicketCreator;
 import com.foxinmy.weixin4j.mp.token.WeixinTokenCreator;
 import com.foxinmy.weixin4j.mp.type.DatacubeType;
 import com.foxinmy.weixin4j.mp.type.IndustryType;
@@ -72,6 +75,7 @@ public class WeixinProxy {
 	private final TmplApi tmplApi;
 	private final HelperApi helperApi;
 	private final DataApi dataApi;
+	private final TokenHolder jsTicketHolder;
 
 	/**
 	 * 默认使用文件方式保存token、使用weixin4j.properties配置的账号信息
@@ -105,8 +109,23 @@ public class WeixinProxy {
 	 *            公众号账号信息
 	 */
 	public WeixinProxy(TokenStorager tokenStorager, WeixinAccount weixinAccount) {
+		this(tokenStorager, weixinAccount, HttpClientFactory
+				.getDefaultFactory());
+	}
+
+	/**
+	 * 
+	 * @param tokenStorager
+	 *            token存储策略
+	 * @param weixinAccount
+	 *            公众号账号信息
+	 * @param httpClientFactory
+	 *            HTTP传输的工厂,获取token和调用接口都使用它
+	 */
+	public WeixinProxy(TokenStorager tokenStorager,
+			WeixinAccount weixinAccount, HttpClientFactory httpClientFactory) {
 		TokenHolder tokenHolder = new TokenHolder(new WeixinTokenCreator(
-				weixinAccount), tokenStorager);
+				weixinAccount, httpClientFactory), tokenStorager);
 		this.mediaApi = new MediaApi(tokenHolder);
 		this.notifyApi = new NotifyApi(tokenHolder);
 		this.customApi = new CustomApi(tokenHolder);
@@ -118,6 +137,24 @@ public class WeixinProxy {
 		this.tmplApi = new TmplApi(tokenHolder);
 		this.helperApi = new HelperApi(tokenHolder);
 		this.dataApi = new DataApi(tokenHolder);
+		this.jsTicketHolder = new TokenHolder(new WeixinJSTicketCreator(
+				weixinAccount.getId(), tokenHolder, httpClientFactory),
+				tokenStorager);
+		for (BaseApi api : new BaseApi[] { mediaApi, notifyApi, customApi,
+				massApi, userApi, groupApi, menuApi, qrApi, tmplApi,
+				helperApi, dataApi }) {
+			api.setHttpClientFactory(httpClientFactory);
+		}
+	}
+
+	/**
+	 * jssdk的ticket,与获取token使用同一个HTTP传输和存储策略
+	 * 
+	 * @return ticket的持有者,getToken()返回的即是jsapi_ticket
+	 * @see com.foxinmy.weixin4j.mp.token.WeixinJSTicketCreator
+	 */
+	public TokenHolder getJSTicketHolder() {
+		return jsTicketHolder;
 	}
 
 	/**
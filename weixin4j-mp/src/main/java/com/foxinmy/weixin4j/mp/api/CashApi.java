@@ -1,9 +1,6 @@
 package com.foxinmy.weixin4j.mp.api;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -68,26 +65,9 @@ public class CashApi extends MpApi {
 		obj.put("sign", sign);
 		String param = XmlStream.map2xml(obj);
 		String redpack_send_uri = getRequestUri("redpack_send_uri");
-		WeixinResponse response = null;
-		InputStream ca = null;
-		try {
-			ca = new FileInputStream(caFile);
-			SSLHttpClinet request = new SSLHttpClinet(weixinAccount.getMchId(),
-					ca);
-			response = request.post(redpack_send_uri, param);
-		} catch (WeixinException e) {
-			throw e;
-		} catch (IOException e) {
-			throw new WeixinException(e.getMessage());
-		} finally {
-			if (ca != null) {
-				try {
-					ca.close();
-				} catch (IOException e) {
-					;
-				}
-			}
-		}
+		SSLHttpClinet request = getSSLClientCache().getClient(caFile,
+				weixinAccount.getMchId());
+		WeixinResponse response = request.post(redpack_send_uri, param);
 		return response.getAsObject(new TypeReference<RedpacketSendResult>() {
 		});
 	}
@@ -117,26 +97,9 @@ public class CashApi extends MpApi {
 		para.put("sign", sign);
 		String param = XmlStream.map2xml(para);
 		String redpack_query_uri = getRequestUri("redpack_query_uri");
-		WeixinResponse response = null;
-		InputStream ca = null;
-		try {
-			ca = new FileInputStream(caFile);
-			SSLHttpClinet request = new SSLHttpClinet(weixinAccount.getMchId(),
-					ca);
-			response = request.post(redpack_query_uri, param);
-		} catch (WeixinException e) {
-			throw e;
-		} catch (IOException e) {
-			throw new WeixinException(e.getMessage());
-		} finally {
-			if (ca != null) {
-				try {
-					ca.close();
-				} catch (IOException e) {
-					;
-				}
-			}
-		}
+		SSLHttpClinet request = getSSLClientCache().getClient(caFile,
+				weixinAccount.getMchId());
+		WeixinResponse response = request.post(redpack_query_uri, param);
 		return response.getAsObject(new TypeReference<RedpacketRecord>() {
 		});
 	}
@@ -167,26 +130,9 @@ public class CashApi extends MpApi {
 		obj.put("sign", sign);
 		String param = XmlStream.map2xml(obj);
 		String mp_payment_uri = getRequestUri("mp_payment_uri");
-		WeixinResponse response = null;
-		InputStream ca = null;
-		try {
-			ca = new FileInputStream(caFile);
-			SSLHttpClinet request = new SSLHttpClinet(weixinAccount.getMchId(),
-					ca);
-			response = request.post(mp_payment_uri, param);
-		} catch (WeixinException e) {
-			throw e;
-		} catch (IOException e) {
-			throw new WeixinException(e.getMessage());
-		} finally {
-			if (ca != null) {
-				try {
-					ca.close();
-				} catch (IOException e) {
-					;
-				}
-			}
-		}
+		SSLHttpClinet request = getSSLClientCache().getClient(caFile,
+				weixinAccount.getMchId());
+		WeixinResponse response = request.post(mp_payment_uri, param);
 		String text = response.getAsString()
 				.replaceFirst("<mch_appid>", "<appid>")
 				.replaceFirst("</mch_appid>", "</appid>")
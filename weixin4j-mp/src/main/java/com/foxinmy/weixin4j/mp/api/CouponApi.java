@@ -1,9 +1,6 @@
 package com.foxinmy.weixin4j.mp.api;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -76,26 +73,9 @@ public class CouponApi extends MpApi {
 		map.put("sign", sign);
 		String param = XmlStream.map2xml(map);
 		String coupon_send_uri = getRequestUri("coupon_send_uri");
-		WeixinResponse response = null;
-		InputStream ca = null;
-		try {
-			ca = new FileInputStream(caFile);
-			SSLHttpClinet request = new SSLHttpClinet(weixinAccount.getMchId(),
-					ca);
-			response = request.post(coupon_send_uri, param);
-		} catch (WeixinException e) {
-			throw e;
-		} catch (IOException e) {
-			throw new WeixinException(e.getMessage());
-		} finally {
-			if (ca != null) {
-				try {
-					ca.close();
-				} catch (IOException e) {
-					;
-				}
-			}
-		}
+		SSLHttpClinet request = getSSLClientCache().getClient(caFile,
+				weixinAccount.getMchId());
+		WeixinResponse response = request.post(coupon_send_uri, param);
 		return response.getAsObject(new TypeReference<CouponResult>() {
 		});
 	}
@@ -14,6 +14,8 @@ import com.alibaba.fastjson.JSONObject;
 import com.alibaba.fastjson.TypeReference;
 import com.alibaba.fastjson.parser.deserializer.ExtraProcessor;
 import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.http.HttpResponse;
+import com.foxinmy.weixin4j.http.ResponseHandler;
 import com.foxinmy.weixin4j.http.apache.ByteArrayBody;
 import com.foxinmy.weixin4j.http.apache.FormBodyPart;
 import com.foxinmy.weixin4j.http.apache.StringBody;
@@ -178,25 +180,21 @@ public class MediaApi extends MpApi {
 		if (file.exists()) {
 			return file;
 		}
-		byte[] datas = downloadMedia(mediaId, isMaterial);
-		OutputStream os = null;
 		try {
-			if (file.createNewFile()) {
-				os = new FileOutputStream(file);
-				os.write(datas);
-			} else {
+			if (!file.createNewFile()) {
 				throw new WeixinException(String.format("create file fail:%s",
 						file.getAbsolutePath()));
 			}
 		} catch (IOException e) {
 			throw new WeixinException(e.getMessage());
+		}
+		boolean downloaded = false;
+		try {
+			downloadMedia(mediaId, isMaterial, new WriteFileHandler(file));
+			downloaded = true;
 		} finally {
-			try {
-				if (os != null) {
-					os.close();
-				}
-			} catch (IOException ignore) {
-				;
+			if (!downloaded) {
+				file.delete();
 			}
 		}
 		return file;
@@ -218,21 +216,60 @@ public class MediaApi extends MpApi {
 	 */
 	public byte[] downloadMedia(String mediaId, boolean isMaterial)
 			throws WeixinException {
+		return downloadMedia(mediaId, isMaterial,
+				new ResponseHandler<byte[]>() {
+					@Override
+					public byte[] handleResponse(HttpResponse response)
+							throws IOException {
+						if (response.getContent() != null) {
+							return response.getContent();
+						}
+						return IOUtil.toByteArray(response.getBody());
+					}
+				});
+	}
+
+	/**
+	 * 下载媒体素材:媒体文件由handler直接从连接上读取
+	 */
+	private <T> T downloadMedia(String mediaId, boolean isMaterial,
+			ResponseHandler<T> handler) throws WeixinException {
 		Token token = tokenHolder.getToken();
-		WeixinResponse response = null;
 		if (isMaterial) {
 			JSONObject media = new JSONObject();
 			media.put("media_id", mediaId);
 			String material_media_download_uri = getRequestUri("material_media_download_uri");
-			response = weixinClient.post(
+			return weixinClient.post(
 					String.format(material_media_download_uri,
-							token.getAccessToken()), media.toJSONString());
+							token.getAccessToken()), media.toJSONString(),
+					handler);
 		} else {
 			String file_download_uri = getRequestUri("file_download_uri");
-			response = weixinClient.get(String.format(file_download_uri,
-					token.getAccessToken(), mediaId));
+			return weixinClient.get(String.format(file_download_uri,
+					token.getAccessToken(), mediaId), handler);
+		}
+	}
+
+	/**
+	 * 把响应体写入文件
+	 */
+	private static class WriteFileHandler implements ResponseHandler<Void> {
+		private final File file;
+
+		WriteFileHandler(File file) {
+			this.file = file;
+		}
+
+		@Override
+		public Void handleResponse(HttpResponse response) throws IOException {
+			OutputStream os = new FileOutputStream(file);
+			try {
+				IOUtil.copy(response.getBody(), os);
+			} finally {
+				os.close();
+			}
+			return null;
 		}
-		return response.getContent();
 	}
 
 	/**
@@ -2,6 +2,8 @@ package com.foxinmy.weixin4j.mp.api;
 
 import com.alibaba.fastjson.JSONObject;
 import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.http.async.Transformer;
+import com.foxinmy.weixin4j.http.async.WeixinFuture;
 import com.foxinmy.weixin4j.http.weixin.JsonResult;
 import com.foxinmy.weixin4j.http.weixin.WeixinResponse;
 import com.foxinmy.weixin4j.model.Token;
@@ -63,6 +65,44 @@ public class NotifyApi extends MpApi {
 	 */
 	public JsonResult sendNotify(NotifyMessage notify, String kfAccount)
 			throws WeixinException {
+		String custom_notify_uri = getRequestUri("custom_notify_uri");
+		Token token = tokenHolder.getToken();
+		WeixinResponse response = weixinClient.post(
+				String.format(custom_notify_uri, token.getAccessToken()),
+				createNotify(notify, kfAccount));
+
+		return response.getAsJsonResult();
+	}
+
+	/**
+	 * 异步发送客服消息
+	 * 
+	 * @param notify
+	 *            客服消息对象
+	 * @param kfAccount
+	 *            客服账号 可为空
+	 * @return 处理结果
+	 * @throws WeixinException
+	 *             获取token失败
+	 * @see com.foxinmy.weixin4j.mp.api.NotifyApi#sendNotify(NotifyMessage,
+	 *      String)
+	 */
+	public WeixinFuture<JsonResult> sendNotifyAsync(NotifyMessage notify,
+			String kfAccount) throws WeixinException {
+		String custom_notify_uri = getRequestUri("custom_notify_uri");
+		Token token = tokenHolder.getToken();
+		return getAsyncWeixinClient().post(
+				String.format(custom_notify_uri, token.getAccessToken()),
+				createNotify(notify, kfAccount)).transform(
+				new Transformer<WeixinResponse, JsonResult>() {
+					@Override
+					public JsonResult transform(WeixinResponse response) {
+						return response.getAsJsonResult();
+					}
+				});
+	}
+
+	private String createNotify(NotifyMessage notify, String kfAccount) {
 		NotifyTuple tuple = notify.getTuple();
 		String msgtype = tuple.getMessageType();
 		JSONObject obj = new JSONObject();
@@ -74,12 +114,6 @@ public class NotifyApi extends MpApi {
 			kf.put("kf_account", kfAccount);
 			obj.put("customservice", kf);
 		}
-		String custom_notify_uri = getRequestUri("custom_notify_uri");
-		Token token = tokenHolder.getToken();
-		WeixinResponse response = weixinClient.post(
-				String.format(custom_notify_uri, token.getAccessToken()),
-				obj.toJSONString());
-
-		return response.getAsJsonResult();
+		return obj.toJSONString();
 	}
 }
@@ -1,17 +1,7 @@
 package com.foxinmy.weixin4j.mp.api;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.security.KeyStore;
-import java.security.SecureRandom;
 import java.security.cert.CertificateFactory;
 import java.util.Calendar;
 import java.util.Date;
@@ -19,8 +9,7 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
-import javax.net.ssl.KeyManagerFactory;
-import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
 import javax.net.ssl.TrustManagerFactory;
 
 import com.alibaba.fastjson.JSON;
@@ -61,6 +50,8 @@ import com.foxinmy.weixin4j.xml.ListsuffixResultDeserializer;
  */
 public class Pay2Api extends PayApi {
 
+	private static volatile TrustManager[] tenpayTrustManagers;
+
 	private final HelperApi helperApi;
 
 	public Pay2Api(WeixinMpAccount weixinAccount, TokenHolder tokenHolder) {
@@ -153,84 +144,65 @@ public class Pay2Api extends PayApi {
 			String outRefundNo, double totalFee, double refundFee,
 			String opUserId, Map<String, String> mopara) throws WeixinException {
 		String refund_uri = getRequestUri("refund_v2_uri");
-		WeixinResponse response = null;
-		InputStream ca = null;
-		try {
-			ca = new FileInputStream(caFile);
-			Map<String, String> map = new HashMap<String, String>();
-			map.put("input_charset", Consts.UTF_8.name());
-			// 版本号
-			// 填写为 1.0 时,操作员密码为明文
-			// 填写为 1.1 时,操作员密码为 MD5(密码)值
-			map.put("service_version", "1.1");
-			map.put("partner", weixinAccount.getPartnerId());
-			map.put("out_refund_no", outRefundNo);
-			map.put("total_fee", DateUtil.formaFee2Fen(totalFee));
-			map.put("refund_fee", DateUtil.formaFee2Fen(refundFee));
-			map.put(idQuery.getType().getName(), idQuery.getId());
-			if (StringUtil.isBlank(opUserId)) {
-				opUserId = weixinAccount.getPartnerId();
-			}
-			map.put("op_user_id", opUserId);
-			if (mopara != null && !mopara.isEmpty()) {
-				map.putAll(mopara);
-			}
-			String sign = PayUtil
-					.paysignMd5(map, weixinAccount.getPartnerKey());
-			map.put("sign", sign.toUpperCase());
-
-			SSLContext ctx = null;
-			KeyStore ks = null;
-			String jksPwd = "";
-			File jksFile = new File(String.format("%s/tenpay_cacert.jks",
-					caFile.getParent()));
-			// create jks ca
-			if (!jksFile.exists()) {
-				CertificateFactory cf = CertificateFactory
-						.getInstance(com.foxinmy.weixin4j.model.Consts.X509);
-				java.security.cert.Certificate cert = cf
-						.generateCertificate(PayUtil.class
-								.getResourceAsStream("cacert.pem"));
-				ks = KeyStore
-						.getInstance(com.foxinmy.weixin4j.model.Consts.JKS);
-				ks.load(null, null);
-				ks.setCertificateEntry("tenpay", cert);
-				ks.store(new FileOutputStream(jksFile), jksPwd.toCharArray());
-			}
-			// load jks ca
-			TrustManagerFactory tmf = TrustManagerFactory
-					.getInstance(com.foxinmy.weixin4j.model.Consts.SunX509);
-			ks = KeyStore.getInstance(com.foxinmy.weixin4j.model.Consts.JKS);
-			ks.load(new FileInputStream(jksFile), jksPwd.toCharArray());
-			tmf.init(ks);
-			// load pfx ca
-			KeyManagerFactory kmf = KeyManagerFactory
-					.getInstance(com.foxinmy.weixin4j.model.Consts.SunX509);
-			ks = KeyStore.getInstance(com.foxinmy.weixin4j.model.Consts.PKCS12);
-			ks.load(ca, weixinAccount.getPartnerId().toCharArray());
-			kmf.init(ks, weixinAccount.getPartnerId().toCharArray());
-
-			ctx = SSLContext.getInstance(com.foxinmy.weixin4j.model.Consts.TLS);
-			ctx.init(kmf.getKeyManagers(), tmf.getTrustManagers(),
-					new SecureRandom());
+		Map<String, String> map = new HashMap<String, String>();
+		map.put("input_charset", Consts.UTF_8.name());
+		// 版本号
+		// 填写为 1.0 时,操作员密码为明文
+		// 填写为 1.1 时,操作员密码为 MD5(密码)值
+		map.put("service_version", "1.1");
+		map.put("partner", weixinAccount.getPartnerId());
+		map.put("out_refund_no", outRefundNo);
+		map.put("total_fee", DateUtil.formaFee2Fen(totalFee));
+		map.put("refund_fee", DateUtil.formaFee2Fen(refundFee));
+		map.put(idQuery.getType().getName(), idQuery.getId());
+		if (StringUtil.isBlank(opUserId)) {
+			opUserId = weixinAccount.getPartnerId();
+		}
+		map.put("op_user_id", opUserId);
+		if (mopara != null && !mopara.isEmpty()) {
+			map.putAll(mopara);
+		}
+		String sign = PayUtil.paysignMd5(map, weixinAccount.getPartnerKey());
+		map.put("sign", sign.toUpperCase());
+		SSLHttpClinet request = getSSLClientCache().getClient(caFile,
+				weixinAccount.getPartnerId(), getTenpayTrustManagers());
+		WeixinResponse response = request.get(refund_uri, map);
+		return response.getAsObject(new TypeReference<RefundResult>() {
+		});
+	}
 
-			SSLHttpClinet request = new SSLHttpClinet(ctx);
-			response = request.get(refund_uri, map);
-		} catch (WeixinException e) {
-			throw e;
-		} catch (Exception e) {
-			throw new WeixinException(e.getMessage());
-		} finally {
-			if (ca != null) {
-				try {
-					ca.close();
-				} catch (IOException e) {
-					;
+	/**
+	 * 信任财付通根证书(cacert.pem)的TrustManager,只在首次调用时创建
+	 */
+	private static TrustManager[] getTenpayTrustManagers()
+			throws WeixinException {
+		TrustManager[] trustManagers = tenpayTrustManagers;
+		if (trustManagers == null) {
+			synchronized (Pay2Api.class) {
+				trustManagers = tenpayTrustManagers;
+				if (trustManagers == null) {
+					try {
+						CertificateFactory cf = CertificateFactory
+								.getInstance(com.foxinmy.weixin4j.model.Consts.X509);
+						java.security.cert.Certificate cert = cf
+								.generateCertificate(PayUtil.class
+										.getResourceAsStream("cacert.pem"));
+						KeyStore ks = KeyStore
+								.getInstance(com.foxinmy.weixin4j.model.Consts.JKS);
+						ks.load(null, null);
+						ks.setCertificateEntry("tenpay", cert);
+						TrustManagerFactory tmf = TrustManagerFactory
+								.getInstance(com.foxinmy.weixin4j.model.Consts.SunX509);
+						tmf.init(ks);
+						tenpayTrustManagers = trustManagers = tmf
+								.getTrustManagers();
+					} catch (Exception e) {
+						throw new WeixinException(e.getMessage());
+					}
 				}
 			}
 		}
-		return response.getAsObject(new TypeReference<RefundResult>() {
-		});
+		return trustManagers;
 	}
 
 	/**
@@ -387,37 +359,7 @@ public class Pay2Api extends PayApi {
 		map.put("key", weixinAccount.getPartnerKey());
 		String sign = DigestUtil.MD5(MapUtil.toJoinString(map, false, false));
 		map.put("sign", sign.toLowerCase());
-		WeixinResponse response = weixinClient.get(downloadbill_uri, map);
-		BufferedReader reader = null;
-		BufferedWriter writer = null;
-		FileWriter fw = null;
-		try {
-			fw = new FileWriter(file);
-			writer = new BufferedWriter(fw);
-			reader = new BufferedReader(new InputStreamReader(
-					new ByteArrayInputStream(response.getContent()),
-					com.foxinmy.weixin4j.model.Consts.GBK));
-			String line = null;
-			while ((line = reader.readLine()) != null) {
-				writer.write(line);
-				writer.newLine();
-			}
-		} catch (IOException e) {
-			throw new WeixinException(e.getMessage());
-		} finally {
-			try {
-				if (reader != null) {
-					reader.close();
-				}
-				if (writer != null) {
-					writer.close();
-					fw.close();
-				}
-			} catch (IOException ignore) {
-				;
-			}
-		}
-		return file;
+		return weixinClient.get(downloadbill_uri, map, new BillWriter(file));
 	}
 
 	/**
@@ -1,14 +1,6 @@
 package com.foxinmy.weixin4j.mp.api;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.util.Calendar;
@@ -121,42 +113,23 @@ public class Pay3Api extends PayApi {
 			String outRefundNo, double totalFee, double refundFee,
 			String opUserId, Map<String, String> mopara) throws WeixinException {
 		String refund_uri = getRequestUri("refund_v3_uri");
-		WeixinResponse response = null;
-		InputStream ca = null;
-		try {
-			ca = new FileInputStream(caFile);
-
-			Map<String, String> map = baseMap(idQuery);
-			map.put("out_refund_no", outRefundNo);
-			map.put("total_fee", DateUtil.formaFee2Fen(totalFee));
-			map.put("refund_fee", DateUtil.formaFee2Fen(refundFee));
-			if (StringUtil.isBlank(opUserId)) {
-				opUserId = weixinAccount.getMchId();
-			}
-			map.put("op_user_id", opUserId);
-			if (mopara != null && !mopara.isEmpty()) {
-				map.putAll(mopara);
-			}
-			String sign = PayUtil
-					.paysignMd5(map, weixinAccount.getPaySignKey());
-			map.put("sign", sign);
-			String param = XmlStream.map2xml(map);
-			SSLHttpClinet request = new SSLHttpClinet(weixinAccount.getMchId(),
-					ca);
-			response = request.post(refund_uri, param);
-		} catch (WeixinException e) {
-			throw e;
-		} catch (IOException e) {
-			throw new WeixinException(e.getMessage());
-		} finally {
-			if (ca != null) {
-				try {
-					ca.close();
-				} catch (IOException e) {
-					;
-				}
-			}
+		Map<String, String> map = baseMap(idQuery);
+		map.put("out_refund_no", outRefundNo);
+		map.put("total_fee", DateUtil.formaFee2Fen(totalFee));
+		map.put("refund_fee", DateUtil.formaFee2Fen(refundFee));
+		if (StringUtil.isBlank(opUserId)) {
+			opUserId = weixinAccount.getMchId();
 		}
+		map.put("op_user_id", opUserId);
+		if (mopara != null && !mopara.isEmpty()) {
+			map.putAll(mopara);
+		}
+		String sign = PayUtil.paysignMd5(map, weixinAccount.getPaySignKey());
+		map.put("sign", sign);
+		String param = XmlStream.map2xml(map);
+		SSLHttpClinet request = getSSLClientCache().getClient(caFile,
+				weixinAccount.getMchId());
+		WeixinResponse response = request.post(refund_uri, param);
 		return response.getAsObject(new TypeReference<RefundResult>() {
 		});
 	}
@@ -210,31 +183,16 @@ public class Pay3Api extends PayApi {
 	 */
 	public ApiResult reverse(File caFile, IdQuery idQuery)
 			throws WeixinException {
-		InputStream ca = null;
-		try {
-			ca = new FileInputStream(caFile);
-			SSLHttpClinet request = new SSLHttpClinet(weixinAccount.getMchId(),
-					ca);
-			String reverse_uri = getRequestUri("reverse_uri");
-			Map<String, String> map = baseMap(idQuery);
-			String sign = PayUtil
-					.paysignMd5(map, weixinAccount.getPaySignKey());
-			map.put("sign", sign);
-			String param = XmlStream.map2xml(map);
-			WeixinResponse response = request.post(reverse_uri, param);
-			return response.getAsObject(new TypeReference<ApiResult>() {
-			});
-		} catch (IOException e) {
-			throw new WeixinException(e.getMessage());
-		} finally {
-			if (ca != null) {
-				try {
-					ca.close();
-				} catch (IOException e) {
-					;
-				}
-			}
-		}
+		SSLHttpClinet request = getSSLClientCache().getClient(caFile,
+				weixinAccount.getMchId());
+		String reverse_uri = getRequestUri("reverse_uri");
+		Map<String, String> map = baseMap(idQuery);
+		String sign = PayUtil.paysignMd5(map, weixinAccount.getPaySignKey());
+		map.put("sign", sign);
+		String param = XmlStream.map2xml(map);
+		WeixinResponse response = request.post(reverse_uri, param);
+		return response.getAsObject(new TypeReference<ApiResult>() {
+		});
 	}
 
 	/**
@@ -334,38 +292,7 @@ public class Pay3Api extends PayApi {
 		String sign = PayUtil.paysignMd5(map, weixinAccount.getPaySignKey());
 		map.put("sign", sign);
 		String param = XmlStream.map2xml(map);
-		WeixinResponse response = weixinClient.post(downloadbill_uri, param);
-
-		BufferedReader reader = null;
-		BufferedWriter writer = null;
-		FileWriter fw = null;
-		try {
-			fw = new FileWriter(file);
-			writer = new BufferedWriter(fw);
-			reader = new BufferedReader(new InputStreamReader(
-					new ByteArrayInputStream(response.getContent()),
-					com.foxinmy.weixin4j.model.Consts.GBK));
-			String line = null;
-			while ((line = reader.readLine()) != null) {
-				writer.write(line);
-				writer.newLine();
-			}
-		} catch (IOException e) {
-			throw new WeixinException(e.getMessage());
-		} finally {
-			try {
-				if (reader != null) {
-					reader.close();
-				}
-				if (writer != null) {
-					writer.close();
-					fw.close();
-				}
-			} catch (IOException ignore) {
-				;
-			}
-		}
-		return file;
+		return weixinClient.post(downloadbill_uri, param, new BillWriter(file));
 	}
 
 	/**
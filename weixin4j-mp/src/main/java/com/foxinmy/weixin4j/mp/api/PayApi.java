@@ -1,15 +1,23 @@
 package com.foxinmy.weixin4j.mp.api;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 
 import com.alibaba.fastjson.JSON;
 import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.http.HttpResponse;
+import com.foxinmy.weixin4j.http.ResponseHandler;
 import com.foxinmy.weixin4j.http.weixin.JsonResult;
 import com.foxinmy.weixin4j.http.weixin.WeixinResponse;
 import com.foxinmy.weixin4j.model.Token;
+import com.foxinmy.weixin4j.model.Consts;
 import com.foxinmy.weixin4j.mp.model.WeixinMpAccount;
 import com.foxinmy.weixin4j.mp.payment.PayUtil;
 import com.foxinmy.weixin4j.mp.payment.v3.ApiResult;
@@ -189,6 +197,45 @@ public abstract class PayApi extends MpApi {
 	public abstract File downloadbill(Date billDate, BillType billType)
 			throws WeixinException;
 
+	/**
+	 * 把对账单(GBK编码的文本)逐行写入文件,对账单直接从连接上读取;写入失败时删除不完整的文件
+	 * 
+	 * @className BillWriter
+	 * @author jy
+	 * @date 2015年7月13日
+	 * @since JDK 1.7
+	 * @see
+	 */
+	protected static class BillWriter implements ResponseHandler<File> {
+		private final File file;
+
+		public BillWriter(File file) {
+			this.file = file;
+		}
+
+		@Override
+		public File handleResponse(HttpResponse response) throws IOException {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(
+					response.getBody(), Consts.GBK));
+			BufferedWriter writer = new BufferedWriter(new FileWriter(file));
+			boolean completed = false;
+			try {
+				String line = null;
+				while ((line = reader.readLine()) != null) {
+					writer.write(line);
+					writer.newLine();
+				}
+				completed = true;
+			} finally {
+				writer.close();
+				if (!completed) {
+					file.delete();
+				}
+			}
+			return file;
+		}
+	}
+
 	/**
 	 * 关闭订单</br> 当订单支付失败,调用关单接口后用新订单号重新发起支付,如果关单失败,返回已完
 	 * 成支付请按正常支付处理。如果出现银行掉单,调用关单成功后,微信后台会主动发起退款。
@@ -3,6 +3,8 @@ package com.foxinmy.weixin4j.mp.api;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.http.async.Transformer;
+import com.foxinmy.weixin4j.http.async.WeixinFuture;
 import com.foxinmy.weixin4j.http.weixin.JsonResult;
 import com.foxinmy.weixin4j.http.weixin.WeixinResponse;
 import com.foxinmy.weixin4j.model.Token;
@@ -96,4 +98,29 @@ public class TmplApi extends MpApi {
 
 		return response.getAsJsonResult();
 	}
+
+	/**
+	 * 异步发送模板消息
+	 * 
+	 * @param tplMessage
+	 *            消息对象
+	 * @return 发送结果
+	 * @throws WeixinException
+	 *             获取token失败
+	 * @see com.foxinmy.weixin4j.mp.api.TmplApi#sendTmplMessage(TemplateMessage)
+	 */
+	public WeixinFuture<JsonResult> sendTmplMessageAsync(
+			TemplateMessage tplMessage) throws WeixinException {
+		Token token = tokenHolder.getToken();
+		String template_send_uri = getRequestUri("template_send_uri");
+		return getAsyncWeixinClient().post(
+				String.format(template_send_uri, token.getAccessToken()),
+				JSON.toJSONString(tplMessage)).transform(
+				new Transformer<WeixinResponse, JsonResult>() {
+					@Override
+					public JsonResult transform(WeixinResponse response) {
+						return response.getAsJsonResult();
+					}
+				});
+	}
 }
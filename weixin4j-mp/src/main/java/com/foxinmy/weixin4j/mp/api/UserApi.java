@@ -7,6 +7,8 @@ import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import com.alibaba.fastjson.TypeReference;
 import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.http.async.Transformer;
+import com.foxinmy.weixin4j.http.async.WeixinFuture;
 import com.foxinmy.weixin4j.http.weixin.JsonResult;
 import com.foxinmy.weixin4j.http.weixin.WeixinResponse;
 import com.foxinmy.weixin4j.model.Token;
@@ -76,6 +78,35 @@ public class UserApi extends MpApi {
 		});
 	}
 
+	/**
+	 * 异步获取用户信息
+	 * 
+	 * @param openId
+	 *            用户对应的ID
+	 * @param lang
+	 *            国家地区语言版本
+	 * @return 用户对象
+	 * @throws WeixinException
+	 *             获取token失败
+	 * @see com.foxinmy.weixin4j.mp.api.UserApi#getUser(String, Lang)
+	 */
+	public WeixinFuture<User> getUserAsync(String openId, Lang lang)
+			throws WeixinException {
+		String user_info_uri = getRequestUri("api_user_info_uri");
+		Token token = tokenHolder.getToken();
+		return getAsyncWeixinClient().get(
+				String.format(user_info_uri, token.getAccessToken(), openId,
+						lang.name())).transform(
+				new Transformer<WeixinResponse, User>() {
+					@Override
+					public User transform(WeixinResponse response) {
+						return response
+								.getAsObject(new TypeReference<User>() {
+								});
+					}
+				});
+	}
+
 	/**
 	 * 获取用户一定数量(10000)的关注者列表
 	 * 
@@ -7,6 +7,7 @@ import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.TypeReference;
 import com.foxinmy.weixin4j.exception.PayException;
 import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.http.factory.HttpClientFactory;
 import com.foxinmy.weixin4j.http.weixin.WeixinHttpClient;
 import com.foxinmy.weixin4j.http.weixin.WeixinResponse;
 import com.foxinmy.weixin4j.model.Consts;
@@ -223,6 +224,31 @@ public class PayUtil {
 
 	public static PrePay createPrePay(PayPackageV3 payPackage, String paySignKey)
 			throws PayException {
+		return createPrePay(payPackage, paySignKey, httpClient);
+	}
+
+	/**
+	 * 统一下单接口,使用指定的HTTP传输
+	 * 
+	 * @param payPackage
+	 *            包含订单信息的对象
+	 * @param paySignKey
+	 *            <font color="red">如果sign为空 则拿paysignkey进行签名</font>
+	 * @param httpClientFactory
+	 *            HTTP传输的工厂
+	 * @see {@link com.foxinmy.weixin4j.mp.payment.PayUtil#createPrePay(PayPackageV3, String)}
+	 * @return 预支付对象
+	 */
+	public static PrePay createPrePay(PayPackageV3 payPackage,
+			String paySignKey, HttpClientFactory httpClientFactory)
+			throws PayException {
+		return createPrePay(payPackage, paySignKey, new WeixinHttpClient(
+				httpClientFactory));
+	}
+
+	private static PrePay createPrePay(PayPackageV3 payPackage,
+			String paySignKey, WeixinHttpClient httpClient)
+			throws PayException {
 		if (StringUtil.isBlank(payPackage.getSign())) {
 			payPackage.setSign(paysignMd5(payPackage, paySignKey));
 		}
@@ -405,6 +431,32 @@ public class PayUtil {
 	public static com.foxinmy.weixin4j.mp.payment.v3.Order createMicroPay(
 			MicroPayPackage payPackage, WeixinMpAccount weixinAccount)
 			throws WeixinException {
+		return createMicroPay(payPackage, weixinAccount, httpClient);
+	}
+
+	/**
+	 * 提交被扫支付,使用指定的HTTP传输
+	 * 
+	 * @param payPackage
+	 *            订单信息
+	 * @param weixinAccount
+	 *            商户信息
+	 * @param httpClientFactory
+	 *            HTTP传输的工厂
+	 * @return 支付的订单信息
+	 * @throws WeixinException
+	 * @see {@link com.foxinmy.weixin4j.mp.payment.PayUtil#createMicroPay(MicroPayPackage, WeixinMpAccount)}
+	 */
+	public static com.foxinmy.weixin4j.mp.payment.v3.Order createMicroPay(
+			MicroPayPackage payPackage, WeixinMpAccount weixinAccount,
+			HttpClientFactory httpClientFactory) throws WeixinException {
+		return createMicroPay(payPackage, weixinAccount, new WeixinHttpClient(
+				httpClientFactory));
+	}
+
+	private static com.foxinmy.weixin4j.mp.payment.v3.Order createMicroPay(
+			MicroPayPackage payPackage, WeixinMpAccount weixinAccount,
+			WeixinHttpClient httpClient) throws WeixinException {
 		String sign = paysignMd5(payPackage, weixinAccount.getPaySignKey());
 		payPackage.setSign(sign);
 		String para = XmlStream.toXML(payPackage);
@@ -2,6 +2,7 @@ package com.foxinmy.weixin4j.mp.token;
 
 import com.alibaba.fastjson.JSONObject;
 import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.http.factory.HttpClientFactory;
 import com.foxinmy.weixin4j.http.weixin.WeixinHttpClient;
 import com.foxinmy.weixin4j.http.weixin.WeixinResponse;
 import com.foxinmy.weixin4j.model.Consts;
@@ -46,9 +47,30 @@ public class WeixinJSTicketCreator implements TokenCreator {
 	 *            <font color="red">公众平台的access_token</font>
 	 */
 	public WeixinJSTicketCreator(String appid, TokenHolder weixinTokenHolder) {
+		this(appid, weixinTokenHolder, new WeixinHttpClient());
+	}
+
+	/**
+	 * jssdk
+	 * 
+	 * @param appid
+	 *            appid
+	 * @param weixinTokenHolder
+	 *            <font color="red">公众平台的access_token</font>
+	 * @param httpClientFactory
+	 *            HTTP传输的工厂
+	 */
+	public WeixinJSTicketCreator(String appid, TokenHolder weixinTokenHolder,
+			HttpClientFactory httpClientFactory) {
+		this(appid, weixinTokenHolder,
+				new WeixinHttpClient(httpClientFactory));
+	}
+
+	private WeixinJSTicketCreator(String appid, TokenHolder weixinTokenHolder,
+			WeixinHttpClient httpClient) {
 		this.appid = appid;
 		this.weixinTokenHolder = weixinTokenHolder;
-		this.httpClient = new WeixinHttpClient();
+		this.httpClient = httpClient;
 	}
 
 	@Override
@@ -0,0 +1,124 @@
+package com.foxinmy.weixin4j.qy;
+
+import com.alibaba.fastjson.JSONObject;
+import com.foxinmy.weixin4j.api.BaseApi;
+import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.http.async.WeixinFuture;
+import com.foxinmy.weixin4j.http.factory.HttpClientFactory;
+import com.foxinmy.weixin4j.model.WeixinAccount;
+import com.foxinmy.weixin4j.qy.api.NotifyApi;
+import com.foxinmy.weixin4j.qy.api.UserApi;
+import com.foxinmy.weixin4j.qy.message.NotifyMessage;
+import com.foxinmy.weixin4j.qy.model.User;
+import com.foxinmy.weixin4j.qy.token.WeixinTokenCreator;
+import com.foxinmy.weixin4j.token.FileTokenStorager;
+import com.foxinmy.weixin4j.token.TokenHolder;
+import com.foxinmy.weixin4j.token.TokenStorager;
+import com.foxinmy.weixin4j.util.ConfigUtil;
+
+/**
+ * 微信企业号异步接口实现:调用线程不等待响应,适合批量获取成员、发送消息
+ * <p>
+ * 使用{@link HttpClientFactory#newAsyncInstance()}的异步传输,netty传输(系统属性weixin4j.httpclient=netty)
+ * 时少量I/O线程即可支撑大量并发请求,其它传输在线程池中执行;获取token仍然在调用线程中进行,token缓存后不会阻塞
+ * </p>
+ *
+ * @className AsyncWeixinProxy
+ * @author jy
+ * @date 2015年7月12日
+ * @since JDK 1.7
+ * @see com.foxinmy.weixin4j.qy.WeixinProxy
+ * @see com.foxinmy.weixin4j.http.async.WeixinFuture
+ */
+public class AsyncWeixinProxy {
+
+	private final UserApi userApi;
+	private final NotifyApi notifyApi;
+
+	/**
+	 * 默认使用文件方式保存token、使用weixin4j.properties配置的账号信息
+	 */
+	public AsyncWeixinProxy() {
+		this(new FileTokenStorager());
+	}
+
+	/**
+	 * 默认使用weixin4j.properties配置的账号信息
+	 *
+	 * @param tokenStorager
+	 */
+	public AsyncWeixinProxy(TokenStorager tokenStorager) {
+		this(tokenStorager, ConfigUtil.getWeixinAccount());
+	}
+
+	/**
+	 *
+	 * @param corpid
+	 * @param corpsecret
+	 */
+	public AsyncWeixinProxy(String corpid, String corpsecret) {
+		this(new FileTokenStorager(), new WeixinAccount(corpid, corpsecret));
+	}
+
+	/**
+	 *
+	 * @param tokenStorager
+	 *            token存储策略
+	 * @param weixinAccount
+	 *            企业号账号信息
+	 */
+	public AsyncWeixinProxy(TokenStorager tokenStorager,
+			WeixinAccount weixinAccount) {
+		this(tokenStorager, weixinAccount, HttpClientFactory
+				.getDefaultFactory());
+	}
+
+	/**
+	 *
+	 * @param tokenStorager
+	 *            token存储策略
+	 * @param weixinAccount
+	 *            企业号账号信息
+	 * @param httpClientFactory
+	 *            HTTP传输的工厂,获取token和调用接口都使用它
+	 */
+	public AsyncWeixinProxy(TokenStorager tokenStorager,
+			WeixinAccount weixinAccount, HttpClientFactory httpClientFactory) {
+		TokenHolder tokenHolder = new TokenHolder(new WeixinTokenCreator(
+				weixinAccount, httpClientFactory), tokenStorager);
+		this.userApi = new UserApi(tokenHolder);
+		this.notifyApi = new NotifyApi(tokenHolder);
+		for (BaseApi api : new BaseApi[] { userApi, notifyApi }) {
+			api.setHttpClientFactory(httpClientFactory);
+		}
+	}
+
+	/**
+	 * 获取成员
+	 *
+	 * @param userid
+	 *            成员唯一ID
+	 * @return 成员对象
+	 * @throws WeixinException
+	 *             获取token失败
+	 * @see com.foxinmy.weixin4j.qy.WeixinProxy#getUser(String)
+	 */
+	public WeixinFuture<User> getUser(String userid) throws WeixinException {
+		return userApi.getUserAsync(userid);
+	}
+
+	/**
+	 * 发送消息
+	 *
+	 * @param notify
+	 *            客服消息对象
+	 * @return 无效的部分
+	 * @throws WeixinException
+	 *             获取token失败
+	 * @see com.foxinmy.weixin4j.qy.WeixinProxy#sendNotify(NotifyMessage)
+	 */
+	public WeixinFuture<JSONObject> sendNotify(NotifyMessage notify)
+			throws WeixinException {
+		return notifyApi.sendNotifyAsync(notify);
+	}
+}
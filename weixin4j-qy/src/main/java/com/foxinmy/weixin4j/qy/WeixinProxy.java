@@ -5,7 +5,9 @@ import java.io.IOException;
 import java.util.List;
 
 import com.alibaba.fastjson.JSONObject;
+import com.foxinmy.weixin4j.api.BaseApi;
 import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.http.factory.HttpClientFactory;
 import com.foxinmy.weixin4j.http.weixin.JsonResult;
 import com.foxinmy.weixin4j.model.Button;
 import com.foxinmy.weixin4j.model.WeixinAccount;
@@ -28,6 +30,7 @@ import com.foxinmy.weixin4j.qy.model.IdParameter;
 import com.foxinmy.weixin4j.qy.model.Party;
 import com.foxinmy.weixin4j.qy.model.Tag;
 import com.foxinmy.weixin4j.qy.model.User;
+import com.foxinmy.weixin4j.qy.token.WeixinJSTicketCreator;
 import com.foxinmy.weixin4j.qy.token.WeixinTokenCreator;
 import com.foxinmy.weixin4j.qy.type.InviteType;
 import com.foxinmy.weixin4j.qy.type.UserStatus;
@@ -56,6 +59,7 @@ public class WeixinProxy {
 	private final HelperApi helperApi;
 	private final AgentApi agentApi;
 	private final BatchApi batchApi;
+	private final TokenHolder jsTicketHolder;
 
 	/**
 	 * 默认使用文件方式保存token、使用weixin4j.properties配置的账号信息
@@ -91,8 +95,23 @@ public class WeixinProxy {
 	 *            企业号账号信息
 	 */
 	public WeixinProxy(TokenStorager tokenStorager, WeixinAccount weixinAccount) {
+		this(tokenStorager, weixinAccount, HttpClientFactory
+				.getDefaultFactory());
+	}
+
+	/**
+	 * 
+	 * @param tokenStorager
+	 *            token存储策略
+	 * @param weixinAccount
+	 *            企业号账号信息
+	 * @param httpClientFactory
+	 *            HTTP传输的工厂,获取token和调用接口都使用它
+	 */
+	public WeixinProxy(TokenStorager tokenStorager,
+			WeixinAccount weixinAccount, HttpClientFactory httpClientFactory) {
 		TokenHolder tokenHolder = new TokenHolder(new WeixinTokenCreator(
-				weixinAccount), tokenStorager);
+				weixinAccount, httpClientFactory), tokenStorager);
 		this.partyApi = new PartyApi(tokenHolder);
 		this.userApi = new UserApi(tokenHolder);
 		this.tagApi = new TagApi(tokenHolder);
@@ -102,6 +121,23 @@ public class WeixinProxy {
 		this.notifyApi = new NotifyApi(tokenHolder);
 		this.menuApi = new MenuApi(tokenHolder);
 		this.mediaApi = new MediaApi(tokenHolder);
+		this.jsTicketHolder = new TokenHolder(new WeixinJSTicketCreator(
+				weixinAccount.getId(), tokenHolder, httpClientFactory),
+				tokenStorager);
+		for (BaseApi api : new BaseApi[] { partyApi, userApi, tagApi,
+				helperApi, agentApi, batchApi, notifyApi, menuApi, mediaApi }) {
+			api.setHttpClientFactory(httpClientFactory);
+		}
+	}
+
+	/**
+	 * jssdk的ticket,与获取token使用同一个HTTP传输和存储策略
+	 * 
+	 * @return ticket的持有者,getToken()返回的即是jsapi_ticket
+	 * @see com.foxinmy.weixin4j.qy.token.WeixinJSTicketCreator
+	 */
+	public TokenHolder getJSTicketHolder() {
+		return jsTicketHolder;
 	}
 
 	/**
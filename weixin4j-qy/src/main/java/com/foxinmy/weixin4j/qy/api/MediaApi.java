@@ -15,6 +15,8 @@ import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import com.alibaba.fastjson.serializer.PropertyFilter;
 import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.http.HttpResponse;
+import com.foxinmy.weixin4j.http.ResponseHandler;
 import com.foxinmy.weixin4j.http.apache.ByteArrayBody;
 import com.foxinmy.weixin4j.http.apache.FormBodyPart;
 import com.foxinmy.weixin4j.http.weixin.WeixinResponse;
@@ -140,26 +142,21 @@ public class MediaApi extends QyApi {
 		if (file.exists()) {
 			return file;
 		}
-		byte[] datas = downloadMedia(mediaId);
-		OutputStream os = null;
 		try {
-			boolean flag = file.createNewFile();
-			if (flag) {
-				os = new FileOutputStream(file);
-				os.write(datas);
-			} else {
+			if (!file.createNewFile()) {
 				throw new WeixinException(String.format("create file fail:%s",
 						file.getAbsolutePath()));
 			}
 		} catch (IOException e) {
 			throw new WeixinException(e.getMessage());
+		}
+		boolean downloaded = false;
+		try {
+			downloadMedia(mediaId, new WriteFileHandler(file));
+			downloaded = true;
 		} finally {
-			try {
-				if (os != null) {
-					os.close();
-				}
-			} catch (IOException ignore) {
-				;
+			if (!downloaded) {
+				file.delete();
 			}
 		}
 		return file;
@@ -176,11 +173,49 @@ public class MediaApi extends QyApi {
 	 * @throws WeixinException
 	 */
 	public byte[] downloadMedia(String mediaId) throws WeixinException {
+		return downloadMedia(mediaId, new ResponseHandler<byte[]>() {
+			@Override
+			public byte[] handleResponse(HttpResponse response)
+					throws IOException {
+				if (response.getContent() != null) {
+					return response.getContent();
+				}
+				return IOUtil.toByteArray(response.getBody());
+			}
+		});
+	}
+
+	/**
+	 * 下载媒体文件:媒体文件由handler直接从连接上读取
+	 */
+	private <T> T downloadMedia(String mediaId, ResponseHandler<T> handler)
+			throws WeixinException {
 		Token token = tokenHolder.getToken();
 		String file_download_uri = getRequestUri("file_download_uri");
-		WeixinResponse response = weixinClient.get(String.format(file_download_uri,
-				token.getAccessToken(), mediaId));
-		return response.getContent();
+		return weixinClient.get(String.format(file_download_uri,
+				token.getAccessToken(), mediaId), handler);
+	}
+
+	/**
+	 * 把响应体写入文件
+	 */
+	private static class WriteFileHandler implements ResponseHandler<Void> {
+		private final File file;
+
+		WriteFileHandler(File file) {
+			this.file = file;
+		}
+
+		@Override
+		public Void handleResponse(HttpResponse response) throws IOException {
+			OutputStream os = new FileOutputStream(file);
+			try {
+				IOUtil.copy(response.getBody(), os);
+			} finally {
+				os.close();
+			}
+			return null;
+		}
 	}
 
 	/**
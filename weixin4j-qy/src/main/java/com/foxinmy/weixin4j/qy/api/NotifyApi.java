@@ -3,6 +3,8 @@ package com.foxinmy.weixin4j.qy.api;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.http.async.Transformer;
+import com.foxinmy.weixin4j.http.async.WeixinFuture;
 import com.foxinmy.weixin4j.http.weixin.WeixinResponse;
 import com.foxinmy.weixin4j.model.Token;
 import com.foxinmy.weixin4j.qy.message.NotifyMessage;
@@ -65,17 +67,46 @@ public class NotifyApi extends QyApi {
 	 * @see com.foxinmy.weixin4j.qy.message.NotifyMessage
 	 */
 	public JSONObject sendNotify(NotifyMessage notify) throws WeixinException {
-		NotifyTuple tuple = notify.getTuple();
-		String msgtype = tuple.getMessageType();
-		JSONObject obj = (JSONObject) JSON.toJSON(notify);
-		obj.put("msgtype", msgtype);
-		obj.put(msgtype, tuple);
 		String message_send_uri = getRequestUri("message_send_uri");
 		Token token = tokenHolder.getToken();
 		WeixinResponse response = weixinClient.post(
 				String.format(message_send_uri, token.getAccessToken()),
-				obj.toJSONString());
+				createNotify(notify));
 
 		return response.getAsJson();
 	}
+
+	/**
+	 * 异步发送消息
+	 * 
+	 * @param notify
+	 *            客服消息对象
+	 * @return 无效的部分
+	 * @throws WeixinException
+	 *             获取token失败
+	 * @see com.foxinmy.weixin4j.qy.api.NotifyApi#sendNotify(NotifyMessage)
+	 */
+	public WeixinFuture<JSONObject> sendNotifyAsync(NotifyMessage notify)
+			throws WeixinException {
+		String message_send_uri = getRequestUri("message_send_uri");
+		Token token = tokenHolder.getToken();
+		return getAsyncWeixinClient().post(
+				String.format(message_send_uri, token.getAccessToken()),
+				createNotify(notify)).transform(
+				new Transformer<WeixinResponse, JSONObject>() {
+					@Override
+					public JSONObject transform(WeixinResponse response) {
+						return response.getAsJson();
+					}
+				});
+	}
+
+	private String createNotify(NotifyMessage notify) {
+		NotifyTuple tuple = notify.getTuple();
+		String msgtype = tuple.getMessageType();
+		JSONObject obj = (JSONObject) JSON.toJSON(notify);
+		obj.put("msgtype", msgtype);
+		obj.put(msgtype, tuple);
+		return obj.toJSONString();
+	}
 }
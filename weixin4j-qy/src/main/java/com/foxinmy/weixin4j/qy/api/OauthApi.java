@@ -6,6 +6,7 @@ import java.net.URLEncoder;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.parser.deserializer.ExtraProcessor;
 import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.http.factory.HttpClientFactory;
 import com.foxinmy.weixin4j.http.weixin.WeixinResponse;
 import com.foxinmy.weixin4j.model.Consts;
 import com.foxinmy.weixin4j.qy.model.Corpinfo;
@@ -70,6 +71,22 @@ public class OauthApi extends QyApi {
 				qyAccount), tokenStorager);
 	}
 
+	/**
+	 * 
+	 * @param tokenStorager
+	 *            token存储策略
+	 * @param qyAccount
+	 *            企业号账号信息
+	 * @param httpClientFactory
+	 *            HTTP传输的工厂,获取提供商凭证和调用接口都使用它
+	 */
+	public OauthApi(TokenStorager tokenStorager, WeixinQyAccount qyAccount,
+			HttpClientFactory httpClientFactory) {
+		providerTokenHolder = new TokenHolder(new WeixinProviderTokenCreator(
+				qyAccount, httpClientFactory), tokenStorager);
+		setHttpClientFactory(httpClientFactory);
+	}
+
 	/**
 	 * @see {@link com.foxinmy.weixin4j.qy.api.OauthApi#getAuthorizeURL(String, String,String)}
 	 * 
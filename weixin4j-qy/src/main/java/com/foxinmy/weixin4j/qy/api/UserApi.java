@@ -7,6 +7,8 @@ import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.http.async.Transformer;
+import com.foxinmy.weixin4j.http.async.WeixinFuture;
 import com.foxinmy.weixin4j.http.weixin.JsonResult;
 import com.foxinmy.weixin4j.http.weixin.WeixinResponse;
 import com.foxinmy.weixin4j.model.Token;
@@ -96,6 +98,34 @@ public class UserApi extends QyApi {
 		Token token = tokenHolder.getToken();
 		WeixinResponse response = weixinClient.post(String.format(user_get_uri,
 				token.getAccessToken(), userid));
+		return toUser(response);
+	}
+
+	/**
+	 * 异步获取成员
+	 * 
+	 * @param userid
+	 *            成员唯一ID
+	 * @return 成员对象
+	 * @throws WeixinException
+	 *             获取token失败
+	 * @see com.foxinmy.weixin4j.qy.api.UserApi#getUser(String)
+	 */
+	public WeixinFuture<User> getUserAsync(String userid)
+			throws WeixinException {
+		String user_get_uri = getRequestUri("user_get_uri");
+		Token token = tokenHolder.getToken();
+		return getAsyncWeixinClient().post(
+				String.format(user_get_uri, token.getAccessToken(), userid))
+				.transform(new Transformer<WeixinResponse, User>() {
+					@Override
+					public User transform(WeixinResponse response) {
+						return toUser(response);
+					}
+				});
+	}
+
+	private static User toUser(WeixinResponse response) {
 		JSONObject obj = response.getAsJson();
 		Object attrs = obj.getJSONObject("extattr").remove("attrs");
 		if (attrs != null) {
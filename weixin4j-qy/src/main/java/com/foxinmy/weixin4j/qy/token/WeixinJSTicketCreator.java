@@ -2,6 +2,7 @@ package com.foxinmy.weixin4j.qy.token;
 
 import com.alibaba.fastjson.JSONObject;
 import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.http.factory.HttpClientFactory;
 import com.foxinmy.weixin4j.http.weixin.WeixinHttpClient;
 import com.foxinmy.weixin4j.http.weixin.WeixinResponse;
 import com.foxinmy.weixin4j.model.Consts;
@@ -43,9 +44,29 @@ public class WeixinJSTicketCreator implements TokenCreator {
 	 * @param weixinTokenHolder
 	 */
 	public WeixinJSTicketCreator(String corpid, TokenHolder weixinTokenHolder) {
+		this(corpid, weixinTokenHolder, new WeixinHttpClient());
+	}
+
+	/**
+	 * <font color="red">企业号的的access_token</font>
+	 * 
+	 * @param corpid
+	 *            企业号ID
+	 * @param weixinTokenHolder
+	 * @param httpClientFactory
+	 *            HTTP传输的工厂
+	 */
+	public WeixinJSTicketCreator(String corpid, TokenHolder weixinTokenHolder,
+			HttpClientFactory httpClientFactory) {
+		this(corpid, weixinTokenHolder,
+				new WeixinHttpClient(httpClientFactory));
+	}
+
+	private WeixinJSTicketCreator(String corpid,
+			TokenHolder weixinTokenHolder, WeixinHttpClient httpClient) {
 		this.corpid = corpid;
 		this.weixinTokenHolder = weixinTokenHolder;
-		this.httpClient = new WeixinHttpClient();
+		this.httpClient = httpClient;
 	}
 
 	@Override
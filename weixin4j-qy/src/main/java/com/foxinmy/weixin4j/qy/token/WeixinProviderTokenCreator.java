@@ -3,6 +3,7 @@ package com.foxinmy.weixin4j.qy.token;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.http.factory.HttpClientFactory;
 import com.foxinmy.weixin4j.http.weixin.WeixinHttpClient;
 import com.foxinmy.weixin4j.http.weixin.WeixinResponse;
 import com.foxinmy.weixin4j.model.Consts;
@@ -38,9 +39,27 @@ public class WeixinProviderTokenCreator implements TokenCreator {
 	}
 
 	public WeixinProviderTokenCreator(String corpid, String providersecret) {
+		this(corpid, providersecret, new WeixinHttpClient());
+	}
+
+	/**
+	 * 
+	 * @param qyAccount
+	 *            企业号账号信息
+	 * @param httpClientFactory
+	 *            HTTP传输的工厂
+	 */
+	public WeixinProviderTokenCreator(WeixinQyAccount qyAccount,
+			HttpClientFactory httpClientFactory) {
+		this(qyAccount.getId(), qyAccount.getProviderSecret(),
+				new WeixinHttpClient(httpClientFactory));
+	}
+
+	private WeixinProviderTokenCreator(String corpid, String providersecret,
+			WeixinHttpClient httpClient) {
 		this.corpid = corpid;
 		this.providersecret = providersecret;
-		this.httpClient = new WeixinHttpClient();
+		this.httpClient = httpClient;
 	}
 
 	@Override
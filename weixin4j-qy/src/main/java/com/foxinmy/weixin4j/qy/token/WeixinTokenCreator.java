@@ -2,6 +2,7 @@ package com.foxinmy.weixin4j.qy.token;
 
 import com.alibaba.fastjson.TypeReference;
 import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.http.factory.HttpClientFactory;
 import com.foxinmy.weixin4j.http.weixin.WeixinHttpClient;
 import com.foxinmy.weixin4j.http.weixin.WeixinResponse;
 import com.foxinmy.weixin4j.model.Consts;
@@ -36,9 +37,27 @@ public class WeixinTokenCreator implements TokenCreator {
 	}
 
 	public WeixinTokenCreator(String corpid, String corpsecret) {
+		this(corpid, corpsecret, new WeixinHttpClient());
+	}
+
+	/**
+	 * 
+	 * @param weixinAccount
+	 *            企业号账号信息
+	 * @param httpClientFactory
+	 *            HTTP传输的工厂
+	 */
+	public WeixinTokenCreator(WeixinAccount weixinAccount,
+			HttpClientFactory httpClientFactory) {
+		this(weixinAccount.getId(), weixinAccount.getSecret(),
+				new WeixinHttpClient(httpClientFactory));
+	}
+
+	private WeixinTokenCreator(String corpid, String corpsecret,
+			WeixinHttpClient httpClient) {
 		this.corpid = corpid;
 		this.corpsecret = corpsecret;
-		this.httpClient = new WeixinHttpClient();
+		this.httpClient = httpClient;
 	}
 
 	@Override
@@ -0,0 +1,59 @@
+package com.foxinmy.weixin4j.dedup;
+
+import com.foxinmy.weixin4j.response.WeixinResponse;
+
+/**
+ * 消息去重的存储
+ * <p>
+ * 默认实现为进程内的{@link MemoryDedupStore},多个服务实例之间需要共享去重状态时可以基于redis、memcached等实现此接口
+ * </p>
+ * 
+ * @className DedupStore
+ * @author jy
+ * @date 2015年6月27日
+ * @since JDK 1.7
+ * @see MemoryDedupStore
+ * @see MessageDeduplicator
+ */
+public interface DedupStore {
+
+	/**
+	 * 首次收到消息时登记,已登记的消息返回false
+	 * 
+	 * @param key
+	 *            消息的唯一标识
+	 * @param expireMillis
+	 *            登记的有效时间(毫秒)
+	 * @return 首次收到时返回true
+	 */
+	public boolean tryAcquire(String key, long expireMillis);
+
+	/**
+	 * 获取已回复的响应
+	 * 
+	 * @param key
+	 *            消息的唯一标识
+	 * @return 尚未回复或已过期时返回null
+	 */
+	public WeixinResponse get(String key);
+
+	/**
+	 * 保存消息的响应
+	 * 
+	 * @param key
+	 *            消息的唯一标识
+	 * @param response
+	 *            响应
+	 * @param expireMillis
+	 *            有效时间(毫秒)
+	 */
+	public void put(String key, WeixinResponse response, long expireMillis);
+
+	/**
+	 * 撤销登记:消息没有得到真正的回复,微信重试时需要重新处理
+	 * 
+	 * @param key
+	 *            消息的唯一标识
+	 */
+	public void release(String key);
+}
@@ -0,0 +1,168 @@
+package com.foxinmy.weixin4j.dedup;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.foxinmy.weixin4j.response.WeixinResponse;
+
+/**
+ * 基于内存的去重存储
+ * <p>
+ * 按key的hash分段加锁,每段是一个按插入顺序排列的LinkedHashMap;插入时先淘汰段首已过期的条目,
+ * 超出容量时再淘汰最早插入的条目,所以内存占用是有上限的
+ * </p>
+ * 
+ * @className MemoryDedupStore
+ * @author jy
+ * @date 2015年6月27日
+ * @since JDK 1.7
+ * @see DedupStore
+ */
+public class MemoryDedupStore implements DedupStore {
+
+	/**
+	 * 默认容量
+	 */
+	public final static int DEFAULT_CAPACITY = 65536;
+
+	private final static int SEGMENTS = 16;
+
+	private final Segment[] segments;
+
+	public MemoryDedupStore() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * 
+	 * @param capacity
+	 *            最多保存的消息数
+	 */
+	public MemoryDedupStore(int capacity) {
+		if (capacity < SEGMENTS) {
+			throw new IllegalArgumentException("capacity must be >= "
+					+ SEGMENTS);
+		}
+		segments = new Segment[SEGMENTS];
+		for (int i = 0; i < SEGMENTS; i++) {
+			segments[i] = new Segment(capacity / SEGMENTS);
+		}
+	}
+
+	private Segment segment(String key) {
+		int h = key.hashCode();
+		h ^= (h >>> 16);
+		return segments[h & (SEGMENTS - 1)];
+	}
+
+	@Override
+	public boolean tryAcquire(String key, long expireMillis) {
+		return segment(key).tryAcquire(key, expireMillis);
+	}
+
+	@Override
+	public WeixinResponse get(String key) {
+		return segment(key).get(key);
+	}
+
+	@Override
+	public void put(String key, WeixinResponse response, long expireMillis) {
+		segment(key).put(key, response, expireMillis);
+	}
+
+	@Override
+	public void release(String key) {
+		segment(key).release(key);
+	}
+
+	/**
+	 * 当前保存的消息数(包含尚未清理的过期条目)
+	 * 
+	 * @return 消息数
+	 */
+	public int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				size += segment.entries.size();
+			}
+		}
+		return size;
+	}
+
+	private static final class Entry {
+		final long expireAt;
+		final WeixinResponse response;
+
+		Entry(long expireAt, WeixinResponse response) {
+			this.expireAt = expireAt;
+			this.response = response;
+		}
+	}
+
+	private static final class Segment {
+		private final int capacity;
+		private final LinkedHashMap<String, Entry> entries;
+
+		Segment(int capacity) {
+			this.capacity = capacity;
+			this.entries = new LinkedHashMap<String, Entry>();
+		}
+
+		synchronized boolean tryAcquire(String key, long expireMillis) {
+			long now = System.currentTimeMillis();
+			Entry entry = entries.get(key);
+			if (entry != null && entry.expireAt > now) {
+				return false;
+			}
+			if (entry != null) {
+				entries.remove(key);
+			}
+			insert(key, new Entry(now + expireMillis, null), now);
+			return true;
+		}
+
+		synchronized WeixinResponse get(String key) {
+			Entry entry = entries.get(key);
+			if (entry == null) {
+				return null;
+			}
+			if (entry.expireAt <= System.currentTimeMillis()) {
+				entries.remove(key);
+				return null;
+			}
+			return entry.response;
+		}
+
+		synchronized void put(String key, WeixinResponse response,
+				long expireMillis) {
+			long now = System.currentTimeMillis();
+			// 重新插入到队尾,保持插入顺序与过期顺序一致
+			entries.remove(key);
+			insert(key, new Entry(now + expireMillis, response), now);
+		}
+
+		synchronized void release(String key) {
+			Entry entry = entries.get(key);
+			// 已经保存了响应的消息不再撤销
+			if (entry != null && entry.response == null) {
+				entries.remove(key);
+			}
+		}
+
+		private void insert(String key, Entry entry, long now) {
+			Iterator<Map.Entry<String, Entry>> it = entries.entrySet()
+					.iterator();
+			while (it.hasNext()) {
+				Map.Entry<String, Entry> eldest = it.next();
+				if (eldest.getValue().expireAt > now
+						&& entries.size() < capacity) {
+					break;
+				}
+				it.remove();
+			}
+			entries.put(key, entry);
+		}
+	}
+}
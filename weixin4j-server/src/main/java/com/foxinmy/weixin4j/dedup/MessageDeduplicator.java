@@ -0,0 +1,133 @@
+package com.foxinmy.weixin4j.dedup;
+
+import com.foxinmy.weixin4j.request.WeixinRequest;
+import com.foxinmy.weixin4j.response.BlankResponse;
+import com.foxinmy.weixin4j.response.WeixinResponse;
+import com.foxinmy.weixin4j.util.StringUtil;
+import com.foxinmy.weixin4j.xml.MessageNode;
+
+/**
+ * 消息去重
+ * <p>
+ * 微信服务器在五秒内收不到响应会重试三次,普通消息以MsgId去重,事件消息以FromUserName+CreateTime去重;
+ * 重复的消息不再分发,已经回复过的返回相同的响应,仍在处理中的回复空白消息;
+ * 没有得到真正回复的消息(如无处理器、拦截器拦截、处理异常、超时等)撤销登记,以便微信重试时重新处理
+ * </p>
+ * 
+ * @className MessageDeduplicator
+ * @author jy
+ * @date 2015年6月27日
+ * @since JDK 1.7
+ * @see DedupStore
+ * @see <a
+ *      href="http://mp.weixin.qq.com/wiki/10/79502792eef98d6e0c6e1739da387346.html">接收普通消息</a>
+ */
+public class MessageDeduplicator {
+
+	/**
+	 * 默认的有效时间(毫秒):覆盖微信的三次重试
+	 */
+	public final static long DEFAULT_EXPIRE_MILLIS = 30 * 1000l;
+
+	private final DedupStore dedupStore;
+	private final long expireMillis;
+
+	public MessageDeduplicator() {
+		this(new MemoryDedupStore(), DEFAULT_EXPIRE_MILLIS);
+	}
+
+	/**
+	 * 
+	 * @param dedupStore
+	 *            去重的存储
+	 * @param expireMillis
+	 *            有效时间(毫秒)
+	 */
+	public MessageDeduplicator(DedupStore dedupStore, long expireMillis) {
+		if (dedupStore == null) {
+			throw new IllegalArgumentException("DedupStore not be null.");
+		}
+		this.dedupStore = dedupStore;
+		this.expireMillis = expireMillis;
+	}
+
+	/**
+	 * 消息的唯一标识
+	 * 
+	 * @param request
+	 *            微信请求
+	 * @return 无法确定时返回null,此时不做去重
+	 */
+	public String messageKey(WeixinRequest request) {
+		MessageNode messageNode = request.getMessageNode();
+		if (messageNode == null) {
+			return null;
+		}
+		String toUserName = messageNode.getChildText("ToUserName");
+		String msgId = messageNode.getChildText("MsgId");
+		if (!StringUtil.isBlank(msgId)) {
+			return new StringBuilder().append(toUserName).append(':')
+					.append(msgId).toString();
+		}
+		String fromUserName = messageNode.getChildText("FromUserName");
+		String createTime = messageNode.getChildText("CreateTime");
+		if (StringUtil.isBlank(fromUserName) || StringUtil.isBlank(createTime)) {
+			return null;
+		}
+		return new StringBuilder().append(toUserName).append(':')
+				.append(fromUserName).append(':').append(createTime)
+				.toString();
+	}
+
+	/**
+	 * 登记消息,重复的消息返回需要回复的响应
+	 * 
+	 * @param request
+	 *            微信请求
+	 * @return 首次收到时返回null,重复时返回缓存的响应或者空白回复
+	 */
+	public WeixinResponse acquire(WeixinRequest request) {
+		String key = messageKey(request);
+		if (key == null || dedupStore.tryAcquire(key, expireMillis)) {
+			return null;
+		}
+		WeixinResponse response = dedupStore.get(key);
+		return response != null ? response : BlankResponse.global;
+	}
+
+	/**
+	 * 记录消息的响应
+	 * 
+	 * @param request
+	 *            微信请求
+	 * @param response
+	 *            响应
+	 */
+	public void complete(WeixinRequest request, WeixinResponse response) {
+		String key = messageKey(request);
+		if (key != null && response != null) {
+			dedupStore.put(key, response, expireMillis);
+		}
+	}
+
+	/**
+	 * 撤销消息的登记,在没有回复真正的响应时调用
+	 * 
+	 * @param request
+	 *            微信请求
+	 */
+	public void release(WeixinRequest request) {
+		String key = messageKey(request);
+		if (key != null) {
+			dedupStore.release(key);
+		}
+	}
+
+	public DedupStore getDedupStore() {
+		return dedupStore;
+	}
+
+	public long getExpireMillis() {
+		return expireMillis;
+	}
+}
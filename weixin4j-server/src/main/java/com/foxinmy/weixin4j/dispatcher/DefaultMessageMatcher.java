@@ -1,6 +1,9 @@
 package com.foxinmy.weixin4j.dispatcher;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 
 import com.foxinmy.weixin4j.message.ImageMessage;
@@ -172,4 +175,14 @@ public class DefaultMessageMatcher implements WeixinMessageMatcher {
 		}
 		messageClassMap.put(messageKey, messageClass);
 	}
+
+	/**
+	 * 已定义的消息类型
+	 * 
+	 * @return 消息类型集合
+	 */
+	public Collection<Class<?>> getMessageClasses() {
+		return Collections.unmodifiableSet(new HashSet<Class<?>>(
+				messageClassMap.values()));
+	}
 }
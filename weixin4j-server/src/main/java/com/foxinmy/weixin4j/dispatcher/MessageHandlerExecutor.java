@@ -5,6 +5,7 @@ import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.handler.AsyncMessageHandler;
 import com.foxinmy.weixin4j.handler.WeixinMessageHandler;
 import com.foxinmy.weixin4j.interceptor.WeixinMessageInterceptor;
 import com.foxinmy.weixin4j.request.WeixinRequest;
@@ -49,6 +50,16 @@ public class MessageHandlerExecutor {
 		return messageHandler;
 	}
 
+	/**
+	 * 是否为异步的消息处理器
+	 * 
+	 * @return true则响应在future完成时写入
+	 * @see com.foxinmy.weixin4j.handler.AsyncMessageHandler
+	 */
+	public boolean isAsync() {
+		return messageHandler instanceof AsyncMessageHandler;
+	}
+
 	/**
 	 * 执行预拦截动作
 	 * 
@@ -0,0 +1,129 @@
+package com.foxinmy.weixin4j.dispatcher;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.foxinmy.weixin4j.handler.Blocking;
+import com.foxinmy.weixin4j.handler.MessageHandlerAdapter;
+import com.foxinmy.weixin4j.handler.WeixinMessageHandler;
+
+/**
+ * 消息处理器的索引:按消息类型预先排好候选的handler
+ * <p>
+ * 泛型参数与消息类型一致的{@link MessageHandlerAdapter}排在前面,其余的handler排在后面,各自保持注册时的顺序;
+ * 索引在创建后不可变,分发时只需要按消息类型取出候选列表,不再有反射调用;
+ * handler是否标注了{@link Blocking}也在创建时确定
+ * </p>
+ *
+ * @className MessageHandlerIndex
+ * @author jy
+ * @date 2015年6月25日
+ * @since JDK 1.7
+ * @see com.foxinmy.weixin4j.dispatcher.WeixinMessageDispatcher
+ */
+public final class MessageHandlerIndex {
+
+	private static final WeixinMessageHandler[] EMPTY = new WeixinMessageHandler[0];
+
+	/**
+	 * 消息类型 -> 候选handler
+	 */
+	private final Map<Class<?>, WeixinMessageHandler[]> typedHandlers;
+	/**
+	 * 非MessageHandlerAdapter的handler
+	 */
+	private final WeixinMessageHandler[] untypedHandlers;
+	/**
+	 * 标注了Blocking的handler
+	 */
+	private final Set<WeixinMessageHandler> blockingHandlers;
+
+	public MessageHandlerIndex(WeixinMessageHandler[] messageHandlers) {
+		Map<Class<?>, List<WeixinMessageHandler>> typed = new LinkedHashMap<Class<?>, List<WeixinMessageHandler>>();
+		List<WeixinMessageHandler> untyped = new ArrayList<WeixinMessageHandler>();
+		Set<WeixinMessageHandler> blocking = Collections
+				.newSetFromMap(new IdentityHashMap<WeixinMessageHandler, Boolean>());
+		if (messageHandlers != null) {
+			for (WeixinMessageHandler handler : messageHandlers) {
+				if (handler.getClass().isAnnotationPresent(Blocking.class)) {
+					blocking.add(handler);
+				}
+				if (handler instanceof MessageHandlerAdapter) {
+					Class<?> genericType = genericTypeRead(handler);
+					if (genericType == null) {
+						continue;
+					}
+					List<WeixinMessageHandler> handlers = typed
+							.get(genericType);
+					if (handlers == null) {
+						handlers = new ArrayList<WeixinMessageHandler>();
+						typed.put(genericType, handlers);
+					}
+					handlers.add(handler);
+				} else {
+					untyped.add(handler);
+				}
+			}
+		}
+		this.untypedHandlers = untyped.toArray(EMPTY);
+		Map<Class<?>, WeixinMessageHandler[]> typedHandlers = new HashMap<Class<?>, WeixinMessageHandler[]>(
+				typed.size() * 2);
+		for (Map.Entry<Class<?>, List<WeixinMessageHandler>> entry : typed
+				.entrySet()) {
+			List<WeixinMessageHandler> handlers = entry.getValue();
+			handlers.addAll(untyped);
+			typedHandlers.put(entry.getKey(), handlers.toArray(EMPTY));
+		}
+		this.typedHandlers = Collections.unmodifiableMap(typedHandlers);
+		this.blockingHandlers = Collections.unmodifiableSet(blocking);
+	}
+
+	/**
+	 * 获取消息的候选handler,调用方需要依次判断canHandle
+	 *
+	 * @param messageClass
+	 *            消息类型
+	 * @return 候选handler,不会为null
+	 */
+	public WeixinMessageHandler[] getCandidates(Class<?> messageClass) {
+		WeixinMessageHandler[] handlers = typedHandlers.get(messageClass);
+		return handlers != null ? handlers : untypedHandlers;
+	}
+
+	/**
+	 * handler是否会阻塞
+	 *
+	 * @param messageHandler
+	 *            消息处理器
+	 * @return 标注了{@link Blocking}时返回true
+	 */
+	public boolean isBlocking(WeixinMessageHandler messageHandler) {
+		return blockingHandlers.contains(messageHandler);
+	}
+
+	/**
+	 * 获得泛型类型
+	 *
+	 * @param object
+	 * @return
+	 */
+	private static Class<?> genericTypeRead(Object object) {
+		Class<?> clazz = null;
+		Type type = object.getClass().getGenericSuperclass();
+		if (type instanceof ParameterizedType) {
+			Type arg = ((ParameterizedType) type).getActualTypeArguments()[0];
+			if (arg instanceof Class) {
+				clazz = (Class<?>) arg;
+			}
+		}
+		return clazz;
+	}
+}
@@ -1,39 +1,48 @@
 package com.foxinmy.weixin4j.dispatcher;
 
+import static io.netty.handler.codec.http.HttpResponseStatus.INTERNAL_SERVER_ERROR;
 import static io.netty.handler.codec.http.HttpResponseStatus.NOT_FOUND;
-import io.netty.channel.ChannelFutureListener;
+import static io.netty.handler.codec.http.HttpResponseStatus.SERVICE_UNAVAILABLE;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.ScheduledFuture;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
-import java.io.ByteArrayInputStream;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
-import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
-import java.util.HashMap;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.JAXBElement;
-import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
-import javax.xml.transform.Source;
-import javax.xml.transform.stream.StreamSource;
 
+import com.foxinmy.weixin4j.dedup.MessageDeduplicator;
 import com.foxinmy.weixin4j.exception.WeixinException;
-import com.foxinmy.weixin4j.handler.MessageHandlerAdapter;
+import com.foxinmy.weixin4j.handler.AsyncMessageHandler;
 import com.foxinmy.weixin4j.handler.WeixinMessageHandler;
+import com.foxinmy.weixin4j.index.ComponentIndex;
 import com.foxinmy.weixin4j.interceptor.WeixinMessageInterceptor;
+import com.foxinmy.weixin4j.metrics.MetricsStage;
+import com.foxinmy.weixin4j.metrics.WeixinMetrics;
 import com.foxinmy.weixin4j.request.WeixinRequest;
+import com.foxinmy.weixin4j.response.BlankResponse;
 import com.foxinmy.weixin4j.response.WeixinResponse;
+import com.foxinmy.weixin4j.socket.WeixinHttpReply;
+import com.foxinmy.weixin4j.socket.WeixinMessageReply;
 import com.foxinmy.weixin4j.util.ClassUtil;
-import com.foxinmy.weixin4j.util.Consts;
 import com.foxinmy.weixin4j.util.HttpUtil;
 import com.foxinmy.weixin4j.util.ReflectionUtil;
-import com.foxinmy.weixin4j.xml.CruxMessageHandler;
+import com.foxinmy.weixin4j.xml.CruxMessage;
+import com.foxinmy.weixin4j.xml.MessageBinderRegistry;
 
 /**
  * 微信消息分发器
@@ -53,6 +62,11 @@ public class WeixinMessageDispatcher {
 	private final InternalLogger logger = InternalLoggerFactory
 			.getInstance(getClass());
 
+	/**
+	 * 异步处理的默认超时时间(毫秒),微信服务器在五秒内收不到响应会断开连接并重试
+	 */
+	public final static long DEFAULT_ASYNC_TIMEOUT = 4500l;
+
 	/**
 	 * 消息处理器
 	 */
@@ -62,12 +76,17 @@ public class WeixinMessageDispatcher {
 	 * 消息处理器所在的包
 	 */
 	private String[] messageHandlerPackages;
+	/**
+	 * 消息处理器索引
+	 */
+	private volatile MessageHandlerIndex messageHandlerIndex;
 
 	/**
 	 * 消息拦截器
 	 */
 	private List<WeixinMessageInterceptor> messageInterceptorList;
-	private WeixinMessageInterceptor[] messageInterceptors;
+	private volatile WeixinMessageInterceptor[] messageInterceptors;
+	private volatile boolean messageInterceptorsResolved;
 	/**
 	 * 消息拦截器所在的包
 	 */
@@ -78,6 +97,23 @@ public class WeixinMessageDispatcher {
 	 */
 	private BeanFactory beanFactory;
 
+	/**
+	 * 分发线程池:标注了Blocking的handler在其中执行
+	 */
+	private Executor dispatchExecutor;
+	/**
+	 * 异步处理的超时时间(毫秒)
+	 */
+	private long asyncTimeout = DEFAULT_ASYNC_TIMEOUT;
+	/**
+	 * 消息去重
+	 */
+	private MessageDeduplicator messageDeduplicator;
+	/**
+	 * 统计,为null时不统计
+	 */
+	private WeixinMetrics metrics;
+
 	/**
 	 * 消息匹配
 	 */
@@ -85,7 +121,7 @@ public class WeixinMessageDispatcher {
 	/**
 	 * 消息转换
 	 */
-	private Map<Class<?>, Unmarshaller> messageUnmarshaller;
+	private final MessageBinderRegistry messageBinderRegistry;
 
 	public WeixinMessageDispatcher() {
 		this(new DefaultMessageMatcher());
@@ -93,7 +129,19 @@ public class WeixinMessageDispatcher {
 
 	public WeixinMessageDispatcher(WeixinMessageMatcher messageMatcher) {
 		this.messageMatcher = messageMatcher;
-		this.messageUnmarshaller = new HashMap<Class<?>, Unmarshaller>();
+		this.messageBinderRegistry = new MessageBinderRegistry();
+		if (messageMatcher instanceof DefaultMessageMatcher) {
+			// 内置的消息类型在启动时就生成绑定器
+			for (Class<?> messageClass : ((DefaultMessageMatcher) messageMatcher)
+					.getMessageClasses()) {
+				try {
+					messageBinderRegistry.register(messageClass);
+				} catch (WeixinException e) {
+					logger.warn("regist message class '{}' fail", messageClass,
+							e);
+				}
+			}
+		}
 	}
 
 	/**
@@ -103,45 +151,344 @@ public class WeixinMessageDispatcher {
 	 *            上下文环境
 	 * @param request
 	 *            微信请求
-	 * @param messageKey
-	 *            消息的key
+	 * @param cruxMessage
+	 *            消息的关键信息
 	 * @throws WeixinException
 	 */
-	public void doDispatch(final ChannelHandlerContext context,
-			final WeixinRequest request, final CruxMessageHandler cruxMessage)
+	public void doDispatch(ChannelHandlerContext context,
+			WeixinRequest request, CruxMessage cruxMessage)
 			throws WeixinException {
-		MessageKey messageKey = new MessageKey(cruxMessage.getMsgType(),
-				cruxMessage.getEventType(), cruxMessage.getAccountType());
-		Class<?> targetClass = messageMatcher.match(messageKey);
-		Object message = request.getOriginalContent();
-		if (targetClass != null) {
-			message = messageRead(request.getOriginalContent(), targetClass);
+		doDispatch(context, request, cruxMessage,
+				metrics != null ? System.nanoTime() : 0l);
+	}
+
+	/**
+	 * 对消息进行一系列的处理,包括 拦截、匹配、分发等动作
+	 * 
+	 * @param context
+	 *            上下文环境
+	 * @param request
+	 *            微信请求
+	 * @param cruxMessage
+	 *            消息的关键信息
+	 * @param startNanos
+	 *            分发阶段开始的时间(System.nanoTime),未开启统计时忽略
+	 * @throws WeixinException
+	 */
+	public void doDispatch(final ChannelHandlerContext context,
+			final WeixinRequest request, final CruxMessage cruxMessage,
+			final long startNanos) throws WeixinException {
+		if (messageDeduplicator != null) {
+			WeixinResponse duplicateResponse = messageDeduplicator
+					.acquire(request);
+			if (duplicateResponse != null) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("duplicate message '{}' replied with {}",
+							messageDeduplicator.messageKey(request),
+							duplicateResponse.getMsgType());
+				}
+				context.writeAndFlush(new WeixinMessageReply(request
+						.getMessageTransfer(), duplicateResponse));
+				return;
+			}
 		}
-		logger.info("define '{}' matched '{}'", messageKey,
-				targetClass);
-		MessageHandlerExecutor handlerExecutor = getHandlerExecutor(context,
-				request, messageKey, message);
+		final MessageKey messageKey = messageKey(request, cruxMessage);
+		Class<?> targetClass = messageMatcher.match(messageKey);
+		// 未匹配到消息类时才使用明文字符串,匹配到时不创建
+		Object message = targetClass != null ? messageRead(request,
+				targetClass) : request.getOriginalContent();
+		logger.debug("define '{}' matched '{}'", messageKey, targetClass);
+		final MessageHandlerExecutor handlerExecutor = getHandlerExecutor(
+				context, request, messageKey, message);
 		if (handlerExecutor == null
 				|| handlerExecutor.getMessageHandler() == null) {
+			releaseMessage(request);
 			noHandlerFound(context, request, message);
 			return;
 		}
+		if (dispatchExecutor != null
+				&& getMessageHandlerIndex().isBlocking(
+						handlerExecutor.getMessageHandler())) {
+			final Object blockingMessage = message;
+			try {
+				dispatchExecutor.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							dispatched(messageKey, startNanos);
+							doHandle(context, request, blockingMessage,
+									handlerExecutor);
+						} catch (Exception e) {
+							releaseMessage(request);
+							context.fireExceptionCaught(e);
+						}
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				releaseMessage(request);
+				dispatchRejected(context, request, blockingMessage);
+			}
+			return;
+		}
+		dispatched(messageKey, startNanos);
+		doHandle(context, request, message, handlerExecutor);
+	}
+
+	private MessageKey messageKey(WeixinRequest request,
+			CruxMessage cruxMessage) {
+		MessageKey messageKey = request.getMessageTransfer().getMessageKey();
+		if (messageKey == null) {
+			messageKey = new MessageKey(cruxMessage.getMsgType(),
+					cruxMessage.getEventType(), cruxMessage.getAccountType());
+		}
+		return messageKey;
+	}
+
+	private void dispatched(MessageKey messageKey, long startNanos) {
+		if (metrics != null) {
+			metrics.recordStage(MetricsStage.DISPATCH, messageKey,
+					System.nanoTime() - startNanos);
+		}
+	}
+
+	/**
+	 * 记录handler的耗时,异步handler为future完成或者超时的时间
+	 */
+	private void handled(WeixinRequest request,
+			MessageHandlerExecutor handlerExecutor, long startNanos,
+			boolean failed) {
+		if (metrics != null) {
+			long nanos = System.nanoTime() - startNanos;
+			metrics.recordStage(MetricsStage.HANDLER,
+					messageKey(request, request.getCruxMessage()), nanos);
+			metrics.recordHandler(handlerExecutor.getMessageHandler()
+					.getClass(), nanos, failed);
+		}
+	}
+
+	/**
+	 * 执行拦截器与handler,并写入响应
+	 * 
+	 * @param context
+	 *            上下文环境
+	 * @param request
+	 *            微信请求
+	 * @param message
+	 *            微信消息
+	 * @param handlerExecutor
+	 *            handler执行链
+	 * @throws WeixinException
+	 */
+	protected void doHandle(ChannelHandlerContext context,
+			WeixinRequest request, Object message,
+			MessageHandlerExecutor handlerExecutor) throws WeixinException {
 		if (!handlerExecutor.applyPreHandle(request, message)) {
+			// 被拦截的消息可能没有写入响应,不缓存
+			releaseMessage(request);
+			return;
+		}
+		if (handlerExecutor.isAsync()) {
+			doHandleAsync(context, request, message, handlerExecutor);
 			return;
 		}
 		WeixinException dispatchException = null;
+		long startNanos = metrics != null ? System.nanoTime() : 0l;
 		try {
-			WeixinResponse response = handlerExecutor.getMessageHandler()
-					.doHandle(request, message);
+			WeixinResponse response;
+			boolean failed = true;
+			try {
+				response = handlerExecutor.getMessageHandler().doHandle(
+						request, message);
+				failed = false;
+			} finally {
+				handled(request, handlerExecutor, startNanos, failed);
+			}
 			handlerExecutor.applyPostHandle(request, response, message);
-			context.write(response);
+			writeResponse(context, request, response);
 		} catch (WeixinException e) {
+			releaseMessage(request);
+			dispatchFailed(context, request, message, e);
 			dispatchException = e;
 		}
 		handlerExecutor.triggerAfterCompletion(request, message,
 				dispatchException);
 	}
 
+	/**
+	 * 执行异步的handler:future完成时写入响应,超时或者失败时回复空白消息
+	 * 
+	 * @param context
+	 *            上下文环境
+	 * @param request
+	 *            微信请求
+	 * @param message
+	 *            微信消息
+	 * @param handlerExecutor
+	 *            handler执行链
+	 * @throws WeixinException
+	 * @see com.foxinmy.weixin4j.handler.AsyncMessageHandler
+	 */
+	protected void doHandleAsync(final ChannelHandlerContext context,
+			final WeixinRequest request, final Object message,
+			final MessageHandlerExecutor handlerExecutor)
+			throws WeixinException {
+		final long startNanos = metrics != null ? System.nanoTime() : 0l;
+		Future<WeixinResponse> future;
+		try {
+			future = ((AsyncMessageHandler) handlerExecutor
+					.getMessageHandler()).doHandleAsync(request, message);
+		} catch (WeixinException e) {
+			releaseMessage(request);
+			handled(request, handlerExecutor, startNanos, true);
+			dispatchFailed(context, request, message, e);
+			handlerExecutor.triggerAfterCompletion(request, message, e);
+			return;
+		}
+		// 超时与完成只有一方能写入响应
+		final AtomicBoolean responded = new AtomicBoolean();
+		final ScheduledFuture<?> timeoutFuture = context.executor().schedule(
+				new Runnable() {
+					@Override
+					public void run() {
+						if (responded.compareAndSet(false, true)) {
+							logger.warn("async handle timeout({}ms):{}",
+									asyncTimeout, message);
+							handled(request, handlerExecutor, startNanos, true);
+							// 超时的空白回复不缓存,微信重试时重新处理
+							releaseMessage(request);
+							context.writeAndFlush(new WeixinMessageReply(
+									request.getMessageTransfer(),
+									BlankResponse.global));
+							asyncCompletion(request, message, handlerExecutor,
+									new WeixinException("async handle timeout"));
+						}
+					}
+				}, asyncTimeout, TimeUnit.MILLISECONDS);
+		future.addListener(new FutureListener<WeixinResponse>() {
+			@Override
+			public void operationComplete(Future<WeixinResponse> future) {
+				if (!responded.compareAndSet(false, true)) {
+					return;
+				}
+				timeoutFuture.cancel(false);
+				handled(request, handlerExecutor, startNanos,
+						!future.isSuccess());
+				WeixinException dispatchException = null;
+				WeixinResponse response = BlankResponse.global;
+				if (future.isSuccess()) {
+					if (future.getNow() != null) {
+						response = future.getNow();
+					}
+					try {
+						handlerExecutor.applyPostHandle(request, response,
+								message);
+					} catch (WeixinException e) {
+						dispatchException = e;
+					}
+				} else {
+					Throwable cause = future.cause();
+					if (cause instanceof WeixinException) {
+						dispatchException = (WeixinException) cause;
+					} else if (cause instanceof Exception) {
+						dispatchException = new WeixinException(
+								(Exception) cause);
+					} else {
+						dispatchException = new WeixinException(
+								cause.toString());
+					}
+				}
+				if (future.isSuccess()) {
+					writeResponse(context, request, response);
+				} else {
+					releaseMessage(request);
+					context.writeAndFlush(new WeixinMessageReply(request
+							.getMessageTransfer(), response));
+				}
+				asyncCompletion(request, message, handlerExecutor,
+						dispatchException);
+			}
+		});
+	}
+
+	/**
+	 * 写入响应
+	 * 
+	 * @param context
+	 *            上下文环境
+	 * @param request
+	 *            微信请求
+	 * @param response
+	 *            响应
+	 */
+	protected void writeResponse(ChannelHandlerContext context,
+			WeixinRequest request, WeixinResponse response) {
+		if (messageDeduplicator != null) {
+			messageDeduplicator.complete(request, response);
+		}
+		context.writeAndFlush(new WeixinMessageReply(request
+				.getMessageTransfer(), response));
+	}
+
+	/**
+	 * 消息没有得到真正的回复时撤销去重的登记
+	 * 
+	 * @param request
+	 *            微信请求
+	 */
+	private void releaseMessage(WeixinRequest request) {
+		if (messageDeduplicator != null) {
+			messageDeduplicator.release(request);
+		}
+	}
+
+	private void asyncCompletion(WeixinRequest request, Object message,
+			MessageHandlerExecutor handlerExecutor,
+			WeixinException dispatchException) {
+		try {
+			handlerExecutor.triggerAfterCompletion(request, message,
+					dispatchException);
+		} catch (WeixinException e) {
+			logger.error("MessageInterceptor.afterCompletion threw exception",
+					e);
+		}
+	}
+
+	/**
+	 * 分发线程池拒绝执行时触发
+	 * 
+	 * @param context
+	 *            上下文环境
+	 * @param request
+	 *            微信请求
+	 * @param message
+	 *            微信消息
+	 */
+	protected void dispatchRejected(ChannelHandlerContext context,
+			WeixinRequest request, Object message) {
+		logger.warn("dispatch executor rejected the message:{}", message);
+		context.writeAndFlush(new WeixinHttpReply(request.getMessageTransfer(),
+				HttpUtil.createHttpResponse(null, SERVICE_UNAVAILABLE, null)));
+	}
+
+	/**
+	 * handler抛出异常时触发:回复500,以便同一连接上后续请求的回复能够写出
+	 * 
+	 * @param context
+	 *            上下文环境
+	 * @param request
+	 *            微信请求
+	 * @param message
+	 *            微信消息
+	 * @param cause
+	 *            handler抛出的异常
+	 */
+	protected void dispatchFailed(ChannelHandlerContext context,
+			WeixinRequest request, Object message, WeixinException cause) {
+		logger.warn("handle the message fail:{}", message, cause);
+		context.writeAndFlush(new WeixinHttpReply(request.getMessageTransfer(),
+				HttpUtil.createHttpResponse(null, INTERNAL_SERVER_ERROR, null)));
+	}
+
 	/**
 	 * 未匹配到handler时触发
 	 * 
@@ -154,9 +501,8 @@ public class WeixinMessageDispatcher {
 	 */
 	protected void noHandlerFound(ChannelHandlerContext context,
 			WeixinRequest request, Object message) {
-		context.writeAndFlush(
-				HttpUtil.createHttpResponse(null, NOT_FOUND, null))
-				.addListener(ChannelFutureListener.CLOSE);
+		context.writeAndFlush(new WeixinHttpReply(request.getMessageTransfer(),
+				HttpUtil.createHttpResponse(null, NOT_FOUND, null)));
 	}
 
 	/**
@@ -178,31 +524,47 @@ public class WeixinMessageDispatcher {
 			ChannelHandlerContext context, WeixinRequest request,
 			MessageKey messageKey, Object message) throws WeixinException {
 		WeixinMessageHandler messageHandler = null;
-		WeixinMessageHandler[] messageHandlers = getMessageHandlers();
-		if (messageHandlers == null) {
-			return null;
-		}
-		for (WeixinMessageHandler handler : messageHandlers) {
-			if (handler instanceof MessageHandlerAdapter) {
-				Class<?> genericType = genericTypeRead(handler);
-				if (genericType == message.getClass()
-						&& handler.canHandle(request, message)) {
-					messageHandler = handler;
-					break;
-				}
+		for (WeixinMessageHandler handler : getMessageHandlerIndex()
+				.getCandidates(message.getClass())) {
+			if (handler.canHandle(request, message)) {
+				messageHandler = handler;
+				break;
 			}
 		}
-		if (messageHandler == null) {
-			for (WeixinMessageHandler handler : messageHandlers) {
-				if (!(handler instanceof MessageHandlerAdapter)
-						&& handler.canHandle(request, message)) {
-					messageHandler = handler;
-					break;
+		return new MessageHandlerExecutor(context, messageHandler,
+				getMessageInterceptors());
+	}
+
+	/**
+	 * 初始化handler、interceptor以及handler索引,服务启动时调用,避免在处理请求时才去扫描
+	 * 
+	 * @throws WeixinException
+	 */
+	public void initialize() throws WeixinException {
+		getMessageInterceptors();
+		getMessageHandlerIndex();
+	}
+
+	/**
+	 * 获取handler索引
+	 * 
+	 * @return handler索引
+	 * @see com.foxinmy.weixin4j.dispatcher.MessageHandlerIndex
+	 * @throws WeixinException
+	 */
+	public MessageHandlerIndex getMessageHandlerIndex() throws WeixinException {
+		MessageHandlerIndex messageHandlerIndex = this.messageHandlerIndex;
+		if (messageHandlerIndex == null) {
+			synchronized (this) {
+				messageHandlerIndex = this.messageHandlerIndex;
+				if (messageHandlerIndex == null) {
+					messageHandlerIndex = new MessageHandlerIndex(
+							getMessageHandlers());
+					this.messageHandlerIndex = messageHandlerIndex;
 				}
 			}
 		}
-		return new MessageHandlerExecutor(context, messageHandler,
-				getMessageInterceptors());
+		return messageHandlerIndex;
 	}
 
 	/**
@@ -212,13 +574,19 @@ public class WeixinMessageDispatcher {
 	 * @see com.foxinmy.weixin4j.handler.WeixinMessageHandler
 	 * @throws WeixinException
 	 */
-	public WeixinMessageHandler[] getMessageHandlers() throws WeixinException {
+	public synchronized WeixinMessageHandler[] getMessageHandlers()
+			throws WeixinException {
 		if (this.messageHandlers == null) {
 			if (messageHandlerPackages != null) {
 				List<Class<?>> messageHandlerClass = new LinkedList<Class<?>>();
 				for (String packageName : messageHandlerPackages) {
-					messageHandlerClass.addAll(ClassUtil
-							.getClasses(packageName));
+					// 扫描到的包中可能有内部类等非handler的类
+					for (Class<?> clazz : getClasses(
+							ComponentIndex.HANDLER_INDEX, packageName)) {
+						if (WeixinMessageHandler.class.isAssignableFrom(clazz)) {
+							messageHandlerClass.add(clazz);
+						}
+					}
 				}
 				if (beanFactory != null) {
 					for (Class<?> clazz : messageHandlerClass) {
@@ -264,47 +632,111 @@ public class WeixinMessageDispatcher {
 	 */
 	public WeixinMessageInterceptor[] getMessageInterceptors()
 			throws WeixinException {
-		if (this.messageInterceptors == null) {
-			if (this.messageInterceptorPackages != null) {
-				List<Class<?>> messageInterceptorClass = new LinkedList<Class<?>>();
-				for (String packageName : messageInterceptorPackages) {
-					messageInterceptorClass.addAll(ClassUtil
-							.getClasses(packageName));
+		// 每个请求都会获取interceptor,初始化之后不再加锁
+		if (!messageInterceptorsResolved) {
+			resolveMessageInterceptors();
+		}
+		return this.messageInterceptors;
+	}
+
+	private synchronized void resolveMessageInterceptors()
+			throws WeixinException {
+		if (messageInterceptorsResolved) {
+			return;
+		}
+		if (this.messageInterceptorPackages != null) {
+			List<Class<?>> messageInterceptorClass = new LinkedList<Class<?>>();
+			for (String packageName : messageInterceptorPackages) {
+				for (Class<?> clazz : getClasses(
+						ComponentIndex.INTERCEPTOR_INDEX, packageName)) {
+					if (WeixinMessageInterceptor.class.isAssignableFrom(clazz)) {
+						messageInterceptorClass.add(clazz);
+					}
 				}
-				if (beanFactory != null) {
-					for (Class<?> clazz : messageInterceptorClass) {
-						messageInterceptorList
-								.add((WeixinMessageInterceptor) beanFactory
-										.getBean(clazz));
+			}
+			if (beanFactory != null) {
+				for (Class<?> clazz : messageInterceptorClass) {
+					messageInterceptorList
+							.add((WeixinMessageInterceptor) beanFactory
+									.getBean(clazz));
+				}
+			} else {
+				for (Class<?> clazz : messageInterceptorClass) {
+					if (clazz.isInterface()
+							|| Modifier.isAbstract(clazz.getModifiers())) {
+						continue;
 					}
-				} else {
-					for (Class<?> clazz : messageInterceptorClass) {
-						if (clazz.isInterface()
-								|| Modifier.isAbstract(clazz.getModifiers())) {
-							continue;
-						}
-						try {
-							Constructor<?> ctor = clazz
-									.getDeclaredConstructor();
-							ReflectionUtil.makeAccessible(ctor);
-							messageInterceptorList
-									.add((WeixinMessageInterceptor) ctor
-											.newInstance((Object[]) null));
-						} catch (Exception ex) {
-							throw new WeixinException(clazz.getName()
-									+ " instantiate fail", ex);
-						}
+					try {
+						Constructor<?> ctor = clazz
+								.getDeclaredConstructor();
+						ReflectionUtil.makeAccessible(ctor);
+						messageInterceptorList
+								.add((WeixinMessageInterceptor) ctor
+										.newInstance((Object[]) null));
+					} catch (Exception ex) {
+						throw new WeixinException(clazz.getName()
+								+ " instantiate fail", ex);
 					}
 				}
 			}
-			if (this.messageInterceptorList != null
-					&& !this.messageInterceptorList.isEmpty()) {
-				this.messageInterceptors = this.messageInterceptorList
-						.toArray(new WeixinMessageInterceptor[this.messageInterceptorList
-								.size()]);
+		}
+		if (this.messageInterceptorList != null
+				&& !this.messageInterceptorList.isEmpty()) {
+			this.messageInterceptors = this.messageInterceptorList
+					.toArray(new WeixinMessageInterceptor[this.messageInterceptorList
+							.size()]);
+		}
+		messageInterceptorsResolved = true;
+	}
+
+	/**
+	 * 获取包下的handler或interceptor类:优先使用编译时生成的索引,没有索引时扫描classpath;
+	 * 只有部分classpath路径有索引时,扫描其余包含该包的路径并与索引合并
+	 * 
+	 * @param indexName
+	 *            索引的资源路径
+	 * @param packageName
+	 *            包名
+	 * @return 类集合
+	 * @see com.foxinmy.weixin4j.index.ComponentIndex
+	 */
+	private List<Class<?>> getClasses(String indexName, String packageName) {
+		List<Class<?>> classes = ComponentIndex.getClasses(indexName,
+				packageName);
+		if (classes == null) {
+			logger.debug("no {} found, scan the classpath for package '{}'",
+					indexName, packageName);
+			return ClassUtil.getClasses(packageName);
+		}
+		List<URL> unindexedPackages = ComponentIndex.getUnindexedPackages(
+				indexName, packageName);
+		if (!unindexedPackages.isEmpty()) {
+			logger.warn(
+					"{} does not cover package '{}' in {}, scan and merge them with the index",
+					indexName, packageName, unindexedPackages);
+			Set<Class<?>> merged = new LinkedHashSet<Class<?>>(classes);
+			for (URL packageUrl : unindexedPackages) {
+				merged.addAll(ClassUtil.getClasses(packageUrl, packageName));
 			}
+			classes = new ArrayList<Class<?>>(merged);
 		}
-		return this.messageInterceptors;
+		return classes;
+	}
+
+	/**
+	 * 读取微信消息:优先从解码时得到的节点树上绑定,无法绑定时再使用jaxb
+	 * 
+	 * @param request
+	 *            微信请求
+	 * @param clazz
+	 *            消息类型
+	 * @return 消息对象
+	 * @throws WeixinException
+	 */
+	protected Object messageRead(WeixinRequest request, Class<?> clazz)
+			throws WeixinException {
+		return messageBinderRegistry.read(request.getMessageNode(),
+				request.getOriginalContent(), clazz);
 	}
 
 	/**
@@ -319,19 +751,11 @@ public class WeixinMessageDispatcher {
 	 */
 	protected Object messageRead(String message, Class<?> clazz)
 			throws WeixinException {
-		try {
-			Source source = new StreamSource(new ByteArrayInputStream(
-					message.getBytes(Consts.UTF_8)));
-			JAXBElement<?> jaxbElement = getUnmarshaller(clazz).unmarshal(
-					source, clazz);
-			return jaxbElement.getValue();
-		} catch (JAXBException e) {
-			throw new WeixinException(e);
-		}
+		return messageBinderRegistry.unmarshal(message, clazz);
 	}
 
 	/**
-	 * xml消息转换器
+	 * xml消息转换器,每次调用都返回新的实例
 	 * 
 	 * @param clazz
 	 *            消息类型
@@ -340,34 +764,7 @@ public class WeixinMessageDispatcher {
 	 */
 	protected Unmarshaller getUnmarshaller(Class<?> clazz)
 			throws WeixinException {
-		Unmarshaller unmarshaller = messageUnmarshaller.get(clazz);
-		if (unmarshaller == null) {
-			try {
-				JAXBContext jaxbContext = JAXBContext.newInstance(clazz);
-				unmarshaller = jaxbContext.createUnmarshaller();
-				messageUnmarshaller.put(clazz, unmarshaller);
-			} catch (JAXBException e) {
-				throw new WeixinException(e);
-			}
-		}
-		return unmarshaller;
-	}
-
-	/**
-	 * 获得泛型类型
-	 * 
-	 * @param object
-	 * @return
-	 */
-	private Class<?> genericTypeRead(Object object) {
-		Class<?> clazz = null;
-		Type type = object.getClass().getGenericSuperclass();
-		if (type instanceof ParameterizedType) {
-			ParameterizedType ptype = ((ParameterizedType) type);
-			Type[] args = ptype.getActualTypeArguments();
-			clazz = (Class<?>) args[0];
-		}
-		return clazz;
+		return messageBinderRegistry.createUnmarshaller(clazz);
 	}
 
 	public void setMessageHandlerList(
@@ -397,6 +794,58 @@ public class WeixinMessageDispatcher {
 		this.messageInterceptorPackages = messageInterceptorPackages;
 	}
 
+	public Executor getDispatchExecutor() {
+		return dispatchExecutor;
+	}
+
+	public void setDispatchExecutor(Executor dispatchExecutor) {
+		this.dispatchExecutor = dispatchExecutor;
+	}
+
+	public long getAsyncTimeout() {
+		return asyncTimeout;
+	}
+
+	/**
+	 * 设置异步处理的超时时间
+	 * 
+	 * @param asyncTimeout
+	 *            超时时间(毫秒)
+	 * @see #DEFAULT_ASYNC_TIMEOUT
+	 */
+	public void setAsyncTimeout(long asyncTimeout) {
+		this.asyncTimeout = asyncTimeout;
+	}
+
+	public MessageDeduplicator getMessageDeduplicator() {
+		return messageDeduplicator;
+	}
+
+	/**
+	 * 设置消息去重,为null时不去重
+	 * 
+	 * @param messageDeduplicator
+	 *            消息去重
+	 */
+	public void setMessageDeduplicator(MessageDeduplicator messageDeduplicator) {
+		this.messageDeduplicator = messageDeduplicator;
+	}
+
+	public WeixinMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * 设置统计,为null时不统计
+	 * 
+	 * @param metrics
+	 *            统计
+	 * @see com.foxinmy.weixin4j.metrics.DefaultWeixinMetrics
+	 */
+	public void setMetrics(WeixinMetrics metrics) {
+		this.metrics = metrics;
+	}
+
 	public BeanFactory getBeanFactory() {
 		return beanFactory;
 	}
@@ -407,6 +856,12 @@ public class WeixinMessageDispatcher {
 
 	public void registMessageClass(MessageKey messageKey, Class<?> messageClass) {
 		messageMatcher.regist(messageKey, messageClass);
+		try {
+			messageBinderRegistry.register(messageClass);
+		} catch (WeixinException e) {
+			throw new IllegalArgumentException("unreadable message class "
+					+ messageClass, e);
+		}
 	}
 
 	public WeixinMessageMatcher getMessageMatcher() {
@@ -0,0 +1,38 @@
+package com.foxinmy.weixin4j.handler;
+
+import io.netty.util.concurrent.Future;
+
+import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.request.WeixinRequest;
+import com.foxinmy.weixin4j.response.WeixinResponse;
+
+/**
+ * 异步的微信消息处理器
+ * <p>
+ * 分发时调用{@link #doHandleAsync(WeixinRequest, Object)}而不是doHandle,在future完成时写入响应;
+ * 超时或者失败时回复{@link com.foxinmy.weixin4j.response.BlankResponse},
+ * 拦截器的postHandle与afterCompletion在完成future的线程中执行
+ * </p>
+ * 
+ * @className AsyncMessageHandler
+ * @author jy
+ * @date 2015年6月26日
+ * @since JDK 1.7
+ * @see AsyncMessageHandlerAdapter
+ * @see com.foxinmy.weixin4j.dispatcher.WeixinMessageDispatcher#setAsyncTimeout(long)
+ */
+public interface AsyncMessageHandler extends WeixinMessageHandler {
+
+	/**
+	 * 异步处理请求
+	 * 
+	 * @param request
+	 *            微信请求
+	 * @param message
+	 *            微信消息
+	 * @return 响应的future,不能为null
+	 * @throws WeixinException
+	 */
+	public Future<WeixinResponse> doHandleAsync(WeixinRequest request,
+			Object message) throws WeixinException;
+}
@@ -0,0 +1,102 @@
+package com.foxinmy.weixin4j.handler;
+
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+
+import java.util.concurrent.CountDownLatch;
+
+import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.request.WeixinRequest;
+import com.foxinmy.weixin4j.response.WeixinResponse;
+
+/**
+ * 异步消息处理的适配,对微信消息进行泛型转换
+ * 
+ * @className AsyncMessageHandlerAdapter
+ * @author jy
+ * @date 2015年6月26日
+ * @since JDK 1.7
+ * @see AsyncMessageHandler
+ */
+@SuppressWarnings("unchecked")
+public abstract class AsyncMessageHandlerAdapter<M> extends
+		MessageHandlerAdapter<M> implements AsyncMessageHandler {
+
+	@Override
+	public Future<WeixinResponse> doHandleAsync(WeixinRequest request,
+			Object message) throws WeixinException {
+		return doHandleAsync0(request, (M) message);
+	}
+
+	/**
+	 * 异步处理请求
+	 * 
+	 * @param request
+	 *            微信请求
+	 * @param message
+	 *            微信消息
+	 * @return 响应的future
+	 * @throws WeixinException
+	 * @see #newPromise()
+	 */
+	public abstract Future<WeixinResponse> doHandleAsync0(
+			WeixinRequest request, M message) throws WeixinException;
+
+	/**
+	 * 同步调用时等待异步的结果
+	 * <p>
+	 * {@link ImmediateEventExecutor}的promise不支持await(会抛出BlockingOperationException),
+	 * 所以通过监听者与CountDownLatch等待完成
+	 * </p>
+	 */
+	@Override
+	public WeixinResponse doHandle0(WeixinRequest request, M message)
+			throws WeixinException {
+		Future<WeixinResponse> future = doHandleAsync0(request, message);
+		if (!future.isDone()) {
+			final CountDownLatch latch = new CountDownLatch(1);
+			future.addListener(new FutureListener<WeixinResponse>() {
+				@Override
+				public void operationComplete(Future<WeixinResponse> future) {
+					latch.countDown();
+				}
+			});
+			boolean interrupted = false;
+			while (latch.getCount() > 0) {
+				try {
+					latch.await();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (!future.isSuccess()) {
+			Throwable cause = future.cause();
+			if (cause instanceof WeixinException) {
+				throw (WeixinException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			if (cause instanceof Exception) {
+				throw new WeixinException((Exception) cause);
+			}
+			throw new WeixinException(String.valueOf(cause));
+		}
+		return future.getNow();
+	}
+
+	/**
+	 * 创建一个promise,在完成它的线程中直接通知监听者
+	 * 
+	 * @return promise
+	 */
+	protected Promise<WeixinResponse> newPromise() {
+		return ImmediateEventExecutor.INSTANCE.newPromise();
+	}
+}
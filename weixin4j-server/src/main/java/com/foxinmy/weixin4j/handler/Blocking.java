@@ -0,0 +1,29 @@
+package com.foxinmy.weixin4j.handler;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标注会阻塞的消息处理器(如在处理时调用了微信API或者其他远程服务)
+ * <p>
+ * 服务配置了分发线程池时,被标注的handler连同拦截器一起在线程池中执行,不会占用netty的I/O线程;
+ * 未标注的handler仍然在I/O线程中直接执行
+ * </p>
+ *
+ * @className Blocking
+ * @author jy
+ * @date 2015年6月26日
+ * @since JDK 1.7
+ * @see com.foxinmy.weixin4j.startup.WeixinServerBootstrap#dispatchExecutor(java.util.concurrent.Executor)
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Blocking {
+
+}
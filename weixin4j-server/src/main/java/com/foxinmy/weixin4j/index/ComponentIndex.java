@@ -0,0 +1,169 @@
+package com.foxinmy.weixin4j.index;
+
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.foxinmy.weixin4j.util.Consts;
+
+/**
+ * 编译时生成的handler与interceptor索引:由{@link WeixinComponentProcessor}在编译时写入classpath,
+ * 启动时按包名从索引中取出类,不再遍历目录或者整个jar包并加载其中所有的类
+ *
+ * @className ComponentIndex
+ * @author jy
+ * @date 2015年7月8日
+ * @since JDK 1.7
+ * @see WeixinComponentProcessor
+ * @see com.foxinmy.weixin4j.dispatcher.WeixinMessageDispatcher#initialize()
+ */
+public final class ComponentIndex {
+
+	private static final InternalLogger logger = InternalLoggerFactory
+			.getInstance(ComponentIndex.class);
+
+	/**
+	 * handler索引的资源路径
+	 */
+	public final static String HANDLER_INDEX = "META-INF/weixin4j/handlers";
+	/**
+	 * interceptor索引的资源路径
+	 */
+	public final static String INTERCEPTOR_INDEX = "META-INF/weixin4j/interceptors";
+
+	private ComponentIndex() {
+	}
+
+	/**
+	 * 从索引中获取某个包(含子包)下的类
+	 *
+	 * @param indexName
+	 *            索引的资源路径
+	 * @param packageName
+	 *            包名
+	 * @return classpath中没有索引时返回null,调用方应回退为扫描classpath
+	 * @see #getUnindexedPackages(String, String)
+	 */
+	public static List<Class<?>> getClasses(String indexName,
+			String packageName) {
+		ClassLoader classLoader = Thread.currentThread()
+				.getContextClassLoader();
+		Set<String> classNames = read(classLoader, indexName);
+		if (classNames == null) {
+			return null;
+		}
+		String prefix = packageName + ".";
+		List<Class<?>> classes = new ArrayList<Class<?>>();
+		for (String className : classNames) {
+			if (!className.startsWith(prefix)) {
+				continue;
+			}
+			try {
+				classes.add(Class.forName(className, true, classLoader));
+			} catch (ClassNotFoundException e) {
+				logger.warn("indexed class '{}' not found in {}", className,
+						indexName);
+			}
+		}
+		return classes;
+	}
+
+	/**
+	 * 包含该包但没有索引的classpath路径:如未经{@link WeixinComponentProcessor}编译的目录或jar包,
+	 * 其中的类需要扫描后与索引合并
+	 *
+	 * @param indexName
+	 *            索引的资源路径
+	 * @param packageName
+	 *            包名
+	 * @return 包在这些classpath路径中的URL,都有索引时返回空集合
+	 */
+	public static List<URL> getUnindexedPackages(String indexName,
+			String packageName) {
+		ClassLoader classLoader = Thread.currentThread()
+				.getContextClassLoader();
+		String packagePath = packageName.replace('.', '/');
+		List<URL> unindexed = new ArrayList<URL>();
+		try {
+			Set<String> indexedRoots = new LinkedHashSet<String>();
+			Enumeration<URL> resources = classLoader.getResources(indexName);
+			while (resources.hasMoreElements()) {
+				indexedRoots.add(root(resources.nextElement(), indexName));
+			}
+			resources = classLoader.getResources(packagePath);
+			while (resources.hasMoreElements()) {
+				URL resource = resources.nextElement();
+				if (!indexedRoots.contains(root(resource, packagePath))) {
+					unindexed.add(resource);
+				}
+			}
+		} catch (IOException e) {
+			logger.warn("read package {} fail", packagePath, e);
+		}
+		return unindexed;
+	}
+
+	/**
+	 * 资源所在的classpath路径:去掉URL末尾的资源名
+	 */
+	private static String root(URL resource, String name) {
+		String url = resource.toExternalForm();
+		if (url.endsWith("/")) {
+			url = url.substring(0, url.length() - 1);
+		}
+		return url.endsWith(name) ? url.substring(0,
+				url.length() - name.length()) : url;
+	}
+
+	private static Set<String> read(ClassLoader classLoader, String indexName) {
+		Enumeration<URL> resources;
+		try {
+			resources = classLoader.getResources(indexName);
+		} catch (IOException e) {
+			logger.warn("read index {} fail", indexName, e);
+			return null;
+		}
+		if (!resources.hasMoreElements()) {
+			return null;
+		}
+		Set<String> classNames = new LinkedHashSet<String>();
+		while (resources.hasMoreElements()) {
+			URL resource = resources.nextElement();
+			InputStream in = null;
+			try {
+				in = resource.openStream();
+				BufferedReader reader = new BufferedReader(
+						new InputStreamReader(in, Consts.UTF_8));
+				String line;
+				while ((line = reader.readLine()) != null) {
+					line = line.trim();
+					if (!line.isEmpty() && line.charAt(0) != '#') {
+						classNames.add(line);
+					}
+				}
+			} catch (IOException e) {
+				logger.warn("read index {} fail", resource, e);
+				return null;
+			} finally {
+				if (in != null) {
+					try {
+						in.close();
+					} catch (IOException e) {
+						;// ignore
+					}
+				}
+			}
+		}
+		return classNames;
+	}
+}
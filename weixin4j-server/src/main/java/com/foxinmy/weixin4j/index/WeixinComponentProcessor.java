@@ -0,0 +1,130 @@
+package com.foxinmy.weixin4j.index;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import com.foxinmy.weixin4j.handler.WeixinMessageHandler;
+import com.foxinmy.weixin4j.interceptor.WeixinMessageInterceptor;
+import com.foxinmy.weixin4j.util.Consts;
+
+/**
+ * 编译时生成handler与interceptor索引的注解处理器:依赖本工程编译时由javac自动发现,
+ * 把所有非抽象的{@link WeixinMessageHandler}与{@link WeixinMessageInterceptor}实现类
+ * (含静态内部类)分别写入{@link ComponentIndex#HANDLER_INDEX}与
+ * {@link ComponentIndex#INTERCEPTOR_INDEX}
+ * <p>
+ * 增量编译只能看到本次编译的类,索引不完整时应完整地重新编译;不需要索引时可以用-proc:none关闭
+ * </p>
+ *
+ * @className WeixinComponentProcessor
+ * @author jy
+ * @date 2015年7月8日
+ * @since JDK 1.7
+ * @see ComponentIndex
+ */
+@SupportedAnnotationTypes("*")
+public class WeixinComponentProcessor extends AbstractProcessor {
+
+	private final Set<String> handlers = new TreeSet<String>();
+	private final Set<String> interceptors = new TreeSet<String>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations,
+			RoundEnvironment roundEnv) {
+		if (roundEnv.processingOver()) {
+			write(ComponentIndex.HANDLER_INDEX, handlers);
+			write(ComponentIndex.INTERCEPTOR_INDEX, interceptors);
+			return false;
+		}
+		TypeElement handlerType = processingEnv.getElementUtils()
+				.getTypeElement(WeixinMessageHandler.class.getName());
+		TypeElement interceptorType = processingEnv.getElementUtils()
+				.getTypeElement(WeixinMessageInterceptor.class.getName());
+		if (handlerType == null || interceptorType == null) {
+			return false;
+		}
+		Types types = processingEnv.getTypeUtils();
+		TypeMirror handlerMirror = types.erasure(handlerType.asType());
+		TypeMirror interceptorMirror = types.erasure(interceptorType.asType());
+		for (Element element : roundEnv.getRootElements()) {
+			collect(types, element, handlerMirror, interceptorMirror);
+		}
+		// 不声明处理了任何注解,其它处理器照常执行
+		return false;
+	}
+
+	private void collect(Types types, Element element,
+			TypeMirror handlerMirror, TypeMirror interceptorMirror) {
+		if (element.getKind() != ElementKind.CLASS) {
+			return;
+		}
+		TypeElement typeElement = (TypeElement) element;
+		Set<Modifier> modifiers = typeElement.getModifiers();
+		if (!modifiers.contains(Modifier.ABSTRACT)
+				&& (typeElement.getNestingKind().isNested() ? modifiers
+						.contains(Modifier.STATIC) : true)) {
+			TypeMirror type = types.erasure(typeElement.asType());
+			String binaryName = processingEnv.getElementUtils()
+					.getBinaryName(typeElement).toString();
+			if (types.isAssignable(type, handlerMirror)) {
+				handlers.add(binaryName);
+			}
+			if (types.isAssignable(type, interceptorMirror)) {
+				interceptors.add(binaryName);
+			}
+		}
+		for (Element enclosed : typeElement.getEnclosedElements()) {
+			collect(types, enclosed, handlerMirror, interceptorMirror);
+		}
+	}
+
+	private void write(String indexName, Set<String> classNames) {
+		if (classNames.isEmpty()) {
+			return;
+		}
+		Writer writer = null;
+		try {
+			FileObject resource = processingEnv.getFiler().createResource(
+					StandardLocation.CLASS_OUTPUT, "", indexName);
+			writer = new OutputStreamWriter(resource.openOutputStream(),
+					Consts.UTF_8);
+			for (String className : classNames) {
+				writer.write(className);
+				writer.write('\n');
+			}
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+					"write " + indexName + " fail:" + e);
+		} finally {
+			if (writer != null) {
+				try {
+					writer.close();
+				} catch (IOException e) {
+					;// ignore
+				}
+			}
+		}
+	}
+}
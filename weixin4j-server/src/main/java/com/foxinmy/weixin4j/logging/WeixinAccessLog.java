@@ -0,0 +1,166 @@
+package com.foxinmy.weixin4j.logging;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.foxinmy.weixin4j.dispatcher.MessageKey;
+import com.foxinmy.weixin4j.response.WeixinResponse;
+import com.foxinmy.weixin4j.socket.WeixinMessageTransfer;
+import com.foxinmy.weixin4j.util.Consts;
+
+/**
+ * 按比例采样的访问日志:每条回复输出一行key=value格式的日志,取代处理请求时逐条输出的INFO日志
+ * <p>
+ * 使用独立的日志名称{@link #LOGGER_NAME},可以单独配置级别与异步appender;
+ * 只有被采样且日志名称开启了INFO级别时才拼接日志,拼接结果是一个不可变的字符串,交给异步appender时不会再访问请求对象;
+ * 默认不输出用户的openid与回复内容
+ * </p>
+ *
+ * @className WeixinAccessLog
+ * @author jy
+ * @date 2015年7月7日
+ * @since JDK 1.7
+ * @see com.foxinmy.weixin4j.socket.WeixinResponseEncoder
+ */
+public class WeixinAccessLog {
+
+	/**
+	 * 访问日志的名称
+	 */
+	public final static String LOGGER_NAME = "weixin4j.access";
+
+	private final InternalLogger logger = InternalLoggerFactory
+			.getInstance(LOGGER_NAME);
+
+	/**
+	 * 采样比例
+	 */
+	private final double sampleRate;
+	/**
+	 * 是否输出用户的openid与回复内容
+	 */
+	private final boolean logContent;
+
+	/**
+	 * 记录所有请求,不输出用户的openid与回复内容
+	 */
+	public WeixinAccessLog() {
+		this(1d, false);
+	}
+
+	/**
+	 *
+	 * @param sampleRate
+	 *            采样比例,0到1之间,如0.01表示每一百个请求记录一个
+	 * @param logContent
+	 *            是否输出用户的openid与回复内容(密文模式下为加密后的消息)
+	 */
+	public WeixinAccessLog(double sampleRate, boolean logContent) {
+		if (sampleRate < 0d || sampleRate > 1d) {
+			throw new IllegalArgumentException(
+					"sampleRate must be between 0 and 1");
+		}
+		this.sampleRate = sampleRate;
+		this.logContent = logContent;
+	}
+
+	/**
+	 * 是否记录本次请求
+	 *
+	 * @return 日志名称未开启INFO级别时总是返回false
+	 */
+	public boolean sample() {
+		if (sampleRate <= 0d || !logger.isInfoEnabled()) {
+			return false;
+		}
+		return sampleRate >= 1d
+				|| ThreadLocalRandom.current().nextDouble() < sampleRate;
+	}
+
+	/**
+	 * 记录一条回复,调用前先通过{@link #sample()}判断是否记录
+	 *
+	 * @param messageTransfer
+	 *            请求的上下文
+	 * @param response
+	 *            回复
+	 * @param content
+	 *            编码后的回复内容
+	 */
+	public void log(WeixinMessageTransfer messageTransfer,
+			WeixinResponse response, ByteBuf content) {
+		logger.info(format(messageTransfer, response, content));
+	}
+
+	/**
+	 * 格式化一条回复
+	 *
+	 * @param messageTransfer
+	 *            请求的上下文
+	 * @param response
+	 *            回复
+	 * @param content
+	 *            编码后的回复内容
+	 * @return 一行key=value格式的日志
+	 */
+	public String format(WeixinMessageTransfer messageTransfer,
+			WeixinResponse response, ByteBuf content) {
+		StringBuilder line = new StringBuilder(logContent ? 256 + content
+				.readableBytes() : 256);
+		MessageKey messageKey = messageTransfer.getMessageKey();
+		append(line, "account", messageTransfer.getAccountOpenId());
+		append(line, "seq", messageTransfer.getSequence());
+		append(line, "encrypt", messageTransfer.getEncryptType());
+		append(line, "msgType",
+				messageKey != null ? messageKey.getMessageType() : null);
+		append(line, "eventType",
+				messageKey != null ? messageKey.getEventType() : null);
+		append(line, "reply", response.getMsgType());
+		append(line, "bytes", content.readableBytes());
+		append(line, "keepAlive", messageTransfer.isKeepAlive());
+		line.append(" elapsedMs=").append(
+				(System.nanoTime() - messageTransfer.getCreateNanos()) / 1000l
+						/ 1e3);
+		if (logContent) {
+			append(line, "user", messageTransfer.getUserOpenId());
+			append(line, "content", content.toString(Consts.UTF_8));
+		}
+		return line.toString();
+	}
+
+	private static void append(StringBuilder line, String key, Object value) {
+		if (line.length() > 0) {
+			line.append(' ');
+		}
+		line.append(key).append('=');
+		if (value == null) {
+			line.append('-');
+			return;
+		}
+		String text = value.toString();
+		boolean quote = text.isEmpty() || text.indexOf(' ') >= 0
+				|| text.indexOf('"') >= 0 || text.indexOf('\n') >= 0
+				|| text.indexOf('\r') >= 0;
+		if (!quote) {
+			line.append(text);
+			return;
+		}
+		line.append('"');
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '"' || c == '\\') {
+				line.append('\\').append(c);
+			} else if (c == '\n') {
+				line.append("\\n");
+			} else if (c == '\r') {
+				line.append("\\r");
+			} else {
+				line.append(c);
+			}
+		}
+		line.append('"');
+	}
+}
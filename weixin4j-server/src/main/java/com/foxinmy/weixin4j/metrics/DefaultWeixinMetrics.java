@@ -0,0 +1,267 @@
+package com.foxinmy.weixin4j.metrics;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.foxinmy.weixin4j.dispatcher.MessageKey;
+
+/**
+ * 默认的统计实现:按消息类型与阶段、按handler分别保存无锁的直方图,只在内存中累计
+ *
+ * @className DefaultWeixinMetrics
+ * @author jy
+ * @date 2015年7月6日
+ * @since JDK 1.7
+ * @see WeixinMetrics
+ */
+public class DefaultWeixinMetrics implements WeixinMetrics {
+
+	/**
+	 * 消息体为空的请求(如接入验证)
+	 */
+	private static final MessageKey UNKNOWN_KEY = new MessageKey(null, null,
+			null);
+
+	private final ConcurrentMap<MessageKey, LatencyHistogram[]> stages;
+	private final ConcurrentMap<Class<?>, HandlerStats> handlers;
+
+	public DefaultWeixinMetrics() {
+		this.stages = new ConcurrentHashMap<MessageKey, LatencyHistogram[]>();
+		this.handlers = new ConcurrentHashMap<Class<?>, HandlerStats>();
+	}
+
+	@Override
+	public void recordStage(MetricsStage stage, MessageKey messageKey,
+			long nanos) {
+		if (messageKey == null) {
+			messageKey = UNKNOWN_KEY;
+		}
+		LatencyHistogram[] histograms = stages.get(messageKey);
+		if (histograms == null) {
+			LatencyHistogram[] created = new LatencyHistogram[MetricsStage
+					.values().length];
+			for (int i = 0; i < created.length; i++) {
+				created[i] = new LatencyHistogram();
+			}
+			histograms = stages.putIfAbsent(messageKey, created);
+			if (histograms == null) {
+				histograms = created;
+			}
+		}
+		histograms[stage.ordinal()].record(nanos);
+	}
+
+	@Override
+	public void recordHandler(Class<?> handlerClass, long nanos, boolean failed) {
+		HandlerStats stats = handlers.get(handlerClass);
+		if (stats == null) {
+			HandlerStats created = new HandlerStats();
+			stats = handlers.putIfAbsent(handlerClass, created);
+			if (stats == null) {
+				stats = created;
+			}
+		}
+		stats.latency.record(nanos);
+		if (failed) {
+			stats.errors.incrementAndGet();
+		}
+	}
+
+	/**
+	 * 某个消息类型在某个阶段的直方图
+	 *
+	 * @param stage
+	 *            阶段
+	 * @param messageKey
+	 *            消息的key
+	 * @return 尚无记录时返回null
+	 */
+	public LatencyHistogram getStage(MetricsStage stage, MessageKey messageKey) {
+		LatencyHistogram[] histograms = stages
+				.get(messageKey != null ? messageKey : UNKNOWN_KEY);
+		return histograms != null ? histograms[stage.ordinal()] : null;
+	}
+
+	/**
+	 * handler的直方图
+	 *
+	 * @param handlerClass
+	 *            handler的类
+	 * @return 尚无记录时返回null
+	 */
+	public LatencyHistogram getHandler(Class<?> handlerClass) {
+		HandlerStats stats = handlers.get(handlerClass);
+		return stats != null ? stats.latency : null;
+	}
+
+	/**
+	 * handler的失败次数
+	 *
+	 * @param handlerClass
+	 *            handler的类
+	 * @return
+	 */
+	public long getHandlerErrors(Class<?> handlerClass) {
+		HandlerStats stats = handlers.get(handlerClass);
+		return stats != null ? stats.errors.get() : 0l;
+	}
+
+	@Override
+	public String report(MetricsFormat format, int inflightRequests) {
+		return format == MetricsFormat.JSON ? reportJson(inflightRequests)
+				: reportText(inflightRequests);
+	}
+
+	private String reportText(int inflightRequests) {
+		StringBuilder out = new StringBuilder(4096);
+		out.append("weixin4j_inflight_requests ").append(inflightRequests)
+				.append('\n');
+		for (Map.Entry<MessageKey, LatencyHistogram[]> entry : stages
+				.entrySet()) {
+			MessageKey key = entry.getKey();
+			for (MetricsStage stage : MetricsStage.values()) {
+				LatencyHistogram histogram = entry.getValue()[stage.ordinal()];
+				if (histogram.getCount() == 0l) {
+					continue;
+				}
+				String labels = "{stage=\"" + stage.name().toLowerCase()
+						+ "\",msgType=\"" + textLabel(key.getMessageType())
+						+ "\",eventType=\"" + textLabel(key.getEventType())
+						+ "\",accountType=\""
+						+ textLabel(key.getAccountType()) + "\"}";
+				appendText(out, "weixin4j_stage", labels, histogram);
+			}
+		}
+		for (Map.Entry<Class<?>, HandlerStats> entry : handlers.entrySet()) {
+			HandlerStats stats = entry.getValue();
+			String labels = "{handler=\""
+					+ textLabel(entry.getKey().getName()) + "\"}";
+			appendText(out, "weixin4j_handler", labels, stats.latency);
+			out.append("weixin4j_handler_errors").append(labels).append(' ')
+					.append(stats.errors.get()).append('\n');
+			out.append("weixin4j_handler_error_rate").append(labels)
+					.append(' ').append(format(stats.errorRate())).append('\n');
+		}
+		return out.toString();
+	}
+
+	private void appendText(StringBuilder out, String name, String labels,
+			LatencyHistogram histogram) {
+		out.append(name).append("_count").append(labels).append(' ')
+				.append(histogram.getCount()).append('\n');
+		out.append(name).append("_mean_ms").append(labels).append(' ')
+				.append(format(histogram.getMeanMillis())).append('\n');
+		out.append(name).append("_p50_ms").append(labels).append(' ')
+				.append(format(histogram.getQuantileMillis(0.5d)))
+				.append('\n');
+		out.append(name).append("_p99_ms").append(labels).append(' ')
+				.append(format(histogram.getQuantileMillis(0.99d)))
+				.append('\n');
+		out.append(name).append("_max_ms").append(labels).append(' ')
+				.append(format(histogram.getMaxMillis())).append('\n');
+	}
+
+	private String reportJson(int inflightRequests) {
+		StringBuilder out = new StringBuilder(4096);
+		out.append("{\"inflightRequests\":").append(inflightRequests)
+				.append(",\"stages\":[");
+		boolean first = true;
+		for (Map.Entry<MessageKey, LatencyHistogram[]> entry : stages
+				.entrySet()) {
+			MessageKey key = entry.getKey();
+			for (MetricsStage stage : MetricsStage.values()) {
+				LatencyHistogram histogram = entry.getValue()[stage.ordinal()];
+				if (histogram.getCount() == 0l) {
+					continue;
+				}
+				if (!first) {
+					out.append(',');
+				}
+				first = false;
+				out.append("{\"stage\":\"").append(stage.name().toLowerCase())
+						.append("\",\"msgType\":");
+				appendJsonString(out, key.getMessageType());
+				out.append(",\"eventType\":");
+				appendJsonString(out, key.getEventType());
+				out.append(",\"accountType\":");
+				appendJsonString(out, key.getAccountType() != null ? key
+						.getAccountType().name() : null);
+				appendJson(out, histogram);
+				out.append('}');
+			}
+		}
+		out.append("],\"handlers\":[");
+		first = true;
+		for (Map.Entry<Class<?>, HandlerStats> entry : handlers.entrySet()) {
+			HandlerStats stats = entry.getValue();
+			if (!first) {
+				out.append(',');
+			}
+			first = false;
+			out.append("{\"handler\":");
+			appendJsonString(out, entry.getKey().getName());
+			appendJson(out, stats.latency);
+			out.append(",\"errors\":").append(stats.errors.get())
+					.append(",\"errorRate\":")
+					.append(format(stats.errorRate())).append('}');
+		}
+		out.append("]}");
+		return out.toString();
+	}
+
+	private void appendJson(StringBuilder out, LatencyHistogram histogram) {
+		out.append(",\"count\":").append(histogram.getCount())
+				.append(",\"meanMs\":")
+				.append(format(histogram.getMeanMillis()))
+				.append(",\"p50Ms\":")
+				.append(format(histogram.getQuantileMillis(0.5d)))
+				.append(",\"p99Ms\":")
+				.append(format(histogram.getQuantileMillis(0.99d)))
+				.append(",\"maxMs\":")
+				.append(format(histogram.getMaxMillis()));
+	}
+
+	private static String format(double value) {
+		return String.format(Locale.ROOT, "%.3f", value);
+	}
+
+	private static String textLabel(Object value) {
+		if (value == null) {
+			return "";
+		}
+		return value.toString().replace("\\", "\\\\").replace("\"", "\\\"")
+				.replace("\n", "\\n");
+	}
+
+	private static void appendJsonString(StringBuilder out, String value) {
+		if (value == null) {
+			out.append("null");
+			return;
+		}
+		out.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				out.append('\\').append(c);
+			} else if (c < 0x20) {
+				out.append(String.format("\\u%04x", (int) c));
+			} else {
+				out.append(c);
+			}
+		}
+		out.append('"');
+	}
+
+	private static final class HandlerStats {
+		final LatencyHistogram latency = new LatencyHistogram();
+		final AtomicLong errors = new AtomicLong();
+
+		double errorRate() {
+			long count = latency.getCount();
+			return count == 0l ? 0d : (double) errors.get() / count;
+		}
+	}
+}
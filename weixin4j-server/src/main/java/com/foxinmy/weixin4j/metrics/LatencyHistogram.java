@@ -0,0 +1,104 @@
+package com.foxinmy.weixin4j.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁的耗时直方图:固定的桶边界(50微秒到5秒),记录只做几次原子加,分位数取所在桶的上界
+ *
+ * @className LatencyHistogram
+ * @author jy
+ * @date 2015年7月6日
+ * @since JDK 1.7
+ * @see DefaultWeixinMetrics
+ */
+public class LatencyHistogram {
+
+	/**
+	 * 桶的上界(微秒),最后还有一个溢出桶
+	 */
+	private static final long[] BOUNDS_MICROS = { 50, 100, 250, 500, 1000,
+			2500, 5000, 10000, 25000, 50000, 100000, 250000, 500000, 1000000,
+			2500000, 5000000 };
+
+	private final AtomicLongArray buckets = new AtomicLongArray(
+			BOUNDS_MICROS.length + 1);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong totalNanos = new AtomicLong();
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	/**
+	 * 记录一次耗时
+	 *
+	 * @param nanos
+	 *            耗时(纳秒)
+	 */
+	public void record(long nanos) {
+		if (nanos < 0l) {
+			nanos = 0l;
+		}
+		long micros = nanos / 1000l;
+		int bucket = 0;
+		while (bucket < BOUNDS_MICROS.length && micros > BOUNDS_MICROS[bucket]) {
+			bucket++;
+		}
+		buckets.incrementAndGet(bucket);
+		count.incrementAndGet();
+		totalNanos.addAndGet(nanos);
+		long max;
+		while ((max = maxNanos.get()) < nanos
+				&& !maxNanos.compareAndSet(max, nanos)) {
+		}
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * 平均耗时(毫秒)
+	 *
+	 * @return
+	 */
+	public double getMeanMillis() {
+		long count = this.count.get();
+		return count == 0l ? 0d : totalNanos.get() / 1e6 / count;
+	}
+
+	/**
+	 * 最大耗时(毫秒)
+	 *
+	 * @return
+	 */
+	public double getMaxMillis() {
+		return maxNanos.get() / 1e6;
+	}
+
+	/**
+	 * 分位数(毫秒),精度为桶的宽度
+	 *
+	 * @param quantile
+	 *            如0.5、0.99
+	 * @return 所在桶的上界,落在溢出桶时为最大耗时
+	 */
+	public double getQuantileMillis(double quantile) {
+		long[] counts = new long[buckets.length()];
+		long total = 0l;
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = buckets.get(i);
+			total += counts[i];
+		}
+		if (total == 0l) {
+			return 0d;
+		}
+		long rank = (long) Math.ceil(quantile * total);
+		long seen = 0l;
+		for (int i = 0; i < BOUNDS_MICROS.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return BOUNDS_MICROS[i] / 1e3;
+			}
+		}
+		return getMaxMillis();
+	}
+}
@@ -0,0 +1,21 @@
+package com.foxinmy.weixin4j.metrics;
+
+/**
+ * 统计的输出格式
+ *
+ * @className MetricsFormat
+ * @author jy
+ * @date 2015年7月6日
+ * @since JDK 1.7
+ * @see WeixinMetrics#report(MetricsFormat, int)
+ */
+public enum MetricsFormat {
+	/**
+	 * 每行一个指标:名称{标签} 值
+	 */
+	TEXT,
+	/**
+	 * JSON对象
+	 */
+	JSON;
+}
@@ -0,0 +1,33 @@
+package com.foxinmy.weixin4j.metrics;
+
+/**
+ * 请求处理的阶段
+ *
+ * @className MetricsStage
+ * @author jy
+ * @date 2015年7月6日
+ * @since JDK 1.7
+ * @see WeixinMetrics
+ */
+public enum MetricsStage {
+	/**
+	 * 解析消息(不含解密)
+	 */
+	DECODE,
+	/**
+	 * 安全模式下的解密
+	 */
+	DECRYPT,
+	/**
+	 * 签名校验、去重、匹配消息类型与handler,以及在分发线程池中排队的时间
+	 */
+	DISPATCH,
+	/**
+	 * 执行handler,异步handler为future完成的时间
+	 */
+	HANDLER,
+	/**
+	 * 编码以及加密回复
+	 */
+	ENCODE;
+}
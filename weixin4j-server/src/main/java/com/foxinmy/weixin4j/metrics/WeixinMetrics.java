@@ -0,0 +1,57 @@
+package com.foxinmy.weixin4j.metrics;
+
+import com.foxinmy.weixin4j.dispatcher.MessageKey;
+
+/**
+ * 服务的统计接口:各阶段按消息类型的耗时以及各handler的耗时与失败次数
+ * <p>
+ * 记录方法在I/O线程或分发线程中调用,实现必须是线程安全且不阻塞的;
+ * 可以对接已有的统计系统,也可以使用默认的{@link DefaultWeixinMetrics}
+ * </p>
+ *
+ * @className WeixinMetrics
+ * @author jy
+ * @date 2015年7月6日
+ * @since JDK 1.7
+ * @see DefaultWeixinMetrics
+ * @see com.foxinmy.weixin4j.startup.WeixinServerBootstrap#metrics(WeixinMetrics,
+ *      String)
+ */
+public interface WeixinMetrics {
+
+	/**
+	 * 记录某个阶段的耗时
+	 *
+	 * @param stage
+	 *            阶段
+	 * @param messageKey
+	 *            消息的key,消息体为空时为null
+	 * @param nanos
+	 *            耗时(纳秒)
+	 */
+	public void recordStage(MetricsStage stage, MessageKey messageKey,
+			long nanos);
+
+	/**
+	 * 记录handler的一次执行
+	 *
+	 * @param handlerClass
+	 *            handler的类
+	 * @param nanos
+	 *            耗时(纳秒)
+	 * @param failed
+	 *            是否抛出异常、失败或者超时
+	 */
+	public void recordHandler(Class<?> handlerClass, long nanos, boolean failed);
+
+	/**
+	 * 输出当前的统计,供统计端点返回
+	 *
+	 * @param format
+	 *            输出格式
+	 * @param inflightRequests
+	 *            尚未回复的请求数
+	 * @return 不支持输出时返回null
+	 */
+	public String report(MetricsFormat format, int inflightRequests);
+}
@@ -0,0 +1,229 @@
+package com.foxinmy.weixin4j.replay;
+
+/**
+ * 防重放:请求的timestamp必须在服务器时间的前后窗口内,且同一个签名在窗口内只能使用一次
+ * <p>
+ * 签名由token、timestamp与nonce计算而来,取其前64位作为key;按key分段加锁,
+ * 每段用一个环形队列按到达顺序记录key与timestamp,再用一个开放寻址的散列表判断key是否出现过,
+ * 全部是基本类型数组,每个条目约32字节,内存占用在构造时即已确定
+ * </p>
+ * <p>
+ * 队首的条目离开时间窗口后即被淘汰;段满时提前淘汰队首的条目并记下它的timestamp,
+ * 此后timestamp不晚于它的请求无法确认是否重放而一律拒绝,即过载时有效窗口缩短,而不是放过重放的请求
+ * </p>
+ *
+ * @className ReplayGuard
+ * @author jy
+ * @date 2015年7月4日
+ * @since JDK 1.7
+ * @see com.foxinmy.weixin4j.socket.WeixinRequestValidator
+ */
+public class ReplayGuard {
+
+	/**
+	 * 默认的时间窗口(秒)
+	 */
+	public final static int DEFAULT_MAX_SKEW_SECONDS = 60;
+	/**
+	 * 默认容量:每秒一万个请求时可以覆盖整个默认的时间窗口
+	 */
+	public final static int DEFAULT_CAPACITY = 10000 * DEFAULT_MAX_SKEW_SECONDS;
+
+	private final static int SEGMENTS = 64;
+
+	private final int maxSkewSeconds;
+	private final Segment[] segments;
+
+	public ReplayGuard() {
+		this(DEFAULT_MAX_SKEW_SECONDS, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 *
+	 * @param maxSkewSeconds
+	 *            timestamp与服务器时间相差的最大秒数
+	 * @param capacity
+	 *            最多记录的签名数
+	 */
+	public ReplayGuard(int maxSkewSeconds, int capacity) {
+		if (maxSkewSeconds <= 0) {
+			throw new IllegalArgumentException(
+					"maxSkewSeconds must be positive");
+		}
+		if (capacity < SEGMENTS) {
+			throw new IllegalArgumentException("capacity must be >= "
+					+ SEGMENTS);
+		}
+		this.maxSkewSeconds = maxSkewSeconds;
+		this.segments = new Segment[SEGMENTS];
+		for (int i = 0; i < SEGMENTS; i++) {
+			segments[i] = new Segment((capacity + SEGMENTS - 1) / SEGMENTS);
+		}
+	}
+
+	/**
+	 * 校验请求是否新鲜并记录它的签名
+	 *
+	 * @param signature
+	 *            请求的签名(十六进制)
+	 * @param timestamp
+	 *            请求的timestamp(秒)
+	 * @return timestamp在窗口内且签名未出现过时返回true
+	 */
+	public boolean tryAcquire(String signature, long timestamp) {
+		return tryAcquire(signature, timestamp,
+				System.currentTimeMillis() / 1000l);
+	}
+
+	/**
+	 *
+	 * @param signature
+	 *            请求的签名(十六进制)
+	 * @param timestamp
+	 *            请求的timestamp(秒)
+	 * @param now
+	 *            当前时间(秒)
+	 * @return
+	 */
+	public boolean tryAcquire(String signature, long timestamp, long now) {
+		if (Math.abs(now - timestamp) > maxSkewSeconds) {
+			return false;
+		}
+		long key = key(signature);
+		int h = (int) (key ^ (key >>> 32));
+		h ^= (h >>> 16);
+		return segments[h & (SEGMENTS - 1)].tryAcquire(key, timestamp, now
+				- maxSkewSeconds);
+	}
+
+	public int getMaxSkewSeconds() {
+		return maxSkewSeconds;
+	}
+
+	/**
+	 * 当前记录的签名数(包含尚未清理的过期条目)
+	 *
+	 * @return
+	 */
+	public int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				size += segment.size;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * 签名的前16个十六进制字符,0保留给散列表的空位
+	 */
+	private static long key(String signature) {
+		long key = 0l;
+		int length = Math.min(16, signature.length());
+		for (int i = 0; i < length; i++) {
+			key = (key << 4) | (Character.digit(signature.charAt(i), 16) & 0xf);
+		}
+		return key == 0l ? 1l : key;
+	}
+
+	private static final class Segment {
+		private final long[] queueKeys;
+		private final long[] queueTimes;
+		private final long[] table;
+		private final int mask;
+		private int head;
+		private int size;
+		/**
+		 * 因段满而提前淘汰的条目中最晚的timestamp
+		 */
+		private long floor = Long.MIN_VALUE;
+
+		Segment(int capacity) {
+			this.queueKeys = new long[capacity];
+			this.queueTimes = new long[capacity];
+			int tableSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+			this.table = new long[tableSize];
+			this.mask = tableSize - 1;
+		}
+
+		synchronized boolean tryAcquire(long key, long timestamp,
+				long windowStart) {
+			while (size > 0 && queueTimes[head] < windowStart) {
+				poll();
+			}
+			if (timestamp <= floor || contains(key)) {
+				return false;
+			}
+			if (size == queueKeys.length) {
+				floor = Math.max(floor, queueTimes[head]);
+				poll();
+			}
+			int tail = head + size;
+			if (tail >= queueKeys.length) {
+				tail -= queueKeys.length;
+			}
+			queueKeys[tail] = key;
+			queueTimes[tail] = timestamp;
+			size++;
+			insert(key);
+			return true;
+		}
+
+		private void poll() {
+			remove(queueKeys[head]);
+			if (++head == queueKeys.length) {
+				head = 0;
+			}
+			size--;
+		}
+
+		private int index(long key) {
+			long h = key * 0x9E3779B97F4A7C15l;
+			return (int) (h >>> 32) & mask;
+		}
+
+		private boolean contains(long key) {
+			for (int i = index(key);; i = (i + 1) & mask) {
+				if (table[i] == 0l) {
+					return false;
+				}
+				if (table[i] == key) {
+					return true;
+				}
+			}
+		}
+
+		private void insert(long key) {
+			int i = index(key);
+			while (table[i] != 0l) {
+				i = (i + 1) & mask;
+			}
+			table[i] = key;
+		}
+
+		/**
+		 * 线性探测的删除:把后续同一探测链上的条目前移,不留墓碑
+		 */
+		private void remove(long key) {
+			int i = index(key);
+			while (table[i] != key) {
+				if (table[i] == 0l) {
+					return;
+				}
+				i = (i + 1) & mask;
+			}
+			table[i] = 0l;
+			for (int j = (i + 1) & mask; table[j] != 0l; j = (j + 1) & mask) {
+				int k = index(table[j]);
+				// k不在(i,j]之间时,j上的条目可以移到i
+				if (i <= j ? (i < k && k <= j) : (i < k || k <= j)) {
+					continue;
+				}
+				table[i] = table[j];
+				table[j] = 0l;
+				i = j;
+			}
+		}
+	}
+}
@@ -1,8 +1,16 @@
 package com.foxinmy.weixin4j.request;
 
+import io.netty.buffer.ByteBuf;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 
+import com.foxinmy.weixin4j.socket.WeixinMessageTransfer;
 import com.foxinmy.weixin4j.type.EncryptType;
+import com.foxinmy.weixin4j.util.Consts;
+import com.foxinmy.weixin4j.xml.CruxMessage;
+import com.foxinmy.weixin4j.xml.MessageNode;
 
 /**
  * 微信请求
@@ -56,14 +64,53 @@ public class WeixinRequest implements Serializable, Cloneable {
 	 */
 	private String originalContent;
 
+	/**
+	 * xml消息明文主体的字节,首次获取originalContent时再转换为字符串
+	 */
+	private transient ByteBuf originalBuffer;
+
 	/**
 	 * xml消息密文主体(AES时存在)
 	 */
 	private String encryptContent;
 
+	/**
+	 * 解析后的xml消息明文(POST时存在)
+	 */
+	private MessageNode messageNode;
+
+	/**
+	 * 消息的关键信息(POST时存在)
+	 */
+	private CruxMessage cruxMessage;
+
+	/**
+	 * 请求级别的上下文,回复时使用
+	 */
+	private transient WeixinMessageTransfer messageTransfer;
+
 	public WeixinRequest(String method, EncryptType encryptType,
 			String echoStr, String timeStamp, String nonce, String signature,
 			String msgSignature, String originalContent, String encryptContent) {
+		this(method, encryptType, echoStr, timeStamp, nonce, signature,
+				msgSignature, originalContent, encryptContent, null, null);
+	}
+
+	public WeixinRequest(String method, EncryptType encryptType,
+			String echoStr, String timeStamp, String nonce, String signature,
+			String msgSignature, String originalContent,
+			String encryptContent, MessageNode messageNode,
+			CruxMessage cruxMessage) {
+		this(method, encryptType, echoStr, timeStamp, nonce, signature,
+				msgSignature, originalContent, encryptContent, messageNode,
+				cruxMessage, null);
+	}
+
+	public WeixinRequest(String method, EncryptType encryptType,
+			String echoStr, String timeStamp, String nonce, String signature,
+			String msgSignature, String originalContent,
+			String encryptContent, MessageNode messageNode,
+			CruxMessage cruxMessage, WeixinMessageTransfer messageTransfer) {
 		this.method = method;
 		this.encryptType = encryptType;
 		this.echoStr = echoStr;
@@ -73,6 +120,26 @@ public class WeixinRequest implements Serializable, Cloneable {
 		this.msgSignature = msgSignature;
 		this.originalContent = originalContent;
 		this.encryptContent = encryptContent;
+		this.messageNode = messageNode;
+		this.cruxMessage = cruxMessage;
+		this.messageTransfer = messageTransfer;
+	}
+
+	/**
+	 * 
+	 * @param originalBuffer
+	 *            xml消息明文主体的字节,不需要释放的堆内缓冲区;只在调用{@link #getOriginalContent()}
+	 *            时转换为字符串
+	 */
+	public WeixinRequest(String method, EncryptType encryptType,
+			String echoStr, String timeStamp, String nonce, String signature,
+			String msgSignature, ByteBuf originalBuffer,
+			String encryptContent, MessageNode messageNode,
+			CruxMessage cruxMessage, WeixinMessageTransfer messageTransfer) {
+		this(method, encryptType, echoStr, timeStamp, nonce, signature,
+				msgSignature, (String) null, encryptContent, messageNode,
+				cruxMessage, messageTransfer);
+		this.originalBuffer = originalBuffer;
 	}
 
 	public String getMethod() {
@@ -104,6 +171,9 @@ public class WeixinRequest implements Serializable, Cloneable {
 	}
 
 	public String getOriginalContent() {
+		if (originalContent == null && originalBuffer != null) {
+			originalContent = originalBuffer.toString(Consts.UTF_8);
+		}
 		return originalContent;
 	}
 
@@ -111,12 +181,29 @@ public class WeixinRequest implements Serializable, Cloneable {
 		return encryptContent;
 	}
 
+	public MessageNode getMessageNode() {
+		return messageNode;
+	}
+
+	public CruxMessage getCruxMessage() {
+		return cruxMessage;
+	}
+
+	public WeixinMessageTransfer getMessageTransfer() {
+		return messageTransfer;
+	}
+
 	@Override
 	public String toString() {
 		return "WeixinRequest [encryptContent=" + encryptContent
 				+ ", encryptType=" + encryptType + ", echoStr=" + echoStr
 				+ ", timeStamp=" + timeStamp + ", nonce=" + nonce
 				+ ", signature=" + signature + ", originalContent="
-				+ originalContent + ", method=" + method + "]";
+				+ getOriginalContent() + ", method=" + method + "]";
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		getOriginalContent();
+		out.defaultWriteObject();
 	}
 }
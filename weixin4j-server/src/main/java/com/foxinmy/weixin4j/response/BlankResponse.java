@@ -1,5 +1,7 @@
 package com.foxinmy.weixin4j.response;
 
+import com.foxinmy.weixin4j.xml.XmlWriter;
+
 /**
  * 空白回复
  * 
@@ -9,7 +11,7 @@ package com.foxinmy.weixin4j.response;
  * @since JDK 1.7
  * @see
  */
-public class BlankResponse implements WeixinResponse {
+public class BlankResponse implements WritableResponse {
 
 	public static final BlankResponse global = new BlankResponse();
 
@@ -17,6 +19,11 @@ public class BlankResponse implements WeixinResponse {
 		
 	}
 	
+	@Override
+	public void writeTo(XmlWriter writer) {
+		writer.raw(toContent());
+	}
+
 	@Override
 	public String getMsgType() {
 		return "blank";
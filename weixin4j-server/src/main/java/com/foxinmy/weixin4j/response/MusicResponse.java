@@ -1,5 +1,7 @@
 package com.foxinmy.weixin4j.response;
 
+import com.foxinmy.weixin4j.xml.XmlWriter;
+
 /**
  * 回复音乐消息
  * 
@@ -9,7 +11,7 @@ package com.foxinmy.weixin4j.response;
  * @since JDK 1.7
  * @see
  */
-public class MusicResponse implements WeixinResponse {
+public class MusicResponse implements WritableResponse {
 
 	/**
 	 * 缩略图的媒体id，通过上传多媒体文件，得到的id
@@ -91,6 +93,16 @@ public class MusicResponse implements WeixinResponse {
 		this.desc = desc;
 	}
 
+	@Override
+	public void writeTo(XmlWriter writer) {
+		writer.startElement("Music")
+				.cdataElement("ThumbMediaId", thumbMediaId)
+				.cdataElement("Title", title)
+				.cdataElement("Description", desc)
+				.cdataElement("MusicUrl", musicUrl)
+				.cdataElement("HQMusicUrl", hqMusicUrl).endElement("Music");
+	}
+
 	@Override
 	public String getMsgType() {
 		return "music";
@@ -3,6 +3,8 @@ package com.foxinmy.weixin4j.response;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.foxinmy.weixin4j.xml.XmlWriter;
+
 /**
  * 回复图文消息
  * 
@@ -12,7 +14,7 @@ import java.util.List;
  * @since JDK 1.7
  * @see
  */
-public class NewsResponse implements WeixinResponse {
+public class NewsResponse implements WritableResponse {
 
 	/**
 	 * 图文集合
@@ -75,6 +77,21 @@ public class NewsResponse implements WeixinResponse {
 		return content.toString();
 	}
 
+	@Override
+	public void writeTo(XmlWriter writer) {
+		writer.element("ArticleCount", articleList.size());
+		writer.startElement("Articles");
+		for (Article article : articleList) {
+			writer.startElement("item")
+					.cdataElement("Title", article.getTitle())
+					.cdataElement("Description", article.getDesc())
+					.cdataElement("Url", article.getUrl())
+					.cdataElement("PicUrl", article.getPicUrl())
+					.endElement("item");
+		}
+		writer.endElement("Articles");
+	}
+
 	@Override
 	public String getMsgType() {
 		return "news";
@@ -1,5 +1,7 @@
 package com.foxinmy.weixin4j.response;
 
+import com.foxinmy.weixin4j.xml.XmlWriter;
+
 /**
  * 回复文本消息
  * 
@@ -9,7 +11,7 @@ package com.foxinmy.weixin4j.response;
  * @since JDK 1.7
  * @see
  */
-public class TextResponse implements WeixinResponse {
+public class TextResponse implements WritableResponse {
 
 	/**
 	 * 回复的消息内容（换行：在content中能够换行，微信客户端就支持换行显示）
@@ -25,6 +27,11 @@ public class TextResponse implements WeixinResponse {
 		return String.format("<Content><![CDATA[%s]]></Content>", content);
 	}
 
+	@Override
+	public void writeTo(XmlWriter writer) {
+		writer.cdataElement("Content", content);
+	}
+
 	@Override
 	public String getMsgType() {
 		return "text";
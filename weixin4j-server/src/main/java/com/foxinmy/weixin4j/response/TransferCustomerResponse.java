@@ -1,5 +1,7 @@
 package com.foxinmy.weixin4j.response;
 
+import com.foxinmy.weixin4j.xml.XmlWriter;
+
 /**
  * 消息转移到客服
  * 
@@ -10,7 +12,7 @@ package com.foxinmy.weixin4j.response;
  * @see <a
  *      href="http://mp.weixin.qq.com/wiki/5/ae230189c9bd07a6b221f48619aeef35.html">转移消息到多客服</a>
  */
-public class TransferCustomerResponse implements WeixinResponse {
+public class TransferCustomerResponse implements WritableResponse {
 
 	/**
 	 * 指定会话接入的客服账号
@@ -36,6 +38,15 @@ public class TransferCustomerResponse implements WeixinResponse {
 		return content;
 	}
 
+	@Override
+	public void writeTo(XmlWriter writer) {
+		if (kfAccount != null && !kfAccount.trim().isEmpty()) {
+			writer.startElement("TransInfo")
+					.cdataElement("KfAccount", kfAccount)
+					.endElement("TransInfo");
+		}
+	}
+
 	@Override
 	public String getMsgType() {
 		return "transfer_customer_service";
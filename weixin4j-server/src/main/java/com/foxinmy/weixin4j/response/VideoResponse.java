@@ -1,5 +1,7 @@
 package com.foxinmy.weixin4j.response;
 
+import com.foxinmy.weixin4j.xml.XmlWriter;
+
 /**
  * 回复视频消息
  * 
@@ -9,7 +11,7 @@ package com.foxinmy.weixin4j.response;
  * @since JDK 1.7
  * @see
  */
-public class VideoResponse implements WeixinResponse {
+public class VideoResponse implements WritableResponse {
 
 	/**
 	 * 通过上传多媒体文件，得到的id
@@ -69,6 +71,13 @@ public class VideoResponse implements WeixinResponse {
 		this.desc = desc;
 	}
 
+	@Override
+	public void writeTo(XmlWriter writer) {
+		writer.startElement("Video").cdataElement("MediaId", mediaId)
+				.cdataElement("Title", title)
+				.cdataElement("Description", desc).endElement("Video");
+	}
+
 	@Override
 	public String getMsgType() {
 		return "video";
@@ -1,5 +1,7 @@
 package com.foxinmy.weixin4j.response;
 
+import com.foxinmy.weixin4j.xml.XmlWriter;
+
 /**
  * 回复语音消息
  * 
@@ -9,7 +11,7 @@ package com.foxinmy.weixin4j.response;
  * @since JDK 1.7
  * @see
  */
-public class VoiceResponse implements WeixinResponse {
+public class VoiceResponse implements WritableResponse {
 
 	/**
 	 * 通过上传多媒体文件，得到的id
@@ -30,6 +32,12 @@ public class VoiceResponse implements WeixinResponse {
 		return mediaId;
 	}
 
+	@Override
+	public void writeTo(XmlWriter writer) {
+		writer.startElement("Voice").cdataElement("MediaId", mediaId)
+				.endElement("Voice");
+	}
+
 	@Override
 	public String getMsgType() {
 		return "voice";
@@ -0,0 +1,27 @@
+package com.foxinmy.weixin4j.response;
+
+import com.foxinmy.weixin4j.xml.XmlWriter;
+
+/**
+ * 可以直接写入字节缓冲区的被动消息回复
+ * <p>
+ * 回复编码时优先调用{@link #writeTo(XmlWriter)},写入的内容须与{@link #toContent()}一致;
+ * 未实现此接口的回复仍然使用toContent
+ * </p>
+ * 
+ * @className WritableResponse
+ * @author jy
+ * @date 2015年6月28日
+ * @since JDK 1.7
+ * @see com.foxinmy.weixin4j.socket.WeixinResponseWriter
+ */
+public interface WritableResponse extends WeixinResponse {
+
+	/**
+	 * 写入消息内容
+	 * 
+	 * @param writer
+	 *            xml输出
+	 */
+	public void writeTo(XmlWriter writer);
+}
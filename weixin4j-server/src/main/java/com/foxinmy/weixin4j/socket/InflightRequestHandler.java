@@ -0,0 +1,80 @@
+package com.foxinmy.weixin4j.socket;
+
+import static io.netty.handler.codec.http.HttpHeaders.Names.CONNECTION;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.HttpHeaders.Values;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+
+/**
+ * 统计连接上尚未回复的请求:读到请求头时加一,最终响应写出后减一,连接关闭时清零;
+ * 服务停止期间的回复会关闭连接,避免keep-alive连接带进新的请求
+ * 
+ * @className InflightRequestHandler
+ * @author jy
+ * @date 2015年7月2日
+ * @since JDK 1.7
+ * @see InflightRequests
+ */
+public class InflightRequestHandler extends ChannelDuplexHandler {
+
+	private final InflightRequests inflightRequests;
+	/**
+	 * 本连接上尚未回复的请求数,只在I/O线程中访问
+	 */
+	private int pending;
+
+	public InflightRequestHandler(InflightRequests inflightRequests) {
+		this.inflightRequests = inflightRequests;
+	}
+
+	@Override
+	public void channelRead(ChannelHandlerContext ctx, Object msg)
+			throws Exception {
+		if (msg instanceof HttpRequest) {
+			pending++;
+			inflightRequests.increment();
+		}
+		ctx.fireChannelRead(msg);
+	}
+
+	@Override
+	public void write(final ChannelHandlerContext ctx, Object msg,
+			ChannelPromise promise) throws Exception {
+		// 100-continue之类的临时响应不算回复
+		if (msg instanceof HttpResponse
+				&& ((HttpResponse) msg).getStatus().code() >= 200
+				&& pending > 0) {
+			final boolean draining = inflightRequests.isDraining();
+			if (draining) {
+				((HttpResponse) msg).headers().set(CONNECTION, Values.CLOSE);
+			}
+			promise.addListener(new ChannelFutureListener() {
+				@Override
+				public void operationComplete(ChannelFuture future) {
+					if (pending > 0) {
+						pending--;
+						inflightRequests.decrement(1);
+					}
+					if (draining && pending == 0) {
+						ctx.close();
+					}
+				}
+			});
+		}
+		ctx.write(msg, promise);
+	}
+
+	@Override
+	public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+		if (pending > 0) {
+			inflightRequests.decrement(pending);
+			pending = 0;
+		}
+		ctx.fireChannelInactive();
+	}
+}
@@ -0,0 +1,72 @@
+package com.foxinmy.weixin4j.socket;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务中尚未回复的请求数,停止服务时据此等待处理中的请求完成
+ * 
+ * @className InflightRequests
+ * @author jy
+ * @date 2015年7月2日
+ * @since JDK 1.7
+ * @see InflightRequestHandler
+ */
+public class InflightRequests {
+
+	private int count;
+	private volatile boolean draining;
+
+	synchronized void increment() {
+		count++;
+	}
+
+	synchronized void decrement(int delta) {
+		count -= delta;
+		if (count <= 0) {
+			count = 0;
+			notifyAll();
+		}
+	}
+
+	/**
+	 * 尚未回复的请求数
+	 * 
+	 * @return
+	 */
+	public synchronized int get() {
+		return count;
+	}
+
+	/**
+	 * 是否正在停止:此后的回复都带上Connection: close并在回复后关闭连接
+	 * 
+	 * @return
+	 */
+	public boolean isDraining() {
+		return draining;
+	}
+
+	/**
+	 * 进入停止状态并等待尚未回复的请求完成
+	 * 
+	 * @param timeout
+	 *            最长等待时间
+	 * @param unit
+	 *            时间单位
+	 * @return 是否在超时前全部完成
+	 * @throws InterruptedException
+	 */
+	public synchronized boolean drain(long timeout, TimeUnit unit)
+			throws InterruptedException {
+		draining = true;
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (count > 0) {
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				return false;
+			}
+			TimeUnit.NANOSECONDS.timedWait(this, remaining);
+		}
+		return true;
+	}
+}
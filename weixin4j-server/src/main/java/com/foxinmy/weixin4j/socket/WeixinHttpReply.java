@@ -0,0 +1,41 @@
+package com.foxinmy.weixin4j.socket;
+
+import io.netty.handler.codec.http.HttpResponse;
+
+/**
+ * 写入pipeline的HTTP响应:签名校验失败、未匹配到handler等直接回复的响应与其所属请求的上下文
+ * <p>
+ * 与{@link WeixinMessageReply}一样按请求的顺序写出,写出之后关闭连接
+ * </p>
+ *
+ * @className WeixinHttpReply
+ * @author jy
+ * @date 2015年6月30日
+ * @since JDK 1.7
+ * @see WeixinReplySequencer
+ */
+public class WeixinHttpReply {
+
+	private final WeixinMessageTransfer messageTransfer;
+	private final HttpResponse response;
+
+	public WeixinHttpReply(WeixinMessageTransfer messageTransfer,
+			HttpResponse response) {
+		this.messageTransfer = messageTransfer;
+		this.response = response;
+	}
+
+	public WeixinMessageTransfer getMessageTransfer() {
+		return messageTransfer;
+	}
+
+	public HttpResponse getResponse() {
+		return response;
+	}
+
+	@Override
+	public String toString() {
+		return "WeixinHttpReply [messageTransfer=" + messageTransfer
+				+ ", response=" + response + "]";
+	}
+}
@@ -1,23 +1,30 @@
 package com.foxinmy.weixin4j.socket;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToMessageDecoder;
 import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.QueryStringDecoder;
-import io.netty.util.internal.logging.InternalLogger;
-import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import java.util.List;
 import java.util.Map;
 
+import com.foxinmy.weixin4j.dispatcher.MessageKey;
 import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.metrics.MetricsStage;
+import com.foxinmy.weixin4j.metrics.WeixinMetrics;
 import com.foxinmy.weixin4j.request.WeixinRequest;
+import com.foxinmy.weixin4j.tenant.WeixinTenant;
+import com.foxinmy.weixin4j.tenant.WeixinTenantRouter;
 import com.foxinmy.weixin4j.type.EncryptType;
 import com.foxinmy.weixin4j.util.AesToken;
-import com.foxinmy.weixin4j.util.Consts;
-import com.foxinmy.weixin4j.util.MessageUtil;
 import com.foxinmy.weixin4j.util.StringUtil;
-import com.foxinmy.weixin4j.xml.EncryptMessageHandler;
+import com.foxinmy.weixin4j.xml.CruxMessage;
+import com.foxinmy.weixin4j.xml.CruxMessageReader;
+import com.foxinmy.weixin4j.xml.MessageNode;
+import com.foxinmy.weixin4j.xml.MessageNodeReader;
 
 /**
  * 微信消息解码类
@@ -32,23 +39,40 @@ import com.foxinmy.weixin4j.xml.EncryptMessageHandler;
  */
 public class WeixinMessageDecoder extends
 		MessageToMessageDecoder<FullHttpRequest> {
-	private final InternalLogger logger = InternalLoggerFactory
-			.getInstance(getClass());
+	private final WeixinTenantRouter tenantRouter;
+	/**
+	 * 为null时不统计
+	 */
+	private final WeixinMetrics metrics;
+	/**
+	 * 连接上下一个请求的序号,解码器与连接一一对应
+	 */
+	private int sequence;
 
-	private AesToken aesToken;
+	public WeixinMessageDecoder(WeixinTenantRouter tenantRouter) {
+		this(tenantRouter, null);
+	}
 
-	public WeixinMessageDecoder(AesToken aesToken) {
-		this.aesToken = aesToken;
+	/**
+	 * 
+	 * @param tenantRouter
+	 *            公众号路由
+	 * @param metrics
+	 *            统计,为null时不统计
+	 */
+	public WeixinMessageDecoder(WeixinTenantRouter tenantRouter,
+			WeixinMetrics metrics) {
+		this.tenantRouter = tenantRouter;
+		this.metrics = metrics;
 	}
 
 	@Override
 	protected void decode(ChannelHandlerContext ctx, FullHttpRequest req,
 			List<Object> out) throws WeixinException {
-		String content = req.content().toString(Consts.UTF_8);
+		long startNanos = metrics != null ? System.nanoTime() : 0l;
+		long decryptNanos = 0l;
 		QueryStringDecoder queryDecoder = new QueryStringDecoder(req.getUri(),
 				true);
-		logger.info("decode request:{} use {} method invoking", req.getUri(),
-				req.getMethod().name());
 		Map<String, List<String>> parameters = queryDecoder.parameters();
 		EncryptType encryptType = parameters.containsKey("encrypt_type") ? EncryptType
 				.valueOf(parameters.get("encrypt_type").get(0).toUpperCase())
@@ -63,22 +87,84 @@ public class WeixinMessageDecoder extends
 				.get("signature").get(0) : "";
 		String msgSignature = parameters.containsKey("msg_signature") ? parameters
 				.get("msg_signature").get(0) : "";
-		String originalContent = content;
+		ByteBuf content = req.content();
+		ByteBuf originalBuffer = Unpooled.EMPTY_BUFFER;
 		String encryptContent = null;
-		if (!content.isEmpty()) {
+		MessageNode messageNode = null;
+		CruxMessage cruxMessage = null;
+		// 先按路径路由,未匹配时再按消息的ToUserName路由
+		WeixinTenant tenant = tenantRouter.routePath(queryDecoder.path());
+		if (content.isReadable()) {
 			if (encryptType == EncryptType.AES) {
-				if (StringUtil.isBlank(aesToken.getAesKey())
-						|| StringUtil.isBlank(aesToken.getAppid())) {
-					throw new WeixinException(
-							"AESEncodingKey or AppId not be null in AES mode");
+				// 密文消息外层的ToUserName是明文
+				CruxMessage encryptMessage = CruxMessageReader.read(content);
+				if (tenant == null) {
+					tenant = tenantRouter.routeUserName(encryptMessage
+							.getToUserName());
+				}
+				encryptContent = encryptMessage.getEncryptContent();
+				if (StringUtil.isBlank(encryptContent)) {
+					// 没有Encrypt节点:不解密,由WeixinRequestHandler回复403
+					encryptContent = null;
+				} else {
+					AesToken aesToken = tenant.getAesToken();
+					if (StringUtil.isBlank(aesToken.getAesKey())
+							|| StringUtil.isBlank(aesToken.getAppid())) {
+						throw new WeixinException(
+								"AESEncodingKey or AppId not be null in AES mode");
+					}
+					long decryptStart = metrics != null ? System.nanoTime()
+							: 0l;
+					ByteBuf original = aesToken.getCrypto().decrypt(
+							encryptContent);
+					if (metrics != null) {
+						decryptNanos = System.nanoTime() - decryptStart;
+					}
+					originalBuffer = original;
+					messageNode = MessageNodeReader.read(original.duplicate());
 				}
-				encryptContent = EncryptMessageHandler.parser(content);
-				originalContent = MessageUtil.aesDecrypt(aesToken.getAppid(),
-						aesToken.getAesKey(), encryptContent);
+			} else {
+				// 请求的缓冲区在解码后释放,复制字节而不是转换为字符串
+				originalBuffer = Unpooled.copiedBuffer(content);
+				messageNode = MessageNodeReader.read(content);
+			}
+			// 路由信息与消息对象都取自同一次解析的结果
+			if (messageNode != null) {
+				cruxMessage = CruxMessageReader.read(messageNode);
 			}
 		}
+		if (tenant == null) {
+			tenant = tenantRouter.routeUserName(cruxMessage != null ? cruxMessage
+					.getToUserName() : null);
+		}
+		MessageKey messageKey = cruxMessage != null ? new MessageKey(
+				cruxMessage.getMsgType(), cruxMessage.getEventType(),
+				cruxMessage.getAccountType()) : null;
+		WeixinMessageTransfer messageTransfer = new WeixinMessageTransfer(
+				tenant, sequence++, HttpHeaders.isKeepAlive(req), encryptType,
+				cruxMessage != null ? cruxMessage.getFromUserName() : null,
+				accountOpenId(tenant, cruxMessage), messageKey);
+		if (metrics != null) {
+			if (encryptType == EncryptType.AES && content.isReadable()) {
+				metrics.recordStage(MetricsStage.DECRYPT, messageKey,
+						decryptNanos);
+			}
+			metrics.recordStage(MetricsStage.DECODE, messageKey,
+					System.nanoTime() - startNanos - decryptNanos);
+		}
 		out.add(new WeixinRequest(req.getMethod().name(), encryptType, echoStr,
-				timeStamp, nonce, signature, msgSignature, originalContent,
-				encryptContent));
+				timeStamp, nonce, signature, msgSignature, originalBuffer,
+				encryptContent, messageNode, cruxMessage, messageTransfer));
+	}
+
+	/**
+	 * 回复消息的FromUserName:配置了appid时取appid,否则取消息的ToUserName
+	 */
+	private String accountOpenId(WeixinTenant tenant, CruxMessage cruxMessage) {
+		String appid = tenant.getAesToken().getAppid();
+		if (!StringUtil.isBlank(appid)) {
+			return appid;
+		}
+		return cruxMessage != null ? cruxMessage.getToUserName() : null;
 	}
 }
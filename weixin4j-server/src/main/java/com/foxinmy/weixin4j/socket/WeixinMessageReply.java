@@ -0,0 +1,38 @@
+package com.foxinmy.weixin4j.socket;
+
+import com.foxinmy.weixin4j.response.WeixinResponse;
+
+/**
+ * 写入pipeline的回复:被动消息与其所属请求的上下文
+ * 
+ * @className WeixinMessageReply
+ * @author jy
+ * @date 2015年6月30日
+ * @since JDK 1.7
+ * @see WeixinResponseEncoder
+ */
+public class WeixinMessageReply {
+
+	private final WeixinMessageTransfer messageTransfer;
+	private final WeixinResponse response;
+
+	public WeixinMessageReply(WeixinMessageTransfer messageTransfer,
+			WeixinResponse response) {
+		this.messageTransfer = messageTransfer;
+		this.response = response;
+	}
+
+	public WeixinMessageTransfer getMessageTransfer() {
+		return messageTransfer;
+	}
+
+	public WeixinResponse getResponse() {
+		return response;
+	}
+
+	@Override
+	public String toString() {
+		return "WeixinMessageReply [messageTransfer=" + messageTransfer
+				+ ", response=" + response + "]";
+	}
+}
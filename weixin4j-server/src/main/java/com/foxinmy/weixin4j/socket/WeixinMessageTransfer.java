@@ -0,0 +1,113 @@
+package com.foxinmy.weixin4j.socket;
+
+import com.foxinmy.weixin4j.dispatcher.MessageKey;
+import com.foxinmy.weixin4j.tenant.WeixinTenant;
+import com.foxinmy.weixin4j.type.EncryptType;
+
+/**
+ * 请求级别的上下文:回复消息所需的加密方式、双方的openid等随请求传递,而不是存放在channel的属性中;
+ * 同一个keep-alive连接上的多个请求各自持有自己的上下文,异步回复时不会互相覆盖
+ * 
+ * @className WeixinMessageTransfer
+ * @author jy
+ * @date 2015年6月30日
+ * @since JDK 1.7
+ * @see WeixinMessageReply
+ * @see WeixinReplySequencer
+ */
+public class WeixinMessageTransfer {
+
+	/**
+	 * 请求所属的公众号
+	 */
+	private final WeixinTenant tenant;
+	/**
+	 * 请求在连接上的序号,从0开始
+	 */
+	private final int sequence;
+	/**
+	 * 回复之后是否保持连接
+	 */
+	private final boolean keepAlive;
+	/**
+	 * 加密类型
+	 */
+	private final EncryptType encryptType;
+	/**
+	 * 用户的openid,即回复消息的ToUserName
+	 */
+	private final String userOpenId;
+	/**
+	 * 公众号的原始ID或appid,即回复消息的FromUserName
+	 */
+	private final String accountOpenId;
+	/**
+	 * 消息的key,消息体为空时为null
+	 */
+	private final MessageKey messageKey;
+	/**
+	 * 解码完成的时间(System.nanoTime),用于访问日志中的耗时
+	 */
+	private final long createNanos;
+
+	public WeixinMessageTransfer(WeixinTenant tenant, int sequence,
+			boolean keepAlive, EncryptType encryptType, String userOpenId,
+			String accountOpenId) {
+		this(tenant, sequence, keepAlive, encryptType, userOpenId,
+				accountOpenId, null);
+	}
+
+	public WeixinMessageTransfer(WeixinTenant tenant, int sequence,
+			boolean keepAlive, EncryptType encryptType, String userOpenId,
+			String accountOpenId, MessageKey messageKey) {
+		this.tenant = tenant;
+		this.sequence = sequence;
+		this.keepAlive = keepAlive;
+		this.encryptType = encryptType;
+		this.userOpenId = userOpenId;
+		this.accountOpenId = accountOpenId;
+		this.messageKey = messageKey;
+		this.createNanos = System.nanoTime();
+	}
+
+	public WeixinTenant getTenant() {
+		return tenant;
+	}
+
+	public int getSequence() {
+		return sequence;
+	}
+
+	public boolean isKeepAlive() {
+		return keepAlive;
+	}
+
+	public EncryptType getEncryptType() {
+		return encryptType;
+	}
+
+	public String getUserOpenId() {
+		return userOpenId;
+	}
+
+	public String getAccountOpenId() {
+		return accountOpenId;
+	}
+
+	public MessageKey getMessageKey() {
+		return messageKey;
+	}
+
+	public long getCreateNanos() {
+		return createNanos;
+	}
+
+	@Override
+	public String toString() {
+		return "WeixinMessageTransfer [tenant=" + tenant + ", sequence="
+				+ sequence + ", keepAlive=" + keepAlive + ", encryptType="
+				+ encryptType + ", userOpenId=" + userOpenId
+				+ ", accountOpenId=" + accountOpenId + ", messageKey="
+				+ messageKey + "]";
+	}
+}
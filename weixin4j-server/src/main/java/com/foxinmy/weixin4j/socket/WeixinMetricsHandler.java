@@ -0,0 +1,108 @@
+package com.foxinmy.weixin4j.socket;
+
+import static io.netty.handler.codec.http.HttpHeaders.Names.CONNECTION;
+import static io.netty.handler.codec.http.HttpResponseStatus.NOT_FOUND;
+import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaders.Values;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.util.ReferenceCountUtil;
+
+import java.util.List;
+
+import com.foxinmy.weixin4j.metrics.MetricsFormat;
+import com.foxinmy.weixin4j.metrics.WeixinMetrics;
+import com.foxinmy.weixin4j.util.Consts;
+import com.foxinmy.weixin4j.util.HttpUtil;
+
+/**
+ * 统计端点:与回调共用端口,GET请求的路径等于统计路径时直接返回统计结果,不经过签名校验与消息处理;
+ * 默认输出纯文本,带上format=json参数时输出JSON,回复后关闭连接
+ * <p>
+ * 统计路径不做鉴权,不应暴露在公网上
+ * </p>
+ *
+ * @className WeixinMetricsHandler
+ * @author jy
+ * @date 2015年7月6日
+ * @since JDK 1.7
+ * @see com.foxinmy.weixin4j.metrics.WeixinMetrics
+ * @see WeixinServerInitializer
+ */
+public class WeixinMetricsHandler extends ChannelInboundHandlerAdapter {
+
+	private final WeixinMetrics metrics;
+	private final String metricsPath;
+	private final InflightRequests inflightRequests;
+	/**
+	 * 统计请求剩余的请求体需要丢弃
+	 */
+	private boolean discarding;
+
+	/**
+	 *
+	 * @param metrics
+	 *            统计
+	 * @param metricsPath
+	 *            统计路径,如/metrics
+	 * @param inflightRequests
+	 *            处理中的请求计数
+	 */
+	public WeixinMetricsHandler(WeixinMetrics metrics, String metricsPath,
+			InflightRequests inflightRequests) {
+		this.metrics = metrics;
+		this.metricsPath = metricsPath;
+		this.inflightRequests = inflightRequests;
+	}
+
+	@Override
+	public void channelRead(ChannelHandlerContext ctx, Object msg)
+			throws Exception {
+		if (msg instanceof HttpRequest) {
+			HttpRequest req = (HttpRequest) msg;
+			QueryStringDecoder queryDecoder = new QueryStringDecoder(
+					req.getUri());
+			if (req.getMethod().equals(HttpMethod.GET)
+					&& metricsPath.equals(queryDecoder.path())) {
+				ReferenceCountUtil.release(msg);
+				discarding = !(msg instanceof LastHttpContent);
+				report(ctx, queryDecoder);
+				return;
+			}
+			discarding = false;
+		} else if (discarding && msg instanceof HttpContent) {
+			ReferenceCountUtil.release(msg);
+			if (msg instanceof LastHttpContent) {
+				discarding = false;
+			}
+			return;
+		}
+		ctx.fireChannelRead(msg);
+	}
+
+	private void report(ChannelHandlerContext ctx,
+			QueryStringDecoder queryDecoder) {
+		List<String> format = queryDecoder.parameters().get("format");
+		boolean json = format != null && "json".equalsIgnoreCase(format.get(0));
+		String content = metrics.report(json ? MetricsFormat.JSON
+				: MetricsFormat.TEXT, inflightRequests.get());
+		HttpResponse response;
+		if (content == null) {
+			response = HttpUtil.createHttpResponse(null, NOT_FOUND, null);
+		} else {
+			response = HttpUtil.createHttpResponse(content, OK,
+					json ? Consts.CONTENTTYPE$APPLICATION_JSON
+							: Consts.CONTENTTYPE$TEXT_PLAIN);
+		}
+		// 不与同一连接上的回调请求排队,回复后直接关闭
+		response.headers().set(CONNECTION, Values.CLOSE);
+		ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+	}
+}
@@ -0,0 +1,161 @@
+package com.foxinmy.weixin4j.socket;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.foxinmy.weixin4j.request.WeixinRequest;
+import com.foxinmy.weixin4j.response.WeixinResponse;
+
+/**
+ * 按请求的顺序写出回复
+ * <p>
+ * HTTP/1.1要求同一连接上的响应与请求顺序一致,而分发线程池与异步handler可能让后到的请求先完成;
+ * 先完成的回复在此等待,直到前面的请求都已回复。不保持连接的请求在回复之后关闭连接
+ * </p>
+ * <p>
+ * 签名校验失败、未匹配到handler等直接回复的{@link WeixinHttpReply}同样按顺序写出,写出之后关闭连接
+ * </p>
+ * <p>
+ * 拦截器等用户代码直接写入的{@link WeixinResponse}没有携带请求的上下文,
+ * 使用本连接上最早一个尚未回复的请求的{@link WeixinMessageTransfer}作为它的上下文
+ * </p>
+ * 
+ * @className WeixinReplySequencer
+ * @author jy
+ * @date 2015年6月30日
+ * @since JDK 1.7
+ * @see WeixinMessageTransfer#getSequence()
+ * @see WeixinMessageReply
+ * @see WeixinHttpReply
+ */
+public class WeixinReplySequencer extends ChannelDuplexHandler {
+
+	private final InternalLogger logger = InternalLoggerFactory
+			.getInstance(getClass());
+
+	private int nextSequence;
+	private final Map<Integer, PendingReply> pendingReplies = new HashMap<Integer, PendingReply>();
+	/**
+	 * 已读到但尚未写出回复的请求,按请求的顺序
+	 */
+	private final Deque<WeixinMessageTransfer> inflightTransfers = new ArrayDeque<WeixinMessageTransfer>();
+
+	@Override
+	public void channelRead(ChannelHandlerContext ctx, Object msg)
+			throws Exception {
+		if (msg instanceof WeixinRequest) {
+			inflightTransfers.add(((WeixinRequest) msg).getMessageTransfer());
+		}
+		ctx.fireChannelRead(msg);
+	}
+
+	@Override
+	public void write(ChannelHandlerContext ctx, Object msg,
+			ChannelPromise promise) throws Exception {
+		if (msg instanceof WeixinResponse) {
+			WeixinMessageTransfer messageTransfer = unrepliedTransfer();
+			if (messageTransfer == null) {
+				logger.warn("no request waiting for the reply:{}", msg);
+				promise.tryFailure(new IllegalStateException(
+						"no request waiting for the reply"));
+				return;
+			}
+			msg = new WeixinMessageReply(messageTransfer, (WeixinResponse) msg);
+		}
+		WeixinMessageTransfer messageTransfer;
+		if (msg instanceof WeixinMessageReply) {
+			messageTransfer = ((WeixinMessageReply) msg).getMessageTransfer();
+		} else if (msg instanceof WeixinHttpReply) {
+			messageTransfer = ((WeixinHttpReply) msg).getMessageTransfer();
+		} else {
+			ctx.write(msg, promise);
+			return;
+		}
+		int sequence = messageTransfer.getSequence();
+		if (sequence != nextSequence) {
+			pendingReplies.put(sequence, new PendingReply(messageTransfer,
+					msg, promise));
+			return;
+		}
+		writeReply(ctx, messageTransfer, msg, promise);
+		if (!pendingReplies.isEmpty()) {
+			PendingReply pending;
+			while ((pending = pendingReplies.remove(nextSequence)) != null) {
+				writeReply(ctx, pending.messageTransfer, pending.reply,
+						pending.promise);
+			}
+			ctx.flush();
+		}
+	}
+
+	/**
+	 * 最早一个还没有收到回复的请求
+	 */
+	private WeixinMessageTransfer unrepliedTransfer() {
+		for (WeixinMessageTransfer messageTransfer : inflightTransfers) {
+			int sequence = messageTransfer.getSequence();
+			if (sequence >= nextSequence
+					&& !pendingReplies.containsKey(sequence)) {
+				return messageTransfer;
+			}
+		}
+		return null;
+	}
+
+	private void writeReply(ChannelHandlerContext ctx,
+			WeixinMessageTransfer messageTransfer, Object reply,
+			ChannelPromise promise) {
+		nextSequence++;
+		inflightTransfers.remove(messageTransfer);
+		if (reply instanceof WeixinHttpReply) {
+			ctx.write(((WeixinHttpReply) reply).getResponse(), promise);
+			promise.addListener(ChannelFutureListener.CLOSE);
+			return;
+		}
+		ctx.write(reply, promise);
+		if (!messageTransfer.isKeepAlive()) {
+			promise.addListener(ChannelFutureListener.CLOSE);
+		}
+	}
+
+	@Override
+	public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+		if (!pendingReplies.isEmpty()) {
+			ClosedChannelException cause = new ClosedChannelException();
+			for (PendingReply pending : pendingReplies.values()) {
+				if (pending.reply instanceof WeixinHttpReply) {
+					ReferenceCountUtil
+							.release(((WeixinHttpReply) pending.reply)
+									.getResponse());
+				}
+				pending.promise.tryFailure(cause);
+			}
+			pendingReplies.clear();
+		}
+		inflightTransfers.clear();
+	}
+
+	private static class PendingReply {
+		private final WeixinMessageTransfer messageTransfer;
+		private final Object reply;
+		private final ChannelPromise promise;
+
+		PendingReply(WeixinMessageTransfer messageTransfer, Object reply,
+				ChannelPromise promise) {
+			this.messageTransfer = messageTransfer;
+			this.reply = reply;
+			this.promise = promise;
+		}
+	}
+}
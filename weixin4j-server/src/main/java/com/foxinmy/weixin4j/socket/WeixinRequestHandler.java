@@ -1,25 +1,25 @@
 package com.foxinmy.weixin4j.socket;
 
+import static io.netty.handler.codec.http.HttpResponseStatus.BAD_REQUEST;
 import static io.netty.handler.codec.http.HttpResponseStatus.FORBIDDEN;
 import static io.netty.handler.codec.http.HttpResponseStatus.METHOD_NOT_ALLOWED;
 import static io.netty.handler.codec.http.HttpResponseStatus.OK;
-import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import com.foxinmy.weixin4j.dispatcher.WeixinMessageDispatcher;
 import com.foxinmy.weixin4j.exception.WeixinException;
 import com.foxinmy.weixin4j.request.WeixinRequest;
+import com.foxinmy.weixin4j.tenant.WeixinTenant;
 import com.foxinmy.weixin4j.type.EncryptType;
-import com.foxinmy.weixin4j.util.AesToken;
 import com.foxinmy.weixin4j.util.Consts;
 import com.foxinmy.weixin4j.util.HttpUtil;
-import com.foxinmy.weixin4j.util.MessageUtil;
-import com.foxinmy.weixin4j.util.StringUtil;
-import com.foxinmy.weixin4j.xml.CruxMessageHandler;
+import com.foxinmy.weixin4j.util.SignatureVerifier;
+import com.foxinmy.weixin4j.xml.CruxMessage;
 
 /**
  * 微信请求处理类
@@ -34,14 +34,6 @@ public class WeixinRequestHandler extends
 		SimpleChannelInboundHandler<WeixinRequest> {
 	private final InternalLogger logger = InternalLoggerFactory
 			.getInstance(getClass());
-	private final AesToken aesToken;
-	private final WeixinMessageDispatcher messageDispatcher;
-
-	public WeixinRequestHandler(AesToken aesToken,
-			WeixinMessageDispatcher messageDispatcher) throws WeixinException {
-		this.aesToken = aesToken;
-		this.messageDispatcher = messageDispatcher;
-	}
 
 	public void channelReadComplete(ChannelHandlerContext ctx) {
 		ctx.flush();
@@ -56,56 +48,61 @@ public class WeixinRequestHandler extends
 	@Override
 	protected void channelRead0(ChannelHandlerContext ctx, WeixinRequest request)
 			throws WeixinException {
+		// 令牌与分发器取自解码时路由到的公众号
+		WeixinTenant tenant = request.getMessageTransfer().getTenant();
+		WeixinMessageDispatcher messageDispatcher = tenant
+				.getMessageDispatcher();
+		// 签名校验计入分发阶段的耗时
+		long startNanos = messageDispatcher.getMetrics() != null ? System
+				.nanoTime() : 0l;
+		SignatureVerifier verifier = tenant.getAesToken().getVerifier();
 		if (request.getMethod().equals(HttpMethod.GET.name())) {
-			if (MessageUtil.signature(aesToken.getToken(),
-					request.getTimeStamp(), request.getNonce()).equals(
-					request.getSignature())) {
-				ctx.writeAndFlush(
-						HttpUtil.createHttpResponse(request.getEchoStr(), OK,
-								Consts.CONTENTTYPE$TEXT_PLAIN)).addListener(
-						ChannelFutureListener.CLOSE);
+			if (verifier.verify(request.getSignature(), request.getTimeStamp(),
+					request.getNonce())) {
+				reply(ctx, request, HttpUtil.createHttpResponse(
+						request.getEchoStr(), OK, Consts.CONTENTTYPE$TEXT_PLAIN));
 				return;
 			}
-			ctx.writeAndFlush(
-					HttpUtil.createHttpResponse(null, FORBIDDEN, null))
-					.addListener(ChannelFutureListener.CLOSE);
+			reply(ctx, request,
+					HttpUtil.createHttpResponse(null, FORBIDDEN, null));
 			return;
 		} else if (request.getMethod().equals(HttpMethod.POST.name())) {
-			if (!MessageUtil.signature(aesToken.getToken(),
-					request.getTimeStamp(), request.getNonce()).equals(
-					request.getSignature())) {
-				ctx.writeAndFlush(
-						HttpUtil.createHttpResponse(null, FORBIDDEN, null))
-						.addListener(ChannelFutureListener.CLOSE);
+			if (!verifier.verify(request.getSignature(),
+					request.getTimeStamp(), request.getNonce())) {
+				reply(ctx, request,
+						HttpUtil.createHttpResponse(null, FORBIDDEN, null));
 				return;
 			}
 			if (request.getEncryptType() == EncryptType.AES) {
-				if (!MessageUtil.signature(aesToken.getToken(),
-						request.getTimeStamp(), request.getNonce(),
-						request.getEncryptContent()).equals(
-						request.getMsgSignature())) {
-					ctx.writeAndFlush(
-							HttpUtil.createHttpResponse(null, FORBIDDEN, null))
-							.addListener(ChannelFutureListener.CLOSE);
+				if (request.getEncryptContent() == null
+						|| !verifier.verify(request.getMsgSignature(),
+								request.getTimeStamp(), request.getNonce(),
+								request.getEncryptContent())) {
+					reply(ctx, request,
+							HttpUtil.createHttpResponse(null, FORBIDDEN, null));
 					return;
 				}
 			}
 		} else {
-			ctx.writeAndFlush(
-					HttpUtil.createHttpResponse(null, METHOD_NOT_ALLOWED, null))
-					.addListener(ChannelFutureListener.CLOSE);
+			reply(ctx, request,
+					HttpUtil.createHttpResponse(null, METHOD_NOT_ALLOWED, null));
 			return;
 		}
-		CruxMessageHandler cruxMessage = CruxMessageHandler.parser(request
-				.getOriginalContent());
-		ctx.channel().attr(Consts.ENCRYPTTYPE_KEY)
-				.set(request.getEncryptType());
-		ctx.channel().attr(Consts.USEROPENID_KEY)
-				.set(cruxMessage.getFromUserName());
-		if (StringUtil.isBlank(aesToken.getAppid())) {
-			ctx.channel().attr(Consts.ACCOUNTOPENID_KEY)
-					.set(cruxMessage.getToUserName());
+		CruxMessage cruxMessage = request.getCruxMessage();
+		if (cruxMessage == null) {
+			reply(ctx, request,
+					HttpUtil.createHttpResponse(null, BAD_REQUEST, null));
+			return;
 		}
-		messageDispatcher.doDispatch(ctx, request, cruxMessage);
+		messageDispatcher.doDispatch(ctx, request, cruxMessage, startNanos);
+	}
+
+	/**
+	 * 按请求的顺序写出响应,写出之后关闭连接
+	 */
+	private void reply(ChannelHandlerContext ctx, WeixinRequest request,
+			HttpResponse response) {
+		ctx.writeAndFlush(new WeixinHttpReply(request.getMessageTransfer(),
+				response));
 	}
 }
@@ -0,0 +1,210 @@
+package com.foxinmy.weixin4j.socket;
+
+import static io.netty.handler.codec.http.HttpHeaders.Names.CONNECTION;
+import static io.netty.handler.codec.http.HttpResponseStatus.BAD_REQUEST;
+import static io.netty.handler.codec.http.HttpResponseStatus.FORBIDDEN;
+import static io.netty.handler.codec.http.HttpResponseStatus.METHOD_NOT_ALLOWED;
+import static io.netty.handler.codec.http.HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders.Values;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.foxinmy.weixin4j.replay.ReplayGuard;
+import com.foxinmy.weixin4j.tenant.WeixinTenant;
+import com.foxinmy.weixin4j.tenant.WeixinTenantRouter;
+import com.foxinmy.weixin4j.util.HttpUtil;
+import com.foxinmy.weixin4j.util.SignatureVerifier;
+import com.foxinmy.weixin4j.util.StringUtil;
+
+/**
+ * 在请求头阶段校验请求:方法、timestamp/nonce/signature参数以及Content-Length,
+ * 不合法的请求在聚合请求体与解密之前即被拒绝并关闭连接,其后的请求体直接丢弃
+ * <p>
+ * 路径能路由到公众号时使用该公众号的token校验,否则只要与任一公众号的token匹配即可(按ToUserName路由需要读取请求体),
+ * 请求体解码后{@link WeixinRequestHandler}仍会以实际路由到的公众号再次校验
+ * </p>
+ * <p>
+ * 开启防重放时,签名通过后再校验timestamp的时间窗口以及签名是否已经使用过
+ * </p>
+ *
+ * @className WeixinRequestValidator
+ * @author jy
+ * @date 2015年7月4日
+ * @since JDK 1.7
+ * @see WeixinServerInitializer
+ */
+public class WeixinRequestValidator extends ChannelInboundHandlerAdapter {
+
+	private final InternalLogger logger = InternalLoggerFactory
+			.getInstance(getClass());
+
+	private final WeixinTenantRouter tenantRouter;
+	/**
+	 * 所有公众号的签名校验器(按token去重)
+	 */
+	private final List<SignatureVerifier> verifiers;
+	private final int maxContentLength;
+	/**
+	 * 为null时不做防重放校验
+	 */
+	private final ReplayGuard replayGuard;
+	/**
+	 * 被拒绝的请求剩余的请求体需要丢弃
+	 */
+	private boolean discarding;
+
+	/**
+	 *
+	 * @param tenantRouter
+	 *            公众号路由
+	 * @param maxContentLength
+	 *            请求体的最大长度(字节)
+	 */
+	public WeixinRequestValidator(WeixinTenantRouter tenantRouter,
+			int maxContentLength) {
+		this(tenantRouter, maxContentLength, null);
+	}
+
+	/**
+	 *
+	 * @param tenantRouter
+	 *            公众号路由
+	 * @param maxContentLength
+	 *            请求体的最大长度(字节)
+	 * @param replayGuard
+	 *            防重放,为null时不校验
+	 */
+	public WeixinRequestValidator(WeixinTenantRouter tenantRouter,
+			int maxContentLength, ReplayGuard replayGuard) {
+		this.tenantRouter = tenantRouter;
+		this.maxContentLength = maxContentLength;
+		this.replayGuard = replayGuard;
+		Set<String> tokens = new HashSet<String>();
+		this.verifiers = new ArrayList<SignatureVerifier>();
+		for (WeixinTenant tenant : tenantRouter.getTenants()) {
+			if (tokens.add(tenant.getAesToken().getToken())) {
+				verifiers.add(tenant.getAesToken().getVerifier());
+			}
+		}
+	}
+
+	@Override
+	public void channelRead(ChannelHandlerContext ctx, Object msg)
+			throws Exception {
+		if (msg instanceof HttpRequest) {
+			HttpResponseStatus status = validate((HttpRequest) msg);
+			if (status != null) {
+				ReferenceCountUtil.release(msg);
+				discarding = !(msg instanceof LastHttpContent);
+				reject(ctx, (HttpRequest) msg, status);
+				return;
+			}
+			discarding = false;
+		} else if (discarding && msg instanceof HttpContent) {
+			ReferenceCountUtil.release(msg);
+			if (msg instanceof LastHttpContent) {
+				discarding = false;
+			}
+			return;
+		}
+		ctx.fireChannelRead(msg);
+	}
+
+	/**
+	 * 校验请求头
+	 *
+	 * @param req
+	 *            请求头
+	 * @return 校验通过时返回null,否则返回拒绝的响应状态
+	 */
+	private HttpResponseStatus validate(HttpRequest req) {
+		if (!req.getDecoderResult().isSuccess()) {
+			return BAD_REQUEST;
+		}
+		HttpMethod method = req.getMethod();
+		if (!method.equals(HttpMethod.GET) && !method.equals(HttpMethod.POST)) {
+			return METHOD_NOT_ALLOWED;
+		}
+		if (HttpHeaders.getContentLength(req, 0l) > maxContentLength) {
+			return REQUEST_ENTITY_TOO_LARGE;
+		}
+		QueryStringDecoder queryDecoder = new QueryStringDecoder(req.getUri());
+		Map<String, List<String>> parameters = queryDecoder.parameters();
+		String timeStamp = parameter(parameters, "timestamp");
+		String nonce = parameter(parameters, "nonce");
+		String signature = parameter(parameters, "signature");
+		if (StringUtil.isBlank(timeStamp) || StringUtil.isBlank(nonce)
+				|| StringUtil.isBlank(signature) || !isNumeric(timeStamp)) {
+			return FORBIDDEN;
+		}
+		if (!verifySignature(queryDecoder.path(), timeStamp, nonce, signature)) {
+			return FORBIDDEN;
+		}
+		if (replayGuard != null
+				&& !replayGuard.tryAcquire(signature,
+						Long.parseLong(timeStamp))) {
+			return FORBIDDEN;
+		}
+		return null;
+	}
+
+	private boolean verifySignature(String path, String timeStamp,
+			String nonce, String signature) {
+		WeixinTenant tenant = tenantRouter.routePath(path);
+		if (tenant != null) {
+			return tenant.getAesToken().getVerifier()
+					.verify(signature, timeStamp, nonce);
+		}
+		for (SignatureVerifier verifier : verifiers) {
+			if (verifier.verify(signature, timeStamp, nonce)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void reject(ChannelHandlerContext ctx, HttpRequest req,
+			HttpResponseStatus status) {
+		logger.debug("reject the request {} {}:{}", req.getMethod(),
+				req.getUri(), status);
+		HttpResponse response = HttpUtil.createHttpResponse(null, status, null);
+		response.headers().set(CONNECTION, Values.CLOSE);
+		ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+	}
+
+	private static String parameter(Map<String, List<String>> parameters,
+			String name) {
+		List<String> values = parameters.get(name);
+		return values != null ? values.get(0) : null;
+	}
+
+	private static boolean isNumeric(String value) {
+		if (value.length() > 18) {
+			return false;
+		}
+		for (int i = 0; i < value.length(); i++) {
+			if (!Character.isDigit(value.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
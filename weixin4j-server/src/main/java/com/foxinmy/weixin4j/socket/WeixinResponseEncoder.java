@@ -1,23 +1,26 @@
 package com.foxinmy.weixin4j.socket;
 
+import static io.netty.handler.codec.http.HttpHeaders.Names.CONNECTION;
 import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToMessageEncoder;
-import io.netty.util.internal.logging.InternalLogger;
-import io.netty.util.internal.logging.InternalLoggerFactory;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaders.Values;
 
 import java.util.List;
 
 import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.logging.WeixinAccessLog;
+import com.foxinmy.weixin4j.metrics.MetricsStage;
+import com.foxinmy.weixin4j.metrics.WeixinMetrics;
 import com.foxinmy.weixin4j.response.BlankResponse;
 import com.foxinmy.weixin4j.response.WeixinResponse;
 import com.foxinmy.weixin4j.type.EncryptType;
 import com.foxinmy.weixin4j.util.AesToken;
 import com.foxinmy.weixin4j.util.Consts;
 import com.foxinmy.weixin4j.util.HttpUtil;
-import com.foxinmy.weixin4j.util.MessageUtil;
 import com.foxinmy.weixin4j.util.RandomUtil;
-import com.foxinmy.weixin4j.util.StringUtil;
 
 /**
  * 微信回复编码类
@@ -29,71 +32,88 @@ import com.foxinmy.weixin4j.util.StringUtil;
  * @see <a
  *      href="http://mp.weixin.qq.com/wiki/0/61c3a8b9d50ac74f18bdf2e54ddfc4e0.html">加密接入指引</a>
  * @see com.foxinmy.weixin4j.response.WeixinResponse
+ * @see WeixinMessageReply
+ * @see WeixinResponseWriter
  */
 public class WeixinResponseEncoder extends
-		MessageToMessageEncoder<WeixinResponse> {
+		MessageToMessageEncoder<WeixinMessageReply> {
 
-	private final InternalLogger logger = InternalLoggerFactory
-			.getInstance(getClass());
+	/**
+	 * 为null时不统计
+	 */
+	private final WeixinMetrics metrics;
+	/**
+	 * 为null时不记录访问日志
+	 */
+	private final WeixinAccessLog accessLog;
 
-	private final AesToken aesToken;
+	public WeixinResponseEncoder() {
+		this(null, null);
+	}
+
+	/**
+	 * 
+	 * @param metrics
+	 *            统计,为null时不统计
+	 */
+	public WeixinResponseEncoder(WeixinMetrics metrics) {
+		this(metrics, null);
+	}
 
-	public WeixinResponseEncoder(AesToken aesToken) {
-		this.aesToken = aesToken;
+	/**
+	 * 
+	 * @param metrics
+	 *            统计,为null时不统计
+	 * @param accessLog
+	 *            访问日志,为null时不记录
+	 */
+	public WeixinResponseEncoder(WeixinMetrics metrics,
+			WeixinAccessLog accessLog) {
+		this.metrics = metrics;
+		this.accessLog = accessLog;
 	}
 
 	@Override
-	protected void encode(ChannelHandlerContext ctx, WeixinResponse response,
+	protected void encode(ChannelHandlerContext ctx, WeixinMessageReply reply,
 			List<Object> out) throws WeixinException {
-		EncryptType encryptType = ctx.channel().attr(Consts.ENCRYPTTYPE_KEY)
-				.get();
-		String userOpenId = ctx.channel().attr(Consts.USEROPENID_KEY).get();
-		String accountOpenId = ctx.channel().attr(Consts.ACCOUNTOPENID_KEY)
-				.get();
-		if (StringUtil.isBlank(accountOpenId)) {
-			accountOpenId = aesToken.getAppid();
-		}
-		StringBuilder content = new StringBuilder();
-		if (response instanceof BlankResponse) {
-			content.append(response.toContent());
-		} else {
-			content.append("<xml>");
-			content.append(String.format(
-					"<ToUserName><![CDATA[%s]]></ToUserName>", userOpenId));
-			content.append(String.format(
-					"<FromUserName><![CDATA[%s]]></FromUserName>",
-					accountOpenId));
-			content.append(String.format(
-					"<CreateTime><![CDATA[%d]]></CreateTime>",
-					System.currentTimeMillis() / 1000l));
-			content.append(String.format("<MsgType><![CDATA[%s]]></MsgType>",
-					response.getMsgType()));
-			content.append(response.toContent());
-			content.append("</xml>");
-			if (encryptType == EncryptType.AES) {
-				String nonce = RandomUtil.generateString(32);
-				String timestamp = String
-						.valueOf(System.currentTimeMillis() / 1000l);
-				String encrtypt = MessageUtil.aesEncrypt(accountOpenId,
-						aesToken.getAesKey(), content.toString());
-				String msgSignature = MessageUtil.signature(
-						aesToken.getToken(), nonce, timestamp, encrtypt);
-				content.delete(0, content.length());
-				content.append("<xml>");
-				content.append(String.format("<Nonce><![CDATA[%s]]></Nonce>",
-						nonce));
-				content.append(String.format(
-						"<TimeStamp><![CDATA[%s]]></TimeStamp>", timestamp));
-				content.append(String.format(
-						"<MsgSignature><![CDATA[%s]]></MsgSignature>",
-						msgSignature));
-				content.append(String.format(
-						"<Encrypt><![CDATA[%s]]></Encrypt>", encrtypt));
-				content.append("</xml>");
+		long startNanos = metrics != null ? System.nanoTime() : 0l;
+		WeixinMessageTransfer messageTransfer = reply.getMessageTransfer();
+		WeixinResponse response = reply.getResponse();
+		EncryptType encryptType = messageTransfer.getEncryptType();
+		AesToken aesToken = messageTransfer.getTenant().getAesToken();
+		ByteBuf content = WeixinResponseWriter.writeMessage(ctx.alloc(),
+				response, messageTransfer.getUserOpenId(),
+				messageTransfer.getAccountOpenId(),
+				System.currentTimeMillis() / 1000l);
+		if (encryptType == EncryptType.AES
+				&& !(response instanceof BlankResponse)) {
+			String nonce = RandomUtil.generateString(32);
+			String timestamp = String
+					.valueOf(System.currentTimeMillis() / 1000l);
+			String encrtypt;
+			try {
+				encrtypt = aesToken.getCrypto().encrypt(content);
+			} finally {
+				content.release();
 			}
+			String msgSignature = aesToken.getVerifier().sign(timestamp,
+					nonce, encrtypt);
+			content = WeixinResponseWriter.writeEncrypt(ctx.alloc(), nonce,
+					timestamp, msgSignature, encrtypt);
+		}
+		if (accessLog != null && accessLog.sample()) {
+			accessLog.log(messageTransfer, response, content);
+		}
+		FullHttpResponse httpResponse = HttpUtil.createBufferHttpResponse(
+				content, OK, Consts.CONTENTTYPE$APPLICATION_XML);
+		if (!messageTransfer.isKeepAlive()) {
+			httpResponse.headers().set(CONNECTION, Values.CLOSE);
+		}
+		out.add(httpResponse);
+		if (metrics != null) {
+			metrics.recordStage(MetricsStage.ENCODE,
+					messageTransfer.getMessageKey(), System.nanoTime()
+							- startNanos);
 		}
-		ctx.writeAndFlush(HttpUtil.createHttpResponse(content.toString(), OK,
-				Consts.CONTENTTYPE$APPLICATION_XML));
-		logger.info("{} encode response:{}", encryptType, content);
 	}
 }
\ No newline at end of file
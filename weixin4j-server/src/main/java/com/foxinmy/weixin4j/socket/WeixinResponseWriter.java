@@ -0,0 +1,92 @@
+package com.foxinmy.weixin4j.socket;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+import com.foxinmy.weixin4j.response.BlankResponse;
+import com.foxinmy.weixin4j.response.WeixinResponse;
+import com.foxinmy.weixin4j.response.WritableResponse;
+import com.foxinmy.weixin4j.xml.XmlWriter;
+
+/**
+ * 将被动回复直接序列化到channel分配的字节缓冲区中
+ *
+ * @className WeixinResponseWriter
+ * @author jy
+ * @date 2015年6月28日
+ * @since JDK 1.7
+ * @see com.foxinmy.weixin4j.response.WritableResponse
+ * @see WeixinResponseEncoder
+ */
+public final class WeixinResponseWriter {
+
+	/**
+	 * 预估的回复长度,不够时缓冲区会自动扩容
+	 */
+	private final static int INITIAL_CAPACITY = 512;
+
+	private WeixinResponseWriter() {
+	}
+
+	/**
+	 * 写入明文的回复消息,空白回复只写入success
+	 *
+	 * @param allocator
+	 *            缓冲区分配器
+	 * @param response
+	 *            回复
+	 * @param toUserName
+	 *            接收方
+	 * @param fromUserName
+	 *            发送方
+	 * @param createTime
+	 *            消息创建时间(秒)
+	 * @return 回复消息,由调用方负责释放
+	 */
+	public static ByteBuf writeMessage(ByteBufAllocator allocator,
+			WeixinResponse response, String toUserName, String fromUserName,
+			long createTime) {
+		ByteBuf buf = allocator.buffer(INITIAL_CAPACITY);
+		XmlWriter writer = new XmlWriter(buf);
+		if (response instanceof BlankResponse) {
+			writer.raw(response.toContent());
+			return buf;
+		}
+		writer.startElement("xml").cdataElement("ToUserName", toUserName)
+				.cdataElement("FromUserName", fromUserName)
+				.cdataElement("CreateTime", Long.toString(createTime))
+				.cdataElement("MsgType", response.getMsgType());
+		if (response instanceof WritableResponse) {
+			((WritableResponse) response).writeTo(writer);
+		} else {
+			writer.raw(response.toContent());
+		}
+		writer.endElement("xml");
+		return buf;
+	}
+
+	/**
+	 * 写入密文的回复消息
+	 *
+	 * @param allocator
+	 *            缓冲区分配器
+	 * @param nonce
+	 *            随机字符串
+	 * @param timestamp
+	 *            时间戳
+	 * @param msgSignature
+	 *            消息签名
+	 * @param encrypt
+	 *            加密后的消息
+	 * @return 回复消息,由调用方负责释放
+	 */
+	public static ByteBuf writeEncrypt(ByteBufAllocator allocator,
+			String nonce, String timestamp, String msgSignature, String encrypt) {
+		ByteBuf buf = allocator.buffer(INITIAL_CAPACITY + encrypt.length());
+		new XmlWriter(buf).startElement("xml").cdataElement("Nonce", nonce)
+				.cdataElement("TimeStamp", timestamp)
+				.cdataElement("MsgSignature", msgSignature)
+				.cdataElement("Encrypt", encrypt).endElement("xml");
+		return buf;
+	}
+}
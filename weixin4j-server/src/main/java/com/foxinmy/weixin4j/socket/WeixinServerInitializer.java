@@ -8,6 +8,12 @@ import io.netty.handler.codec.http.HttpServerCodec;
 
 import com.foxinmy.weixin4j.dispatcher.WeixinMessageDispatcher;
 import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.logging.WeixinAccessLog;
+import com.foxinmy.weixin4j.metrics.WeixinMetrics;
+import com.foxinmy.weixin4j.replay.ReplayGuard;
+import com.foxinmy.weixin4j.startup.WeixinServerOptions;
+import com.foxinmy.weixin4j.tenant.WeixinTenant;
+import com.foxinmy.weixin4j.tenant.WeixinTenantRouter;
 import com.foxinmy.weixin4j.util.AesToken;
 
 /**
@@ -21,25 +27,132 @@ import com.foxinmy.weixin4j.util.AesToken;
  */
 public class WeixinServerInitializer extends ChannelInitializer<SocketChannel> {
 
-	private final AesToken aesToken;
-	private final WeixinMessageDispatcher messageDispatcher;
+	private final WeixinTenantRouter tenantRouter;
+	private final InflightRequests inflightRequests;
+	private final WeixinServerOptions serverOptions;
+	private final ReplayGuard replayGuard;
+	private final WeixinMetrics metrics;
+	private final String metricsPath;
+	private final WeixinAccessLog accessLog;
 
 	public WeixinServerInitializer(AesToken aesToken,
 			WeixinMessageDispatcher messageDispatcher) throws WeixinException {
+		this(aesToken, messageDispatcher, new InflightRequests());
+	}
+
+	public WeixinServerInitializer(AesToken aesToken,
+			WeixinMessageDispatcher messageDispatcher,
+			InflightRequests inflightRequests) throws WeixinException {
 		if (aesToken == null) {
 			throw new WeixinException("AesToken not be null.");
 		}
-		this.aesToken = aesToken;
-		this.messageDispatcher = messageDispatcher;
+		// 在处理第一个请求之前完成handler与interceptor的发现
+		messageDispatcher.initialize();
+		this.tenantRouter = new WeixinTenantRouter(new WeixinTenant(aesToken,
+				messageDispatcher));
+		this.inflightRequests = inflightRequests;
+		this.serverOptions = new WeixinServerOptions();
+		this.replayGuard = null;
+		this.metrics = null;
+		this.metricsPath = null;
+		this.accessLog = null;
+	}
+
+	/**
+	 * 多个公众号共用一个服务
+	 *
+	 * @param tenantRouter
+	 *            公众号路由
+	 * @param inflightRequests
+	 *            处理中的请求计数
+	 * @param serverOptions
+	 *            网络参数,其中的请求长度限制
+	 * @param replayGuard
+	 *            防重放,为null时不校验
+	 */
+	public WeixinServerInitializer(WeixinTenantRouter tenantRouter,
+			InflightRequests inflightRequests,
+			WeixinServerOptions serverOptions, ReplayGuard replayGuard) {
+		this(tenantRouter, inflightRequests, serverOptions, replayGuard, null,
+				null);
+	}
+
+	/**
+	 * 多个公众号共用一个服务,并开启统计
+	 *
+	 * @param tenantRouter
+	 *            公众号路由
+	 * @param inflightRequests
+	 *            处理中的请求计数
+	 * @param serverOptions
+	 *            网络参数,其中的请求长度限制
+	 * @param replayGuard
+	 *            防重放,为null时不校验
+	 * @param metrics
+	 *            统计,为null时不统计
+	 * @param metricsPath
+	 *            统计端点的路径,为null时不开放端点
+	 */
+	public WeixinServerInitializer(WeixinTenantRouter tenantRouter,
+			InflightRequests inflightRequests,
+			WeixinServerOptions serverOptions, ReplayGuard replayGuard,
+			WeixinMetrics metrics, String metricsPath) {
+		this(tenantRouter, inflightRequests, serverOptions, replayGuard,
+				metrics, metricsPath, null);
+	}
+
+	/**
+	 * 多个公众号共用一个服务,并开启统计与访问日志
+	 *
+	 * @param tenantRouter
+	 *            公众号路由
+	 * @param inflightRequests
+	 *            处理中的请求计数
+	 * @param serverOptions
+	 *            网络参数,其中的请求长度限制
+	 * @param replayGuard
+	 *            防重放,为null时不校验
+	 * @param metrics
+	 *            统计,为null时不统计
+	 * @param metricsPath
+	 *            统计端点的路径,为null时不开放端点
+	 * @param accessLog
+	 *            访问日志,为null时不记录
+	 */
+	public WeixinServerInitializer(WeixinTenantRouter tenantRouter,
+			InflightRequests inflightRequests,
+			WeixinServerOptions serverOptions, ReplayGuard replayGuard,
+			WeixinMetrics metrics, String metricsPath,
+			WeixinAccessLog accessLog) {
+		this.tenantRouter = tenantRouter;
+		this.inflightRequests = inflightRequests;
+		this.serverOptions = serverOptions;
+		this.replayGuard = replayGuard;
+		this.metrics = metrics;
+		this.metricsPath = metricsPath;
+		this.accessLog = accessLog;
 	}
 
 	@Override
 	protected void initChannel(SocketChannel channel) throws WeixinException {
 		ChannelPipeline pipeline = channel.pipeline();
-		pipeline.addLast(new HttpServerCodec());
-		pipeline.addLast(new HttpObjectAggregator(65536));
-		pipeline.addLast(new WeixinMessageDecoder(aesToken));
-		pipeline.addLast(new WeixinResponseEncoder(aesToken));
-		pipeline.addLast(new WeixinRequestHandler(aesToken, messageDispatcher));
+		pipeline.addLast(new HttpServerCodec(serverOptions
+				.getMaxInitialLineLength(), serverOptions.getMaxHeaderSize(),
+				serverOptions.getMaxContentLength()));
+		// 统计请求不计入处理中的请求
+		if (metrics != null && metricsPath != null) {
+			pipeline.addLast(new WeixinMetricsHandler(metrics, metricsPath,
+					inflightRequests));
+		}
+		pipeline.addLast(new InflightRequestHandler(inflightRequests));
+		// 在聚合请求体之前校验签名与长度
+		pipeline.addLast(new WeixinRequestValidator(tenantRouter,
+				serverOptions.getMaxContentLength(), replayGuard));
+		pipeline.addLast(new HttpObjectAggregator(serverOptions
+				.getMaxContentLength()));
+		pipeline.addLast(new WeixinMessageDecoder(tenantRouter, metrics));
+		pipeline.addLast(new WeixinResponseEncoder(metrics, accessLog));
+		pipeline.addLast(new WeixinReplySequencer());
+		pipeline.addLast(new WeixinRequestHandler());
 	}
 }
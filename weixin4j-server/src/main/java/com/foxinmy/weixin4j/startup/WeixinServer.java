@@ -0,0 +1,197 @@
+package com.foxinmy.weixin4j.startup;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.socket.InflightRequests;
+
+/**
+ * 已启动的服务,由{@link WeixinServerBootstrap#start(int, int, int)}返回
+ * <p>
+ * 滚动发布时先调用{@link #stop(long, TimeUnit)}:停止接受新的连接,等待处理中的请求在超时时间内完成后再关闭,
+ * 避免丢弃微信的回调而引起重试
+ * </p>
+ *
+ * @className WeixinServer
+ * @author jy
+ * @date 2015年7月2日
+ * @since JDK 1.7
+ * @see WeixinServerBootstrap
+ */
+public class WeixinServer {
+
+	private final InternalLogger logger = InternalLoggerFactory
+			.getInstance(getClass());
+
+	/**
+	 * 默认的等待时间(毫秒):微信服务器五秒内收不到响应即断开
+	 */
+	public final static long DEFAULT_DRAIN_TIMEOUT = 5000l;
+
+	private final int serverPort;
+	private final EventLoopGroup bossGroup;
+	private final EventLoopGroup workerGroup;
+	private final List<ChannelFuture> bindFutures;
+	private final InflightRequests inflightRequests;
+	private final ExecutorService ownedDispatchExecutor;
+	private volatile boolean stopped;
+
+	WeixinServer(int serverPort, EventLoopGroup bossGroup,
+			EventLoopGroup workerGroup, List<ChannelFuture> bindFutures,
+			InflightRequests inflightRequests,
+			ExecutorService ownedDispatchExecutor) {
+		this.serverPort = serverPort;
+		this.bossGroup = bossGroup;
+		this.workerGroup = workerGroup;
+		this.bindFutures = bindFutures;
+		this.inflightRequests = inflightRequests;
+		this.ownedDispatchExecutor = ownedDispatchExecutor;
+	}
+
+	public int getServerPort() {
+		return serverPort;
+	}
+
+	/**
+	 * 端口是否都已绑定成功
+	 *
+	 * @return
+	 */
+	public boolean isReady() {
+		for (ChannelFuture bindFuture : bindFutures) {
+			if (!bindFuture.isSuccess()) {
+				return false;
+			}
+		}
+		return !stopped;
+	}
+
+	public boolean isStopped() {
+		return stopped;
+	}
+
+	/**
+	 * 尚未回复的请求数
+	 *
+	 * @return
+	 */
+	public int getInflightRequests() {
+		return inflightRequests.get();
+	}
+
+	/**
+	 * 等待端口绑定完成
+	 *
+	 * @throws WeixinException
+	 *             绑定失败或者等待被中断
+	 */
+	public void awaitReady() throws WeixinException {
+		awaitReady(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * 等待端口绑定完成
+	 *
+	 * @param timeout
+	 *            最长等待时间
+	 * @param unit
+	 *            时间单位
+	 * @return 是否在超时前绑定完成
+	 * @throws WeixinException
+	 *             绑定失败或者等待被中断
+	 */
+	public boolean awaitReady(long timeout, TimeUnit unit)
+			throws WeixinException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		try {
+			for (ChannelFuture bindFuture : bindFutures) {
+				long remaining = Math.max(0l, deadline - System.nanoTime());
+				if (!bindFuture.await(remaining, TimeUnit.NANOSECONDS)) {
+					return false;
+				}
+				if (!bindFuture.isSuccess()) {
+					Throwable cause = bindFuture.cause();
+					String message = "bind port " + serverPort + " failed:"
+							+ cause.getMessage();
+					throw cause instanceof Exception ? new WeixinException(
+							message, (Exception) cause) : new WeixinException(
+							message);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new WeixinException(e);
+		}
+		return true;
+	}
+
+	/**
+	 * 阻塞直到服务的端口被关闭
+	 *
+	 * @throws InterruptedException
+	 */
+	public void awaitClose() throws InterruptedException {
+		for (ChannelFuture bindFuture : bindFutures) {
+			bindFuture.channel().closeFuture().await();
+		}
+	}
+
+	/**
+	 * 以默认的等待时间停止服务
+	 *
+	 * @return 处理中的请求是否都已完成
+	 * @see #stop(long, TimeUnit)
+	 */
+	public boolean stop() {
+		return stop(DEFAULT_DRAIN_TIMEOUT, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * 停止服务:关闭监听端口不再接受新的连接,等待处理中的请求完成(期间的回复会关闭keep-alive连接),然后关闭所有连接与线程
+	 *
+	 * @param drainTimeout
+	 *            等待处理中的请求完成的最长时间
+	 * @param unit
+	 *            时间单位
+	 * @return 处理中的请求是否都在超时前完成
+	 */
+	public boolean stop(long drainTimeout, TimeUnit unit) {
+		synchronized (this) {
+			if (stopped) {
+				return true;
+			}
+			stopped = true;
+		}
+		boolean drained = false;
+		try {
+			for (ChannelFuture bindFuture : bindFutures) {
+				Channel channel = bindFuture.channel();
+				channel.close().syncUninterruptibly();
+			}
+			drained = inflightRequests.drain(drainTimeout, unit);
+			if (!drained) {
+				logger.warn(
+						"weixin4j server stopped with {} requests still in flight",
+						inflightRequests.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			bossGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+			workerGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+			if (ownedDispatchExecutor != null) {
+				ownedDispatchExecutor.shutdown();
+			}
+		}
+		logger.info("weixin4j server stopped:{}", serverPort);
+		return drained;
+	}
+}
@@ -1,19 +1,27 @@
 package com.foxinmy.weixin4j.startup;
 
 import io.netty.bootstrap.ServerBootstrap;
-import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.handler.logging.LoggingHandler;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+import com.foxinmy.weixin4j.dedup.DedupStore;
+import com.foxinmy.weixin4j.dedup.MessageDeduplicator;
 import com.foxinmy.weixin4j.dispatcher.BeanFactory;
 import com.foxinmy.weixin4j.dispatcher.DefaultMessageMatcher;
 import com.foxinmy.weixin4j.dispatcher.MessageKey;
@@ -22,7 +30,14 @@ import com.foxinmy.weixin4j.dispatcher.WeixinMessageMatcher;
 import com.foxinmy.weixin4j.exception.WeixinException;
 import com.foxinmy.weixin4j.handler.WeixinMessageHandler;
 import com.foxinmy.weixin4j.interceptor.WeixinMessageInterceptor;
+import com.foxinmy.weixin4j.logging.WeixinAccessLog;
+import com.foxinmy.weixin4j.metrics.DefaultWeixinMetrics;
+import com.foxinmy.weixin4j.metrics.WeixinMetrics;
+import com.foxinmy.weixin4j.replay.ReplayGuard;
+import com.foxinmy.weixin4j.socket.InflightRequests;
 import com.foxinmy.weixin4j.socket.WeixinServerInitializer;
+import com.foxinmy.weixin4j.tenant.WeixinTenant;
+import com.foxinmy.weixin4j.tenant.WeixinTenantRouter;
 import com.foxinmy.weixin4j.util.AesToken;
 
 /**
@@ -69,6 +84,36 @@ public final class WeixinServerBootstrap {
 	 */
 	private List<WeixinMessageInterceptor> messageInterceptorList;
 
+	/**
+	 * 同一服务上的其它公众号
+	 */
+	private List<WeixinTenant> tenantList;
+
+	/**
+	 * 防重放,为null时不校验
+	 */
+	private ReplayGuard replayGuard;
+
+	/**
+	 * 统计端点的路径,为null时不开放端点
+	 */
+	private String metricsPath;
+
+	/**
+	 * 访问日志,为null时不记录
+	 */
+	private WeixinAccessLog accessLog;
+
+	/**
+	 * 网络参数
+	 */
+	private WeixinServerOptions serverOptions;
+
+	/**
+	 * 由服务创建的分发线程池,服务停止时关闭
+	 */
+	private ExecutorService ownedDispatchExecutor;
+
 	/**
 	 * aes and token
 	 * 
@@ -109,10 +154,12 @@ public final class WeixinServerBootstrap {
 		this.messageHandlerList = new LinkedList<WeixinMessageHandler>();
 		this.messageInterceptorList = new LinkedList<WeixinMessageInterceptor>();
 		this.messageDispatcher = new WeixinMessageDispatcher(messageMatcher);
+		this.tenantList = new LinkedList<WeixinTenant>();
+		this.serverOptions = new WeixinServerOptions();
 	}
 
 	/**
-	 * 默认端口启动服务
+	 * 默认端口启动服务,阻塞直到服务的端口被关闭
 	 * 
 	 */
 	public void startup() throws WeixinException {
@@ -120,7 +167,7 @@ public final class WeixinServerBootstrap {
 	}
 
 	/**
-	 * 接受参数启动服务
+	 * 接受参数启动服务,阻塞直到服务的端口被关闭
 	 * 
 	 * @param bossThreads
 	 *            boss线程数,一般设置为cpu的核数
@@ -132,33 +179,152 @@ public final class WeixinServerBootstrap {
 	 */
 	public void startup(int bossThreads, int workerThreads, int serverPort)
 			throws WeixinException {
-		messageDispatcher.setMessageHandlerList(messageHandlerList);
-		messageDispatcher.setMessageInterceptorList(messageInterceptorList);
-
-		EventLoopGroup bossGroup = new NioEventLoopGroup(bossThreads);
-		EventLoopGroup workerGroup = new NioEventLoopGroup(workerThreads);
+		WeixinServer server = start(bossThreads, workerThreads, serverPort);
 		try {
-			ServerBootstrap b = new ServerBootstrap();
-			b.option(ChannelOption.SO_BACKLOG, 1024);
-			b.group(bossGroup, workerGroup)
-					.channel(NioServerSocketChannel.class)
-					.handler(new LoggingHandler())
-					.childHandler(
-							new WeixinServerInitializer(aesToken,
-									messageDispatcher));
-			Channel ch = b.bind(serverPort).sync().channel();
-			logger.info("weixin4j server startup OK:{}", serverPort);
-			ch.closeFuture().sync();
-		} catch (WeixinException e) {
-			throw e;
+			server.awaitReady();
+			server.awaitClose();
 		} catch (InterruptedException e) {
 			throw new WeixinException(e);
 		} finally {
-			bossGroup.shutdownGracefully();
-			workerGroup.shutdownGracefully();
+			server.stop(0l, TimeUnit.MILLISECONDS);
 		}
 	}
 
+	/**
+	 * 默认端口启动服务,不阻塞当前线程
+	 * 
+	 * @return 服务
+	 * @throws WeixinException
+	 * @see #start(int, int, int)
+	 */
+	public WeixinServer start() throws WeixinException {
+		return start(DEFAULT_BOSSTHREADS, DEFAULT_WORKERTHREADS,
+				DEFAULT_SERVERPORT);
+	}
+
+	/**
+	 * 启动服务,不阻塞当前线程:端口异步绑定,可以通过{@link WeixinServer#awaitReady()}等待绑定完成,
+	 * 通过{@link WeixinServer#stop(long, TimeUnit)}停止服务
+	 * 
+	 * @param bossThreads
+	 *            boss线程数,一般设置为cpu的核数
+	 * @param workerThreads
+	 *            worker线程数
+	 * @param serverPort
+	 *            服务启动端口
+	 * @return 服务
+	 * @throws WeixinException
+	 */
+	public WeixinServer start(int bossThreads, int workerThreads,
+			final int serverPort) throws WeixinException {
+		messageDispatcher.setMessageHandlerList(messageHandlerList);
+		messageDispatcher.setMessageInterceptorList(messageInterceptorList);
+		messageDispatcher.initialize();
+		WeixinTenantRouter tenantRouter = new WeixinTenantRouter(
+				new WeixinTenant(aesToken, messageDispatcher));
+		for (WeixinTenant tenant : tenantList) {
+			// 各公众号独立的handler索引,共享分发线程池与去重存储
+			WeixinMessageDispatcher tenantDispatcher = tenant
+					.getMessageDispatcher();
+			if (tenantDispatcher.getDispatchExecutor() == null) {
+				tenantDispatcher.setDispatchExecutor(messageDispatcher
+						.getDispatchExecutor());
+			}
+			if (tenantDispatcher.getMessageDeduplicator() == null) {
+				tenantDispatcher.setMessageDeduplicator(messageDispatcher
+						.getMessageDeduplicator());
+			}
+			if (tenantDispatcher.getMetrics() == null) {
+				tenantDispatcher.setMetrics(messageDispatcher.getMetrics());
+			}
+			// 没有单独设置超时时间的公众号使用asyncTimeout(long)的设置
+			if (tenantDispatcher.getAsyncTimeout() == WeixinMessageDispatcher.DEFAULT_ASYNC_TIMEOUT) {
+				tenantDispatcher.setAsyncTimeout(messageDispatcher
+						.getAsyncTimeout());
+			}
+			tenantDispatcher.initialize();
+			tenantRouter.register(tenant);
+		}
+
+		int acceptors = serverOptions.getAcceptors();
+		InflightRequests inflightRequests = new InflightRequests();
+		ServerBootstrap b = new ServerBootstrap();
+		b.option(ChannelOption.SO_BACKLOG, serverOptions.getBacklog());
+		b.option(ChannelOption.ALLOCATOR, serverOptions.getAllocator());
+		if (serverOptions.isReusePort()) {
+			b.option(EpollChannelOption.SO_REUSEPORT, true);
+		}
+		b.childOption(ChannelOption.TCP_NODELAY, serverOptions.isTcpNoDelay());
+		b.childOption(ChannelOption.ALLOCATOR, serverOptions.getAllocator());
+		// 低水位不能高于当前的高水位,按照不会越界的顺序设置
+		if (serverOptions.getWriteBufferLowWaterMark() > WeixinServerOptions.DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK) {
+			b.childOption(ChannelOption.WRITE_BUFFER_HIGH_WATER_MARK,
+					serverOptions.getWriteBufferHighWaterMark());
+			b.childOption(ChannelOption.WRITE_BUFFER_LOW_WATER_MARK,
+					serverOptions.getWriteBufferLowWaterMark());
+		} else {
+			b.childOption(ChannelOption.WRITE_BUFFER_LOW_WATER_MARK,
+					serverOptions.getWriteBufferLowWaterMark());
+			b.childOption(ChannelOption.WRITE_BUFFER_HIGH_WATER_MARK,
+					serverOptions.getWriteBufferHighWaterMark());
+		}
+		b.channel(serverOptions.serverChannelClass()).childHandler(
+				new WeixinServerInitializer(tenantRouter, inflightRequests,
+						serverOptions, replayGuard, messageDispatcher
+								.getMetrics(), metricsPath, accessLog));
+		EventLoopGroup bossGroup = serverOptions.newEventLoopGroup(
+				Math.max(bossThreads, acceptors), "weixin4j-boss");
+		EventLoopGroup workerGroup = serverOptions.newEventLoopGroup(
+				workerThreads, "weixin4j-worker");
+		b.group(bossGroup, workerGroup);
+		// 开启SO_REUSEPORT时每个acceptor各自绑定一次端口,分布在不同的boss线程上
+		List<ChannelFuture> bindFutures = new ArrayList<ChannelFuture>(
+				acceptors);
+		ChannelFutureListener bindListener = new ChannelFutureListener() {
+			@Override
+			public void operationComplete(ChannelFuture future) {
+				if (future.isSuccess()) {
+					logger.info("weixin4j server startup OK:{},{}",
+							serverPort, serverOptions);
+				} else {
+					logger.error("weixin4j server bind port " + serverPort
+							+ " failed", future.cause());
+				}
+			}
+		};
+		for (int i = 0; i < acceptors; i++) {
+			bindFutures.add(b.bind(serverPort).addListener(bindListener));
+		}
+		return new WeixinServer(serverPort, bossGroup, workerGroup,
+				bindFutures, inflightRequests, ownedDispatchExecutor);
+	}
+
+	/**
+	 * 设置网络参数:epoll、内存分配器、socket选项等
+	 * 
+	 * @param serverOptions
+	 *            网络参数
+	 * @return
+	 */
+	public WeixinServerBootstrap serverOptions(WeixinServerOptions serverOptions) {
+		this.serverOptions = serverOptions;
+		return this;
+	}
+
+	/**
+	 * 在同一服务上添加一个公众号:回调地址的路径或者消息的ToUserName匹配时由该公众号的令牌与分发器处理,
+	 * 都不匹配时由构造时的公众号处理;未单独设置分发线程池与消息去重的公众号沿用本服务的设置
+	 * 
+	 * @param tenant
+	 *            公众号
+	 * @return
+	 * @see com.foxinmy.weixin4j.tenant.WeixinTenantRouter
+	 */
+	public WeixinServerBootstrap addTenant(WeixinTenant tenant) {
+		tenantList.add(tenant);
+		return this;
+	}
+
 	/**
 	 * 添加一个或者多个消息处理器
 	 * 
@@ -250,6 +416,162 @@ public final class WeixinServerBootstrap {
 		return this;
 	}
 
+	/**
+	 * 声明分发线程池,标注了{@link com.foxinmy.weixin4j.handler.Blocking}
+	 * 的handler将在其中执行,其余handler仍在I/O线程中执行;线程池的生命周期由调用方管理
+	 * 
+	 * @param dispatchExecutor
+	 *            分发线程池(如有界的ThreadPoolExecutor,或者新版JDK中每个任务一个虚拟线程的Executor)
+	 * @return
+	 */
+	public WeixinServerBootstrap dispatchExecutor(Executor dispatchExecutor) {
+		messageDispatcher.setDispatchExecutor(dispatchExecutor);
+		return this;
+	}
+
+	/**
+	 * 创建有界的分发线程池,队列满时拒绝请求并响应503,服务停止时关闭
+	 * 
+	 * @param dispatchThreads
+	 *            线程数
+	 * @param queueCapacity
+	 *            等待队列的长度
+	 * @return
+	 * @see #dispatchExecutor(Executor)
+	 */
+	public WeixinServerBootstrap dispatchExecutor(int dispatchThreads,
+			int queueCapacity) {
+		if (ownedDispatchExecutor != null) {
+			ownedDispatchExecutor.shutdown();
+		}
+		ownedDispatchExecutor = new ThreadPoolExecutor(dispatchThreads,
+				dispatchThreads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(queueCapacity),
+				new DefaultThreadFactory("weixin4j-dispatch"));
+		return dispatchExecutor(ownedDispatchExecutor);
+	}
+
+	/**
+	 * 设置异步handler的超时时间,超时后回复空白消息
+	 * 
+	 * @param asyncTimeout
+	 *            超时时间(毫秒)
+	 * @return
+	 * @see com.foxinmy.weixin4j.handler.AsyncMessageHandler
+	 */
+	public WeixinServerBootstrap asyncTimeout(long asyncTimeout) {
+		messageDispatcher.setAsyncTimeout(asyncTimeout);
+		return this;
+	}
+
+	/**
+	 * 开启消息去重:使用内存存储,重复的消息返回已回复的响应或者空白回复
+	 * 
+	 * @return
+	 * @see com.foxinmy.weixin4j.dedup.MessageDeduplicator
+	 */
+	public WeixinServerBootstrap deduplicate() {
+		messageDispatcher.setMessageDeduplicator(new MessageDeduplicator());
+		return this;
+	}
+
+	/**
+	 * 开启消息去重
+	 * 
+	 * @param dedupStore
+	 *            去重的存储,多个服务实例时可以使用共享的存储
+	 * @param expireMillis
+	 *            有效时间(毫秒)
+	 * @return
+	 * @see com.foxinmy.weixin4j.dedup.DedupStore
+	 */
+	public WeixinServerBootstrap deduplicate(DedupStore dedupStore,
+			long expireMillis) {
+		messageDispatcher.setMessageDeduplicator(new MessageDeduplicator(
+				dedupStore, expireMillis));
+		return this;
+	}
+
+	/**
+	 * 开启防重放:使用默认的时间窗口与容量
+	 * 
+	 * @return
+	 * @see com.foxinmy.weixin4j.replay.ReplayGuard
+	 */
+	public WeixinServerBootstrap replayProtection() {
+		return replayProtection(new ReplayGuard());
+	}
+
+	/**
+	 * 开启防重放:timestamp超出时间窗口或者签名已经使用过的请求响应403
+	 * 
+	 * @param replayGuard
+	 *            如new ReplayGuard(maxSkewSeconds, capacity)
+	 * @return
+	 * @see com.foxinmy.weixin4j.replay.ReplayGuard
+	 */
+	public WeixinServerBootstrap replayProtection(ReplayGuard replayGuard) {
+		this.replayGuard = replayGuard;
+		return this;
+	}
+
+	/**
+	 * 开启统计:使用默认的内存统计
+	 * 
+	 * @param metricsPath
+	 *            统计端点的路径,如/metrics,为null时不开放端点
+	 * @return
+	 * @see #metrics(WeixinMetrics, String)
+	 */
+	public WeixinServerBootstrap metrics(String metricsPath) {
+		return metrics(new DefaultWeixinMetrics(), metricsPath);
+	}
+
+	/**
+	 * 开启统计:记录解码、解密、分发、handler、编码各阶段按消息类型的耗时以及各handler的耗时与失败次数,
+	 * 统计端点与回调共用端口;未单独设置统计的公众号沿用本服务的设置
+	 * 
+	 * @param metrics
+	 *            统计,可以对接已有的统计系统
+	 * @param metricsPath
+	 *            统计端点的路径,如/metrics,为null时不开放端点
+	 * @return
+	 * @see com.foxinmy.weixin4j.metrics.WeixinMetrics
+	 * @see com.foxinmy.weixin4j.socket.WeixinMetricsHandler
+	 */
+	public WeixinServerBootstrap metrics(WeixinMetrics metrics,
+			String metricsPath) {
+		messageDispatcher.setMetrics(metrics);
+		this.metricsPath = metricsPath;
+		return this;
+	}
+
+	/**
+	 * 开启访问日志:按比例采样,不输出用户的openid与回复内容
+	 * 
+	 * @param sampleRate
+	 *            采样比例,0到1之间
+	 * @return
+	 * @see #accessLog(WeixinAccessLog)
+	 */
+	public WeixinServerBootstrap accessLog(double sampleRate) {
+		return accessLog(new WeixinAccessLog(sampleRate, false));
+	}
+
+	/**
+	 * 开启访问日志:每条被采样的回复输出一行key=value格式的日志,日志名称为
+	 * {@link WeixinAccessLog#LOGGER_NAME},可以单独配置级别与异步appender
+	 * 
+	 * @param accessLog
+	 *            访问日志
+	 * @return
+	 * @see com.foxinmy.weixin4j.logging.WeixinAccessLog
+	 */
+	public WeixinServerBootstrap accessLog(WeixinAccessLog accessLog) {
+		this.accessLog = accessLog;
+		return this;
+	}
+
 	/**
 	 * 注册消息类型
 	 * 
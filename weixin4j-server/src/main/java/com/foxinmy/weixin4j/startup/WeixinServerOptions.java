@@ -0,0 +1,276 @@
+package com.foxinmy.weixin4j.startup;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+/**
+ * 服务的网络参数:传输方式、内存分配器以及socket选项
+ *
+ * @className WeixinServerOptions
+ * @author jy
+ * @date 2015年7月1日
+ * @since JDK 1.7
+ * @see WeixinServerBootstrap#serverOptions(WeixinServerOptions)
+ */
+public class WeixinServerOptions {
+
+	/**
+	 * 默认的连接等待队列长度
+	 */
+	public final static int DEFAULT_BACKLOG = 1024;
+	/**
+	 * 默认的写缓冲区低水位(字节)
+	 */
+	public final static int DEFAULT_WRITE_BUFFER_LOW_WATER_MARK = 32 * 1024;
+	/**
+	 * 默认的写缓冲区高水位(字节)
+	 */
+	public final static int DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK = 64 * 1024;
+	/**
+	 * 默认的请求行最大长度(字节),签名参数都在URI上
+	 */
+	public final static int DEFAULT_MAX_INITIAL_LINE_LENGTH = 4096;
+	/**
+	 * 默认的请求头最大长度(字节)
+	 */
+	public final static int DEFAULT_MAX_HEADER_SIZE = 8192;
+	/**
+	 * 默认的请求体最大长度(字节)
+	 */
+	public final static int DEFAULT_MAX_CONTENT_LENGTH = 64 * 1024;
+
+	/**
+	 * 是否优先使用linux下的epoll,不可用时回退到NIO
+	 */
+	private boolean nativeTransport = true;
+	/**
+	 * 缓冲区分配器
+	 */
+	private ByteBufAllocator allocator = PooledByteBufAllocator.DEFAULT;
+	private int backlog = DEFAULT_BACKLOG;
+	private boolean tcpNoDelay = true;
+	/**
+	 * 是否开启SO_REUSEPORT,仅epoll下有效
+	 */
+	private boolean reusePort;
+	/**
+	 * 绑定同一端口的acceptor数量,开启SO_REUSEPORT时由内核在它们之间分配新连接
+	 */
+	private int acceptors = 1;
+	private int writeBufferLowWaterMark = DEFAULT_WRITE_BUFFER_LOW_WATER_MARK;
+	private int writeBufferHighWaterMark = DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK;
+	private int maxInitialLineLength = DEFAULT_MAX_INITIAL_LINE_LENGTH;
+	private int maxHeaderSize = DEFAULT_MAX_HEADER_SIZE;
+	private int maxContentLength = DEFAULT_MAX_CONTENT_LENGTH;
+
+	/**
+	 * 是否优先使用epoll
+	 *
+	 * @param nativeTransport
+	 *            为true时在epoll可用的情况下使用epoll,否则使用NIO
+	 * @return
+	 */
+	public WeixinServerOptions nativeTransport(boolean nativeTransport) {
+		this.nativeTransport = nativeTransport;
+		return this;
+	}
+
+	/**
+	 * 缓冲区分配器,默认为池化的分配器
+	 *
+	 * @param allocator
+	 *            如PooledByteBufAllocator.DEFAULT、UnpooledByteBufAllocator.DEFAULT
+	 * @return
+	 */
+	public WeixinServerOptions allocator(ByteBufAllocator allocator) {
+		this.allocator = allocator;
+		return this;
+	}
+
+	/**
+	 * SO_BACKLOG
+	 *
+	 * @param backlog
+	 *            连接等待队列长度
+	 * @return
+	 */
+	public WeixinServerOptions backlog(int backlog) {
+		this.backlog = backlog;
+		return this;
+	}
+
+	/**
+	 * TCP_NODELAY,默认开启
+	 *
+	 * @param tcpNoDelay
+	 * @return
+	 */
+	public WeixinServerOptions tcpNoDelay(boolean tcpNoDelay) {
+		this.tcpNoDelay = tcpNoDelay;
+		return this;
+	}
+
+	/**
+	 * 开启SO_REUSEPORT,在同一端口上绑定多个acceptor;仅epoll可用时生效,否则只绑定一个
+	 *
+	 * @param acceptors
+	 *            acceptor的数量
+	 * @return
+	 */
+	public WeixinServerOptions reusePort(int acceptors) {
+		if (acceptors < 1) {
+			throw new IllegalArgumentException("acceptors must be positive");
+		}
+		this.reusePort = true;
+		this.acceptors = acceptors;
+		return this;
+	}
+
+	/**
+	 * 写缓冲区的水位,超过高水位时channel不可写,回落到低水位以下时恢复
+	 *
+	 * @param low
+	 *            低水位(字节)
+	 * @param high
+	 *            高水位(字节)
+	 * @return
+	 */
+	public WeixinServerOptions writeBufferWaterMark(int low, int high) {
+		if (low < 0 || high < low) {
+			throw new IllegalArgumentException("write buffer water mark: low="
+					+ low + ", high=" + high);
+		}
+		this.writeBufferLowWaterMark = low;
+		this.writeBufferHighWaterMark = high;
+		return this;
+	}
+
+	/**
+	 * 请求的长度限制:超过请求行或请求头的限制时响应400,Content-Length超过请求体的限制时在读取请求体之前响应413
+	 *
+	 * @param maxInitialLineLength
+	 *            请求行最大长度(字节)
+	 * @param maxHeaderSize
+	 *            请求头最大长度(字节)
+	 * @param maxContentLength
+	 *            请求体最大长度(字节)
+	 * @return
+	 */
+	public WeixinServerOptions requestLimits(int maxInitialLineLength,
+			int maxHeaderSize, int maxContentLength) {
+		if (maxInitialLineLength <= 0 || maxHeaderSize <= 0
+				|| maxContentLength <= 0) {
+			throw new IllegalArgumentException("request limits: initialLine="
+					+ maxInitialLineLength + ", header=" + maxHeaderSize
+					+ ", content=" + maxContentLength);
+		}
+		this.maxInitialLineLength = maxInitialLineLength;
+		this.maxHeaderSize = maxHeaderSize;
+		this.maxContentLength = maxContentLength;
+		return this;
+	}
+
+	/**
+	 * 是否实际使用epoll
+	 *
+	 * @return
+	 */
+	public boolean isEpoll() {
+		return nativeTransport && Epoll.isAvailable();
+	}
+
+	/**
+	 * 是否实际开启了SO_REUSEPORT
+	 *
+	 * @return
+	 */
+	public boolean isReusePort() {
+		return reusePort && isEpoll();
+	}
+
+	/**
+	 * 实际绑定的acceptor数量
+	 *
+	 * @return
+	 */
+	public int getAcceptors() {
+		return isReusePort() ? acceptors : 1;
+	}
+
+	public ByteBufAllocator getAllocator() {
+		return allocator;
+	}
+
+	public int getBacklog() {
+		return backlog;
+	}
+
+	public boolean isTcpNoDelay() {
+		return tcpNoDelay;
+	}
+
+	public int getWriteBufferLowWaterMark() {
+		return writeBufferLowWaterMark;
+	}
+
+	public int getWriteBufferHighWaterMark() {
+		return writeBufferHighWaterMark;
+	}
+
+	public int getMaxInitialLineLength() {
+		return maxInitialLineLength;
+	}
+
+	public int getMaxHeaderSize() {
+		return maxHeaderSize;
+	}
+
+	public int getMaxContentLength() {
+		return maxContentLength;
+	}
+
+	/**
+	 * 按传输方式创建线程组
+	 *
+	 * @param threads
+	 *            线程数
+	 * @param poolName
+	 *            线程名前缀
+	 * @return
+	 */
+	EventLoopGroup newEventLoopGroup(int threads, String poolName) {
+		DefaultThreadFactory threadFactory = new DefaultThreadFactory(poolName);
+		return isEpoll() ? new EpollEventLoopGroup(threads, threadFactory)
+				: new NioEventLoopGroup(threads, threadFactory);
+	}
+
+	/**
+	 * 按传输方式选择服务端channel
+	 *
+	 * @return
+	 */
+	Class<? extends ServerChannel> serverChannelClass() {
+		return isEpoll() ? EpollServerSocketChannel.class
+				: NioServerSocketChannel.class;
+	}
+
+	@Override
+	public String toString() {
+		return "WeixinServerOptions [transport=" + (isEpoll() ? "epoll" : "nio")
+				+ ", allocator=" + allocator.getClass().getSimpleName()
+				+ ", backlog=" + backlog + ", tcpNoDelay=" + tcpNoDelay
+				+ ", reusePort=" + isReusePort() + ", acceptors="
+				+ getAcceptors() + ", writeBufferWaterMark="
+				+ writeBufferLowWaterMark + "/" + writeBufferHighWaterMark
+				+ ", requestLimits=" + maxInitialLineLength + "/"
+				+ maxHeaderSize + "/" + maxContentLength + "]";
+	}
+}
@@ -0,0 +1,85 @@
+package com.foxinmy.weixin4j.tenant;
+
+import com.foxinmy.weixin4j.dispatcher.WeixinMessageDispatcher;
+import com.foxinmy.weixin4j.util.AesToken;
+
+/**
+ * 多账号模式下的一个公众号:自己的AesToken以及消息分发器(匹配器、处理器、拦截器),
+ * 按URI路径或者消息的ToUserName路由到它
+ * 
+ * @className WeixinTenant
+ * @author jy
+ * @date 2015年7月3日
+ * @since JDK 1.7
+ * @see WeixinTenantRouter
+ * @see com.foxinmy.weixin4j.startup.WeixinServerBootstrap#addTenant(WeixinTenant)
+ */
+public class WeixinTenant {
+
+	private final AesToken aesToken;
+	private final WeixinMessageDispatcher messageDispatcher;
+	/**
+	 * 回调地址的路径,如/gh_22b350df957b
+	 */
+	private String path;
+	/**
+	 * 公众号的原始ID,即消息的ToUserName
+	 */
+	private String toUserName;
+
+	public WeixinTenant(AesToken aesToken,
+			WeixinMessageDispatcher messageDispatcher) {
+		if (aesToken == null || messageDispatcher == null) {
+			throw new IllegalArgumentException(
+					"AesToken and messageDispatcher not be null.");
+		}
+		this.aesToken = aesToken;
+		this.messageDispatcher = messageDispatcher;
+	}
+
+	/**
+	 * 按URI路径路由
+	 * 
+	 * @param path
+	 *            回调地址的路径
+	 * @return
+	 */
+	public WeixinTenant path(String path) {
+		this.path = path;
+		return this;
+	}
+
+	/**
+	 * 按消息的ToUserName路由,用于所有公众号共用同一个回调地址的情况
+	 * 
+	 * @param toUserName
+	 *            公众号的原始ID
+	 * @return
+	 */
+	public WeixinTenant toUserName(String toUserName) {
+		this.toUserName = toUserName;
+		return this;
+	}
+
+	public AesToken getAesToken() {
+		return aesToken;
+	}
+
+	public WeixinMessageDispatcher getMessageDispatcher() {
+		return messageDispatcher;
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	public String getToUserName() {
+		return toUserName;
+	}
+
+	@Override
+	public String toString() {
+		return "WeixinTenant [appid=" + aesToken.getAppid() + ", path=" + path
+				+ ", toUserName=" + toUserName + "]";
+	}
+}
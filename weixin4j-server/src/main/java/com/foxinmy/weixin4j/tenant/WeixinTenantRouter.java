@@ -0,0 +1,119 @@
+package com.foxinmy.weixin4j.tenant;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按URI路径或者消息的ToUserName找到请求所属的公众号,都未匹配时使用默认的公众号;
+ * 服务启动前注册完毕,启动后只读
+ * 
+ * @className WeixinTenantRouter
+ * @author jy
+ * @date 2015年7月3日
+ * @since JDK 1.7
+ * @see WeixinTenant
+ */
+public class WeixinTenantRouter {
+
+	private final WeixinTenant defaultTenant;
+	private final Map<String, WeixinTenant> pathTenants;
+	private final Map<String, WeixinTenant> userNameTenants;
+
+	/**
+	 * 
+	 * @param defaultTenant
+	 *            未匹配时使用的公众号
+	 */
+	public WeixinTenantRouter(WeixinTenant defaultTenant) {
+		this.defaultTenant = defaultTenant;
+		this.pathTenants = new HashMap<String, WeixinTenant>();
+		this.userNameTenants = new HashMap<String, WeixinTenant>();
+	}
+
+	/**
+	 * 注册公众号,路径与原始ID都不能重复
+	 * 
+	 * @param tenant
+	 *            公众号
+	 */
+	public void register(WeixinTenant tenant) {
+		if (tenant.getPath() == null && tenant.getToUserName() == null) {
+			throw new IllegalArgumentException(tenant
+					+ " has neither path nor toUserName");
+		}
+		if (tenant.getPath() != null) {
+			String path = normalizePath(tenant.getPath());
+			if (pathTenants.containsKey(path)) {
+				throw new IllegalArgumentException("duplicate tenant path:"
+						+ path);
+			}
+			pathTenants.put(path, tenant);
+		}
+		if (tenant.getToUserName() != null) {
+			if (userNameTenants.containsKey(tenant.getToUserName())) {
+				throw new IllegalArgumentException(
+						"duplicate tenant toUserName:" + tenant.getToUserName());
+			}
+			userNameTenants.put(tenant.getToUserName(), tenant);
+		}
+	}
+
+	/**
+	 * 按路径查找
+	 * 
+	 * @param path
+	 *            URI路径
+	 * @return 未匹配时返回null
+	 */
+	public WeixinTenant routePath(String path) {
+		if (pathTenants.isEmpty() || path == null) {
+			return null;
+		}
+		return pathTenants.get(normalizePath(path));
+	}
+
+	/**
+	 * 按消息的ToUserName查找
+	 * 
+	 * @param toUserName
+	 *            公众号的原始ID
+	 * @return 未匹配时返回默认的公众号
+	 */
+	public WeixinTenant routeUserName(String toUserName) {
+		WeixinTenant tenant = toUserName != null ? userNameTenants
+				.get(toUserName) : null;
+		return tenant != null ? tenant : defaultTenant;
+	}
+
+	public WeixinTenant getDefaultTenant() {
+		return defaultTenant;
+	}
+
+	/**
+	 * 所有的公众号,包括默认的
+	 * 
+	 * @return
+	 */
+	public Collection<WeixinTenant> getTenants() {
+		Set<WeixinTenant> tenants = new LinkedHashSet<WeixinTenant>();
+		tenants.add(defaultTenant);
+		tenants.addAll(pathTenants.values());
+		tenants.addAll(userNameTenants.values());
+		return tenants;
+	}
+
+	private static String normalizePath(String path) {
+		if (path.isEmpty()) {
+			return "/";
+		}
+		int length = path.length();
+		while (length > 1 && path.charAt(length - 1) == '/') {
+			length--;
+		}
+		return path.charAt(0) == '/' ? path.substring(0, length) : "/"
+				+ path.substring(0, length);
+	}
+}
@@ -0,0 +1,184 @@
+package com.foxinmy.weixin4j.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import javax.xml.bind.DatatypeConverter;
+
+import com.foxinmy.weixin4j.exception.WeixinException;
+
+/**
+ * 安全模式下的消息加解密:密钥与向量只在创建时解码一次,每个线程复用各自的Cipher,明文直接在字节数组上原地加解密
+ *
+ * @className AesCrypto
+ * @author jy
+ * @date 2015年6月29日
+ * @since JDK 1.7
+ * @see AesToken#getCrypto()
+ * @see <a
+ *      href="http://mp.weixin.qq.com/wiki/0/61c3a8b9d50ac74f18bdf2e54ddfc4e0.html">加密接入指引</a>
+ */
+public final class AesCrypto {
+
+	private static final String TRANSFORMATION = "AES/CBC/NoPadding";
+	private static final byte[] RANDOM_CHAR = StringUtil
+			.getBytesUtf8("0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ");
+	private static final int RANDOM_LENGTH = 16;
+	/**
+	 * 随机串与消息长度所占的字节
+	 */
+	private static final int HEAD_LENGTH = RANDOM_LENGTH + 4;
+	private static final int BLOCK_SIZE = 32;
+
+	private final byte[] appidBytes;
+	private final SecretKeySpec keySpec;
+	private final IvParameterSpec iv;
+
+	private final FastThreadLocal<Cipher> encryptCipher = new FastThreadLocal<Cipher>() {
+		@Override
+		protected Cipher initialValue() throws GeneralSecurityException {
+			return newCipher(Cipher.ENCRYPT_MODE);
+		}
+	};
+	private final FastThreadLocal<Cipher> decryptCipher = new FastThreadLocal<Cipher>() {
+		@Override
+		protected Cipher initialValue() throws GeneralSecurityException {
+			return newCipher(Cipher.DECRYPT_MODE);
+		}
+	};
+
+	/**
+	 *
+	 * @param appid
+	 *            账号ID
+	 * @param encodingAesKey
+	 *            43位的加密密钥
+	 */
+	public AesCrypto(String appid, String encodingAesKey) {
+		byte[] aesKey = DatatypeConverter.parseBase64Binary(encodingAesKey
+				+ "=");
+		if (aesKey.length != 32) {
+			throw new IllegalArgumentException("invalid EncodingAESKey:"
+					+ encodingAesKey);
+		}
+		this.appidBytes = StringUtil.getBytesUtf8(appid);
+		this.keySpec = new SecretKeySpec(aesKey, Consts.AES);
+		this.iv = new IvParameterSpec(aesKey, 0, 16);
+	}
+
+	private Cipher newCipher(int mode) throws GeneralSecurityException {
+		Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+		cipher.init(mode, keySpec, iv);
+		return cipher;
+	}
+
+	/**
+	 * 加密消息:random(16) + length(4) + xml + appid + pad
+	 *
+	 * @param xml
+	 *            明文消息,读取可读部分但不移动readerIndex
+	 * @return BASE64编码的密文
+	 * @throws WeixinException
+	 */
+	public String encrypt(ByteBuf xml) throws WeixinException {
+		int xmlLength = xml.readableBytes();
+		int length = HEAD_LENGTH + xmlLength + appidBytes.length;
+		int pad = BLOCK_SIZE - (length % BLOCK_SIZE);
+		byte[] bytes = new byte[length + pad];
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		for (int i = 0; i < RANDOM_LENGTH; i++) {
+			bytes[i] = RANDOM_CHAR[random.nextInt(RANDOM_CHAR.length)];
+		}
+		bytes[16] = (byte) (xmlLength >> 24);
+		bytes[17] = (byte) (xmlLength >> 16);
+		bytes[18] = (byte) (xmlLength >> 8);
+		bytes[19] = (byte) xmlLength;
+		xml.getBytes(xml.readerIndex(), bytes, HEAD_LENGTH, xmlLength);
+		System.arraycopy(appidBytes, 0, bytes, HEAD_LENGTH + xmlLength,
+				appidBytes.length);
+		for (int i = length; i < bytes.length; i++) {
+			bytes[i] = (byte) pad;
+		}
+		try {
+			encryptCipher.get().doFinal(bytes, 0, bytes.length, bytes, 0);
+		} catch (GeneralSecurityException e) {
+			encryptCipher.remove();
+			throw new WeixinException("-40006", "AES加密失败:" + e.getMessage());
+		}
+		return DatatypeConverter.printBase64Binary(bytes);
+	}
+
+	/**
+	 * 解密消息并校验appid
+	 *
+	 * @param encryptContent
+	 *            BASE64编码的密文
+	 * @return 明文消息,包装在解密后的字节数组上,没有额外的复制
+	 * @throws WeixinException
+	 */
+	public ByteBuf decrypt(String encryptContent) throws WeixinException {
+		byte[] bytes;
+		try {
+			bytes = DatatypeConverter.parseBase64Binary(encryptContent);
+			if (bytes.length < BLOCK_SIZE || bytes.length % 16 != 0) {
+				throw new IllegalArgumentException("Input length "
+						+ bytes.length + " not multiple of 16 bytes");
+			}
+			decryptCipher.get().doFinal(bytes, 0, bytes.length, bytes, 0);
+		} catch (IllegalArgumentException e) {
+			throw new WeixinException("-40007", "AES解密失败" + e.getMessage());
+		} catch (GeneralSecurityException e) {
+			// 出错后Cipher的状态不确定,下次重新创建
+			decryptCipher.remove();
+			throw new WeixinException("-40007", "AES解密失败" + e.getMessage());
+		}
+		// 去除补位字符
+		int end = bytes.length;
+		int pad = bytes[end - 1];
+		if (pad >= 1 && pad <= BLOCK_SIZE) {
+			end -= pad;
+		}
+		int xmlLength = (bytes[16] & 0xff) << 24 | (bytes[17] & 0xff) << 16
+				| (bytes[18] & 0xff) << 8 | bytes[19] & 0xff;
+		if (xmlLength < 0 || HEAD_LENGTH + xmlLength > end) {
+			throw new WeixinException("-40008", "公众平台发送的xml不合法,length="
+					+ xmlLength);
+		}
+		// 校验appId是否一致
+		if (!appidEquals(bytes, HEAD_LENGTH + xmlLength, end)) {
+			throw new WeixinException("-40005", "校验AppID失败,expect "
+					+ StringUtil.newStringUtf8(appidBytes)
+					+ ",but actual is "
+					+ StringUtil.newStringUtf8(Arrays.copyOfRange(
+							bytes, HEAD_LENGTH + xmlLength, end)));
+		}
+		return Unpooled.wrappedBuffer(bytes, HEAD_LENGTH, xmlLength);
+	}
+
+	private boolean appidEquals(byte[] bytes, int start, int end) {
+		// 与原来的实现一致忽略首尾的空白
+		while (start < end && bytes[start] <= ' ') {
+			start++;
+		}
+		while (end > start && bytes[end - 1] <= ' ') {
+			end--;
+		}
+		if (end - start != appidBytes.length) {
+			return false;
+		}
+		for (int i = 0; i < appidBytes.length; i++) {
+			if (bytes[start + i] != appidBytes[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
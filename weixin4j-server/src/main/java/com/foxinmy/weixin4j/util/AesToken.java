@@ -27,6 +27,14 @@ public class AesToken implements Serializable {
 	 * 安全模式下的加密密钥
 	 */
 	private String aesKey;
+	/**
+	 * 由aesKey派生的加解密引擎
+	 */
+	private transient volatile AesCrypto crypto;
+	/**
+	 * 由token创建的签名校验器
+	 */
+	private transient volatile SignatureVerifier verifier;
 
 	public AesToken(String token) {
 		this.token = token;
@@ -49,4 +57,30 @@ public class AesToken implements Serializable {
 	public String getAesKey() {
 		return aesKey;
 	}
+
+	/**
+	 * 获取安全模式下的加解密引擎,首次调用时创建
+	 * 
+	 * @return 加解密引擎
+	 */
+	public AesCrypto getCrypto() {
+		AesCrypto crypto = this.crypto;
+		if (crypto == null) {
+			this.crypto = crypto = new AesCrypto(appid, aesKey);
+		}
+		return crypto;
+	}
+
+	/**
+	 * 获取签名校验器,首次调用时创建
+	 * 
+	 * @return 签名校验器
+	 */
+	public SignatureVerifier getVerifier() {
+		SignatureVerifier verifier = this.verifier;
+		if (verifier == null) {
+			this.verifier = verifier = new SignatureVerifier(token);
+		}
+		return verifier;
+	}
 }
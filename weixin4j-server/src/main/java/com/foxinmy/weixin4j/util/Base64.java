@@ -15,30 +15,29 @@ import io.netty.buffer.Unpooled;
 public final class Base64 {
 
 	private static byte[] byteBuf2Array(ByteBuf byteBuf) {
-		if (byteBuf.hasArray()) {
-			return byteBuf.array();
-		} else {
+		try {
+			// 底层数组可能比可读部分长,只取可读的字节
 			byte[] desArray = new byte[byteBuf.readableBytes()];
 			byteBuf.readBytes(desArray);
 			return desArray;
+		} finally {
+			byteBuf.release();
 		}
 	}
 
 	public static byte[] decodeBase64(final String content) {
-		byte[] data = StringUtil.getBytesUtf8(content);
 		ByteBuf des = io.netty.handler.codec.base64.Base64.decode(Unpooled
-				.copiedBuffer(data));
+				.wrappedBuffer(StringUtil.getBytesUtf8(content)));
 		return byteBuf2Array(des);
 	}
 
 	public static byte[] encodeBase64(final byte[] bytes) {
-		ByteBuf des = io.netty.handler.codec.base64.Base64.encode(Unpooled
-				.copiedBuffer(bytes));
+		ByteBuf des = io.netty.handler.codec.base64.Base64.encode(
+				Unpooled.wrappedBuffer(bytes), false);
 		return byteBuf2Array(des);
 	}
 
 	public static String encodeBase64String(final byte[] bytes) {
-		byte[] data = encodeBase64(bytes);
-		return HexUtil.encodeHexString(data);
+		return StringUtil.newStringUtf8(encodeBase64(bytes));
 	}
 }
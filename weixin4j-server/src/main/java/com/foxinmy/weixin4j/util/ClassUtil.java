@@ -38,6 +38,21 @@ public final class ClassUtil {
 		String packageFileName = packageName.replace(".", File.separator);
 		URL fullPath = Thread.currentThread().getContextClassLoader()
 				.getResource(packageFileName);
+		return getClasses(fullPath, packageName);
+	}
+
+	/**
+	 * 获取某个classpath路径中包下所有的class信息
+	 * 
+	 * @param fullPath
+	 *            包在classpath中的路径,如ClassLoader#getResources返回的URL
+	 * @param packageName
+	 *            包名
+	 * @return
+	 */
+	public static List<Class<?>> getClasses(URL fullPath, String packageName)
+			throws RuntimeException {
+		String packageFileName = packageName.replace(".", File.separator);
 		String protocol = fullPath.getProtocol();
 		if (protocol.equals(Consts.PROTOCOL_FILE)) {
 			File dir = new File(fullPath.getPath());
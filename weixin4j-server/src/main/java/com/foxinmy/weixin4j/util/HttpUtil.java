@@ -7,6 +7,7 @@ import static io.netty.handler.codec.http.HttpHeaders.Names.DATE;
 import static io.netty.handler.codec.http.HttpHeaders.Names.SERVER;
 import static io.netty.handler.codec.http.HttpResponseStatus.OK;
 import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.FullHttpResponse;
@@ -32,6 +33,24 @@ public class HttpUtil {
 		if (content == null) {
 			content = "";
 		}
+		return createBufferHttpResponse(
+				Unpooled.copiedBuffer(content, Consts.UTF_8), status,
+				contentType);
+	}
+
+	/**
+	 * 以字节缓冲区作为响应体创建响应,Content-Length取缓冲区的可读字节数
+	 * 
+	 * @param content
+	 *            响应体,由响应负责释放
+	 * @param status
+	 *            响应状态
+	 * @param contentType
+	 *            内容类型
+	 * @return
+	 */
+	public static FullHttpResponse createBufferHttpResponse(ByteBuf content,
+			HttpResponseStatus status, String contentType) {
 		if (StringUtil.isBlank(contentType)) {
 			contentType = Consts.CONTENTTYPE$TEXT_PLAIN;
 		}
@@ -39,13 +58,10 @@ public class HttpUtil {
 			status = OK;
 		}
 		FullHttpResponse httpResponse = new DefaultFullHttpResponse(HTTP_1_1,
-				status, Unpooled.copiedBuffer(content, Consts.UTF_8));
-		httpResponse.headers().set(
-				CONTENT_TYPE,
-				String.format("%s;encoding=%s", contentType,
-						Consts.UTF_8.displayName()));
-		httpResponse.headers().set(CONTENT_LENGTH,
-				content.getBytes(Consts.UTF_8).length);
+				status, content);
+		httpResponse.headers().set(CONTENT_TYPE,
+				contentType + ";encoding=" + Consts.UTF_8.displayName());
+		httpResponse.headers().set(CONTENT_LENGTH, content.readableBytes());
 		httpResponse.headers().set(CONNECTION, Values.KEEP_ALIVE);
 		httpResponse.headers().set(DATE, new Date());
 		httpResponse.headers().set(SERVER, "netty4");
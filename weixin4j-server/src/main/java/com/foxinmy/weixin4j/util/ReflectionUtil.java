@@ -225,4 +225,12 @@ public class ReflectionUtil {
 			ctor.setAccessible(true);
 		}
 	}
+
+	public static void makeAccessible(Field field) {
+		if ((!Modifier.isPublic(field.getModifiers())
+				|| !Modifier.isPublic(field.getDeclaringClass().getModifiers()) || Modifier
+					.isFinal(field.getModifiers())) && !field.isAccessible()) {
+			field.setAccessible(true);
+		}
+	}
 }
@@ -0,0 +1,170 @@
+package com.foxinmy.weixin4j.util;
+
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 消息签名的校验与生成,结果与{@link MessageUtil#signature(String...)}一致
+ * <p>
+ * 每个线程复用各自的MessageDigest与缓冲区,各部分排序后直接写入摘要而不拼接字符串,
+ * 校验时把摘要与请求中的十六进制签名逐位比较,比较时间与签名的内容无关
+ * </p>
+ *
+ * @className SignatureVerifier
+ * @author jy
+ * @date 2015年7月5日
+ * @since JDK 1.7
+ * @see AesToken#getVerifier()
+ */
+public final class SignatureVerifier {
+
+	private static final char[] DIGITS_LOWER = { '0', '1', '2', '3', '4', '5',
+			'6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f' };
+	private static final int DIGEST_LENGTH = 20;
+
+	private static final FastThreadLocal<Sha1> SHA1 = new FastThreadLocal<Sha1>() {
+		@Override
+		protected Sha1 initialValue() throws NoSuchAlgorithmException {
+			return new Sha1();
+		}
+	};
+
+	private final String token;
+
+	public SignatureVerifier(String token) {
+		this.token = token;
+	}
+
+	/**
+	 * 校验signature
+	 *
+	 * @param signature
+	 *            请求中的签名
+	 * @param timestamp
+	 *            时间戳
+	 * @param nonce
+	 *            随机数
+	 * @return 签名是否一致
+	 */
+	public boolean verify(String signature, String timestamp, String nonce) {
+		return verify(signature, timestamp, nonce, null);
+	}
+
+	/**
+	 * 校验安全模式下的msg_signature
+	 *
+	 * @param signature
+	 *            请求中的签名
+	 * @param timestamp
+	 *            时间戳
+	 * @param nonce
+	 *            随机数
+	 * @param encrypt
+	 *            密文,为null时只对token、timestamp与nonce签名
+	 * @return 签名是否一致
+	 */
+	public boolean verify(String signature, String timestamp, String nonce,
+			String encrypt) {
+		if (signature == null || signature.length() != DIGEST_LENGTH * 2
+				|| timestamp == null || nonce == null) {
+			return false;
+		}
+		Sha1 sha1 = SHA1.get();
+		byte[] digest = sha1.digest(token, timestamp, nonce, encrypt);
+		int diff = 0;
+		for (int i = 0; i < DIGEST_LENGTH; i++) {
+			diff |= DIGITS_LOWER[(digest[i] >>> 4) & 0x0f]
+					^ signature.charAt(2 * i);
+			diff |= DIGITS_LOWER[digest[i] & 0x0f] ^ signature.charAt(2 * i + 1);
+		}
+		return diff == 0;
+	}
+
+	/**
+	 * 生成签名
+	 *
+	 * @param timestamp
+	 *            时间戳
+	 * @param nonce
+	 *            随机数
+	 * @param encrypt
+	 *            密文,为null时只对token、timestamp与nonce签名
+	 * @return 小写的十六进制签名
+	 */
+	public String sign(String timestamp, String nonce, String encrypt) {
+		return HexUtil.encodeHexString(SHA1.get().digest(token, timestamp,
+				nonce, encrypt));
+	}
+
+	/**
+	 * 线程私有的摘要状态
+	 */
+	private static final class Sha1 {
+		private final MessageDigest messageDigest;
+		private final byte[] buffer = new byte[1024];
+		private final byte[] digest = new byte[DIGEST_LENGTH];
+		private final String[] parts = new String[4];
+
+		Sha1() throws NoSuchAlgorithmException {
+			this.messageDigest = MessageDigest.getInstance(Consts.SHA1);
+		}
+
+		byte[] digest(String token, String timestamp, String nonce,
+				String encrypt) {
+			parts[0] = token;
+			parts[1] = timestamp;
+			parts[2] = nonce;
+			int count = 3;
+			if (encrypt != null) {
+				parts[count++] = encrypt;
+			}
+			// 插入排序,与Arrays.sort的字典序一致
+			for (int i = 1; i < count; i++) {
+				String part = parts[i];
+				int j = i - 1;
+				while (j >= 0 && parts[j].compareTo(part) > 0) {
+					parts[j + 1] = parts[j];
+					j--;
+				}
+				parts[j + 1] = part;
+			}
+			try {
+				for (int i = 0; i < count; i++) {
+					update(parts[i]);
+					parts[i] = null;
+				}
+				messageDigest.digest(digest, 0, DIGEST_LENGTH);
+			} catch (DigestException e) {
+				messageDigest.reset();
+				throw new IllegalStateException(e);
+			}
+			return digest;
+		}
+
+		/**
+		 * ASCII字符直接写入缓冲区,遇到非ASCII字符时其余部分按UTF-8编码
+		 */
+		private void update(String part) {
+			int length = part.length();
+			int position = 0;
+			for (int i = 0; i < length; i++) {
+				char c = part.charAt(i);
+				if (c >= 0x80) {
+					messageDigest.update(buffer, 0, position);
+					messageDigest.update(StringUtil.getBytesUtf8(part
+							.substring(i)));
+					return;
+				}
+				if (position == buffer.length) {
+					messageDigest.update(buffer, 0, position);
+					position = 0;
+				}
+				buffer[position++] = (byte) c;
+			}
+			messageDigest.update(buffer, 0, position);
+		}
+	}
+}
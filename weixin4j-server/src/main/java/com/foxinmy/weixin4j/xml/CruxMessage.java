@@ -0,0 +1,90 @@
+package com.foxinmy.weixin4j.xml;
+
+import java.io.Serializable;
+
+import com.foxinmy.weixin4j.type.AccountType;
+import com.foxinmy.weixin4j.util.StringUtil;
+
+/**
+ * 微信消息的关键信息
+ *
+ * @className CruxMessage
+ * @author jy
+ * @date 2015年6月22日
+ * @since JDK 1.7
+ * @see CruxMessageReader
+ */
+public class CruxMessage implements Serializable {
+
+	private static final long serialVersionUID = 2386547712916237412L;
+
+	/**
+	 * 开发者微信号
+	 */
+	private final String toUserName;
+	/**
+	 * 发送方账号 即用户的openid
+	 */
+	private final String fromUserName;
+	/**
+	 * 消息类型(小写)
+	 */
+	private final String msgType;
+	/**
+	 * 事件类型(小写)
+	 */
+	private final String eventType;
+	/**
+	 * 企业号独有的应用ID
+	 */
+	private final String agentId;
+	/**
+	 * 密文主体(AES时存在)
+	 */
+	private final String encryptContent;
+
+	public CruxMessage(String toUserName, String fromUserName, String msgType,
+			String eventType, String agentId, String encryptContent) {
+		this.toUserName = toUserName;
+		this.fromUserName = fromUserName;
+		this.msgType = msgType;
+		this.eventType = eventType;
+		this.agentId = agentId;
+		this.encryptContent = encryptContent;
+	}
+
+	public AccountType getAccountType() {
+		return StringUtil.isBlank(agentId) ? AccountType.MP : AccountType.QY;
+	}
+
+	public String getToUserName() {
+		return toUserName;
+	}
+
+	public String getFromUserName() {
+		return fromUserName;
+	}
+
+	public String getMsgType() {
+		return msgType;
+	}
+
+	public String getEventType() {
+		return eventType;
+	}
+
+	public String getAgentId() {
+		return agentId;
+	}
+
+	public String getEncryptContent() {
+		return encryptContent;
+	}
+
+	@Override
+	public String toString() {
+		return "CruxMessage [toUserName=" + toUserName + ", fromUserName="
+				+ fromUserName + ", msgType=" + msgType + ", eventType="
+				+ eventType + ", agentId=" + agentId + "]";
+	}
+}
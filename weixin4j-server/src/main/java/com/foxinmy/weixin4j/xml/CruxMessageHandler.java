@@ -20,8 +20,10 @@ import com.foxinmy.weixin4j.util.StringUtil;
  * @author jy
  * @date 2015年5月17日
  * @since JDK 1.7
- * @see
+ * @see CruxMessageReader
+ * @deprecated 每次解析都要构造SAX解析器并复制消息体,请使用{@link CruxMessageReader}
  */
+@Deprecated
 public class CruxMessageHandler extends DefaultHandler {
 
 	private String fromUserName;
@@ -83,13 +85,12 @@ public class CruxMessageHandler extends DefaultHandler {
 		return toUserName;
 	}
 
-	private static CruxMessageHandler global = new CruxMessageHandler();
-
 	public static CruxMessageHandler parser(String xmlContent)
 			throws RuntimeException {
+		CruxMessageHandler handler = new CruxMessageHandler();
 		try {
 			XMLReader xmlReader = XMLReaderFactory.createXMLReader();
-			xmlReader.setContentHandler(global);
+			xmlReader.setContentHandler(handler);
 			xmlReader.parse(new InputSource(new ByteArrayInputStream(xmlContent
 					.getBytes(Consts.UTF_8))));
 		} catch (IOException e) {
@@ -97,6 +98,6 @@ public class CruxMessageHandler extends DefaultHandler {
 		} catch (SAXException e) {
 			throw new RuntimeException(e);
 		}
-		return global;
+		return handler;
 	}
 }
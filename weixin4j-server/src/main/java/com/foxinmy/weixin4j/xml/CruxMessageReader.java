@@ -0,0 +1,185 @@
+package com.foxinmy.weixin4j.xml;
+
+import static com.foxinmy.weixin4j.xml.XmlScanner.GT;
+import static com.foxinmy.weixin4j.xml.XmlScanner.LT;
+import io.netty.buffer.ByteBuf;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.foxinmy.weixin4j.exception.WeixinException;
+
+/**
+ * 直接从字节缓冲区中读取微信消息的关键信息
+ * <p>
+ * 只扫描根节点下的一级节点,不构造解析器也不复制整个消息体;读取时使用的位置状态按线程复用,可以被多个线程同时调用
+ * </p>
+ *
+ * @className CruxMessageReader
+ * @author jy
+ * @date 2015年6月22日
+ * @since JDK 1.7
+ * @see CruxMessage
+ */
+public final class CruxMessageReader {
+
+	private static final int TO_USER_NAME = 0;
+	private static final int FROM_USER_NAME = 1;
+	private static final int MSG_TYPE = 2;
+	private static final int EVENT = 3;
+	private static final int AGENT_ID = 4;
+	private static final int ENCRYPT = 5;
+
+	/**
+	 * 关键节点名称(小写),下标与上面的常量对应
+	 */
+	private static final byte[][] CRUX_NAMES = {
+			XmlScanner.bytes("tousername"), XmlScanner.bytes("fromusername"),
+			XmlScanner.bytes("msgtype"), XmlScanner.bytes("event"),
+			XmlScanner.bytes("agentid"), XmlScanner.bytes("encrypt") };
+
+	/**
+	 * 每个关键节点内容在缓冲区中的起止位置
+	 */
+	private static final ThreadLocal<int[]> RANGES = new ThreadLocal<int[]>() {
+		@Override
+		protected int[] initialValue() {
+			return new int[CRUX_NAMES.length << 1];
+		}
+	};
+
+	private CruxMessageReader() {
+	}
+
+	/**
+	 * 读取消息的关键信息,不改变缓冲区的读写位置
+	 *
+	 * @param content
+	 *            xml消息体
+	 * @return 关键信息
+	 * @throws WeixinException
+	 */
+	public static CruxMessage read(ByteBuf content) throws WeixinException {
+		int[] ranges = RANGES.get();
+		Arrays.fill(ranges, -1);
+		scan(content, ranges);
+		String[] values = new String[CRUX_NAMES.length];
+		for (int i = 0; i < values.length; i++) {
+			int start = ranges[i << 1];
+			int stop = ranges[(i << 1) + 1];
+			if (start >= 0 && stop > start) {
+				values[i] = XmlScanner.text(content, start, stop);
+			}
+		}
+		return newCruxMessage(values);
+	}
+
+	/**
+	 * 从已经解析好的消息节点中读取关键信息
+	 *
+	 * @param root
+	 *            消息的根节点
+	 * @return 关键信息
+	 */
+	public static CruxMessage read(MessageNode root) {
+		String[] values = new String[CRUX_NAMES.length];
+		List<MessageNode> children = root.getChildren();
+		for (int i = 0; i < children.size(); i++) {
+			MessageNode child = children.get(i);
+			int field = match(child.getName());
+			if (field >= 0 && !child.getText().isEmpty()) {
+				values[field] = child.getText();
+			}
+		}
+		return newCruxMessage(values);
+	}
+
+	private static CruxMessage newCruxMessage(String[] values) {
+		String msgType = values[MSG_TYPE];
+		String eventType = values[EVENT];
+		return new CruxMessage(values[TO_USER_NAME], values[FROM_USER_NAME],
+				msgType != null ? msgType.toLowerCase() : null,
+				eventType != null ? eventType.toLowerCase() : null,
+				values[AGENT_ID], values[ENCRYPT]);
+	}
+
+	private static void scan(ByteBuf buf, int[] ranges) throws WeixinException {
+		final int end = buf.writerIndex();
+		int index = buf.readerIndex();
+		int depth = 0;
+		int field = -1;
+		int contentStart = -1;
+		while (index < end) {
+			int lt = buf.indexOf(index, end, LT);
+			if (lt < 0 || lt + 1 >= end) {
+				break;
+			}
+			int skipped = XmlScanner.skipMarkup(buf, lt, end);
+			if (skipped >= 0) {
+				index = skipped;
+				continue;
+			}
+			int gt = buf.indexOf(lt + 1, end, GT);
+			if (gt < 0) {
+				throw XmlScanner.malformed();
+			}
+			index = gt + 1;
+			if (buf.getByte(lt + 1) == '/') {
+				if (depth == 2) {
+					if (field >= 0) {
+						ranges[field << 1] = contentStart;
+						ranges[(field << 1) + 1] = lt;
+					}
+					field = -1;
+				}
+				depth--;
+				continue;
+			}
+			boolean empty = buf.getByte(gt - 1) == '/';
+			if (++depth == 2 && !empty) {
+				field = match(buf, lt + 1, XmlScanner.nameEnd(buf, lt + 1, gt));
+				contentStart = index;
+			}
+			if (empty) {
+				depth--;
+			}
+		}
+	}
+
+	private static int match(ByteBuf buf, int nameStart, int nameEnd) {
+		int length = nameEnd - nameStart;
+		outer: for (int i = 0; i < CRUX_NAMES.length; i++) {
+			byte[] name = CRUX_NAMES[i];
+			if (name.length != length) {
+				continue;
+			}
+			for (int j = 0; j < length; j++) {
+				byte b = buf.getByte(nameStart + j);
+				if (b >= 'A' && b <= 'Z') {
+					b += 32;
+				}
+				if (b != name[j]) {
+					continue outer;
+				}
+			}
+			return i;
+		}
+		return -1;
+	}
+
+	private static int match(String name) {
+		outer: for (int i = 0; i < CRUX_NAMES.length; i++) {
+			byte[] cruxName = CRUX_NAMES[i];
+			if (cruxName.length != name.length()) {
+				continue;
+			}
+			for (int j = 0; j < cruxName.length; j++) {
+				if (Character.toLowerCase(name.charAt(j)) != cruxName[j]) {
+					continue outer;
+				}
+			}
+			return i;
+		}
+		return -1;
+	}
+}
@@ -19,8 +19,10 @@ import com.foxinmy.weixin4j.util.Consts;
  * @author jy
  * @date 2015年5月17日
  * @since JDK 1.7
- * @see
+ * @see CruxMessageReader
+ * @deprecated 每次解析都要构造SAX解析器并复制消息体,请使用{@link CruxMessageReader}
  */
+@Deprecated
 public class EncryptMessageHandler extends DefaultHandler {
 
 	private String encryptContent;
@@ -55,9 +57,8 @@ public class EncryptMessageHandler extends DefaultHandler {
 		return encryptContent;
 	}
 
-	private final static EncryptMessageHandler messageHandler = new EncryptMessageHandler();
-
 	public static String parser(String xmlContent) throws RuntimeException {
+		EncryptMessageHandler messageHandler = new EncryptMessageHandler();
 		try {
 			XMLReader xmlReader = XMLReaderFactory.createXMLReader();
 			xmlReader.setContentHandler(messageHandler);
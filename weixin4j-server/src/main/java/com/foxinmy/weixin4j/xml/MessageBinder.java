@@ -0,0 +1,460 @@
+package com.foxinmy.weixin4j.xml;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
+import javax.xml.bind.annotation.XmlType;
+
+import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.util.ReflectionUtil;
+
+/**
+ * 将消息节点绑定到消息对象
+ * <p>
+ * 按照字段上的{@code @XmlElement}与{@code @XmlElementWrapper}注解进行绑定,与JAXB的结果保持一致;
+ * 使用了其他JAXB特性的类无法绑定,此时{@link #forClass(Class)}返回null,调用方应该回退到JAXB
+ * </p>
+ * <p>
+ * 构造方法与字段的读写在创建绑定器时一次性转换为{@code MethodHandle},绑定时不再有反射调用
+ * </p>
+ *
+ * @className MessageBinder
+ * @author jy
+ * @date 2015年6月24日
+ * @since JDK 1.7
+ * @see MessageNode
+ */
+public final class MessageBinder {
+
+	private static final String DEFAULT_NAME = "##default";
+
+	private static final MessageBinder UNSUPPORTED = new MessageBinder();
+
+	private static final ConcurrentMap<Class<?>, MessageBinder> binders = new ConcurrentHashMap<Class<?>, MessageBinder>();
+
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+	private static final MethodType CONSTRUCTOR_TYPE = MethodType
+			.methodType(Object.class);
+	private static final MethodType GETTER_TYPE = MethodType.methodType(
+			Object.class, Object.class);
+	private static final MethodType SETTER_TYPE = MethodType.methodType(
+			void.class, Object.class, Object.class);
+
+	private final Class<?> type;
+	private final MethodHandle constructor;
+	private final Map<String, FieldBinding> bindings;
+
+	private MessageBinder() {
+		this.type = null;
+		this.constructor = null;
+		this.bindings = null;
+	}
+
+	private MessageBinder(Class<?> type, MethodHandle constructor,
+			Map<String, FieldBinding> bindings) {
+		this.type = type;
+		this.constructor = constructor;
+		this.bindings = bindings;
+	}
+
+	/**
+	 * 绑定的消息类
+	 *
+	 * @return 消息类
+	 */
+	public Class<?> getType() {
+		return type;
+	}
+
+	/**
+	 * 获取类的绑定器
+	 *
+	 * @param clazz
+	 *            消息类
+	 * @return 无法绑定时返回null
+	 */
+	public static MessageBinder forClass(Class<?> clazz) {
+		MessageBinder binder = binders.get(clazz);
+		if (binder == null) {
+			binder = create(clazz, new HashMap<Class<?>, MessageBinder>());
+			binders.putIfAbsent(clazz, binder);
+		}
+		return binder == UNSUPPORTED ? null : binder;
+	}
+
+	/**
+	 * 将节点的子节点绑定到新的对象上
+	 *
+	 * @param node
+	 *            消息节点
+	 * @return 消息对象
+	 * @throws WeixinException
+	 */
+	public Object bind(MessageNode node) throws WeixinException {
+		Object target;
+		try {
+			target = (Object) constructor.invokeExact();
+		} catch (Throwable e) {
+			throw bindFail(type.getName() + " instantiate fail", e);
+		}
+		List<MessageNode> children = node.getChildren();
+		for (int i = 0; i < children.size(); i++) {
+			MessageNode child = children.get(i);
+			FieldBinding binding = bindings.get(child.getName());
+			if (binding != null) {
+				binding.bind(target, child);
+			}
+		}
+		return target;
+	}
+
+	private static WeixinException bindFail(String errorMsg, Throwable e) {
+		if (e instanceof Error) {
+			throw (Error) e;
+		}
+		return new WeixinException(errorMsg, (Exception) e);
+	}
+
+	private static MessageBinder create(Class<?> clazz,
+			Map<Class<?>, MessageBinder> creating) {
+		MessageBinder binder = binders.get(clazz);
+		if (binder != null) {
+			return binder;
+		}
+		if (creating.containsKey(clazz)) {
+			// 自引用的类型交给JAXB处理
+			return UNSUPPORTED;
+		}
+		creating.put(clazz, UNSUPPORTED);
+		if (clazz.isInterface() || clazz.isEnum()
+				|| Modifier.isAbstract(clazz.getModifiers())
+				|| (clazz.isMemberClass() && !Modifier.isStatic(clazz
+						.getModifiers()))) {
+			return UNSUPPORTED;
+		}
+		MethodHandle constructor;
+		try {
+			Constructor<?> ctor = clazz.getDeclaredConstructor();
+			ReflectionUtil.makeAccessible(ctor);
+			constructor = LOOKUP.unreflectConstructor(ctor).asType(
+					CONSTRUCTOR_TYPE);
+		} catch (NoSuchMethodException e) {
+			return UNSUPPORTED;
+		} catch (IllegalAccessException e) {
+			return UNSUPPORTED;
+		}
+		Map<String, FieldBinding> bindings = new HashMap<String, FieldBinding>();
+		for (Class<?> type = clazz; type != Object.class; type = type
+				.getSuperclass()) {
+			if (!isSupportedType(type)) {
+				return UNSUPPORTED;
+			}
+			XmlAccessorType accessorType = type
+					.getAnnotation(XmlAccessorType.class);
+			XmlAccessType accessType = accessorType != null ? accessorType
+					.value() : XmlAccessType.PUBLIC_MEMBER;
+			for (Field field : type.getDeclaredFields()) {
+				int modifiers = field.getModifiers();
+				if (Modifier.isStatic(modifiers)
+						|| Modifier.isTransient(modifiers)
+						|| field.isAnnotationPresent(XmlTransient.class)) {
+					continue;
+				}
+				XmlElement element = field.getAnnotation(XmlElement.class);
+				boolean bound = element != null
+						|| accessType == XmlAccessType.FIELD
+						|| (accessType == XmlAccessType.PUBLIC_MEMBER && Modifier
+								.isPublic(modifiers));
+				if (!bound) {
+					continue;
+				}
+				for (Annotation annotation : field.getAnnotations()) {
+					Class<? extends Annotation> annotationType = annotation
+							.annotationType();
+					if (annotationType != XmlElement.class
+							&& annotationType != XmlElementWrapper.class
+							&& annotationType.getName().startsWith(
+									"javax.xml.bind")) {
+						return UNSUPPORTED;
+					}
+				}
+				FieldBinding binding = createBinding(field, element, creating);
+				if (binding == null
+						|| bindings.put(binding.name, binding) != null) {
+					return UNSUPPORTED;
+				}
+			}
+		}
+		binder = new MessageBinder(clazz, constructor, bindings);
+		creating.put(clazz, binder);
+		return binder;
+	}
+
+	/**
+	 * 类上只允许出现不影响字段绑定的JAXB注解,并且不能有公共的属性方法
+	 */
+	private static boolean isSupportedType(Class<?> type) {
+		for (Annotation annotation : type.getDeclaredAnnotations()) {
+			Class<? extends Annotation> annotationType = annotation
+					.annotationType();
+			if (annotationType != XmlAccessorType.class
+					&& annotationType != XmlRootElement.class
+					&& annotationType != XmlType.class
+					&& annotationType.getName().startsWith("javax.xml.bind")) {
+				return false;
+			}
+		}
+		XmlAccessorType accessorType = type
+				.getAnnotation(XmlAccessorType.class);
+		if (accessorType != null
+				&& accessorType.value() == XmlAccessType.PROPERTY) {
+			return false;
+		}
+		if (accessorType == null
+				|| accessorType.value() == XmlAccessType.PUBLIC_MEMBER) {
+			// PUBLIC_MEMBER会绑定成对出现的公共getter/setter
+			for (Method method : type.getDeclaredMethods()) {
+				if (Modifier.isPublic(method.getModifiers())
+						&& !Modifier.isStatic(method.getModifiers())
+						&& method.getName().startsWith("set")
+						&& method.getParameterTypes().length == 1) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private static FieldBinding createBinding(Field field,
+			XmlElement element, Map<Class<?>, MessageBinder> creating) {
+		String name = element != null && !DEFAULT_NAME.equals(element.name()) ? element
+				.name() : field.getName();
+		XmlElementWrapper wrapper = field
+				.getAnnotation(XmlElementWrapper.class);
+		Class<?> type = field.getType();
+		if (List.class == type) {
+			Type genericType = field.getGenericType();
+			if (!(genericType instanceof ParameterizedType)) {
+				return null;
+			}
+			Type itemType = ((ParameterizedType) genericType)
+					.getActualTypeArguments()[0];
+			if (!(itemType instanceof Class)) {
+				return null;
+			}
+			ValueReader itemReader = createReader((Class<?>) itemType,
+					creating);
+			if (itemReader == null) {
+				return null;
+			}
+			if (wrapper != null) {
+				String wrapperName = DEFAULT_NAME.equals(wrapper.name()) ? field
+						.getName() : wrapper.name();
+				return FieldBinding.create(field, wrapperName, name, itemReader,
+						true);
+			}
+			return FieldBinding.create(field, name, null, itemReader, true);
+		}
+		if (wrapper != null) {
+			return null;
+		}
+		ValueReader reader = createReader(type, creating);
+		return reader != null ? FieldBinding.create(field, name, null, reader,
+				false) : null;
+	}
+
+	private static ValueReader createReader(Class<?> type,
+			Map<Class<?>, MessageBinder> creating) {
+		ValueReader reader = ValueReader.forType(type);
+		if (reader != null) {
+			return reader;
+		}
+		if (type.isPrimitive() || type.isArray()
+				|| type.getName().startsWith("java.")) {
+			return null;
+		}
+		MessageBinder binder = create(type, creating);
+		if (binder == UNSUPPORTED) {
+			return null;
+		}
+		binders.putIfAbsent(type, binder);
+		return new ValueReader(binder);
+	}
+
+	/**
+	 * 节点值的读取
+	 */
+	private static class ValueReader {
+		private final Class<?> type;
+		private final MessageBinder binder;
+
+		private ValueReader(Class<?> type) {
+			this.type = type;
+			this.binder = null;
+		}
+
+		private ValueReader(MessageBinder binder) {
+			this.type = null;
+			this.binder = binder;
+		}
+
+		static ValueReader forType(Class<?> type) {
+			if (type == String.class || type == int.class
+					|| type == Integer.class || type == long.class
+					|| type == Long.class || type == double.class
+					|| type == Double.class || type == float.class
+					|| type == Float.class || type == boolean.class
+					|| type == Boolean.class || type == short.class
+					|| type == Short.class) {
+				return new ValueReader(type);
+			}
+			return null;
+		}
+
+		/**
+		 * @return 无法转换时返回null,保留字段原来的值
+		 */
+		Object read(MessageNode node) throws WeixinException {
+			if (binder != null) {
+				return binder.bind(node);
+			}
+			String text = node.getText();
+			if (type == String.class) {
+				return text;
+			}
+			text = text.trim();
+			if (text.isEmpty()) {
+				return null;
+			}
+			try {
+				if (type == int.class || type == Integer.class) {
+					return Integer.valueOf(text);
+				}
+				if (type == long.class || type == Long.class) {
+					return Long.valueOf(text);
+				}
+				if (type == double.class || type == Double.class) {
+					return Double.valueOf(text);
+				}
+				if (type == float.class || type == Float.class) {
+					return Float.valueOf(text);
+				}
+				if (type == short.class || type == Short.class) {
+					return Short.valueOf(text);
+				}
+				if (type == boolean.class || type == Boolean.class) {
+					return "true".equals(text) || "1".equals(text);
+				}
+			} catch (NumberFormatException e) {
+				;
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * 字段的绑定
+	 */
+	private static class FieldBinding {
+		private final MethodHandle getter;
+		private final MethodHandle setter;
+		/**
+		 * 节点名称(列表有包装节点时为包装节点的名称)
+		 */
+		private final String name;
+		/**
+		 * 列表元素的节点名称
+		 */
+		private final String itemName;
+		private final ValueReader reader;
+		private final boolean list;
+
+		private FieldBinding(MethodHandle getter, MethodHandle setter,
+				String name, String itemName, ValueReader reader, boolean list) {
+			this.getter = getter;
+			this.setter = setter;
+			this.name = name;
+			this.itemName = itemName;
+			this.reader = reader;
+			this.list = list;
+		}
+
+		/**
+		 * @return 字段无法访问时返回null
+		 */
+		static FieldBinding create(Field field, String name, String itemName,
+				ValueReader reader, boolean list) {
+			ReflectionUtil.makeAccessible(field);
+			try {
+				MethodHandle getter = list ? LOOKUP.unreflectGetter(field)
+						.asType(GETTER_TYPE) : null;
+				MethodHandle setter = LOOKUP.unreflectSetter(field).asType(
+						SETTER_TYPE);
+				return new FieldBinding(getter, setter, name, itemName,
+						reader, list);
+			} catch (IllegalAccessException e) {
+				return null;
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		void bind(Object target, MessageNode node) throws WeixinException {
+			if (!list) {
+				Object value = reader.read(node);
+				if (value != null) {
+					set(target, value);
+				}
+				return;
+			}
+			List<Object> items;
+			try {
+				items = (List<Object>) (Object) getter.invokeExact(target);
+			} catch (Throwable e) {
+				throw bindFail(name + " bind fail", e);
+			}
+			if (items == null) {
+				items = new ArrayList<Object>();
+				set(target, items);
+			}
+			if (itemName == null) {
+				items.add(reader.read(node));
+				return;
+			}
+			List<MessageNode> children = node.getChildren();
+			for (int i = 0; i < children.size(); i++) {
+				MessageNode child = children.get(i);
+				if (child.getName().equals(itemName)) {
+					items.add(reader.read(child));
+				}
+			}
+		}
+
+		private void set(Object target, Object value) throws WeixinException {
+			try {
+				setter.invokeExact(target, value);
+			} catch (Throwable e) {
+				throw bindFail(name + " bind fail", e);
+			}
+		}
+	}
+}
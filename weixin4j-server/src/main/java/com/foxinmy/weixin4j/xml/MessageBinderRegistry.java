@@ -0,0 +1,150 @@
+package com.foxinmy.weixin4j.xml;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+
+import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.util.Consts;
+
+/**
+ * 消息绑定器注册表
+ * <p>
+ * 消息类在注册时就生成绑定器,无法生成绑定器的类(使用了其他JAXB特性)则预先创建JAXBContext作为回退;
+ * JAXBContext是线程安全的,Unmarshaller不是,所以每次读取都会创建新的Unmarshaller
+ * </p>
+ *
+ * @className MessageBinderRegistry
+ * @author jy
+ * @date 2015年6月25日
+ * @since JDK 1.7
+ * @see MessageBinder
+ */
+public class MessageBinderRegistry {
+
+	private final ConcurrentMap<Class<?>, MessageBinder> messageBinders;
+	private final ConcurrentMap<Class<?>, JAXBContext> jaxbContexts;
+
+	public MessageBinderRegistry() {
+		this.messageBinders = new ConcurrentHashMap<Class<?>, MessageBinder>();
+		this.jaxbContexts = new ConcurrentHashMap<Class<?>, JAXBContext>();
+	}
+
+	/**
+	 * 注册消息类,重复注册不会重新生成
+	 *
+	 * @param clazz
+	 *            消息类
+	 * @throws WeixinException
+	 *             既无法生成绑定器也无法创建JAXBContext时
+	 */
+	public void register(Class<?> clazz) throws WeixinException {
+		if (messageBinders.containsKey(clazz)
+				|| jaxbContexts.containsKey(clazz)) {
+			return;
+		}
+		MessageBinder binder = MessageBinder.forClass(clazz);
+		if (binder != null) {
+			messageBinders.putIfAbsent(clazz, binder);
+		} else {
+			getJAXBContext(clazz);
+		}
+	}
+
+	/**
+	 * 是否已为消息类生成了绑定器
+	 *
+	 * @param clazz
+	 *            消息类
+	 * @return 未注册或者只能使用JAXB时返回false
+	 */
+	public boolean isBindable(Class<?> clazz) {
+		return messageBinders.containsKey(clazz);
+	}
+
+	/**
+	 * 读取消息对象:优先使用绑定器从节点树上绑定,否则使用JAXB解析原始消息
+	 *
+	 * @param messageNode
+	 *            解码时得到的节点树,可以为空
+	 * @param content
+	 *            原始的xml消息
+	 * @param clazz
+	 *            消息类
+	 * @return 消息对象
+	 * @throws WeixinException
+	 */
+	public Object read(MessageNode messageNode, String content, Class<?> clazz)
+			throws WeixinException {
+		MessageBinder binder = messageBinders.get(clazz);
+		if (binder == null && !jaxbContexts.containsKey(clazz)) {
+			register(clazz);
+			binder = messageBinders.get(clazz);
+		}
+		if (binder != null && messageNode != null) {
+			return binder.bind(messageNode);
+		}
+		return unmarshal(content, clazz);
+	}
+
+	/**
+	 * 使用JAXB解析消息
+	 *
+	 * @param content
+	 *            xml消息
+	 * @param clazz
+	 *            消息类
+	 * @return 消息对象
+	 * @throws WeixinException
+	 */
+	public Object unmarshal(String content, Class<?> clazz)
+			throws WeixinException {
+		try {
+			Source source = new StreamSource(new ByteArrayInputStream(
+					content.getBytes(Consts.UTF_8)));
+			return createUnmarshaller(clazz).unmarshal(source, clazz)
+					.getValue();
+		} catch (JAXBException e) {
+			throw new WeixinException(e);
+		}
+	}
+
+	/**
+	 * 创建新的Unmarshaller(Unmarshaller不能在线程间共享)
+	 *
+	 * @param clazz
+	 *            消息类
+	 * @return 消息转换器
+	 * @throws WeixinException
+	 */
+	public Unmarshaller createUnmarshaller(Class<?> clazz)
+			throws WeixinException {
+		try {
+			return getJAXBContext(clazz).createUnmarshaller();
+		} catch (JAXBException e) {
+			throw new WeixinException(e);
+		}
+	}
+
+	private JAXBContext getJAXBContext(Class<?> clazz) throws WeixinException {
+		JAXBContext jaxbContext = jaxbContexts.get(clazz);
+		if (jaxbContext == null) {
+			try {
+				jaxbContext = JAXBContext.newInstance(clazz);
+			} catch (JAXBException e) {
+				throw new WeixinException(e);
+			}
+			JAXBContext existing = jaxbContexts.putIfAbsent(clazz, jaxbContext);
+			if (existing != null) {
+				jaxbContext = existing;
+			}
+		}
+		return jaxbContext;
+	}
+}
@@ -0,0 +1,107 @@
+package com.foxinmy.weixin4j.xml;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.foxinmy.weixin4j.util.StringUtil;
+
+/**
+ * 解析后的xml节点
+ *
+ * @className MessageNode
+ * @author jy
+ * @date 2015年6月24日
+ * @since JDK 1.7
+ * @see MessageNodeReader
+ */
+public class MessageNode implements Serializable {
+
+	private static final long serialVersionUID = -2745210331096862893L;
+
+	/**
+	 * 节点名称
+	 */
+	private final String name;
+	/**
+	 * 节点文本(存在子节点时为空字符串)
+	 */
+	private String text;
+	/**
+	 * 子节点
+	 */
+	private List<MessageNode> children;
+
+	public MessageNode(String name) {
+		this.name = name;
+		this.text = StringUtil.EMPTY;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getText() {
+		return text;
+	}
+
+	void setText(String text) {
+		this.text = text;
+	}
+
+	void addChild(MessageNode child) {
+		if (children == null) {
+			children = new ArrayList<MessageNode>();
+		}
+		children.add(child);
+	}
+
+	public boolean hasChildren() {
+		return children != null;
+	}
+
+	public List<MessageNode> getChildren() {
+		if (children == null) {
+			return Collections.emptyList();
+		}
+		return children;
+	}
+
+	/**
+	 * 获取第一个名称相同的子节点
+	 *
+	 * @param name
+	 *            节点名称
+	 * @return 不存在时返回null
+	 */
+	public MessageNode getChild(String name) {
+		if (children != null) {
+			for (int i = 0; i < children.size(); i++) {
+				MessageNode child = children.get(i);
+				if (child.name.equals(name)) {
+					return child;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * 获取子节点的文本
+	 *
+	 * @param name
+	 *            节点名称
+	 * @return 不存在时返回null
+	 */
+	public String getChildText(String name) {
+		MessageNode child = getChild(name);
+		return child != null ? child.text : null;
+	}
+
+	@Override
+	public String toString() {
+		return "MessageNode [name=" + name + ", text=" + text + ", children="
+				+ children + "]";
+	}
+}
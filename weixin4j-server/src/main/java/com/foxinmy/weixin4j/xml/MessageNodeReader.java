@@ -0,0 +1,131 @@
+package com.foxinmy.weixin4j.xml;
+
+import static com.foxinmy.weixin4j.xml.XmlScanner.GT;
+import static com.foxinmy.weixin4j.xml.XmlScanner.LT;
+import io.netty.buffer.ByteBuf;
+
+import java.util.Arrays;
+
+import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.util.Consts;
+
+/**
+ * 一次扫描将字节缓冲区中的xml消息读取为节点树
+ * <p>
+ * 消息的关键信息与消息对象都从这棵树上获取,不需要再次解析消息体;读取时使用的节点栈按线程复用,可以被多个线程同时调用
+ * </p>
+ *
+ * @className MessageNodeReader
+ * @author jy
+ * @date 2015年6月24日
+ * @since JDK 1.7
+ * @see MessageNode
+ * @see CruxMessageReader#read(MessageNode)
+ */
+public final class MessageNodeReader {
+
+	private static final ThreadLocal<NodeStack> STACK = new ThreadLocal<NodeStack>() {
+		@Override
+		protected NodeStack initialValue() {
+			return new NodeStack();
+		}
+	};
+
+	private MessageNodeReader() {
+	}
+
+	/**
+	 * 读取xml消息,不改变缓冲区的读写位置
+	 *
+	 * @param content
+	 *            xml消息体
+	 * @return 根节点
+	 * @throws WeixinException
+	 */
+	public static MessageNode read(ByteBuf content) throws WeixinException {
+		NodeStack stack = STACK.get();
+		try {
+			return scan(content, stack);
+		} finally {
+			stack.clear();
+		}
+	}
+
+	private static MessageNode scan(ByteBuf buf, NodeStack stack)
+			throws WeixinException {
+		final int end = buf.writerIndex();
+		int index = buf.readerIndex();
+		MessageNode root = null;
+		while (index < end) {
+			int lt = buf.indexOf(index, end, LT);
+			if (lt < 0 || lt + 1 >= end) {
+				break;
+			}
+			int skipped = XmlScanner.skipMarkup(buf, lt, end);
+			if (skipped >= 0) {
+				index = skipped;
+				continue;
+			}
+			int gt = buf.indexOf(lt + 1, end, GT);
+			if (gt < 0) {
+				throw XmlScanner.malformed();
+			}
+			index = gt + 1;
+			if (buf.getByte(lt + 1) == '/') {
+				if (stack.depth == 0) {
+					throw XmlScanner.malformed();
+				}
+				MessageNode node = stack.nodes[stack.depth - 1];
+				if (!node.hasChildren()) {
+					node.setText(XmlScanner.text(buf,
+							stack.contentStarts[stack.depth - 1], lt));
+				}
+				stack.pop();
+				continue;
+			}
+			int nameEnd = XmlScanner.nameEnd(buf, lt + 1, gt);
+			MessageNode node = new MessageNode(buf.toString(lt + 1, nameEnd
+					- lt - 1, Consts.UTF_8));
+			if (stack.depth > 0) {
+				stack.nodes[stack.depth - 1].addChild(node);
+			} else if (root == null) {
+				root = node;
+			}
+			if (buf.getByte(gt - 1) != '/') {
+				stack.push(node, index);
+			}
+		}
+		if (stack.depth > 0 || root == null) {
+			throw XmlScanner.malformed();
+		}
+		return root;
+	}
+
+	/**
+	 * 未闭合的节点栈
+	 */
+	private static final class NodeStack {
+		private MessageNode[] nodes = new MessageNode[8];
+		private int[] contentStarts = new int[8];
+		private int depth;
+
+		void push(MessageNode node, int contentStart) {
+			if (depth == nodes.length) {
+				nodes = Arrays.copyOf(nodes, depth << 1);
+				contentStarts = Arrays.copyOf(contentStarts, depth << 1);
+			}
+			nodes[depth] = node;
+			contentStarts[depth] = contentStart;
+			depth++;
+		}
+
+		void pop() {
+			nodes[--depth] = null;
+		}
+
+		void clear() {
+			Arrays.fill(nodes, 0, depth, null);
+			depth = 0;
+		}
+	}
+}
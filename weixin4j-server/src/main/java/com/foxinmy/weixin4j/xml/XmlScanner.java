@@ -0,0 +1,205 @@
+package com.foxinmy.weixin4j.xml;
+
+import io.netty.buffer.ByteBuf;
+
+import java.io.ByteArrayOutputStream;
+
+import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.util.Consts;
+import com.foxinmy.weixin4j.util.StringUtil;
+
+/**
+ * 在字节缓冲区上扫描xml的基础方法
+ *
+ * @className XmlScanner
+ * @author jy
+ * @date 2015年6月24日
+ * @since JDK 1.7
+ * @see CruxMessageReader
+ * @see MessageNodeReader
+ */
+final class XmlScanner {
+
+	static final byte LT = '<';
+	static final byte GT = '>';
+	static final byte AMP = '&';
+	static final byte[] CDATA_START = bytes("<![CDATA[");
+	static final byte[] CDATA_END = bytes("]]>");
+	static final byte[] COMMENT_START = bytes("<!--");
+	static final byte[] COMMENT_END = bytes("-->");
+	static final byte[] PI_END = bytes("?>");
+	static final byte[] TAG_END = bytes(">");
+
+	private XmlScanner() {
+	}
+
+	/**
+	 * 跳过从lt开始的声明、注释或者游离的CDATA
+	 *
+	 * @return 跳过后的位置,如果lt处是普通标签则返回-1
+	 */
+	static int skipMarkup(ByteBuf buf, int lt, int end) throws WeixinException {
+		byte next = buf.getByte(lt + 1);
+		if (next == '!') {
+			if (startsWith(buf, lt, end, CDATA_START)) {
+				return skipPast(buf, lt + CDATA_START.length, end, CDATA_END);
+			}
+			if (startsWith(buf, lt, end, COMMENT_START)) {
+				return skipPast(buf, lt + COMMENT_START.length, end,
+						COMMENT_END);
+			}
+			return skipPast(buf, lt + 2, end, TAG_END);
+		}
+		if (next == '?') {
+			return skipPast(buf, lt + 2, end, PI_END);
+		}
+		return -1;
+	}
+
+	/**
+	 * 标签名的结束位置
+	 */
+	static int nameEnd(ByteBuf buf, int nameStart, int tagEnd) {
+		int nameEnd = nameStart;
+		while (nameEnd < tagEnd) {
+			byte b = buf.getByte(nameEnd);
+			if (b == ' ' || b == '\t' || b == '\r' || b == '\n' || b == '/') {
+				break;
+			}
+			nameEnd++;
+		}
+		return nameEnd;
+	}
+
+	/**
+	 * 读取节点的文本内容
+	 *
+	 * @return 内容为空时返回空字符串
+	 */
+	static String text(ByteBuf buf, int start, int stop) {
+		if (stop <= start) {
+			return StringUtil.EMPTY;
+		}
+		if (startsWith(buf, start, stop, CDATA_START)) {
+			int close = indexOf(buf, start + CDATA_START.length, stop,
+					CDATA_END);
+			if (close == stop - CDATA_END.length) {
+				return buf.toString(start + CDATA_START.length, close - start
+						- CDATA_START.length, Consts.UTF_8);
+			}
+		} else if (buf.indexOf(start, stop, LT) < 0
+				&& buf.indexOf(start, stop, AMP) < 0) {
+			return buf.toString(start, stop - start, Consts.UTF_8);
+		}
+		return decodeMixed(buf, start, stop);
+	}
+
+	/**
+	 * 内容中混合了CDATA与实体引用时的慢路径
+	 */
+	private static String decodeMixed(ByteBuf buf, int start, int stop) {
+		ByteArrayOutputStream os = new ByteArrayOutputStream(stop - start);
+		int index = start;
+		while (index < stop) {
+			if (startsWith(buf, index, stop, CDATA_START)) {
+				int close = indexOf(buf, index + CDATA_START.length, stop,
+						CDATA_END);
+				int cdataEnd = close < 0 ? stop : close;
+				for (int i = index + CDATA_START.length; i < cdataEnd; i++) {
+					os.write(buf.getByte(i));
+				}
+				index = close < 0 ? stop : close + CDATA_END.length;
+				continue;
+			}
+			byte b = buf.getByte(index);
+			if (b == AMP) {
+				int semicolon = buf.indexOf(index + 1, stop, (byte) ';');
+				if (semicolon > 0) {
+					String entity = buf.toString(index + 1, semicolon - index
+							- 1, Consts.UTF_8);
+					byte[] resolved = resolveEntity(entity);
+					if (resolved != null) {
+						os.write(resolved, 0, resolved.length);
+						index = semicolon + 1;
+						continue;
+					}
+				}
+			}
+			os.write(b);
+			index++;
+		}
+		return StringUtil.newStringUtf8(os.toByteArray());
+	}
+
+	private static byte[] resolveEntity(String entity) {
+		switch (entity) {
+		case "lt":
+			return bytes("<");
+		case "gt":
+			return bytes(">");
+		case "amp":
+			return bytes("&");
+		case "quot":
+			return bytes("\"");
+		case "apos":
+			return bytes("'");
+		default:
+			if (entity.length() > 1 && entity.charAt(0) == '#') {
+				try {
+					int codePoint = entity.charAt(1) == 'x'
+							|| entity.charAt(1) == 'X' ? Integer.parseInt(
+							entity.substring(2), 16) : Integer.parseInt(entity
+							.substring(1));
+					return StringUtil.getBytesUtf8(new String(Character
+							.toChars(codePoint)));
+				} catch (IllegalArgumentException e) {
+					return null;
+				}
+			}
+			return null;
+		}
+	}
+
+	static boolean startsWith(ByteBuf buf, int index, int end, byte[] prefix) {
+		if (end - index < prefix.length) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length; i++) {
+			if (buf.getByte(index + i) != prefix[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	static int indexOf(ByteBuf buf, int index, int end, byte[] target) {
+		while (index < end) {
+			int found = buf.indexOf(index, end, target[0]);
+			if (found < 0) {
+				return -1;
+			}
+			if (startsWith(buf, found, end, target)) {
+				return found;
+			}
+			index = found + 1;
+		}
+		return -1;
+	}
+
+	static int skipPast(ByteBuf buf, int index, int end, byte[] target)
+			throws WeixinException {
+		int found = indexOf(buf, index, end, target);
+		if (found < 0) {
+			throw malformed();
+		}
+		return found + target.length;
+	}
+
+	static WeixinException malformed() {
+		return new WeixinException("-40002", "xml解析失败:标签未闭合");
+	}
+
+	static byte[] bytes(String content) {
+		return content.getBytes(Consts.UTF_8);
+	}
+}
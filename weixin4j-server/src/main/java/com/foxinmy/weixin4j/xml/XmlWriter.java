@@ -0,0 +1,140 @@
+package com.foxinmy.weixin4j.xml;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * 将xml直接以UTF-8编码写入字节缓冲区,不经过String.format与StringBuilder
+ *
+ * @className XmlWriter
+ * @author jy
+ * @date 2015年6月28日
+ * @since JDK 1.7
+ * @see com.foxinmy.weixin4j.response.WritableResponse
+ */
+public final class XmlWriter {
+
+	private final ByteBuf buf;
+
+	public XmlWriter(ByteBuf buf) {
+		this.buf = buf;
+	}
+
+	public ByteBuf buffer() {
+		return buf;
+	}
+
+	/**
+	 * 写入开始标签:&lt;name&gt;
+	 */
+	public XmlWriter startElement(String name) {
+		buf.writeByte('<');
+		writeAscii(buf, name);
+		buf.writeByte('>');
+		return this;
+	}
+
+	/**
+	 * 写入结束标签:&lt;/name&gt;
+	 */
+	public XmlWriter endElement(String name) {
+		buf.writeByte('<').writeByte('/');
+		writeAscii(buf, name);
+		buf.writeByte('>');
+		return this;
+	}
+
+	/**
+	 * 写入数值节点:&lt;name&gt;value&lt;/name&gt;
+	 */
+	public XmlWriter element(String name, long value) {
+		startElement(name);
+		writeAscii(buf, Long.toString(value));
+		return endElement(name);
+	}
+
+	/**
+	 * 写入CDATA节点:&lt;name&gt;&lt;![CDATA[value]]&gt;&lt;/name&gt;,value为null时写入空的CDATA
+	 */
+	public XmlWriter cdataElement(String name, String value) {
+		startElement(name);
+		writeAscii(buf, "<![CDATA[");
+		if (value != null) {
+			int start = 0;
+			int end;
+			// CDATA中出现的]]>需要拆分到两个CDATA中
+			while ((end = value.indexOf("]]>", start)) >= 0) {
+				writeUtf8(buf, value, start, end + 2);
+				writeAscii(buf, "]]><![CDATA[");
+				start = end + 2;
+			}
+			writeUtf8(buf, value, start, value.length());
+		}
+		writeAscii(buf, "]]>");
+		return endElement(name);
+	}
+
+	/**
+	 * 原样写入一段xml
+	 */
+	public XmlWriter raw(String content) {
+		if (content != null) {
+			writeUtf8(buf, content, 0, content.length());
+		}
+		return this;
+	}
+
+	/**
+	 * 写入只包含ASCII字符的字符串
+	 */
+	static void writeAscii(ByteBuf buf, String s) {
+		int length = s.length();
+		buf.ensureWritable(length);
+		int index = buf.writerIndex();
+		for (int i = 0; i < length; i++) {
+			buf.setByte(index++, s.charAt(i));
+		}
+		buf.writerIndex(index);
+	}
+
+	/**
+	 * 以UTF-8编码写入字符串
+	 *
+	 * @param buf
+	 *            字节缓冲区
+	 * @param s
+	 *            字符串
+	 * @param start
+	 *            开始位置(包含)
+	 * @param end
+	 *            结束位置(不包含)
+	 */
+	public static void writeUtf8(ByteBuf buf, CharSequence s, int start,
+			int end) {
+		buf.ensureWritable((end - start) * 3);
+		int index = buf.writerIndex();
+		for (int i = start; i < end; i++) {
+			char c = s.charAt(i);
+			if (c < 0x80) {
+				buf.setByte(index++, c);
+			} else if (c < 0x800) {
+				buf.setByte(index++, 0xc0 | (c >> 6));
+				buf.setByte(index++, 0x80 | (c & 0x3f));
+			} else if (Character.isHighSurrogate(c) && i + 1 < end
+					&& Character.isLowSurrogate(s.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, s.charAt(++i));
+				buf.setByte(index++, 0xf0 | (codePoint >> 18));
+				buf.setByte(index++, 0x80 | ((codePoint >> 12) & 0x3f));
+				buf.setByte(index++, 0x80 | ((codePoint >> 6) & 0x3f));
+				buf.setByte(index++, 0x80 | (codePoint & 0x3f));
+			} else if (Character.isSurrogate(c)) {
+				// 不成对的代理字符与String.getBytes一致写为'?'
+				buf.setByte(index++, '?');
+			} else {
+				buf.setByte(index++, 0xe0 | (c >> 12));
+				buf.setByte(index++, 0x80 | ((c >> 6) & 0x3f));
+				buf.setByte(index++, 0x80 | (c & 0x3f));
+			}
+		}
+		buf.writerIndex(index);
+	}
+}
@@ -0,0 +1,161 @@
+package com.foxinmy.weixin4j.server.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.foxinmy.weixin4j.util.AesCrypto;
+import com.foxinmy.weixin4j.util.Base64;
+import com.foxinmy.weixin4j.util.Consts;
+import com.foxinmy.weixin4j.util.PKCS7Encoder;
+import com.foxinmy.weixin4j.util.RandomUtil;
+import com.foxinmy.weixin4j.util.StringUtil;
+
+/**
+ * 安全模式加解密的基准测试:每次重建Cipher与密钥 vs 按AesToken缓存的AesCrypto
+ *
+ * @className AesCryptoBenchmark
+ * @author jy
+ * @date 2015年6月29日
+ * @since JDK 1.7
+ * @see com.foxinmy.weixin4j.util.AesCrypto
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AesCryptoBenchmark {
+
+	private static final String APPID = "wx0d1d598c0c03c999";
+	private static final String AES_KEY = "abcdefghijklmnopqrstuvwxyz0123456789ABCDEFG";
+
+	private AesCrypto crypto;
+	private String xml;
+	private ByteBuf xmlBuf;
+	private String encrypt;
+
+	@Setup
+	public void setup() throws Exception {
+		crypto = new AesCrypto(APPID, AES_KEY);
+		xml = "<xml><ToUserName><![CDATA[gh_22b350df957b]]></ToUserName>"
+				+ "<FromUserName><![CDATA[owGBft_vbBbOaQOmpEUE4xDLeRSU]]></FromUserName>"
+				+ "<CreateTime>1433903433</CreateTime><MsgType><![CDATA[text]]></MsgType>"
+				+ "<Content><![CDATA[您好,欢迎关注!回复1查看最新活动,回复2联系客服。]]></Content>"
+				+ "<MsgId>1234567890123456</MsgId></xml>";
+		xmlBuf = Unpooled.copiedBuffer(xml, Consts.UTF_8);
+		encrypt = crypto.encrypt(xmlBuf);
+	}
+
+	/**
+	 * 原来的加密方式
+	 */
+	private static byte[] legacyEncrypt(String appId, String encodingAesKey,
+			String xmlContent) throws Exception {
+		byte[] randomBytes = StringUtil.getBytesUtf8(RandomUtil
+				.generateString(16));
+		byte[] xmlBytes = StringUtil.getBytesUtf8(xmlContent);
+		int xmlLength = xmlBytes.length;
+		byte[] orderBytes = new byte[4];
+		orderBytes[3] = (byte) (xmlLength & 0xFF);
+		orderBytes[2] = (byte) (xmlLength >> 8 & 0xFF);
+		orderBytes[1] = (byte) (xmlLength >> 16 & 0xFF);
+		orderBytes[0] = (byte) (xmlLength >> 24 & 0xFF);
+		byte[] appidBytes = StringUtil.getBytesUtf8(appId);
+		int byteLength = randomBytes.length + xmlLength + orderBytes.length
+				+ appidBytes.length;
+		byte[] padBytes = PKCS7Encoder.encode(byteLength);
+		byte[] unencrypted = new byte[byteLength + padBytes.length];
+		byteLength = 0;
+		System.arraycopy(randomBytes, 0, unencrypted, byteLength,
+				randomBytes.length);
+		byteLength += randomBytes.length;
+		System.arraycopy(orderBytes, 0, unencrypted, byteLength,
+				orderBytes.length);
+		byteLength += orderBytes.length;
+		System.arraycopy(xmlBytes, 0, unencrypted, byteLength, xmlBytes.length);
+		byteLength += xmlBytes.length;
+		System.arraycopy(appidBytes, 0, unencrypted, byteLength,
+				appidBytes.length);
+		byteLength += appidBytes.length;
+		System.arraycopy(padBytes, 0, unencrypted, byteLength, padBytes.length);
+		byte[] aesKey = Base64.decodeBase64(encodingAesKey + "=");
+		Cipher cipher = Cipher.getInstance("AES/CBC/NoPadding");
+		SecretKeySpec keySpec = new SecretKeySpec(aesKey, Consts.AES);
+		IvParameterSpec iv = new IvParameterSpec(aesKey, 0, 16);
+		cipher.init(Cipher.ENCRYPT_MODE, keySpec, iv);
+		return Base64.encodeBase64(cipher.doFinal(unencrypted));
+	}
+
+	/**
+	 * 原来的解密方式
+	 */
+	private static String legacyDecrypt(String appId, String encodingAesKey,
+			String encryptContent) throws Exception {
+		byte[] aesKey = Base64.decodeBase64(encodingAesKey + "=");
+		Cipher cipher = Cipher.getInstance("AES/CBC/NoPadding");
+		SecretKeySpec key_spec = new SecretKeySpec(aesKey, Consts.AES);
+		IvParameterSpec iv = new IvParameterSpec(Arrays.copyOfRange(aesKey, 0,
+				16));
+		cipher.init(Cipher.DECRYPT_MODE, key_spec, iv);
+		byte[] original = cipher.doFinal(Base64.decodeBase64(encryptContent));
+		byte[] bytes = PKCS7Encoder.decode(original);
+		byte[] lengthByte = Arrays.copyOfRange(bytes, 16, 20);
+		int xmlLength = lengthByte[3] & 0xff | (lengthByte[2] & 0xff) << 8
+				| (lengthByte[1] & 0xff) << 16 | (lengthByte[0] & 0xff) << 24;
+		String xmlContent = StringUtil.newStringUtf8(Arrays.copyOfRange(bytes,
+				20, 20 + xmlLength));
+		String fromAppId = StringUtil.newStringUtf8(Arrays.copyOfRange(bytes,
+				20 + xmlLength, bytes.length));
+		if (!fromAppId.trim().equals(appId)) {
+			throw new IllegalStateException(fromAppId);
+		}
+		return xmlContent;
+	}
+
+	@Benchmark
+	public byte[] legacyEncrypt() throws Exception {
+		return legacyEncrypt(APPID, AES_KEY, xml);
+	}
+
+	@Benchmark
+	public String cryptoEncrypt() throws Exception {
+		return crypto.encrypt(xmlBuf);
+	}
+
+	@Benchmark
+	public String legacyDecrypt() throws Exception {
+		return legacyDecrypt(APPID, AES_KEY, encrypt);
+	}
+
+	@Benchmark
+	public String cryptoDecrypt() throws Exception {
+		return crypto.decrypt(encrypt).toString(Consts.UTF_8);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(
+				AesCryptoBenchmark.class.getSimpleName()).build()).run();
+	}
+}
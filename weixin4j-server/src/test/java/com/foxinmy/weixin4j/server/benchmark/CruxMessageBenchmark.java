@@ -0,0 +1,107 @@
+package com.foxinmy.weixin4j.server.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.util.Consts;
+import com.foxinmy.weixin4j.xml.CruxMessage;
+import com.foxinmy.weixin4j.xml.CruxMessageHandler;
+import com.foxinmy.weixin4j.xml.CruxMessageReader;
+import com.foxinmy.weixin4j.xml.EncryptMessageHandler;
+
+/**
+ * 关键信息读取的基准测试:SAX解析 vs 字节扫描
+ *
+ * @className CruxMessageBenchmark
+ * @author jy
+ * @date 2015年6月22日
+ * @since JDK 1.7
+ * @see com.foxinmy.weixin4j.xml.CruxMessageReader
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@SuppressWarnings("deprecation")
+public class CruxMessageBenchmark {
+
+	static final String TEXT_MESSAGE = "<xml>"
+			+ "<ToUserName><![CDATA[gh_22b350df957b]]></ToUserName>"
+			+ "<FromUserName><![CDATA[owGBft_vbBbOaQOmpEUE4xDLeRSU]]></FromUserName>"
+			+ "<CreateTime>1433903433</CreateTime>"
+			+ "<MsgType><![CDATA[text]]></MsgType>"
+			+ "<Content><![CDATA[this is a test]]></Content>"
+			+ "<MsgId>1234567890123456</MsgId>" + "</xml>";
+
+	static final String ENCRYPT_MESSAGE = "<xml>"
+			+ "<ToUserName><![CDATA[gh_248c6f91d64f]]></ToUserName>"
+			+ "<Encrypt><![CDATA[yqa9T5tjFfm0WzG1Bw6XSvmtWIIUaeR3LNcE8B1Bb4xAUqzAqJ0sm4vEN5N7a7utAkuQsoWjwy2mDiGSbXFpgXQBGSmCcOlMdFEU2W2EAFVOm6jwBwc4Zck2uRvMSXU2gl0dHc6fCGdNlLiW/YdxNbgLdpbH8xM6RxfzIULQG7KMCsZLMd0iLpCUkl/kSMkWCaWelAAfZqEx1wQj0ezLE5BGRKB5xqRZKqeCRQVUZqPiAZ4LDDXqjiwfKPLG6M0mmChUxaLpwiH4ikGVG1GYvI/Eov62RPOX0vU6bdiX4f2u6AecwEnRHUeHG9h15+iM8UFf3wzuIkP0/nUJc38ZkJlIk7m3fvbrQS1WeFhSCnWZJQuhzDXkvf4kY/k4X5+l]]></Encrypt>"
+			+ "</xml>";
+
+	private ByteBuf textBuf;
+	private ByteBuf encryptBuf;
+
+	@Setup
+	public void setup() {
+		textBuf = Unpooled.directBuffer().writeBytes(
+				TEXT_MESSAGE.getBytes(Consts.UTF_8));
+		encryptBuf = Unpooled.directBuffer().writeBytes(
+				ENCRYPT_MESSAGE.getBytes(Consts.UTF_8));
+	}
+
+	@TearDown
+	public void tearDown() {
+		textBuf.release();
+		encryptBuf.release();
+	}
+
+	/**
+	 * 旧方式:ByteBuf转字符串后再由SAX解析
+	 */
+	@Benchmark
+	public String saxCrux() {
+		return CruxMessageHandler.parser(textBuf.toString(Consts.UTF_8))
+				.getMsgType();
+	}
+
+	@Benchmark
+	public CruxMessage readerCrux() throws WeixinException {
+		return CruxMessageReader.read(textBuf);
+	}
+
+	@Benchmark
+	public String saxEncrypt() {
+		return EncryptMessageHandler
+				.parser(encryptBuf.toString(Consts.UTF_8));
+	}
+
+	@Benchmark
+	public String readerEncrypt() throws WeixinException {
+		return CruxMessageReader.read(encryptBuf).getEncryptContent();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(
+				CruxMessageBenchmark.class.getSimpleName()).build()).run();
+	}
+}
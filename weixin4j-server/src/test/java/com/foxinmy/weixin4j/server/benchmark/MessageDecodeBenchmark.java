@@ -0,0 +1,130 @@
+package com.foxinmy.weixin4j.server.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.transform.stream.StreamSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.message.TextMessage;
+import com.foxinmy.weixin4j.message.event.MenuEventMessage;
+import com.foxinmy.weixin4j.util.Consts;
+import com.foxinmy.weixin4j.xml.CruxMessageHandler;
+import com.foxinmy.weixin4j.xml.CruxMessageReader;
+import com.foxinmy.weixin4j.xml.MessageBinder;
+import com.foxinmy.weixin4j.xml.MessageNode;
+import com.foxinmy.weixin4j.xml.MessageNodeReader;
+
+/**
+ * 消息解码的基准测试:SAX+JAXB两次解析 vs 一次解析后绑定
+ *
+ * @className MessageDecodeBenchmark
+ * @author jy
+ * @date 2015年6月24日
+ * @since JDK 1.7
+ * @see com.foxinmy.weixin4j.xml.MessageNodeReader
+ * @see com.foxinmy.weixin4j.xml.MessageBinder
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@SuppressWarnings("deprecation")
+public class MessageDecodeBenchmark {
+
+	static final String CLICK_MESSAGE = "<xml>"
+			+ "<ToUserName><![CDATA[gh_22b350df957b]]></ToUserName>"
+			+ "<FromUserName><![CDATA[owGBft_vbBbOaQOmpEUE4xDLeRSU]]></FromUserName>"
+			+ "<CreateTime>1433903433</CreateTime>"
+			+ "<MsgType><![CDATA[event]]></MsgType>"
+			+ "<Event><![CDATA[CLICK]]></Event>"
+			+ "<EventKey><![CDATA[EVENTKEY]]></EventKey>" + "</xml>";
+
+	private ByteBuf textBuf;
+	private ByteBuf clickBuf;
+	private Unmarshaller textUnmarshaller;
+	private Unmarshaller clickUnmarshaller;
+
+	@Setup
+	public void setup() throws JAXBException {
+		textBuf = Unpooled.directBuffer().writeBytes(
+				CruxMessageBenchmark.TEXT_MESSAGE.getBytes(Consts.UTF_8));
+		clickBuf = Unpooled.directBuffer().writeBytes(
+				CLICK_MESSAGE.getBytes(Consts.UTF_8));
+		textUnmarshaller = JAXBContext.newInstance(TextMessage.class)
+				.createUnmarshaller();
+		clickUnmarshaller = JAXBContext.newInstance(MenuEventMessage.class)
+				.createUnmarshaller();
+	}
+
+	@TearDown
+	public void tearDown() {
+		textBuf.release();
+		clickBuf.release();
+	}
+
+	private Object legacy(ByteBuf buf, Unmarshaller unmarshaller,
+			Class<?> clazz) throws JAXBException {
+		String content = buf.toString(Consts.UTF_8);
+		CruxMessageHandler.parser(content);
+		return unmarshaller.unmarshal(
+				new StreamSource(new ByteArrayInputStream(content
+						.getBytes(Consts.UTF_8))), clazz).getValue();
+	}
+
+	private Object onePass(ByteBuf buf, Class<?> clazz) throws WeixinException {
+		MessageNode node = MessageNodeReader.read(buf);
+		if (CruxMessageReader.read(node).getMsgType() == null) {
+			return null;
+		}
+		return MessageBinder.forClass(clazz).bind(node);
+	}
+
+	@Benchmark
+	public Object legacyText() throws JAXBException {
+		return legacy(textBuf, textUnmarshaller, TextMessage.class);
+	}
+
+	@Benchmark
+	public Object onePassText() throws WeixinException {
+		return onePass(textBuf, TextMessage.class);
+	}
+
+	@Benchmark
+	public Object legacyClick() throws JAXBException {
+		return legacy(clickBuf, clickUnmarshaller, MenuEventMessage.class);
+	}
+
+	@Benchmark
+	public Object onePassClick() throws WeixinException {
+		return onePass(clickBuf, MenuEventMessage.class);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(
+				MessageDecodeBenchmark.class.getSimpleName()).build()).run();
+	}
+}
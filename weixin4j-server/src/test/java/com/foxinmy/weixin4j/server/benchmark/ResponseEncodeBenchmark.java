@@ -0,0 +1,122 @@
+package com.foxinmy.weixin4j.server.benchmark;
+
+import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.util.ReferenceCountUtil;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.foxinmy.weixin4j.response.NewsResponse;
+import com.foxinmy.weixin4j.response.NewsResponse.Article;
+import com.foxinmy.weixin4j.response.TextResponse;
+import com.foxinmy.weixin4j.response.WeixinResponse;
+import com.foxinmy.weixin4j.socket.WeixinResponseWriter;
+import com.foxinmy.weixin4j.util.Consts;
+import com.foxinmy.weixin4j.util.HttpUtil;
+
+/**
+ * 回复编码的基准测试:String.format拼接后复制 vs 直接写入池化的缓冲区
+ *
+ * @className ResponseEncodeBenchmark
+ * @author jy
+ * @date 2015年6月28日
+ * @since JDK 1.7
+ * @see com.foxinmy.weixin4j.socket.WeixinResponseWriter
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseEncodeBenchmark {
+
+	private static final String TO_USER = "owGBft_vbBbOaQOmpEUE4xDLeRSU";
+	private static final String FROM_USER = "gh_22b350df957b";
+
+	private final ByteBufAllocator allocator = PooledByteBufAllocator.DEFAULT;
+	private WeixinResponse textResponse;
+	private WeixinResponse newsResponse;
+
+	@Setup
+	public void setup() {
+		textResponse = new TextResponse("您好,欢迎关注!回复1查看最新活动,回复2联系客服。");
+		NewsResponse news = new NewsResponse(new ArrayList<Article>());
+		for (int i = 0; i < 8; i++) {
+			news.pushArticle(news.new Article("第" + i + "篇图文消息的标题",
+					"图文消息的描述,图文消息的描述,图文消息的描述",
+					"http://mp.weixin.qq.com/s?__biz=MzA4MDA1NDE3Mg==&mid=" + i,
+					"http://mmbiz.qpic.cn/mmbiz/" + i + "/0"));
+		}
+		newsResponse = news;
+	}
+
+	/**
+	 * 原来的编码方式
+	 */
+	private HttpResponse legacy(WeixinResponse response) {
+		StringBuilder content = new StringBuilder();
+		content.append("<xml>");
+		content.append(String.format("<ToUserName><![CDATA[%s]]></ToUserName>",
+				TO_USER));
+		content.append(String.format(
+				"<FromUserName><![CDATA[%s]]></FromUserName>", FROM_USER));
+		content.append(String.format("<CreateTime><![CDATA[%d]]></CreateTime>",
+				System.currentTimeMillis() / 1000l));
+		content.append(String.format("<MsgType><![CDATA[%s]]></MsgType>",
+				response.getMsgType()));
+		content.append(response.toContent());
+		content.append("</xml>");
+		return HttpUtil.createHttpResponse(content.toString(), OK,
+				Consts.CONTENTTYPE$APPLICATION_XML);
+	}
+
+	private HttpResponse writer(WeixinResponse response) {
+		return HttpUtil.createBufferHttpResponse(WeixinResponseWriter
+				.writeMessage(allocator, response, TO_USER, FROM_USER,
+						System.currentTimeMillis() / 1000l), OK,
+				Consts.CONTENTTYPE$APPLICATION_XML);
+	}
+
+	@Benchmark
+	public boolean legacyText() {
+		return ReferenceCountUtil.release(legacy(textResponse));
+	}
+
+	@Benchmark
+	public boolean writerText() {
+		return ReferenceCountUtil.release(writer(textResponse));
+	}
+
+	@Benchmark
+	public boolean legacyNews8() {
+		return ReferenceCountUtil.release(legacy(newsResponse));
+	}
+
+	@Benchmark
+	public boolean writerNews8() {
+		return ReferenceCountUtil.release(writer(newsResponse));
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(
+				ResponseEncodeBenchmark.class.getSimpleName()).build()).run();
+	}
+}
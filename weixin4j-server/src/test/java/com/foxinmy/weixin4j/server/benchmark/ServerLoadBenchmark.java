@@ -0,0 +1,164 @@
+package com.foxinmy.weixin4j.server.benchmark;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.foxinmy.weixin4j.handler.DebugMessageHandler;
+import com.foxinmy.weixin4j.startup.WeixinServerBootstrap;
+import com.foxinmy.weixin4j.startup.WeixinServerOptions;
+import com.foxinmy.weixin4j.util.Consts;
+import com.foxinmy.weixin4j.util.MessageUtil;
+
+/**
+ * 服务的压力测试:在本机启动服务,以多个keep-alive连接持续推送文本消息,输出每秒请求数以及每个worker线程的每秒请求数
+ * <p>
+ * 参数依次为:传输方式(epoll|nio) 连接数 持续秒数 worker线程数
+ * </p>
+ *
+ * @className ServerLoadBenchmark
+ * @author jy
+ * @date 2015年7月1日
+ * @since JDK 1.7
+ * @see com.foxinmy.weixin4j.startup.WeixinServerOptions
+ */
+public class ServerLoadBenchmark {
+
+	private static final String TOKEN = "weixin4j";
+	private static final int PORT = 30001;
+
+	public static void main(String[] args) throws Exception {
+		boolean nativeTransport = args.length < 1 || "epoll".equals(args[0]);
+		int connections = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+		int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+		final int workerThreads = args.length > 3 ? Integer.parseInt(args[3])
+				: Runtime.getRuntime().availableProcessors();
+
+		final WeixinServerOptions serverOptions = new WeixinServerOptions()
+				.nativeTransport(nativeTransport);
+		Thread server = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					new WeixinServerBootstrap(TOKEN)
+							.addHandler(DebugMessageHandler.global)
+							.serverOptions(serverOptions)
+							.startup(1, workerThreads, PORT);
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+		}, "weixin4j-server");
+		server.setDaemon(true);
+		server.start();
+		TimeUnit.SECONDS.sleep(2);
+
+		String timestamp = Long.toString(System.currentTimeMillis() / 1000l);
+		String nonce = "1961697383";
+		final String uri = "/?signature="
+				+ MessageUtil.signature(TOKEN, timestamp, nonce)
+				+ "&timestamp=" + timestamp + "&nonce=" + nonce;
+		final ByteBuf body = Unpooled
+				.unreleasableBuffer(Unpooled.copiedBuffer(
+						"<xml><ToUserName><![CDATA[gh_22b350df957b]]></ToUserName>"
+								+ "<FromUserName><![CDATA[owGBft_vbBbOaQOmpEUE4xDLeRSU]]></FromUserName>"
+								+ "<CreateTime>1433903433</CreateTime><MsgType><![CDATA[text]]></MsgType>"
+								+ "<Content><![CDATA[hello]]></Content><MsgId>1234567890123456</MsgId></xml>",
+						Consts.UTF_8));
+		final AtomicLong completed = new AtomicLong();
+		final AtomicLong failed = new AtomicLong();
+
+		EventLoopGroup clientGroup = new NioEventLoopGroup();
+		try {
+			Bootstrap b = new Bootstrap();
+			b.group(clientGroup).channel(NioSocketChannel.class)
+					.option(ChannelOption.TCP_NODELAY, true)
+					.handler(new ChannelInitializer<SocketChannel>() {
+						@Override
+						protected void initChannel(SocketChannel ch) {
+							ch.pipeline().addLast(new HttpClientCodec(),
+									new HttpObjectAggregator(65536),
+									new SimpleChannelInboundHandler<FullHttpResponse>() {
+										@Override
+										public void channelActive(
+												ChannelHandlerContext ctx) {
+											send(ctx);
+										}
+
+										@Override
+										protected void channelRead0(
+												ChannelHandlerContext ctx,
+												FullHttpResponse response) {
+											if (response.getStatus().equals(
+													HttpResponseStatus.OK)) {
+												completed.incrementAndGet();
+											} else {
+												failed.incrementAndGet();
+											}
+											send(ctx);
+										}
+
+										private void send(
+												ChannelHandlerContext ctx) {
+											FullHttpRequest request = new DefaultFullHttpRequest(
+													HttpVersion.HTTP_1_1,
+													HttpMethod.POST, uri, body
+															.duplicate());
+											HttpHeaders.setContentLength(
+													request, body.readableBytes());
+											HttpHeaders.setKeepAlive(request,
+													true);
+											ctx.writeAndFlush(request);
+										}
+									});
+						}
+					});
+			List<Channel> channels = new ArrayList<Channel>(connections);
+			for (int i = 0; i < connections; i++) {
+				channels.add(b.connect("127.0.0.1", PORT).sync().channel());
+			}
+			// 预热
+			TimeUnit.SECONDS.sleep(3);
+			long start = System.nanoTime();
+			long before = completed.get();
+			TimeUnit.SECONDS.sleep(seconds);
+			long requests = completed.get() - before;
+			double elapsed = (System.nanoTime() - start) / 1e9;
+			double throughput = requests / elapsed;
+			System.out.printf(
+					"%s connections=%d workers=%d: %.0f req/s, %.0f req/s per worker, failed=%d%n",
+					serverOptions, connections, workerThreads, throughput,
+					throughput / workerThreads, failed.get());
+			for (Channel channel : channels) {
+				channel.close();
+			}
+		} finally {
+			clientGroup.shutdownGracefully();
+		}
+		// 服务线程不是守护线程
+		System.exit(0);
+	}
+}
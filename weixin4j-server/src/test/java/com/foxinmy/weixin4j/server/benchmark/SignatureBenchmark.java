@@ -0,0 +1,91 @@
+package com.foxinmy.weixin4j.server.benchmark;
+
+import io.netty.buffer.Unpooled;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.foxinmy.weixin4j.util.AesCrypto;
+import com.foxinmy.weixin4j.util.Consts;
+import com.foxinmy.weixin4j.util.MessageUtil;
+import com.foxinmy.weixin4j.util.SignatureVerifier;
+
+/**
+ * 签名校验的基准测试:MessageUtil.signature拼接字符串后比较 vs 线程复用摘要的SignatureVerifier
+ *
+ * @className SignatureBenchmark
+ * @author jy
+ * @date 2015年7月5日
+ * @since JDK 1.7
+ * @see com.foxinmy.weixin4j.util.SignatureVerifier
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignatureBenchmark {
+
+	private static final String TOKEN = "weixin4j";
+	private static final String TIMESTAMP = "1433903433";
+	private static final String NONCE = "1961697383";
+
+	private SignatureVerifier verifier;
+	private String encrypt;
+	private String signature;
+	private String msgSignature;
+
+	@Setup
+	public void setup() throws Exception {
+		verifier = new SignatureVerifier(TOKEN);
+		String xml = "<xml><ToUserName><![CDATA[gh_22b350df957b]]></ToUserName>"
+				+ "<FromUserName><![CDATA[owGBft_vbBbOaQOmpEUE4xDLeRSU]]></FromUserName>"
+				+ "<CreateTime>1433903433</CreateTime><MsgType><![CDATA[text]]></MsgType>"
+				+ "<Content><![CDATA[hello]]></Content><MsgId>1234567890123456</MsgId></xml>";
+		encrypt = new AesCrypto("wx0d1d598c0c03c999",
+				"abcdefghijklmnopqrstuvwxyz0123456789ABCDEFG")
+				.encrypt(Unpooled.copiedBuffer(xml, Consts.UTF_8));
+		signature = MessageUtil.signature(TOKEN, TIMESTAMP, NONCE);
+		msgSignature = MessageUtil.signature(TOKEN, TIMESTAMP, NONCE, encrypt);
+	}
+
+	@Benchmark
+	public boolean legacySignature() {
+		return MessageUtil.signature(TOKEN, TIMESTAMP, NONCE).equals(signature);
+	}
+
+	@Benchmark
+	public boolean verifierSignature() {
+		return verifier.verify(signature, TIMESTAMP, NONCE);
+	}
+
+	@Benchmark
+	public boolean legacyMsgSignature() {
+		return MessageUtil.signature(TOKEN, TIMESTAMP, NONCE, encrypt).equals(
+				msgSignature);
+	}
+
+	@Benchmark
+	public boolean verifierMsgSignature() {
+		return verifier.verify(msgSignature, TIMESTAMP, NONCE, encrypt);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(
+				SignatureBenchmark.class.getSimpleName()).build()).run();
+	}
+}
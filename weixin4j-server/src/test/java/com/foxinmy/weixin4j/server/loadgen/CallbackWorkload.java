@@ -0,0 +1,193 @@
+package com.foxinmy.weixin4j.server.loadgen;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.util.AesToken;
+import com.foxinmy.weixin4j.util.Consts;
+import com.foxinmy.weixin4j.util.StringUtil;
+
+/**
+ * 压测的回调请求:按权重混合的合成消息(文本、关注事件、上报地理位置)或者录制的消息体,
+ * 每个请求使用不同的nonce与MsgId,开启了防重放与去重的服务也不会拒绝或者合并请求;配置了aesKey时按安全模式加密
+ * <p>
+ * 录制的消息体中可以使用占位符:${ToUserName}、${FromUserName}、${CreateTime}、${MsgId}
+ * </p>
+ *
+ * @className CallbackWorkload
+ * @author jy
+ * @date 2015年7月9日
+ * @since JDK 1.7
+ * @see LoadGenerator
+ */
+public class CallbackWorkload {
+
+	/**
+	 * 文本消息
+	 */
+	public static final String TEXT = "<xml><ToUserName><![CDATA[${ToUserName}]]></ToUserName>"
+			+ "<FromUserName><![CDATA[${FromUserName}]]></FromUserName>"
+			+ "<CreateTime>${CreateTime}</CreateTime><MsgType><![CDATA[text]]></MsgType>"
+			+ "<Content><![CDATA[hello]]></Content><MsgId>${MsgId}</MsgId></xml>";
+	/**
+	 * 关注事件
+	 */
+	public static final String EVENT = "<xml><ToUserName><![CDATA[${ToUserName}]]></ToUserName>"
+			+ "<FromUserName><![CDATA[${FromUserName}]]></FromUserName>"
+			+ "<CreateTime>${CreateTime}</CreateTime><MsgType><![CDATA[event]]></MsgType>"
+			+ "<Event><![CDATA[subscribe]]></Event><EventKey><![CDATA[]]></EventKey></xml>";
+	/**
+	 * 上报地理位置事件
+	 */
+	public static final String LOCATION = "<xml><ToUserName><![CDATA[${ToUserName}]]></ToUserName>"
+			+ "<FromUserName><![CDATA[${FromUserName}]]></FromUserName>"
+			+ "<CreateTime>${CreateTime}</CreateTime><MsgType><![CDATA[event]]></MsgType>"
+			+ "<Event><![CDATA[LOCATION]]></Event><Latitude>23.137466</Latitude>"
+			+ "<Longitude>113.352425</Longitude><Precision>119.385040</Precision></xml>";
+
+	private final AesToken aesToken;
+	private final String path;
+	private final String toUserName;
+	/**
+	 * 按权重展开的消息模板
+	 */
+	private final String[] templates;
+	private final AtomicLong sequence = new AtomicLong(System
+			.currentTimeMillis() * 1000l);
+
+	/**
+	 *
+	 * @param aesToken
+	 *            服务的令牌,aesKey不为空时按安全模式加密
+	 * @param path
+	 *            回调地址的路径
+	 * @param toUserName
+	 *            公众号的原始ID
+	 * @param templates
+	 *            消息模板,同一模板出现多次即为权重
+	 */
+	public CallbackWorkload(AesToken aesToken, String path, String toUserName,
+			List<String> templates) {
+		if (templates.isEmpty()) {
+			throw new IllegalArgumentException("templates not be empty");
+		}
+		this.aesToken = aesToken;
+		this.path = path;
+		this.toUserName = toUserName;
+		this.templates = templates.toArray(new String[templates.size()]);
+	}
+
+	/**
+	 * 按权重混合合成消息
+	 *
+	 * @param mix
+	 *            如text:8,event:1,location:1
+	 * @return 消息模板
+	 */
+	public static List<String> mix(String mix) {
+		List<String> templates = new ArrayList<String>();
+		for (String part : mix.split(",")) {
+			String[] nameWeight = part.trim().split(":");
+			int weight = nameWeight.length > 1 ? Integer
+					.parseInt(nameWeight[1]) : 1;
+			String template;
+			if ("text".equals(nameWeight[0])) {
+				template = TEXT;
+			} else if ("event".equals(nameWeight[0])) {
+				template = EVENT;
+			} else if ("location".equals(nameWeight[0])) {
+				template = LOCATION;
+			} else {
+				throw new IllegalArgumentException("unknown message:"
+						+ nameWeight[0]);
+			}
+			templates.addAll(Arrays.asList(new String[weight]));
+			for (int i = templates.size() - weight; i < templates.size(); i++) {
+				templates.set(i, template);
+			}
+		}
+		return templates;
+	}
+
+	/**
+	 * 读取录制的消息体:目录下每个.xml文件为一个消息
+	 *
+	 * @param dir
+	 *            目录
+	 * @return 消息模板
+	 * @throws IOException
+	 */
+	public static List<String> replay(File dir) throws IOException {
+		File[] files = dir.listFiles();
+		if (files == null) {
+			throw new IOException(dir + " is not a directory");
+		}
+		Arrays.sort(files);
+		List<String> templates = new ArrayList<String>();
+		for (File file : files) {
+			if (file.isFile() && file.getName().endsWith(".xml")) {
+				templates.add(new String(Files.readAllBytes(file.toPath()),
+						Consts.UTF_8));
+			}
+		}
+		return templates;
+	}
+
+	/**
+	 * 生成下一个请求
+	 *
+	 * @return 签名过的回调请求
+	 * @throws WeixinException
+	 */
+	public FullHttpRequest next() throws WeixinException {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		long id = sequence.incrementAndGet();
+		String timestamp = Long.toString(System.currentTimeMillis() / 1000l);
+		String nonce = Long.toString(id);
+		String xml = templates[random.nextInt(templates.length)]
+				.replace("${ToUserName}", toUserName)
+				.replace("${FromUserName}",
+						"loadgen_" + random.nextInt(100000))
+				.replace("${CreateTime}", timestamp)
+				.replace("${MsgId}", Long.toString(id));
+		StringBuilder uri = new StringBuilder(256).append(path)
+				.append("?signature=")
+				.append(aesToken.getVerifier().sign(timestamp, nonce, null))
+				.append("&timestamp=").append(timestamp).append("&nonce=")
+				.append(nonce);
+		ByteBuf content = Unpooled.copiedBuffer(xml, Consts.UTF_8);
+		if (!StringUtil.isBlank(aesToken.getAesKey())) {
+			String encrypt;
+			try {
+				encrypt = aesToken.getCrypto().encrypt(content);
+			} finally {
+				content.release();
+			}
+			uri.append("&encrypt_type=aes&msg_signature=").append(
+					aesToken.getVerifier().sign(timestamp, nonce, encrypt));
+			content = Unpooled.copiedBuffer("<xml><ToUserName><![CDATA["
+					+ toUserName + "]]></ToUserName><Encrypt><![CDATA["
+					+ encrypt + "]]></Encrypt></xml>", Consts.UTF_8);
+		}
+		FullHttpRequest request = new DefaultFullHttpRequest(
+				HttpVersion.HTTP_1_1, HttpMethod.POST, uri.toString(), content);
+		HttpHeaders.setContentLength(request, content.readableBytes());
+		HttpHeaders.setKeepAlive(request, true);
+		return request;
+	}
+}
@@ -0,0 +1,120 @@
+package com.foxinmy.weixin4j.server.loadgen;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 压测客户端的耗时记录:按2的幂分段、每段再等分为32个桶的对数直方图,以微秒为单位,相对误差约3%,
+ * 可以统计到p999;记录只做原子加,多个I/O线程可以同时记录
+ *
+ * @className LatencyRecorder
+ * @author jy
+ * @date 2015年7月9日
+ * @since JDK 1.7
+ * @see LoadGenerator
+ */
+public class LatencyRecorder {
+
+	private static final int SUB_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	/**
+	 * 最大可以记录约19小时
+	 */
+	private static final int MAX_EXPONENT = 36;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(SUB_BUCKETS
+			+ (MAX_EXPONENT - SUB_BITS + 1) * SUB_BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong maxMicros = new AtomicLong();
+
+	/**
+	 * 记录一次耗时
+	 *
+	 * @param nanos
+	 *            耗时(纳秒)
+	 */
+	public void record(long nanos) {
+		long micros = Math.max(nanos / 1000l, 0l);
+		buckets.incrementAndGet(index(micros));
+		count.incrementAndGet();
+		long max;
+		while ((max = maxMicros.get()) < micros
+				&& !maxMicros.compareAndSet(max, micros)) {
+		}
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * 最大耗时(毫秒)
+	 *
+	 * @return
+	 */
+	public double getMaxMillis() {
+		return maxMicros.get() / 1e3;
+	}
+
+	/**
+	 * 分位数(毫秒)
+	 *
+	 * @param quantile
+	 *            如0.5、0.99、0.999
+	 * @return 所在桶的上界,不超过最大耗时
+	 */
+	public double getQuantileMillis(double quantile) {
+		long[] counts = new long[buckets.length()];
+		long total = 0l;
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = buckets.get(i);
+			total += counts[i];
+		}
+		if (total == 0l) {
+			return 0d;
+		}
+		long rank = Math.max((long) Math.ceil(quantile * total), 1l);
+		long seen = 0l;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(upperBound(i), maxMicros.get()) / 1e3;
+			}
+		}
+		return getMaxMillis();
+	}
+
+	/**
+	 * 清空记录,用于按时间段输出
+	 */
+	public void reset() {
+		for (int i = 0; i < buckets.length(); i++) {
+			buckets.set(i, 0l);
+		}
+		count.set(0l);
+		maxMicros.set(0l);
+	}
+
+	private static int index(long micros) {
+		if (micros < SUB_BUCKETS) {
+			return (int) micros;
+		}
+		int exponent = Math.min(63 - Long.numberOfLeadingZeros(micros),
+				MAX_EXPONENT);
+		int sub = (int) (micros >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+		if (exponent == MAX_EXPONENT && micros >>> (MAX_EXPONENT + 1) != 0l) {
+			sub = SUB_BUCKETS - 1;
+		}
+		return SUB_BUCKETS + (exponent - SUB_BITS) * SUB_BUCKETS + sub;
+	}
+
+	private static long upperBound(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int exponent = (index - SUB_BUCKETS) / SUB_BUCKETS + SUB_BITS;
+		int sub = (index - SUB_BUCKETS) % SUB_BUCKETS;
+		int shift = exponent - SUB_BITS;
+		return ((SUB_BUCKETS + sub + 1l) << shift) - 1l;
+	}
+}
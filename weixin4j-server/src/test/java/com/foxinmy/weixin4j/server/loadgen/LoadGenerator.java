@@ -0,0 +1,345 @@
+package com.foxinmy.weixin4j.server.loadgen;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.foxinmy.weixin4j.handler.DebugMessageHandler;
+import com.foxinmy.weixin4j.startup.WeixinServer;
+import com.foxinmy.weixin4j.startup.WeixinServerBootstrap;
+import com.foxinmy.weixin4j.util.AesToken;
+
+/**
+ * 回调的压测客户端:以多个keep-alive连接按目标速率向运行中的服务推送回调(文本、事件、安全模式加密或者录制的消息),
+ * 每秒输出吞吐量与耗时分位数,结束时输出汇总以及按类型统计的错误数
+ * <p>
+ * 参数为key=value形式:
+ * <ul>
+ * <li>host、port、path:服务地址,默认127.0.0.1:30000/</li>
+ * <li>token、appid、aesKey、toUserName:公众号的令牌与原始ID,aesKey不为空时按安全模式加密</li>
+ * <li>mix:合成消息的权重,默认text:8,event:1,location:1;replay:录制消息的目录,指定后忽略mix</li>
+ * <li>connections:连接数,默认64;rate:每秒请求数,默认0即每个连接收到回复后立即发送下一个请求</li>
+ * <li>duration、warmup:持续与预热秒数,默认30与5;timeout:请求超时毫秒数,默认5000</li>
+ * <li>embedded:为true时在本机启动一个使用DebugMessageHandler的服务</li>
+ * </ul>
+ * </p>
+ * <p>
+ * 指定rate时按固定间隔发送而不等待回复(keep-alive连接上流水线发送),耗时从计划发送的时间算起,
+ * 服务变慢时排队的时间也计入耗时,不会因为客户端跟着变慢而低估分位数
+ * </p>
+ *
+ * @className LoadGenerator
+ * @author jy
+ * @date 2015年7月9日
+ * @since JDK 1.7
+ * @see CallbackWorkload
+ * @see com.foxinmy.weixin4j.server.benchmark.ServerLoadBenchmark
+ */
+public class LoadGenerator {
+
+	private final String host;
+	private final int port;
+	private final CallbackWorkload workload;
+	private final int connections;
+	private final double rate;
+	private final long timeoutNanos;
+
+	private final LatencyRecorder total = new LatencyRecorder();
+	private final LatencyRecorder interval = new LatencyRecorder();
+	private final AtomicLong completed = new AtomicLong();
+	private final AtomicLong statusErrors = new AtomicLong();
+	private final AtomicLong timeouts = new AtomicLong();
+	private final AtomicLong connectErrors = new AtomicLong();
+	private final AtomicLong requestErrors = new AtomicLong();
+
+	private volatile boolean stopped;
+	private Bootstrap bootstrap;
+
+	public LoadGenerator(String host, int port, CallbackWorkload workload,
+			int connections, double rate, long timeoutMillis) {
+		this.host = host;
+		this.port = port;
+		this.workload = workload;
+		this.connections = connections;
+		this.rate = rate;
+		this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<String, String>();
+		for (String arg : args) {
+			int index = arg.indexOf('=');
+			if (index < 0) {
+				throw new IllegalArgumentException("expect key=value:" + arg);
+			}
+			options.put(arg.substring(0, index), arg.substring(index + 1));
+		}
+		String host = option(options, "host", "127.0.0.1");
+		int port = Integer.parseInt(option(options, "port", "30000"));
+		String path = option(options, "path", "/");
+		AesToken aesToken = new AesToken(option(options, "appid", ""),
+				option(options, "token", "weixin4j"), option(options,
+						"aesKey", ""));
+		String replay = options.get("replay");
+		List<String> templates = replay != null ? CallbackWorkload
+				.replay(new File(replay)) : CallbackWorkload.mix(option(
+				options, "mix", "text:8,event:1,location:1"));
+		CallbackWorkload workload = new CallbackWorkload(aesToken, path,
+				option(options, "toUserName", "gh_22b350df957b"), templates);
+		int connections = Integer.parseInt(option(options, "connections",
+				"64"));
+		double rate = Double.parseDouble(option(options, "rate", "0"));
+		int duration = Integer.parseInt(option(options, "duration", "30"));
+		int warmup = Integer.parseInt(option(options, "warmup", "5"));
+		long timeout = Long.parseLong(option(options, "timeout", "5000"));
+
+		WeixinServer server = null;
+		if (Boolean.parseBoolean(option(options, "embedded", "false"))) {
+			server = new WeixinServerBootstrap(aesToken).addHandler(
+					DebugMessageHandler.global).start(1,
+					Runtime.getRuntime().availableProcessors(), port);
+			server.awaitReady();
+		}
+		try {
+			new LoadGenerator(host, port, workload, connections, rate,
+					timeout).run(warmup, duration);
+		} finally {
+			if (server != null) {
+				server.stop();
+			}
+		}
+	}
+
+	private static String option(Map<String, String> options, String key,
+			String defaultValue) {
+		String value = options.get(key);
+		return value != null ? value : defaultValue;
+	}
+
+	/**
+	 * 执行压测
+	 *
+	 * @param warmup
+	 *            预热秒数,预热期间的请求不计入汇总
+	 * @param duration
+	 *            持续秒数
+	 * @throws InterruptedException
+	 */
+	public void run(int warmup, int duration) throws InterruptedException {
+		EventLoopGroup group = new NioEventLoopGroup();
+		try {
+			bootstrap = new Bootstrap();
+			bootstrap.group(group).channel(NioSocketChannel.class)
+					.option(ChannelOption.TCP_NODELAY, true)
+					.handler(new ChannelInitializer<SocketChannel>() {
+						@Override
+						protected void initChannel(SocketChannel ch) {
+							ch.pipeline().addLast(new HttpClientCodec(),
+									new HttpObjectAggregator(65536),
+									new LoadConnection());
+						}
+					});
+			for (int i = 0; i < connections; i++) {
+				connect();
+			}
+			System.out.printf("%s:%d connections=%d rate=%s warmup=%ds duration=%ds%n",
+					host, port, connections, rate > 0d ? String.format(
+							"%.0f/s", rate) : "closed-loop", warmup, duration);
+			for (int second = 1; second <= warmup + duration; second++) {
+				long before = completed.get();
+				TimeUnit.SECONDS.sleep(1);
+				System.out.printf(
+						"%s%3ds %8d req/s  p50=%.2fms p99=%.2fms p999=%.2fms max=%.2fms  errors=%d%n",
+						second <= warmup ? "warmup " : "", second,
+						completed.get() - before,
+						interval.getQuantileMillis(0.5d),
+						interval.getQuantileMillis(0.99d),
+						interval.getQuantileMillis(0.999d),
+						interval.getMaxMillis(), errors());
+				interval.reset();
+				if (second == warmup) {
+					resetTotal();
+				}
+			}
+			long requests = total.getCount();
+			System.out.printf("%n%d requests in %ds, %.0f req/s%n", requests,
+					duration, (double) requests / duration);
+			System.out.printf(
+					"latency p50=%.2fms p90=%.2fms p99=%.2fms p999=%.2fms max=%.2fms%n",
+					total.getQuantileMillis(0.5d),
+					total.getQuantileMillis(0.9d),
+					total.getQuantileMillis(0.99d),
+					total.getQuantileMillis(0.999d), total.getMaxMillis());
+			System.out.printf(
+					"errors status=%d timeout=%d connect=%d request=%d%n",
+					statusErrors.get(), timeouts.get(), connectErrors.get(),
+					requestErrors.get());
+		} finally {
+			stopped = true;
+			group.shutdownGracefully().sync();
+		}
+	}
+
+	private long errors() {
+		return statusErrors.get() + timeouts.get() + connectErrors.get()
+				+ requestErrors.get();
+	}
+
+	private void resetTotal() {
+		total.reset();
+		completed.set(0l);
+		statusErrors.set(0l);
+		timeouts.set(0l);
+		connectErrors.set(0l);
+		requestErrors.set(0l);
+	}
+
+	private void connect() {
+		if (stopped) {
+			return;
+		}
+		bootstrap.connect(host, port).addListener(new ChannelFutureListener() {
+			@Override
+			public void operationComplete(ChannelFuture future) {
+				if (!future.isSuccess()) {
+					connectErrors.incrementAndGet();
+					reconnect(future.channel());
+				}
+			}
+		});
+	}
+
+	private void reconnect(Channel channel) {
+		if (!stopped) {
+			channel.eventLoop().schedule(new Runnable() {
+				@Override
+				public void run() {
+					connect();
+				}
+			}, 100, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * 一个keep-alive连接:按顺序记录已发送请求的计划发送时间,回复按请求顺序到达
+	 */
+	private final class LoadConnection extends
+			SimpleChannelInboundHandler<FullHttpResponse> {
+
+		/**
+		 * 只在连接的I/O线程中访问
+		 */
+		private final ArrayDeque<Long> pending = new ArrayDeque<Long>();
+		private ScheduledFuture<?> sender;
+		private ScheduledFuture<?> timeoutChecker;
+		private long nextSendNanos;
+		private long periodNanos;
+
+		@Override
+		public void channelActive(final ChannelHandlerContext ctx) {
+			if (rate > 0d) {
+				periodNanos = (long) (connections * 1e9d / rate);
+				nextSendNanos = System.nanoTime();
+				sender = ctx.executor().scheduleAtFixedRate(new Runnable() {
+					@Override
+					public void run() {
+						// 定时任务被延迟时补发计划时间已到的请求
+						long now = System.nanoTime();
+						while (nextSendNanos <= now && ctx.channel().isActive()) {
+							send(ctx, nextSendNanos);
+							nextSendNanos += periodNanos;
+						}
+					}
+				}, 0l, periodNanos, TimeUnit.NANOSECONDS);
+			} else {
+				send(ctx, System.nanoTime());
+			}
+			timeoutChecker = ctx.executor().scheduleWithFixedDelay(
+					new Runnable() {
+						@Override
+						public void run() {
+							Long start = pending.peek();
+							if (start != null
+									&& System.nanoTime() - start > timeoutNanos) {
+								// 流水线上的回复不能跳过,超时后重建连接
+								timeouts.incrementAndGet();
+								pending.poll();
+								ctx.close();
+							}
+						}
+					}, 100l, 100l, TimeUnit.MILLISECONDS);
+		}
+
+		@Override
+		protected void channelRead0(ChannelHandlerContext ctx,
+				FullHttpResponse response) {
+			Long start = pending.poll();
+			if (start == null) {
+				return;
+			}
+			long elapsed = System.nanoTime() - start;
+			if (response.getStatus().equals(HttpResponseStatus.OK)) {
+				total.record(elapsed);
+				interval.record(elapsed);
+				completed.incrementAndGet();
+			} else {
+				statusErrors.incrementAndGet();
+			}
+			if (!HttpHeaders.isKeepAlive(response)) {
+				ctx.close();
+			} else if (rate <= 0d) {
+				send(ctx, System.nanoTime());
+			}
+		}
+
+		@Override
+		public void channelInactive(ChannelHandlerContext ctx) {
+			if (sender != null) {
+				sender.cancel(false);
+			}
+			if (timeoutChecker != null) {
+				timeoutChecker.cancel(false);
+			}
+			connectErrors.addAndGet(pending.size());
+			pending.clear();
+			reconnect(ctx.channel());
+		}
+
+		@Override
+		public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+			ctx.close();
+		}
+
+		private void send(ChannelHandlerContext ctx, long startNanos) {
+			try {
+				ctx.writeAndFlush(workload.next());
+				pending.add(startNanos);
+			} catch (Exception e) {
+				requestErrors.incrementAndGet();
+			}
+		}
+	}
+}
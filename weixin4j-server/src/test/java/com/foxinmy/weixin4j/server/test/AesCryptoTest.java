@@ -0,0 +1,98 @@
+package com.foxinmy.weixin4j.server.test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.util.AesCrypto;
+import com.foxinmy.weixin4j.util.AesToken;
+import com.foxinmy.weixin4j.util.Base64;
+import com.foxinmy.weixin4j.util.Consts;
+import com.foxinmy.weixin4j.util.MessageUtil;
+
+/**
+ * 安全模式加解密测试
+ *
+ * @className AesCryptoTest
+ * @author jy
+ * @date 2015年6月29日
+ * @since JDK 1.7
+ * @see
+ */
+public class AesCryptoTest {
+
+	private final String appid = "wx0d1d598c0c03c999";
+	private final String aesKey = "abcdefghijklmnopqrstuvwxyz0123456789ABCDEFG";
+	private final String xml = "<xml><ToUserName><![CDATA[gh_22b350df957b]]></ToUserName>"
+			+ "<Content><![CDATA[中文 emoji 😀]]></Content></xml>";
+
+	@Test
+	public void roundTrip() throws WeixinException {
+		AesCrypto crypto = new AesToken(appid, "token", aesKey).getCrypto();
+		for (int i = 0; i < 64; i++) {
+			String content = xml + i;
+			String encrypt = crypto.encrypt(Unpooled.copiedBuffer(content,
+					Consts.UTF_8));
+			// 与微信一致:标准BASE64且没有换行
+			Assert.assertTrue(encrypt.matches("[A-Za-z0-9+/]+={0,2}"));
+			ByteBuf original = crypto.decrypt(encrypt);
+			Assert.assertEquals(content, original.toString(Consts.UTF_8));
+		}
+	}
+
+	@Test
+	public void messageUtil() throws WeixinException {
+		String encrypt = MessageUtil.aesEncrypt(appid, aesKey, xml);
+		Assert.assertEquals(xml, MessageUtil.aesDecrypt(appid, aesKey, encrypt));
+	}
+
+	@Test
+	public void readerIndex() throws WeixinException {
+		AesCrypto crypto = new AesCrypto(appid, aesKey);
+		ByteBuf buf = Unpooled.copiedBuffer(xml, Consts.UTF_8);
+		crypto.encrypt(buf);
+		Assert.assertEquals(0, buf.readerIndex());
+	}
+
+	@Test
+	public void appidMismatch() throws WeixinException {
+		String encrypt = new AesCrypto("wx_other", aesKey).encrypt(Unpooled
+				.copiedBuffer(xml, Consts.UTF_8));
+		try {
+			new AesCrypto(appid, aesKey).decrypt(encrypt);
+			Assert.fail();
+		} catch (WeixinException e) {
+			Assert.assertEquals("-40005", e.getErrorCode());
+		}
+	}
+
+	@Test
+	public void illegalContent() {
+		try {
+			new AesCrypto(appid, aesKey).decrypt("bm90IGVuY3J5cHRlZA==");
+			Assert.fail();
+		} catch (WeixinException e) {
+			Assert.assertEquals("-40007", e.getErrorCode());
+		}
+	}
+
+	@Test
+	public void base64() {
+		byte[] bytes = new byte[100];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) i;
+		}
+		String encoded = Base64.encodeBase64String(bytes);
+		// 标准的BASE64字符串:不再是十六进制,也不插入换行
+		Assert.assertEquals(DatatypeConverter.printBase64Binary(bytes), encoded);
+		Assert.assertFalse(encoded.contains("\n"));
+		Assert.assertArrayEquals(encoded.getBytes(Consts.UTF_8),
+				Base64.encodeBase64(bytes));
+		Assert.assertArrayEquals(bytes, Base64.decodeBase64(encoded));
+	}
+}
@@ -0,0 +1,97 @@
+package com.foxinmy.weixin4j.server.test;
+
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.foxinmy.weixin4j.dispatcher.WeixinMessageDispatcher;
+import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.handler.AsyncMessageHandlerAdapter;
+import com.foxinmy.weixin4j.handler.WeixinMessageHandler;
+import com.foxinmy.weixin4j.message.TextMessage;
+import com.foxinmy.weixin4j.request.WeixinRequest;
+import com.foxinmy.weixin4j.response.TextResponse;
+import com.foxinmy.weixin4j.response.WeixinResponse;
+
+/**
+ * 异步handler的同步调用测试
+ *
+ * @className AsyncMessageHandlerAdapterTest
+ * @author jy
+ * @date 2015年6月26日
+ * @since JDK 1.7
+ * @see
+ */
+public class AsyncMessageHandlerAdapterTest {
+
+	/**
+	 * 在另一个线程中完成promise
+	 */
+	static class DelayedHandler extends AsyncMessageHandlerAdapter<TextMessage> {
+		private final Throwable cause;
+
+		DelayedHandler(Throwable cause) {
+			this.cause = cause;
+		}
+
+		@Override
+		public Future<WeixinResponse> doHandleAsync0(WeixinRequest request,
+				TextMessage message) throws WeixinException {
+			final Promise<WeixinResponse> promise = newPromise();
+			new Thread() {
+				@Override
+				public void run() {
+					try {
+						Thread.sleep(50);
+					} catch (InterruptedException e) {
+						// ignore
+					}
+					if (cause != null) {
+						promise.setFailure(cause);
+					} else {
+						promise.setSuccess(new TextResponse("async"));
+					}
+				}
+			}.start();
+			return promise;
+		}
+	}
+
+	@Test
+	public void doHandle() throws WeixinException {
+		WeixinResponse response = new DelayedHandler(null).doHandle0(null,
+				null);
+		Assert.assertEquals("async", ((TextResponse) response).getContent());
+	}
+
+	@Test
+	public void exception() {
+		try {
+			new DelayedHandler(new IOException("io")).doHandle0(null, null);
+			Assert.fail();
+		} catch (WeixinException e) {
+			Assert.assertTrue(e.getCause() instanceof IOException);
+		}
+	}
+
+	@Test(expected = WeixinException.class)
+	public void throwable() throws WeixinException {
+		// 既不是Exception也不是Error
+		new DelayedHandler(new Throwable("throwable")).doHandle0(null, null);
+	}
+
+	@Test
+	public void scanHandlerPackage() throws WeixinException {
+		// 包中的内部类(如等待结果的监听者)不是handler,扫描时跳过
+		WeixinMessageDispatcher dispatcher = new WeixinMessageDispatcher();
+		dispatcher
+				.setMessageHandlerList(new ArrayList<WeixinMessageHandler>());
+		dispatcher.setMessageHandlerPackages("com.foxinmy.weixin4j.handler");
+		Assert.assertEquals(2, dispatcher.getMessageHandlers().length);
+	}
+}
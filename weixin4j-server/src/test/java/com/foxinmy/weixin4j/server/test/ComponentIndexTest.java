@@ -0,0 +1,109 @@
+package com.foxinmy.weixin4j.server.test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.foxinmy.weixin4j.dispatcher.WeixinMessageDispatcher;
+import com.foxinmy.weixin4j.handler.BlankMessageHandler;
+import com.foxinmy.weixin4j.handler.DebugMessageHandler;
+import com.foxinmy.weixin4j.handler.WeixinMessageHandler;
+import com.foxinmy.weixin4j.index.ComponentIndex;
+import com.foxinmy.weixin4j.util.Consts;
+
+/**
+ * handler与interceptor索引测试
+ *
+ * @className ComponentIndexTest
+ * @author jy
+ * @date 2015年7月8日
+ * @since JDK 1.7
+ * @see
+ */
+public class ComponentIndexTest {
+
+	private ClassLoader classLoader;
+	private File root;
+
+	@Before
+	public void setUp() throws IOException {
+		root = File.createTempFile("weixin4j", "index");
+		root.delete();
+		writeIndex("# handlers\n" + DebugMessageHandler.class.getName() + "\n"
+				+ BlankMessageHandler.class.getName()
+				+ "\ncom.foxinmy.weixin4j.handler.MissingHandler\n"
+				+ "com.foxinmy.weixin4j.handlers.OtherHandler\n");
+		classLoader = Thread.currentThread().getContextClassLoader();
+		Thread.currentThread().setContextClassLoader(
+				new URLClassLoader(new URL[] { root.toURI().toURL() },
+						classLoader));
+	}
+
+	private void writeIndex(String content) throws IOException {
+		File index = new File(root, ComponentIndex.HANDLER_INDEX);
+		index.getParentFile().mkdirs();
+		OutputStream out = new FileOutputStream(index);
+		try {
+			out.write(content.getBytes(Consts.UTF_8));
+		} finally {
+			out.close();
+		}
+	}
+
+	@After
+	public void tearDown() {
+		Thread.currentThread().setContextClassLoader(classLoader);
+		new File(root, ComponentIndex.HANDLER_INDEX).delete();
+		new File(root, "com/foxinmy/weixin4j/indexed").delete();
+	}
+
+	@Test
+	public void getClasses() {
+		List<Class<?>> classes = ComponentIndex.getClasses(
+				ComponentIndex.HANDLER_INDEX, "com.foxinmy.weixin4j.handler");
+		Assert.assertEquals(2, classes.size());
+		Assert.assertTrue(classes.contains(DebugMessageHandler.class));
+		Assert.assertTrue(classes.contains(BlankMessageHandler.class));
+		Assert.assertTrue(ComponentIndex.getClasses(
+				ComponentIndex.HANDLER_INDEX, "com.foxinmy.weixin4j.none")
+				.isEmpty());
+		// 没有索引时回退为扫描classpath
+		Assert.assertNull(ComponentIndex.getClasses("META-INF/weixin4j/none",
+				"com.foxinmy.weixin4j.interceptor"));
+	}
+
+	@Test
+	public void partialIndex() throws Exception {
+		// 索引只在临时目录中,classes目录中的handler包没有索引
+		writeIndex(DebugMessageHandler.class.getName() + "\n");
+		Assert.assertFalse(ComponentIndex.getUnindexedPackages(
+				ComponentIndex.HANDLER_INDEX, "com.foxinmy.weixin4j.handler")
+				.isEmpty());
+		new File(root, "com/foxinmy/weixin4j/indexed").mkdirs();
+		Assert.assertTrue(ComponentIndex.getUnindexedPackages(
+				ComponentIndex.HANDLER_INDEX, "com.foxinmy.weixin4j.indexed")
+				.isEmpty());
+		// 没有索引的路径扫描后与索引合并
+		WeixinMessageDispatcher dispatcher = new WeixinMessageDispatcher();
+		dispatcher
+				.setMessageHandlerList(new ArrayList<WeixinMessageHandler>());
+		dispatcher.setMessageHandlerPackages("com.foxinmy.weixin4j.handler");
+		List<Class<?>> handlerClasses = new ArrayList<Class<?>>();
+		for (WeixinMessageHandler handler : dispatcher.getMessageHandlers()) {
+			handlerClasses.add(handler.getClass());
+		}
+		Assert.assertTrue(handlerClasses.contains(DebugMessageHandler.class));
+		Assert.assertTrue(handlerClasses.contains(BlankMessageHandler.class));
+		Assert.assertEquals(2, handlerClasses.size());
+	}
+}
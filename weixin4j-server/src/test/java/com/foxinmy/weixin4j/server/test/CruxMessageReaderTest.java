@@ -0,0 +1,75 @@
+package com.foxinmy.weixin4j.server.test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.type.AccountType;
+import com.foxinmy.weixin4j.util.Consts;
+import com.foxinmy.weixin4j.xml.CruxMessage;
+import com.foxinmy.weixin4j.xml.CruxMessageReader;
+
+/**
+ * 关键信息读取测试
+ *
+ * @className CruxMessageReaderTest
+ * @author jy
+ * @date 2015年6月22日
+ * @since JDK 1.7
+ * @see
+ */
+public class CruxMessageReaderTest {
+
+	private ByteBuf buf(String xml) {
+		return Unpooled.copiedBuffer(xml, Consts.UTF_8);
+	}
+
+	@Test
+	public void text() throws WeixinException {
+		ByteBuf content = buf("<?xml version=\"1.0\"?><xml>"
+				+ "<ToUserName><![CDATA[toUser]]></ToUserName>\n"
+				+ "<FromUserName><![CDATA[fromUser]]></FromUserName>"
+				+ "<CreateTime>1348831860</CreateTime>"
+				+ "<MsgType><![CDATA[TEXT]]></MsgType>"
+				+ "<Content><![CDATA[<MsgType>image</MsgType>]]></Content>"
+				+ "</xml>");
+		int readerIndex = content.readerIndex();
+		CruxMessage crux = CruxMessageReader.read(content);
+		Assert.assertEquals("toUser", crux.getToUserName());
+		Assert.assertEquals("fromUser", crux.getFromUserName());
+		Assert.assertEquals("text", crux.getMsgType());
+		Assert.assertNull(crux.getEventType());
+		Assert.assertEquals(AccountType.MP, crux.getAccountType());
+		Assert.assertEquals(readerIndex, content.readerIndex());
+	}
+
+	@Test
+	public void event() throws WeixinException {
+		CruxMessage crux = CruxMessageReader.read(buf("<xml>"
+				+ "<ToUserName>to&amp;User</ToUserName>"
+				+ "<FromUserName><![CDATA[中文]]></FromUserName>"
+				+ "<MsgType>event</MsgType><Event>CLICK</Event>"
+				+ "<ScanCodeInfo><Event>nested</Event></ScanCodeInfo>"
+				+ "<EventKey/><AgentID>1</AgentID></xml>"));
+		Assert.assertEquals("to&User", crux.getToUserName());
+		Assert.assertEquals("中文", crux.getFromUserName());
+		Assert.assertEquals("click", crux.getEventType());
+		Assert.assertEquals(AccountType.QY, crux.getAccountType());
+	}
+
+	@Test
+	public void encrypt() throws WeixinException {
+		CruxMessage crux = CruxMessageReader.read(buf("<xml>"
+				+ "<ToUserName><![CDATA[gh_248c6f91d64f]]></ToUserName>"
+				+ "<Encrypt><![CDATA[a+b/c==]]></Encrypt></xml>"));
+		Assert.assertEquals("a+b/c==", crux.getEncryptContent());
+	}
+
+	@Test(expected = WeixinException.class)
+	public void malformed() throws WeixinException {
+		CruxMessageReader.read(buf("<xml><MsgType><![CDATA[text"));
+	}
+}
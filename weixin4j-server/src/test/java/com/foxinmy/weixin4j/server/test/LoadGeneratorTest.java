@@ -0,0 +1,81 @@
+package com.foxinmy.weixin4j.server.test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.QueryStringDecoder;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.foxinmy.weixin4j.server.loadgen.CallbackWorkload;
+import com.foxinmy.weixin4j.server.loadgen.LatencyRecorder;
+import com.foxinmy.weixin4j.util.AesToken;
+import com.foxinmy.weixin4j.util.Consts;
+
+/**
+ * 压测客户端测试
+ *
+ * @className LoadGeneratorTest
+ * @author jy
+ * @date 2015年7月9日
+ * @since JDK 1.7
+ * @see
+ */
+public class LoadGeneratorTest {
+
+	private final AesToken aesToken = new AesToken("wx0d1d598c0c03c999",
+			"weixin4j", "abcdefghijklmnopqrstuvwxyz0123456789ABCDEFG");
+
+	@Test
+	public void recorder() {
+		LatencyRecorder recorder = new LatencyRecorder();
+		Assert.assertEquals(0d, recorder.getQuantileMillis(0.99d), 0d);
+		for (int i = 1; i <= 1000; i++) {
+			recorder.record(i * 1000000l);
+		}
+		Assert.assertEquals(1000l, recorder.getCount());
+		Assert.assertEquals(500d, recorder.getQuantileMillis(0.5d), 500 * 0.04d);
+		Assert.assertEquals(990d, recorder.getQuantileMillis(0.99d),
+				990 * 0.04d);
+		Assert.assertEquals(1000d, recorder.getQuantileMillis(0.999d),
+				1000 * 0.04d);
+		Assert.assertEquals(1000d, recorder.getMaxMillis(), 0d);
+		recorder.reset();
+		Assert.assertEquals(0l, recorder.getCount());
+	}
+
+	@Test
+	public void encryptWorkload() throws Exception {
+		CallbackWorkload workload = new CallbackWorkload(aesToken, "/",
+				"gh_22b350df957b", CallbackWorkload.mix("text"));
+		FullHttpRequest first = workload.next();
+		FullHttpRequest second = workload.next();
+		try {
+			Map<String, List<String>> parameters = new QueryStringDecoder(
+					first.getUri()).parameters();
+			Assert.assertFalse(parameters.get("nonce").equals(
+					new QueryStringDecoder(second.getUri()).parameters().get(
+							"nonce")));
+			String timestamp = parameters.get("timestamp").get(0);
+			String nonce = parameters.get("nonce").get(0);
+			Assert.assertTrue(aesToken.getVerifier().verify(
+					parameters.get("signature").get(0), timestamp, nonce));
+			String body = first.content().toString(Consts.UTF_8);
+			String encrypt = body.substring(
+					body.indexOf("<Encrypt><![CDATA[") + 18,
+					body.indexOf("]]></Encrypt>"));
+			Assert.assertTrue(aesToken.getVerifier().verify(
+					parameters.get("msg_signature").get(0), timestamp, nonce,
+					encrypt));
+			ByteBuf xml = aesToken.getCrypto().decrypt(encrypt);
+			Assert.assertTrue(xml.toString(Consts.UTF_8).contains(
+					"<MsgId>" + nonce + "</MsgId>"));
+		} finally {
+			first.release();
+			second.release();
+		}
+	}
+}
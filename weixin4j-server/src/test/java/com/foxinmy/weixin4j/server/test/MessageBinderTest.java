@@ -0,0 +1,132 @@
+package com.foxinmy.weixin4j.server.test;
+
+import java.io.StringReader;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.transform.stream.StreamSource;
+
+import io.netty.buffer.Unpooled;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.foxinmy.weixin4j.dispatcher.DefaultMessageMatcher;
+import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.message.LocationMessage;
+import com.foxinmy.weixin4j.message.TextMessage;
+import com.foxinmy.weixin4j.message.event.MenuEventMessage;
+import com.foxinmy.weixin4j.message.event.MenuPhotoEventMessage;
+import com.foxinmy.weixin4j.message.event.MenuScanEventMessage;
+import com.foxinmy.weixin4j.mp.event.MassEventMessage;
+import com.foxinmy.weixin4j.qy.event.BatchjobresultMessage;
+import com.foxinmy.weixin4j.util.Consts;
+import com.foxinmy.weixin4j.xml.MessageBinder;
+import com.foxinmy.weixin4j.xml.MessageBinderRegistry;
+import com.foxinmy.weixin4j.xml.MessageNode;
+import com.foxinmy.weixin4j.xml.MessageNodeReader;
+
+/**
+ * 消息绑定测试:绑定结果必须与jaxb一致
+ *
+ * @className MessageBinderTest
+ * @author jy
+ * @date 2015年6月24日
+ * @since JDK 1.7
+ * @see
+ */
+public class MessageBinderTest {
+
+	private static final String HEAD = "<xml><ToUserName><![CDATA[toUser]]></ToUserName>"
+			+ "<FromUserName><![CDATA[fromUser]]></FromUserName>"
+			+ "<CreateTime>1348831860</CreateTime>";
+
+	private void assertSame(Class<?> clazz, String xml) throws WeixinException,
+			JAXBException {
+		MessageNode node = MessageNodeReader.read(Unpooled.copiedBuffer(xml,
+				Consts.UTF_8));
+		Object bound = MessageBinder.forClass(clazz).bind(node);
+		Object unmarshalled = JAXBContext.newInstance(clazz)
+				.createUnmarshaller()
+				.unmarshal(new StreamSource(new StringReader(xml)), clazz)
+				.getValue();
+		Assert.assertEquals(unmarshalled.toString(), bound.toString());
+	}
+
+	@Test
+	public void defaultMessageClasses() throws Exception {
+		MessageBinderRegistry registry = new MessageBinderRegistry();
+		for (Class<?> clazz : new DefaultMessageMatcher().getMessageClasses()) {
+			registry.register(clazz);
+			Assert.assertTrue(clazz.getName(), registry.isBindable(clazz));
+		}
+	}
+
+	@Test
+	public void text() throws Exception {
+		assertSame(TextMessage.class, HEAD
+				+ "<MsgType><![CDATA[text]]></MsgType>"
+				+ "<Content><![CDATA[a &amp; <b>]]></Content>"
+				+ "<MsgId>1234567890123456</MsgId></xml>");
+	}
+
+	@Test
+	public void location() throws Exception {
+		assertSame(LocationMessage.class, HEAD
+				+ "<MsgType><![CDATA[location]]></MsgType>"
+				+ "<Location_X>23.134521</Location_X>"
+				+ "<Location_Y> 113.358803 </Location_Y>"
+				+ "<Scale>20</Scale><Label><![CDATA[位置信息]]></Label>"
+				+ "<MsgId>1234567890123456</MsgId></xml>");
+	}
+
+	@Test
+	public void click() throws Exception {
+		assertSame(MenuEventMessage.class, HEAD
+				+ "<MsgType><![CDATA[event]]></MsgType>"
+				+ "<Event><![CDATA[CLICK]]></Event>"
+				+ "<EventKey><![CDATA[EVENTKEY]]></EventKey><AgentID>1</AgentID></xml>");
+	}
+
+	@Test
+	public void scan() throws Exception {
+		assertSame(MenuScanEventMessage.class, HEAD
+				+ "<MsgType><![CDATA[event]]></MsgType>"
+				+ "<Event><![CDATA[scancode_push]]></Event>"
+				+ "<EventKey><![CDATA[6]]></EventKey>"
+				+ "<ScanCodeInfo><ScanType><![CDATA[qrcode]]></ScanType>"
+				+ "<ScanResult><![CDATA[1]]></ScanResult></ScanCodeInfo></xml>");
+	}
+
+	@Test
+	public void photo() throws Exception {
+		assertSame(MenuPhotoEventMessage.class, HEAD
+				+ "<MsgType><![CDATA[event]]></MsgType>"
+				+ "<Event><![CDATA[pic_photo_or_album]]></Event>"
+				+ "<EventKey><![CDATA[6]]></EventKey>"
+				+ "<SendPicsInfo><Count>2</Count><PicList>"
+				+ "<item><PicMd5Sum><![CDATA[5a75aaca956d97be686719218f275c6b]]></PicMd5Sum></item>"
+				+ "<item><PicMd5Sum><![CDATA[1b5f7c23b5bf75682a53e7b6d163e185]]></PicMd5Sum></item>"
+				+ "</PicList></SendPicsInfo></xml>");
+	}
+
+	@Test
+	public void mass() throws Exception {
+		assertSame(MassEventMessage.class, HEAD
+				+ "<MsgType><![CDATA[event]]></MsgType>"
+				+ "<Event><![CDATA[MASSSENDJOBFINISH]]></Event>"
+				+ "<MsgID>1988</MsgID><Status><![CDATA[sendsuccess]]></Status>"
+				+ "<TotalCount>100</TotalCount><FilterCount>80</FilterCount>"
+				+ "<SentCount>75</SentCount><ErrorCount>5</ErrorCount></xml>");
+	}
+
+	@Test
+	public void batchjob() throws Exception {
+		assertSame(BatchjobresultMessage.class, HEAD
+				+ "<MsgType><![CDATA[event]]></MsgType>"
+				+ "<Event><![CDATA[batch_job_result]]></Event>"
+				+ "<BatchJob><JobId><![CDATA[S0MrnndvRG5fadSlLwiBqiDDbM143UqTmKP3152FZk4]]></JobId>"
+				+ "<JobType><![CDATA[sync_user]]></JobType><ErrCode>0</ErrCode>"
+				+ "<ErrMsg><![CDATA[ok]]></ErrMsg></BatchJob></xml>");
+	}
+}
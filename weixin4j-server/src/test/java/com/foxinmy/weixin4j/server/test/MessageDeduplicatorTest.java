@@ -0,0 +1,95 @@
+package com.foxinmy.weixin4j.server.test;
+
+import io.netty.buffer.Unpooled;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.foxinmy.weixin4j.dedup.MemoryDedupStore;
+import com.foxinmy.weixin4j.dedup.MessageDeduplicator;
+import com.foxinmy.weixin4j.request.WeixinRequest;
+import com.foxinmy.weixin4j.response.BlankResponse;
+import com.foxinmy.weixin4j.response.TextResponse;
+import com.foxinmy.weixin4j.response.WeixinResponse;
+import com.foxinmy.weixin4j.type.EncryptType;
+import com.foxinmy.weixin4j.util.Consts;
+import com.foxinmy.weixin4j.xml.MessageNodeReader;
+
+/**
+ * 消息去重测试
+ *
+ * @className MessageDeduplicatorTest
+ * @author jy
+ * @date 2015年6月27日
+ * @since JDK 1.7
+ * @see
+ */
+public class MessageDeduplicatorTest {
+
+	private WeixinRequest request(String xml) throws Exception {
+		return new WeixinRequest("POST", EncryptType.RAW, null, null, null,
+				null, null, xml, null, MessageNodeReader.read(Unpooled
+						.copiedBuffer(xml, Consts.UTF_8)), null);
+	}
+
+	@Test
+	public void messageKey() throws Exception {
+		MessageDeduplicator deduplicator = new MessageDeduplicator();
+		Assert.assertEquals("toUser:1234567890123456",
+				deduplicator.messageKey(request("<xml><ToUserName>toUser</ToUserName>"
+						+ "<FromUserName>fromUser</FromUserName><CreateTime>1348831860</CreateTime>"
+						+ "<MsgType>text</MsgType><MsgId>1234567890123456</MsgId></xml>")));
+		Assert.assertEquals("toUser:fromUser:1348831860",
+				deduplicator.messageKey(request("<xml><ToUserName>toUser</ToUserName>"
+						+ "<FromUserName>fromUser</FromUserName><CreateTime>1348831860</CreateTime>"
+						+ "<MsgType>event</MsgType><Event>CLICK</Event></xml>")));
+		Assert.assertNull(deduplicator.messageKey(request("<xml></xml>")));
+	}
+
+	@Test
+	public void duplicate() throws Exception {
+		MessageDeduplicator deduplicator = new MessageDeduplicator();
+		WeixinRequest request = request("<xml><ToUserName>toUser</ToUserName>"
+				+ "<MsgId>1</MsgId></xml>");
+		Assert.assertNull(deduplicator.acquire(request));
+		Assert.assertSame(BlankResponse.global, deduplicator.acquire(request));
+		WeixinResponse response = new TextResponse("hello");
+		deduplicator.complete(request, response);
+		Assert.assertSame(response, deduplicator.acquire(request));
+	}
+
+	@Test
+	public void release() throws Exception {
+		MessageDeduplicator deduplicator = new MessageDeduplicator();
+		WeixinRequest request = request("<xml><ToUserName>toUser</ToUserName>"
+				+ "<MsgId>1</MsgId></xml>");
+		Assert.assertNull(deduplicator.acquire(request));
+		// 没有回复的消息撤销登记后重新处理
+		deduplicator.release(request);
+		Assert.assertNull(deduplicator.acquire(request));
+		WeixinResponse response = new TextResponse("hello");
+		deduplicator.complete(request, response);
+		// 已经回复的消息不再撤销
+		deduplicator.release(request);
+		Assert.assertSame(response, deduplicator.acquire(request));
+	}
+
+	@Test
+	public void expire() throws Exception {
+		MemoryDedupStore store = new MemoryDedupStore();
+		Assert.assertTrue(store.tryAcquire("a", 50));
+		Assert.assertFalse(store.tryAcquire("a", 50));
+		Thread.sleep(80);
+		Assert.assertTrue(store.tryAcquire("a", 50));
+	}
+
+	@Test
+	public void capacity() {
+		MemoryDedupStore store = new MemoryDedupStore(16);
+		for (int i = 0; i < 1000; i++) {
+			store.tryAcquire("key" + i, 60000);
+		}
+		Assert.assertTrue(store.size() <= 16);
+		Assert.assertTrue(store.tryAcquire("key0", 60000));
+	}
+}
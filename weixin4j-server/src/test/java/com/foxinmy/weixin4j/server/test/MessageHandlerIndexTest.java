@@ -0,0 +1,77 @@
+package com.foxinmy.weixin4j.server.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.foxinmy.weixin4j.dispatcher.MessageHandlerIndex;
+import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.handler.Blocking;
+import com.foxinmy.weixin4j.handler.DebugMessageHandler;
+import com.foxinmy.weixin4j.handler.MessageHandlerAdapter;
+import com.foxinmy.weixin4j.handler.WeixinMessageHandler;
+import com.foxinmy.weixin4j.message.TextMessage;
+import com.foxinmy.weixin4j.message.event.MenuEventMessage;
+import com.foxinmy.weixin4j.request.WeixinRequest;
+import com.foxinmy.weixin4j.response.WeixinResponse;
+
+/**
+ * handler索引测试
+ *
+ * @className MessageHandlerIndexTest
+ * @author jy
+ * @date 2015年6月25日
+ * @since JDK 1.7
+ * @see
+ */
+public class MessageHandlerIndexTest {
+
+	static class TextHandler extends MessageHandlerAdapter<TextMessage> {
+		@Override
+		public WeixinResponse doHandle0(WeixinRequest request,
+				TextMessage message) throws WeixinException {
+			return null;
+		}
+	}
+
+	@Blocking
+	static class MenuHandler extends MessageHandlerAdapter<MenuEventMessage> {
+		@Override
+		public WeixinResponse doHandle0(WeixinRequest request,
+				MenuEventMessage message) throws WeixinException {
+			return null;
+		}
+	}
+
+	@Test
+	public void candidates() {
+		WeixinMessageHandler text1 = new TextHandler();
+		WeixinMessageHandler text2 = new TextHandler();
+		WeixinMessageHandler menu = new MenuHandler();
+		WeixinMessageHandler debug = DebugMessageHandler.global;
+		MessageHandlerIndex index = new MessageHandlerIndex(
+				new WeixinMessageHandler[] { debug, text1, menu, text2 });
+		Assert.assertArrayEquals(new WeixinMessageHandler[] { text1, text2,
+				debug }, index.getCandidates(TextMessage.class));
+		Assert.assertArrayEquals(new WeixinMessageHandler[] { menu, debug },
+				index.getCandidates(MenuEventMessage.class));
+		Assert.assertArrayEquals(new WeixinMessageHandler[] { debug },
+				index.getCandidates(String.class));
+	}
+
+	@Test
+	public void blocking() {
+		WeixinMessageHandler text = new TextHandler();
+		WeixinMessageHandler menu = new MenuHandler();
+		MessageHandlerIndex index = new MessageHandlerIndex(
+				new WeixinMessageHandler[] { text, menu });
+		Assert.assertFalse(index.isBlocking(text));
+		Assert.assertTrue(index.isBlocking(menu));
+		Assert.assertFalse(index.isBlocking(new MenuHandler()));
+	}
+
+	@Test
+	public void empty() {
+		Assert.assertEquals(0,
+				new MessageHandlerIndex(null).getCandidates(String.class).length);
+	}
+}
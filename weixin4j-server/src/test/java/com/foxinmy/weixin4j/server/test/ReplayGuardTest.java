@@ -0,0 +1,97 @@
+package com.foxinmy.weixin4j.server.test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.foxinmy.weixin4j.replay.ReplayGuard;
+import com.foxinmy.weixin4j.util.DigestUtil;
+
+/**
+ * 防重放测试
+ *
+ * @className ReplayGuardTest
+ * @author jy
+ * @date 2015年7月4日
+ * @since JDK 1.7
+ * @see
+ */
+public class ReplayGuardTest {
+
+	private static final long NOW = 1433903433l;
+
+	private String signature(int i) {
+		return DigestUtil.SHA1("nonce" + i);
+	}
+
+	@Test
+	public void window() {
+		ReplayGuard guard = new ReplayGuard(60, 1024);
+		Assert.assertFalse(guard.tryAcquire(signature(0), NOW - 61, NOW));
+		Assert.assertFalse(guard.tryAcquire(signature(0), NOW + 61, NOW));
+		Assert.assertTrue(guard.tryAcquire(signature(0), NOW - 60, NOW));
+		Assert.assertTrue(guard.tryAcquire(signature(1), NOW + 60, NOW));
+		Assert.assertEquals(2, guard.size());
+	}
+
+	@Test
+	public void replay() {
+		ReplayGuard guard = new ReplayGuard(60, 1024);
+		Assert.assertTrue(guard.tryAcquire(signature(0), NOW, NOW));
+		Assert.assertFalse(guard.tryAcquire(signature(0), NOW, NOW + 30));
+		// 离开窗口后的条目被淘汰,但同一请求也已超出窗口
+		Assert.assertFalse(guard.tryAcquire(signature(0), NOW, NOW + 61));
+		Assert.assertTrue(guard.tryAcquire(signature(1), NOW + 61, NOW + 61));
+	}
+
+	@Test
+	public void overflow() {
+		// 每段一个条目
+		ReplayGuard guard = new ReplayGuard(60, 64);
+		int accepted = 0;
+		for (int i = 0; i < 1000; i++) {
+			if (guard.tryAcquire(signature(i), NOW, NOW)) {
+				accepted++;
+			}
+		}
+		// 段满后同一秒的请求无法确认是否重放
+		Assert.assertTrue(accepted <= 128);
+		Assert.assertTrue(guard.size() <= 64);
+		for (int i = 0; i < 1000; i++) {
+			Assert.assertFalse(guard.tryAcquire(signature(i), NOW, NOW));
+		}
+		Assert.assertTrue(guard.tryAcquire(signature(1000), NOW + 1, NOW + 1));
+	}
+
+	@Test
+	public void randomized() {
+		// 与按时间淘汰的简单模型对比,容量足够时两者结果一致
+		int skew = 5;
+		ReplayGuard guard = new ReplayGuard(skew, 64 * 1024);
+		Random random = new Random(7);
+		Set<String> seen = new HashSet<String>();
+		Deque<Object[]> order = new ArrayDeque<Object[]>();
+		for (long now = NOW; now < NOW + 100; now++) {
+			while (!order.isEmpty() && (Long) order.peekFirst()[1] < now - skew) {
+				seen.remove(order.pollFirst()[0]);
+			}
+			for (int n = 0; n < 500; n++) {
+				String signature = signature(random.nextInt(20000));
+				boolean expected = !seen.contains(signature);
+				Assert.assertEquals(expected,
+						guard.tryAcquire(signature, now, now));
+				if (expected) {
+					seen.add(signature);
+					order.addLast(new Object[] { signature, now });
+				}
+			}
+			// 过期条目在所在的段被访问时才清理
+			Assert.assertTrue(seen.size() <= guard.size());
+		}
+	}
+}
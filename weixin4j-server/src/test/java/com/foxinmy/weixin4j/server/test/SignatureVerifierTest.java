@@ -0,0 +1,72 @@
+package com.foxinmy.weixin4j.server.test;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.foxinmy.weixin4j.util.MessageUtil;
+import com.foxinmy.weixin4j.util.SignatureVerifier;
+
+/**
+ * 签名校验测试:结果必须与MessageUtil.signature一致
+ *
+ * @className SignatureVerifierTest
+ * @author jy
+ * @date 2015年7月5日
+ * @since JDK 1.7
+ * @see
+ */
+public class SignatureVerifierTest {
+
+	private static final String TOKEN = "weixin4j";
+
+	private String random(Random random, int length, boolean ascii) {
+		StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			sb.append(ascii ? (char) (0x21 + random.nextInt(0x5e))
+					: (char) (0x4e00 + random.nextInt(0x5000)));
+		}
+		return sb.toString();
+	}
+
+	@Test
+	public void verify() {
+		SignatureVerifier verifier = new SignatureVerifier(TOKEN);
+		String signature = MessageUtil.signature(TOKEN, "1433903433",
+				"1961697383");
+		Assert.assertTrue(verifier.verify(signature, "1433903433", "1961697383"));
+		Assert.assertFalse(verifier.verify(signature, "1433903434",
+				"1961697383"));
+		Assert.assertFalse(verifier.verify(signature.toUpperCase(),
+				"1433903433", "1961697383"));
+		Assert.assertFalse(verifier.verify(signature.substring(1),
+				"1433903433", "1961697383"));
+		Assert.assertFalse(verifier.verify(null, "1433903433", "1961697383"));
+		Assert.assertFalse(verifier.verify(signature, null, "1961697383"));
+	}
+
+	@Test
+	public void randomized() {
+		Random random = new Random(7);
+		for (int i = 0; i < 2000; i++) {
+			String token = random(random, 1 + random.nextInt(32), true);
+			String timestamp = Integer.toString(random.nextInt(Integer.MAX_VALUE));
+			String nonce = random(random, random.nextInt(16), i % 5 != 0);
+			// 超过缓冲区长度的密文,以及中途出现的非ASCII字符
+			String encrypt = random(random, random.nextInt(3000), true)
+					+ (i % 3 == 0 ? random(random, 3, false) : "");
+			SignatureVerifier verifier = new SignatureVerifier(token);
+			String signature = MessageUtil.signature(token, timestamp, nonce);
+			String msgSignature = MessageUtil.signature(token, timestamp,
+					nonce, encrypt);
+			Assert.assertTrue(verifier.verify(signature, timestamp, nonce));
+			Assert.assertTrue(verifier.verify(msgSignature, timestamp, nonce,
+					encrypt));
+			Assert.assertFalse(verifier.verify(signature, timestamp, nonce,
+					encrypt));
+			Assert.assertEquals(msgSignature,
+					verifier.sign(timestamp, nonce, encrypt));
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package com.foxinmy.weixin4j.server.test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.foxinmy.weixin4j.dispatcher.MessageKey;
+import com.foxinmy.weixin4j.dispatcher.WeixinMessageDispatcher;
+import com.foxinmy.weixin4j.logging.WeixinAccessLog;
+import com.foxinmy.weixin4j.response.TextResponse;
+import com.foxinmy.weixin4j.socket.WeixinMessageTransfer;
+import com.foxinmy.weixin4j.tenant.WeixinTenant;
+import com.foxinmy.weixin4j.type.EncryptType;
+import com.foxinmy.weixin4j.util.AesToken;
+import com.foxinmy.weixin4j.util.Consts;
+
+/**
+ * 访问日志测试
+ *
+ * @className WeixinAccessLogTest
+ * @author jy
+ * @date 2015年7月7日
+ * @since JDK 1.7
+ * @see
+ */
+public class WeixinAccessLogTest {
+
+	private final WeixinMessageTransfer messageTransfer = new WeixinMessageTransfer(
+			new WeixinTenant(new AesToken("weixin4j"),
+					new WeixinMessageDispatcher()), 3, true, EncryptType.RAW,
+			"owGBft_vbBbOaQOmpEUE4xDLeRSU", "gh_22b350df957b", new MessageKey(
+					"text", null, null));
+
+	@Test
+	public void format() {
+		ByteBuf content = Unpooled.copiedBuffer("<xml>hello world</xml>",
+				Consts.UTF_8);
+		String line = new WeixinAccessLog().format(messageTransfer,
+				new TextResponse("hello world"), content);
+		Assert.assertTrue(line
+				.startsWith("account=gh_22b350df957b seq=3 encrypt=RAW msgType=text eventType=- reply=text bytes=22 keepAlive=true elapsedMs="));
+		Assert.assertFalse(line.contains("owGBft_vbBbOaQOmpEUE4xDLeRSU"));
+		Assert.assertFalse(line.contains("hello"));
+
+		line = new WeixinAccessLog(1d, true).format(messageTransfer,
+				new TextResponse("hello world"), content);
+		Assert.assertTrue(line
+				.endsWith(" user=owGBft_vbBbOaQOmpEUE4xDLeRSU content=\"<xml>hello world</xml>\""));
+		content.release();
+	}
+
+	@Test
+	public void sample() {
+		Assert.assertFalse(new WeixinAccessLog(0d, false).sample());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void sampleRate() {
+		new WeixinAccessLog(1.5d, false);
+	}
+}
@@ -0,0 +1,115 @@
+package com.foxinmy.weixin4j.server.test;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.ReferenceCountUtil;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.foxinmy.weixin4j.dispatcher.MessageKey;
+import com.foxinmy.weixin4j.handler.DebugMessageHandler;
+import com.foxinmy.weixin4j.metrics.DefaultWeixinMetrics;
+import com.foxinmy.weixin4j.metrics.LatencyHistogram;
+import com.foxinmy.weixin4j.metrics.MetricsStage;
+import com.foxinmy.weixin4j.socket.InflightRequests;
+import com.foxinmy.weixin4j.socket.WeixinMetricsHandler;
+import com.foxinmy.weixin4j.util.Consts;
+
+/**
+ * 统计测试
+ *
+ * @className WeixinMetricsTest
+ * @author jy
+ * @date 2015年7月6日
+ * @since JDK 1.7
+ * @see
+ */
+public class WeixinMetricsTest {
+
+	private final MessageKey textKey = new MessageKey("text", null, null);
+
+	@Test
+	public void histogram() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		Assert.assertEquals(0d, histogram.getQuantileMillis(0.5d), 0d);
+		for (int i = 0; i < 99; i++) {
+			histogram.record(80000l); // 80微秒
+		}
+		histogram.record(30000000l); // 30毫秒
+		Assert.assertEquals(100l, histogram.getCount());
+		Assert.assertEquals(0.1d, histogram.getQuantileMillis(0.5d), 0d);
+		Assert.assertEquals(0.1d, histogram.getQuantileMillis(0.99d), 0d);
+		Assert.assertEquals(50d, histogram.getQuantileMillis(1d), 0d);
+		Assert.assertEquals(30d, histogram.getMaxMillis(), 0d);
+	}
+
+	@Test
+	public void record() {
+		DefaultWeixinMetrics metrics = new DefaultWeixinMetrics();
+		metrics.recordStage(MetricsStage.DECODE, textKey, 1000l);
+		metrics.recordStage(MetricsStage.DECODE,
+				new MessageKey("text", null, null), 1000l);
+		metrics.recordStage(MetricsStage.ENCODE, null, 1000l);
+		metrics.recordHandler(DebugMessageHandler.class, 1000l, false);
+		metrics.recordHandler(DebugMessageHandler.class, 1000l, true);
+		Assert.assertEquals(2l, metrics.getStage(MetricsStage.DECODE, textKey)
+				.getCount());
+		Assert.assertEquals(0l,
+				metrics.getStage(MetricsStage.HANDLER, textKey).getCount());
+		Assert.assertEquals(1l, metrics.getStage(MetricsStage.ENCODE, null)
+				.getCount());
+		Assert.assertEquals(2l, metrics.getHandler(DebugMessageHandler.class)
+				.getCount());
+		Assert.assertEquals(1l,
+				metrics.getHandlerErrors(DebugMessageHandler.class));
+		Assert.assertNull(metrics.getHandler(Object.class));
+	}
+
+	@Test
+	public void endpoint() {
+		DefaultWeixinMetrics metrics = new DefaultWeixinMetrics();
+		metrics.recordStage(MetricsStage.DISPATCH, textKey, 1000l);
+		metrics.recordHandler(DebugMessageHandler.class, 1000l, true);
+		EmbeddedChannel channel = new EmbeddedChannel(new WeixinMetricsHandler(
+				metrics, "/metrics", new InflightRequests()));
+		channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1,
+				HttpMethod.GET, "/metrics"));
+		FullHttpResponse response = (FullHttpResponse) channel.readOutbound();
+		Assert.assertEquals(HttpResponseStatus.OK, response.getStatus());
+		String text = response.content().toString(Consts.UTF_8);
+		ReferenceCountUtil.release(response);
+		Assert.assertTrue(text.contains("weixin4j_inflight_requests 0"));
+		Assert.assertTrue(text
+				.contains("weixin4j_stage_count{stage=\"dispatch\",msgType=\"text\",eventType=\"\",accountType=\"\"} 1"));
+		Assert.assertTrue(text.contains("weixin4j_handler_error_rate{handler=\""
+				+ DebugMessageHandler.class.getName() + "\"} 1.000"));
+		Assert.assertFalse(channel.isOpen());
+
+		channel = new EmbeddedChannel(new WeixinMetricsHandler(metrics,
+				"/metrics", new InflightRequests()));
+		channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1,
+				HttpMethod.GET, "/metrics?format=json"));
+		response = (FullHttpResponse) channel.readOutbound();
+		String json = response.content().toString(Consts.UTF_8);
+		ReferenceCountUtil.release(response);
+		Assert.assertTrue(json.startsWith("{\"inflightRequests\":0,"));
+		Assert.assertTrue(json.contains("\"errors\":1"));
+	}
+
+	@Test
+	public void passThrough() {
+		EmbeddedChannel channel = new EmbeddedChannel(new WeixinMetricsHandler(
+				new DefaultWeixinMetrics(), "/metrics", new InflightRequests()));
+		DefaultFullHttpRequest request = new DefaultFullHttpRequest(
+				HttpVersion.HTTP_1_1, HttpMethod.POST, "/metrics");
+		channel.writeInbound(request);
+		Assert.assertSame(request, channel.readInbound());
+		Assert.assertNull(channel.readOutbound());
+		ReferenceCountUtil.release(request);
+	}
+}
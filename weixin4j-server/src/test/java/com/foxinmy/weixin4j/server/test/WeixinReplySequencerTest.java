@@ -0,0 +1,108 @@
+package com.foxinmy.weixin4j.server.test;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.foxinmy.weixin4j.dispatcher.WeixinMessageDispatcher;
+import com.foxinmy.weixin4j.response.TextResponse;
+import com.foxinmy.weixin4j.socket.WeixinHttpReply;
+import com.foxinmy.weixin4j.socket.WeixinMessageReply;
+import com.foxinmy.weixin4j.socket.WeixinMessageTransfer;
+import com.foxinmy.weixin4j.socket.WeixinReplySequencer;
+import com.foxinmy.weixin4j.socket.WeixinResponseEncoder;
+import com.foxinmy.weixin4j.tenant.WeixinTenant;
+import com.foxinmy.weixin4j.type.EncryptType;
+import com.foxinmy.weixin4j.util.AesToken;
+import com.foxinmy.weixin4j.util.Consts;
+import com.foxinmy.weixin4j.util.HttpUtil;
+
+/**
+ * 同一连接上多个请求的回复测试
+ *
+ * @className WeixinReplySequencerTest
+ * @author jy
+ * @date 2015年6月30日
+ * @since JDK 1.7
+ * @see
+ */
+public class WeixinReplySequencerTest {
+
+	private final WeixinTenant tenant = new WeixinTenant(new AesToken(
+			"weixin4j"), new WeixinMessageDispatcher());
+
+	private EmbeddedChannel channel() {
+		return new EmbeddedChannel(new WeixinResponseEncoder(),
+				new WeixinReplySequencer());
+	}
+
+	private WeixinMessageReply reply(int sequence, boolean keepAlive,
+			String openId) {
+		return new WeixinMessageReply(new WeixinMessageTransfer(tenant,
+				sequence, keepAlive, EncryptType.RAW, openId, "gh_22b350df957b"),
+				new TextResponse(openId));
+	}
+
+	private String readContent(EmbeddedChannel channel) {
+		FullHttpResponse response = (FullHttpResponse) channel.readOutbound();
+		try {
+			return response.content().toString(Consts.UTF_8);
+		} finally {
+			response.release();
+		}
+	}
+
+	@Test
+	public void inOrder() {
+		EmbeddedChannel channel = channel();
+		channel.writeAndFlush(reply(2, true, "user2"));
+		channel.writeAndFlush(reply(1, true, "user1"));
+		Assert.assertNull(channel.readOutbound());
+		channel.writeAndFlush(reply(0, true, "user0"));
+		for (int i = 0; i < 3; i++) {
+			String content = readContent(channel);
+			// 每个回复使用自己请求的上下文
+			Assert.assertTrue(content
+					.contains("<ToUserName><![CDATA[user" + i + "]]></ToUserName>"));
+			Assert.assertTrue(content
+					.contains("<Content><![CDATA[user" + i + "]]></Content>"));
+		}
+		Assert.assertNull(channel.readOutbound());
+		Assert.assertTrue(channel.isOpen());
+	}
+
+	@Test
+	public void closeWithoutKeepAlive() {
+		EmbeddedChannel channel = channel();
+		channel.writeAndFlush(reply(0, false, "user0"));
+		FullHttpResponse response = (FullHttpResponse) channel.readOutbound();
+		Assert.assertEquals(HttpHeaders.Values.CLOSE, response.headers().get(
+				HttpHeaders.Names.CONNECTION));
+		response.release();
+		channel.runPendingTasks();
+		Assert.assertFalse(channel.isOpen());
+	}
+
+	@Test
+	public void errorReplyInOrder() {
+		EmbeddedChannel channel = channel();
+		// 第二个请求的404先完成,仍然在第一个请求的回复之后写出
+		channel.writeAndFlush(new WeixinHttpReply(new WeixinMessageTransfer(
+				tenant, 1, true, EncryptType.RAW, null, null), HttpUtil
+				.createHttpResponse(null, HttpResponseStatus.NOT_FOUND, null)));
+		Assert.assertNull(channel.readOutbound());
+		channel.writeAndFlush(reply(0, true, "user0"));
+		Assert.assertTrue(readContent(channel).contains(
+				"<Content><![CDATA[user0]]></Content>"));
+		FullHttpResponse response = (FullHttpResponse) channel.readOutbound();
+		Assert.assertEquals(HttpResponseStatus.NOT_FOUND, response.getStatus());
+		response.release();
+		// 直接回复的响应写出之后关闭连接
+		channel.runPendingTasks();
+		Assert.assertFalse(channel.isOpen());
+	}
+}
@@ -0,0 +1,155 @@
+package com.foxinmy.weixin4j.server.test;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.ReferenceCountUtil;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.foxinmy.weixin4j.dispatcher.WeixinMessageDispatcher;
+import com.foxinmy.weixin4j.replay.ReplayGuard;
+import com.foxinmy.weixin4j.socket.WeixinRequestValidator;
+import com.foxinmy.weixin4j.tenant.WeixinTenant;
+import com.foxinmy.weixin4j.tenant.WeixinTenantRouter;
+import com.foxinmy.weixin4j.util.AesToken;
+import com.foxinmy.weixin4j.util.MessageUtil;
+
+/**
+ * 请求头阶段的校验测试
+ *
+ * @className WeixinRequestValidatorTest
+ * @author jy
+ * @date 2015年7月4日
+ * @since JDK 1.7
+ * @see
+ */
+public class WeixinRequestValidatorTest {
+
+	private static final String TIMESTAMP = "1433903433";
+	private static final String NONCE = "1961697383";
+
+	private EmbeddedChannel channel() {
+		WeixinTenantRouter router = new WeixinTenantRouter(new WeixinTenant(
+				new AesToken("weixin4j"), new WeixinMessageDispatcher()));
+		router.register(new WeixinTenant(new AesToken("other"),
+				new WeixinMessageDispatcher()).path("/other"));
+		return new EmbeddedChannel(new WeixinRequestValidator(router, 16));
+	}
+
+	private String uri(String path, String token) {
+		return path + "?signature="
+				+ MessageUtil.signature(token, TIMESTAMP, NONCE)
+				+ "&timestamp=" + TIMESTAMP + "&nonce=" + NONCE;
+	}
+
+	private HttpRequest request(HttpMethod method, String uri, int length) {
+		HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1,
+				method, uri);
+		HttpHeaders.setContentLength(request, length);
+		return request;
+	}
+
+	private HttpResponseStatus rejected(EmbeddedChannel channel) {
+		channel.runPendingTasks();
+		Assert.assertFalse(channel.isOpen());
+		Assert.assertNull(channel.readInbound());
+		HttpResponse response = (HttpResponse) channel.readOutbound();
+		ReferenceCountUtil.release(response);
+		return response.getStatus();
+	}
+
+	@Test
+	public void accept() {
+		EmbeddedChannel channel = channel();
+		channel.writeInbound(request(HttpMethod.POST, uri("/", "weixin4j"), 4));
+		Assert.assertTrue(channel.readInbound() instanceof HttpRequest);
+		channel.writeInbound(new DefaultLastHttpContent(Unpooled
+				.wrappedBuffer(new byte[4])));
+		HttpContent content = (HttpContent) channel.readInbound();
+		Assert.assertEquals(4, content.content().readableBytes());
+		content.release();
+		// 路径未匹配时任一公众号的token都可以通过
+		channel.writeInbound(request(HttpMethod.GET, uri("/", "other"), 0));
+		Assert.assertTrue(channel.readInbound() instanceof HttpRequest);
+		channel.writeInbound(request(HttpMethod.GET, uri("/other", "other"), 0));
+		Assert.assertTrue(channel.readInbound() instanceof HttpRequest);
+		Assert.assertNull(channel.readOutbound());
+	}
+
+	@Test
+	public void forbidden() {
+		EmbeddedChannel channel = channel();
+		HttpContent content = new DefaultHttpContent(
+				Unpooled.wrappedBuffer(new byte[4]));
+		// 同一次读取中解码出的请求体在连接关闭后仍会到达
+		channel.writeInbound(request(HttpMethod.POST, uri("/", "unknown"), 4),
+				content);
+		// 被拒绝的请求体直接释放
+		Assert.assertEquals(0, content.refCnt());
+		Assert.assertEquals(HttpResponseStatus.FORBIDDEN, rejected(channel));
+	}
+
+	@Test
+	public void pathToken() {
+		EmbeddedChannel channel = channel();
+		channel.writeInbound(request(HttpMethod.GET, uri("/other", "weixin4j"),
+				0));
+		Assert.assertEquals(HttpResponseStatus.FORBIDDEN, rejected(channel));
+	}
+
+	@Test
+	public void missingParameter() {
+		EmbeddedChannel channel = channel();
+		channel.writeInbound(request(HttpMethod.POST, "/?timestamp="
+				+ TIMESTAMP + "&nonce=" + NONCE, 0));
+		Assert.assertEquals(HttpResponseStatus.FORBIDDEN, rejected(channel));
+	}
+
+	@Test
+	public void tooLarge() {
+		EmbeddedChannel channel = channel();
+		channel.writeInbound(request(HttpMethod.POST, uri("/", "weixin4j"), 17));
+		Assert.assertEquals(HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE,
+				rejected(channel));
+	}
+
+	@Test
+	public void replay() {
+		WeixinTenantRouter router = new WeixinTenantRouter(new WeixinTenant(
+				new AesToken("weixin4j"), new WeixinMessageDispatcher()));
+		EmbeddedChannel channel = new EmbeddedChannel(
+				new WeixinRequestValidator(router, 16, new ReplayGuard()));
+		String timestamp = Long.toString(System.currentTimeMillis() / 1000l);
+		String uri = "/?signature="
+				+ MessageUtil.signature("weixin4j", timestamp, NONCE)
+				+ "&timestamp=" + timestamp + "&nonce=" + NONCE;
+		channel.writeInbound(request(HttpMethod.GET, uri, 0));
+		Assert.assertTrue(channel.readInbound() instanceof HttpRequest);
+		channel.writeInbound(request(HttpMethod.GET, uri, 0));
+		Assert.assertEquals(HttpResponseStatus.FORBIDDEN, rejected(channel));
+		// 超出时间窗口
+		channel = new EmbeddedChannel(new WeixinRequestValidator(router, 16,
+				new ReplayGuard()));
+		channel.writeInbound(request(HttpMethod.GET, uri("/", "weixin4j"), 0));
+		Assert.assertEquals(HttpResponseStatus.FORBIDDEN, rejected(channel));
+	}
+
+	@Test
+	public void methodNotAllowed() {
+		EmbeddedChannel channel = channel();
+		channel.writeInbound(request(HttpMethod.PUT, uri("/", "weixin4j"), 0));
+		Assert.assertEquals(HttpResponseStatus.METHOD_NOT_ALLOWED,
+				rejected(channel));
+	}
+}
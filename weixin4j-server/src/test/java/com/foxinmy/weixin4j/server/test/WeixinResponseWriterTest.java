@@ -0,0 +1,144 @@
+package com.foxinmy.weixin4j.server.test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaders;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.foxinmy.weixin4j.dispatcher.WeixinMessageDispatcher;
+import com.foxinmy.weixin4j.response.BlankResponse;
+import com.foxinmy.weixin4j.response.ImageResponse;
+import com.foxinmy.weixin4j.response.MusicResponse;
+import com.foxinmy.weixin4j.response.NewsResponse;
+import com.foxinmy.weixin4j.response.NewsResponse.Article;
+import com.foxinmy.weixin4j.response.TextResponse;
+import com.foxinmy.weixin4j.response.TransferCustomerResponse;
+import com.foxinmy.weixin4j.response.VideoResponse;
+import com.foxinmy.weixin4j.response.VoiceResponse;
+import com.foxinmy.weixin4j.response.WeixinResponse;
+import com.foxinmy.weixin4j.response.WritableResponse;
+import com.foxinmy.weixin4j.socket.WeixinMessageReply;
+import com.foxinmy.weixin4j.socket.WeixinMessageTransfer;
+import com.foxinmy.weixin4j.socket.WeixinResponseEncoder;
+import com.foxinmy.weixin4j.socket.WeixinResponseWriter;
+import com.foxinmy.weixin4j.tenant.WeixinTenant;
+import com.foxinmy.weixin4j.type.EncryptType;
+import com.foxinmy.weixin4j.util.AesToken;
+import com.foxinmy.weixin4j.util.Consts;
+import com.foxinmy.weixin4j.xml.CruxMessageReader;
+import com.foxinmy.weixin4j.xml.XmlWriter;
+
+/**
+ * 回复写入测试:写入的内容必须与toContent一致
+ *
+ * @className WeixinResponseWriterTest
+ * @author jy
+ * @date 2015年6月28日
+ * @since JDK 1.7
+ * @see
+ */
+public class WeixinResponseWriterTest {
+
+	private String write(WritableResponse response) {
+		ByteBuf buf = UnpooledByteBufAllocator.DEFAULT.heapBuffer();
+		try {
+			response.writeTo(new XmlWriter(buf));
+			return buf.toString(Consts.UTF_8);
+		} finally {
+			buf.release();
+		}
+	}
+
+	private List<WritableResponse> responses() {
+		List<WritableResponse> responses = new ArrayList<WritableResponse>();
+		responses.add(new TextResponse("中文 emoji 😀 <&>"));
+		responses.add(new ImageResponse("media_id"));
+		responses.add(new VoiceResponse("media_id"));
+		VideoResponse video = new VideoResponse("media_id");
+		video.setTitle("标题");
+		responses.add(video);
+		MusicResponse music = new MusicResponse("thumb");
+		music.setTitle("title");
+		music.setMusicUrl("http://music");
+		responses.add(music);
+		NewsResponse news = new NewsResponse(new ArrayList<Article>());
+		for (int i = 0; i < 8; i++) {
+			news.pushArticle(news.new Article("标题" + i, "描述" + i,
+					"http://url/" + i, null));
+		}
+		responses.add(news);
+		TransferCustomerResponse transfer = new TransferCustomerResponse();
+		responses.add(transfer);
+		transfer = new TransferCustomerResponse();
+		transfer.setKfAccount("test1@test");
+		responses.add(transfer);
+		responses.add(BlankResponse.global);
+		return responses;
+	}
+
+	@Test
+	public void writeTo() {
+		for (WritableResponse response : responses()) {
+			Assert.assertEquals(response.toContent(), write(response));
+		}
+	}
+
+	@Test
+	public void writeMessage() {
+		WeixinResponse response = new TextResponse("hello");
+		ByteBuf buf = WeixinResponseWriter.writeMessage(
+				PooledByteBufAllocator.DEFAULT, response, "to", "from", 123l);
+		try {
+			Assert.assertEquals("<xml><ToUserName><![CDATA[to]]></ToUserName>"
+					+ "<FromUserName><![CDATA[from]]></FromUserName>"
+					+ "<CreateTime><![CDATA[123]]></CreateTime>"
+					+ "<MsgType><![CDATA[text]]></MsgType>"
+					+ response.toContent() + "</xml>",
+					buf.toString(Consts.UTF_8));
+		} finally {
+			buf.release();
+		}
+	}
+
+	@Test
+	public void cdataEnd() {
+		Assert.assertEquals(
+				"<Content><![CDATA[a]]]]><![CDATA[>b]]></Content>",
+				write(new TextResponse("a]]>b")));
+	}
+
+	@Test
+	public void encodeAes() throws Exception {
+		String appid = "wx0d1d598c0c03c999";
+		String aesKey = "abcdefghijklmnopqrstuvwxyz0123456789ABCDEFG";
+		AesToken aesToken = new AesToken(appid, "token", aesKey);
+		EmbeddedChannel channel = new EmbeddedChannel(
+				new WeixinResponseEncoder());
+		WeixinTenant tenant = new WeixinTenant(aesToken,
+				new WeixinMessageDispatcher());
+		channel.writeOutbound(new WeixinMessageReply(
+				new WeixinMessageTransfer(tenant, 0, true, EncryptType.AES,
+						"openid", appid), new TextResponse("中文")));
+		FullHttpResponse httpResponse = (FullHttpResponse) channel
+				.readOutbound();
+		try {
+			Assert.assertEquals(httpResponse.content().readableBytes(),
+					HttpHeaders.getContentLength(httpResponse));
+			String encrypt = CruxMessageReader.read(httpResponse.content())
+					.getEncryptContent();
+			Assert.assertTrue(aesToken.getCrypto().decrypt(encrypt)
+					.toString(Consts.UTF_8)
+					.contains("<Content><![CDATA[中文]]></Content>"));
+		} finally {
+			httpResponse.release();
+		}
+	}
+}
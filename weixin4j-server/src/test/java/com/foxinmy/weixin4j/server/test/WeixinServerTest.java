@@ -0,0 +1,283 @@
+package com.foxinmy.weixin4j.server.test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.channel.ChannelHandlerContext;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.foxinmy.weixin4j.dispatcher.WeixinMessageDispatcher;
+import com.foxinmy.weixin4j.exception.WeixinException;
+import com.foxinmy.weixin4j.handler.Blocking;
+import com.foxinmy.weixin4j.handler.WeixinMessageHandler;
+import com.foxinmy.weixin4j.interceptor.MessageInterceptorAdapter;
+import com.foxinmy.weixin4j.request.WeixinRequest;
+import com.foxinmy.weixin4j.response.TextResponse;
+import com.foxinmy.weixin4j.response.WeixinResponse;
+import com.foxinmy.weixin4j.startup.WeixinServer;
+import com.foxinmy.weixin4j.startup.WeixinServerBootstrap;
+import com.foxinmy.weixin4j.tenant.WeixinTenant;
+import com.foxinmy.weixin4j.util.AesToken;
+import com.foxinmy.weixin4j.util.Consts;
+import com.foxinmy.weixin4j.util.MessageUtil;
+
+/**
+ * 服务启动与停止测试
+ *
+ * @className WeixinServerTest
+ * @author jy
+ * @date 2015年7月2日
+ * @since JDK 1.7
+ * @see
+ */
+public class WeixinServerTest {
+
+	private static final String TOKEN = "weixin4j";
+	private static final int PORT = 30002;
+	private static final String TEXT_MESSAGE = "<xml><ToUserName><![CDATA[gh_22b350df957b]]></ToUserName>"
+			+ "<FromUserName><![CDATA[owGBft_vbBbOaQOmpEUE4xDLeRSU]]></FromUserName>"
+			+ "<CreateTime>1433903433</CreateTime><MsgType><![CDATA[text]]></MsgType>"
+			+ "<Content><![CDATA[hello]]></Content><MsgId>1</MsgId></xml>";
+
+	@Blocking
+	public static class SlowHandler implements WeixinMessageHandler {
+		@Override
+		public boolean canHandle(WeixinRequest request, Object message)
+				throws WeixinException {
+			return true;
+		}
+
+		@Override
+		public WeixinResponse doHandle(WeixinRequest request, Object message)
+				throws WeixinException {
+			try {
+				Thread.sleep(800);
+			} catch (InterruptedException e) {
+				throw new WeixinException(e);
+			}
+			return new TextResponse("slow");
+		}
+	}
+
+	private int push() throws IOException {
+		return push(PORT, null);
+	}
+
+	private int push(int port, StringBuilder body) throws IOException {
+		return push(port, "", TEXT_MESSAGE, body);
+	}
+
+	private int push(int port, String query, String xml, StringBuilder body)
+			throws IOException {
+		String timestamp = Long.toString(System.currentTimeMillis() / 1000l);
+		String nonce = "1961697383";
+		HttpURLConnection connection = (HttpURLConnection) new URL(
+				"http://127.0.0.1:" + port + "/?signature="
+						+ MessageUtil.signature(TOKEN, timestamp, nonce)
+						+ "&timestamp=" + timestamp + "&nonce=" + nonce + query)
+				.openConnection();
+		connection.setRequestMethod("POST");
+		connection.setReadTimeout(5000);
+		connection.setDoOutput(true);
+		try (OutputStream out = connection.getOutputStream()) {
+			out.write(xml.getBytes(Consts.UTF_8));
+		}
+		int status = connection.getResponseCode();
+		try (InputStream in = status < 400 ? connection.getInputStream()
+				: connection.getErrorStream()) {
+			byte[] buffer = new byte[1024];
+			// 没有内容的错误响应getErrorStream返回null
+			for (int read = in != null ? in.read(buffer) : -1; read != -1;
+					read = in.read(buffer)) {
+				if (body != null) {
+					body.append(new String(buffer, 0, read, Consts.UTF_8));
+				}
+			}
+		}
+		return status;
+	}
+
+	@Test
+	public void drain() throws Exception {
+		WeixinServer server = new WeixinServerBootstrap(TOKEN)
+				.addHandler(new SlowHandler()).dispatchExecutor(2, 16)
+				.start(1, 2, PORT);
+		ExecutorService client = Executors.newSingleThreadExecutor();
+		try {
+			Assert.assertTrue(server.awaitReady(5, TimeUnit.SECONDS));
+			Assert.assertTrue(server.isReady());
+			Future<Integer> inflight = client.submit(new Callable<Integer>() {
+				@Override
+				public Integer call() throws Exception {
+					return push();
+				}
+			});
+			long deadline = System.currentTimeMillis() + 5000l;
+			while (server.getInflightRequests() == 0
+					&& System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			Assert.assertEquals(1, server.getInflightRequests());
+			// 处理中的请求在停止时仍然得到回复
+			Assert.assertTrue(server.stop(5, TimeUnit.SECONDS));
+			Assert.assertEquals(200, inflight.get().intValue());
+			Assert.assertTrue(server.isStopped());
+			try {
+				push();
+				Assert.fail();
+			} catch (ConnectException e) {
+				// 停止后不再接受连接
+			}
+		} finally {
+			client.shutdownNow();
+			server.stop(0, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@Test
+	public void interceptorReply() throws Exception {
+		WeixinServer server = new WeixinServerBootstrap(TOKEN)
+				.addHandler(new WeixinMessageHandler() {
+					@Override
+					public boolean canHandle(WeixinRequest request,
+							Object message) throws WeixinException {
+						return true;
+					}
+
+					@Override
+					public WeixinResponse doHandle(WeixinRequest request,
+							Object message) throws WeixinException {
+						return new TextResponse("handled");
+					}
+				}).addInterceptor(new MessageInterceptorAdapter() {
+					@Override
+					public boolean preHandle(ChannelHandlerContext context,
+							WeixinRequest request, Object message,
+							WeixinMessageHandler handler)
+							throws WeixinException {
+						// 拦截器直接写出回复
+						context.writeAndFlush(new TextResponse("intercepted"));
+						return false;
+					}
+				}).start(1, 2, PORT + 2);
+		try {
+			Assert.assertTrue(server.awaitReady(5, TimeUnit.SECONDS));
+			StringBuilder body = new StringBuilder();
+			Assert.assertEquals(200, push(PORT + 2, body));
+			Assert.assertTrue(body.toString().contains(
+					"<Content><![CDATA[intercepted]]></Content>"));
+			Assert.assertTrue(body.toString().contains(
+					"<ToUserName><![CDATA[owGBft_vbBbOaQOmpEUE4xDLeRSU]]></ToUserName>"));
+		} finally {
+			server.stop(0, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@Test
+	public void releaseUnreplied() throws Exception {
+		WeixinServer server = new WeixinServerBootstrap(TOKEN).deduplicate()
+				.start(1, 2, PORT + 3);
+		try {
+			Assert.assertTrue(server.awaitReady(5, TimeUnit.SECONDS));
+			// 没有处理器的消息不登记,重试时仍然重新分发
+			Assert.assertEquals(404, push(PORT + 3, null));
+			Assert.assertEquals(404, push(PORT + 3, null));
+		} finally {
+			server.stop(0, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@Test
+	public void aesWithoutEncrypt() throws Exception {
+		WeixinServer server = new WeixinServerBootstrap(TOKEN).start(1, 2,
+				PORT + 4);
+		try {
+			Assert.assertTrue(server.awaitReady(5, TimeUnit.SECONDS));
+			// 安全模式下缺少Encrypt节点的消息回复403,而不是断开连接
+			Assert.assertEquals(403, push(PORT + 4,
+					"&encrypt_type=aes&msg_signature=0",
+					"<xml><ToUserName><![CDATA[gh_22b350df957b]]></ToUserName></xml>",
+					null));
+		} finally {
+			server.stop(0, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@Test
+	public void handlerFailed() throws Exception {
+		WeixinServer server = new WeixinServerBootstrap(TOKEN).addHandler(
+				new WeixinMessageHandler() {
+					@Override
+					public boolean canHandle(WeixinRequest request,
+							Object message) throws WeixinException {
+						return true;
+					}
+
+					@Override
+					public WeixinResponse doHandle(WeixinRequest request,
+							Object message) throws WeixinException {
+						throw new WeixinException("handle fail");
+					}
+				}).start(1, 2, PORT + 5);
+		try {
+			Assert.assertTrue(server.awaitReady(5, TimeUnit.SECONDS));
+			// handler抛出异常时仍然回复,不会挂起连接上后续的请求
+			Assert.assertEquals(500, push(PORT + 5, null));
+		} finally {
+			server.stop(0, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@Test
+	public void tenantAsyncTimeout() throws Exception {
+		WeixinMessageDispatcher inherited = new WeixinMessageDispatcher();
+		inherited.setMessageHandlerList(new ArrayList<WeixinMessageHandler>());
+		WeixinMessageDispatcher own = new WeixinMessageDispatcher();
+		own.setMessageHandlerList(new ArrayList<WeixinMessageHandler>());
+		own.setAsyncTimeout(2000l);
+		WeixinServer server = new WeixinServerBootstrap(TOKEN)
+				.asyncTimeout(1000l)
+				.addTenant(
+						new WeixinTenant(new AesToken("inherited"), inherited)
+								.path("/inherited"))
+				.addTenant(new WeixinTenant(new AesToken("own"), own)
+						.path("/own")).start(1, 2, PORT + 6);
+		try {
+			Assert.assertTrue(server.awaitReady(5, TimeUnit.SECONDS));
+			// 公众号没有设置超时时间时沿用服务的设置,设置了的保持不变
+			Assert.assertEquals(1000l, inherited.getAsyncTimeout());
+			Assert.assertEquals(2000l, own.getAsyncTimeout());
+		} finally {
+			server.stop(0, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@Test(expected = WeixinException.class)
+	public void bindFailed() throws Exception {
+		WeixinServer first = new WeixinServerBootstrap(TOKEN).start(1, 1,
+				PORT + 1);
+		WeixinServer second = null;
+		try {
+			first.awaitReady();
+			second = new WeixinServerBootstrap(TOKEN).start(1, 1, PORT + 1);
+			second.awaitReady();
+		} finally {
+			first.stop(0, TimeUnit.MILLISECONDS);
+			if (second != null) {
+				second.stop(0, TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+}
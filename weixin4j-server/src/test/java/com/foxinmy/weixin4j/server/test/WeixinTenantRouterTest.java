@@ -0,0 +1,102 @@
+package com.foxinmy.weixin4j.server.test;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.foxinmy.weixin4j.dispatcher.WeixinMessageDispatcher;
+import com.foxinmy.weixin4j.request.WeixinRequest;
+import com.foxinmy.weixin4j.socket.WeixinMessageDecoder;
+import com.foxinmy.weixin4j.tenant.WeixinTenant;
+import com.foxinmy.weixin4j.tenant.WeixinTenantRouter;
+import com.foxinmy.weixin4j.util.AesToken;
+import com.foxinmy.weixin4j.util.Consts;
+
+/**
+ * 多账号路由测试
+ *
+ * @className WeixinTenantRouterTest
+ * @author jy
+ * @date 2015年7月3日
+ * @since JDK 1.7
+ * @see
+ */
+public class WeixinTenantRouterTest {
+
+	private final WeixinTenant defaultTenant = new WeixinTenant(new AesToken(
+			"default"), new WeixinMessageDispatcher());
+	private final WeixinTenant pathTenant = new WeixinTenant(new AesToken(
+			"path"), new WeixinMessageDispatcher()).path("/account/a/");
+	private final WeixinTenant userNameTenant = new WeixinTenant(new AesToken(
+			"username"), new WeixinMessageDispatcher())
+			.toUserName("gh_22b350df957b");
+
+	private WeixinTenantRouter router() {
+		WeixinTenantRouter router = new WeixinTenantRouter(defaultTenant);
+		router.register(pathTenant);
+		router.register(userNameTenant);
+		return router;
+	}
+
+	private WeixinRequest decode(String uri, String toUserName) {
+		EmbeddedChannel channel = new EmbeddedChannel(new WeixinMessageDecoder(
+				router()));
+		String xml = "<xml><ToUserName><![CDATA["
+				+ toUserName
+				+ "]]></ToUserName>"
+				+ "<FromUserName><![CDATA[owGBft_vbBbOaQOmpEUE4xDLeRSU]]></FromUserName>"
+				+ "<CreateTime>1433903433</CreateTime><MsgType><![CDATA[text]]></MsgType>"
+				+ "<Content><![CDATA[hello]]></Content><MsgId>1</MsgId></xml>";
+		channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1,
+				HttpMethod.POST, uri, Unpooled.copiedBuffer(xml, Consts.UTF_8)));
+		return (WeixinRequest) channel.readInbound();
+	}
+
+	@Test
+	public void route() {
+		WeixinTenantRouter router = router();
+		Assert.assertSame(pathTenant, router.routePath("/account/a"));
+		Assert.assertSame(pathTenant, router.routePath("account/a//"));
+		Assert.assertNull(router.routePath("/account/b"));
+		Assert.assertSame(userNameTenant,
+				router.routeUserName("gh_22b350df957b"));
+		Assert.assertSame(defaultTenant, router.routeUserName("gh_unknown"));
+		Assert.assertSame(defaultTenant, router.routeUserName(null));
+		Assert.assertEquals(3, router.getTenants().size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void duplicatePath() {
+		router().register(
+				new WeixinTenant(new AesToken("other"),
+						new WeixinMessageDispatcher()).path("/account/a"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unroutable() {
+		router().register(
+				new WeixinTenant(new AesToken("other"),
+						new WeixinMessageDispatcher()));
+	}
+
+	@Test
+	public void decode() {
+		// 路径优先于ToUserName
+		Assert.assertSame(pathTenant,
+				decode("/account/a?timestamp=1&nonce=2", "gh_22b350df957b")
+						.getMessageTransfer().getTenant());
+		Assert.assertSame(userNameTenant,
+				decode("/?timestamp=1&nonce=2", "gh_22b350df957b")
+						.getMessageTransfer().getTenant());
+		WeixinRequest request = decode("/?timestamp=1&nonce=2", "gh_unknown");
+		Assert.assertSame(defaultTenant, request.getMessageTransfer()
+				.getTenant());
+		Assert.assertEquals("gh_unknown", request.getMessageTransfer()
+				.getAccountOpenId());
+	}
+}